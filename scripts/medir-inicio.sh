@@ -0,0 +1,67 @@
+#!/bin/sh
+#
+# Mede o tempo entre o início da JVM e a primeira resposta da API.
+#
+# Uso: scripts/medir-inicio.sh [padrao|treinar|cds] [argumentos da aplicação]
+#
+#   padrao   sobe a aplicação sem arquivo de CDS
+#   treinar  sobe a aplicação, atende uma requisição e grava o arquivo de CDS
+#            (target/inicio/app.jsa) com as classes carregadas até ali
+#   cds      sobe a aplicação usando o arquivo gerado pelo treino
+#
+# O CDS dinâmico exige JDK 13 ou superior (variável JAVA). O jar gerado pelo
+# "mvn package" é expandido em target/inicio, porque o CDS não lê jars
+# aninhados nem diretórios no classpath.
+#
+# Exemplo, com o perfil de inicialização rápida:
+#   mvn -DskipTests package
+#   scripts/medir-inicio.sh treinar --spring.profiles.active=inicio-rapido
+#   scripts/medir-inicio.sh cds --spring.profiles.active=inicio-rapido
+
+set -e
+
+MODO=${1:-padrao}
+[ $# -gt 0 ] && shift
+
+JAVA=${JAVA:-java}
+PORTA=${PORTA:-8080}
+URL=${URL:-http://localhost:$PORTA/api/lancamentos?usuario=0}
+DIR=target/inicio
+ARQUIVO_CDS=$DIR/app.jsa
+CLASSE=com.bmsantana.minhasfinancas.MinhasfinancasApplication
+
+if [ ! -f $DIR/app.jar ]; then
+	JAR=$(ls target/minhasfinancas-*.jar | grep -v original | head -n 1)
+	rm -rf $DIR && mkdir -p $DIR/expandido
+	(cd $DIR/expandido && unzip -q ../../../$JAR)
+	jar cf $DIR/app.jar -C $DIR/expandido/BOOT-INF/classes .
+fi
+CP=$DIR/app.jar:$(ls $DIR/expandido/BOOT-INF/lib/*.jar | sort | tr '\n' ':')
+
+case $MODO in
+	padrao) OPCOES="" ;;
+	treinar) OPCOES="-XX:ArchiveClassesAtExit=$ARQUIVO_CDS" ;;
+	cds) OPCOES="-XX:SharedArchiveFile=$ARQUIVO_CDS" ;;
+	*) echo "Modo inválido: $MODO" >&2; exit 1 ;;
+esac
+
+INICIO=$(date +%s%N)
+$JAVA $OPCOES $JAVA_OPTS -cp $CP $CLASSE --server.port=$PORTA "$@" > $DIR/$MODO.log 2>&1 &
+PID=$!
+
+while true; do
+	CODIGO=$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)
+	if [ "$CODIGO" != "000" ] && [ "$CODIGO" -lt 500 ]; then
+		break
+	fi
+	if ! kill -0 $PID 2>/dev/null; then
+		echo "A aplicação terminou antes de responder, veja $DIR/$MODO.log" >&2
+		exit 1
+	fi
+	sleep 0.02
+done
+FIM=$(date +%s%N)
+
+kill -TERM $PID
+wait $PID || true
+echo "$MODO: primeira resposta (HTTP $CODIGO) em $(( (FIM - INICIO) / 1000000 )) ms"
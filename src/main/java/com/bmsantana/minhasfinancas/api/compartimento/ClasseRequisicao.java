@@ -0,0 +1,46 @@
+package com.bmsantana.minhasfinancas.api.compartimento;
+
+/**
+ * Classes de requisição com limites de concorrência separados. O máximo de
+ * cada classe sai da lei de Little: vazão esperada (requisições por segundo)
+ * vezes a latência alvo. Com a latência alvo padrão de 200 ms os máximos são
+ * 40, 20, 4, 10 e 2. Cada limite começa na metade do máximo e se ajusta pela
+ * latência observada, então relatórios nunca ocupam todas as conexões e
+ * leituras e gravações rápidas seguem atendidas durante uma rajada de buscas.
+ */
+public enum ClasseRequisicao {
+
+	LEITURA(200, 2, false),
+	ESCRITA(100, 2, false),
+	RELATORIO(20, 1, false),
+	AUTENTICACAO(50, 1, false),
+	/** Limite fixo: a duração de uma importação depende do arquivo, não da carga. */
+	IMPORTACAO(10, 1, true);
+
+	private final int vazao;
+	private final int minimo;
+	private final boolean fixo;
+
+	ClasseRequisicao(int vazao, int minimo, boolean fixo) {
+		this.vazao = vazao;
+		this.minimo = minimo;
+		this.fixo = fixo;
+	}
+
+	public int getMaximo(long latenciaAlvoMs) {
+		return (int) Math.max(minimo, (vazao * latenciaAlvoMs + 999) / 1000);
+	}
+
+	public int getMinimo(long latenciaAlvoMs) {
+		return fixo ? getMaximo(latenciaAlvoMs) : minimo;
+	}
+
+	public int getInicial(long latenciaAlvoMs) {
+		return fixo ? getMaximo(latenciaAlvoMs) : Math.max(minimo, getMaximo(latenciaAlvoMs) / 2);
+	}
+
+	public String getNome() {
+		return name().toLowerCase();
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.bmsantana.minhasfinancas.api.compartimento;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coloca o endpoint sob o limite de concorrência da classe informada. Na
+ * classe do resource vale para os métodos sem anotação própria.
+ */
+@Documented
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Compartimento {
+
+	ClasseRequisicao value();
+
+}
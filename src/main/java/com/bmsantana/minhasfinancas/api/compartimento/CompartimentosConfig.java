@@ -0,0 +1,66 @@
+package com.bmsantana.minhasfinancas.api.compartimento;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.bmsantana.minhasfinancas.util.LimiteAdaptativo;
+
+/**
+ * Limites de concorrência por classe de requisição, ligados por
+ * minhasfinancas.compartimentos.habilitado. Os padrões saem da latência alvo
+ * (minhasfinancas.compartimentos.latencia-alvo-ms, ver ClasseRequisicao);
+ * cada classe pode ter inicial, minimo e maximo próprios em
+ * minhasfinancas.compartimentos.&lt;classe&gt;.*. Acima do limite a requisição
+ * aguarda uma vaga por até espera-ms antes de receber 503.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minhasfinancas.compartimentos.habilitado", havingValue = "true", matchIfMissing = true)
+public class CompartimentosConfig implements WebMvcConfigurer {
+
+	private final Environment ambiente;
+	private final long latenciaAlvoMs;
+	private final long esperaMs;
+	private final double tolerancia;
+	private final long retryAfterSegundos;
+
+	public CompartimentosConfig(Environment ambiente,
+			@Value("${minhasfinancas.compartimentos.latencia-alvo-ms:200}") long latenciaAlvoMs,
+			@Value("${minhasfinancas.compartimentos.espera-ms:50}") long esperaMs,
+			@Value("${minhasfinancas.compartimentos.tolerancia:2.0}") double tolerancia,
+			@Value("${minhasfinancas.compartimentos.retry-after-segundos:1}") long retryAfterSegundos) {
+		this.ambiente = ambiente;
+		this.latenciaAlvoMs = latenciaAlvoMs;
+		this.esperaMs = esperaMs;
+		this.tolerancia = tolerancia;
+		this.retryAfterSegundos = retryAfterSegundos;
+	}
+
+	@Bean
+	public CompartimentosRequisicao compartimentosRequisicao() {
+		Map<ClasseRequisicao, LimiteAdaptativo> limites = new EnumMap<>(ClasseRequisicao.class);
+		for(ClasseRequisicao classe : ClasseRequisicao.values()) {
+			String prefixo = "minhasfinancas.compartimentos." + classe.getNome() + ".";
+			int maximo = ambiente.getProperty(prefixo + "maximo", Integer.class, classe.getMaximo(latenciaAlvoMs));
+			limites.put(classe, new LimiteAdaptativo(
+					ambiente.getProperty(prefixo + "inicial", Integer.class, Math.min(maximo, classe.getInicial(latenciaAlvoMs))),
+					ambiente.getProperty(prefixo + "minimo", Integer.class, Math.min(maximo, classe.getMinimo(latenciaAlvoMs))),
+					maximo,
+					tolerancia));
+		}
+		return new CompartimentosRequisicao(limites, esperaMs, retryAfterSegundos);
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(compartimentosRequisicao());
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.bmsantana.minhasfinancas.api.compartimento;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.bmsantana.minhasfinancas.util.LimiteAdaptativo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Aplica os limites de concorrência dos endpoints marcados com
+ * Compartimento. Acima do limite a requisição aguarda uma vaga por pouco
+ * tempo e, sem vaga, recebe 503 com Retry-After em vez de esperar por uma
+ * conexão; a vaga é devolvida ao fim da requisição, com a latência observada
+ * alimentando o limite da classe. Erros e respostas 5xx derrubam o limite.
+ */
+public class CompartimentosRequisicao implements AsyncHandlerInterceptor {
+
+	private static final String ATRIBUTO = CompartimentosRequisicao.class.getName() + ".inicio";
+	private static final String MENSAGEM = "Servidor ocupado, tente novamente em instantes!";
+
+	private final Map<ClasseRequisicao, LimiteAdaptativo> limites = new EnumMap<>(ClasseRequisicao.class);
+	private final Map<ClasseRequisicao, Counter> rejeitadas = new EnumMap<>(ClasseRequisicao.class);
+	private final long esperaNanos;
+	private final String retryAfter;
+
+	public CompartimentosRequisicao(Map<ClasseRequisicao, LimiteAdaptativo> limites, long esperaMs, long retryAfterSegundos) {
+		this.limites.putAll(limites);
+		this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+		this.retryAfter = String.valueOf(retryAfterSegundos);
+		this.limites.forEach((classe, limite) -> {
+			Tags tags = Tags.of("classe", classe.getNome());
+			Metrics.gauge("minhasfinancas.compartimentos.limite", tags, limite, LimiteAdaptativo::limite);
+			Metrics.gauge("minhasfinancas.compartimentos.em-execucao", tags, limite, LimiteAdaptativo::emExecucao);
+			rejeitadas.put(classe, Metrics.counter("minhasfinancas.compartimentos.rejeitadas", tags));
+		});
+	}
+
+	public LimiteAdaptativo limite(ClasseRequisicao classe) {
+		return limites.get(classe);
+	}
+
+	/**
+	 * O despacho ASYNC de uma resposta assíncrona passa de novo pelo
+	 * interceptor, já com a resposta começada; a vaga dela foi tomada e
+	 * devolvida no despacho original, então esse não é limitado.
+	 */
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+		ClasseRequisicao classe = classe(handler);
+		if(classe == null || request.getDispatcherType() == DispatcherType.ASYNC || request.isAsyncStarted()) {
+			return true;
+		}
+		if(!limites.get(classe).adquirir(esperaNanos)) {
+			rejeitadas.get(classe).increment();
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+			response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+			response.getWriter().write(MENSAGEM);
+			return false;
+		}
+		request.setAttribute(ATRIBUTO, System.nanoTime());
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		Long inicio = retirarInicio(request);
+		if(inicio == null) {
+			return;
+		}
+		LimiteAdaptativo limite = limites.get(classe(handler));
+		if(ex != null || response.getStatus() >= 500) {
+			limite.liberarComFalha();
+		} else {
+			limite.liberar(System.nanoTime() - inicio);
+		}
+	}
+
+	/**
+	 * Respostas assíncronas (SSE) liberam a vaga quando o handler retorna, sem
+	 * contar a latência: a conexão aberta não ocupa o banco.
+	 */
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if(retirarInicio(request) != null) {
+			limites.get(classe(handler)).liberar(0);
+		}
+	}
+
+	private static Long retirarInicio(HttpServletRequest request) {
+		Long inicio = (Long) request.getAttribute(ATRIBUTO);
+		if(inicio != null) {
+			request.removeAttribute(ATRIBUTO);
+		}
+		return inicio;
+	}
+
+	private static ClasseRequisicao classe(Object handler) {
+		if(!(handler instanceof HandlerMethod)) {
+			return null;
+		}
+		HandlerMethod metodo = (HandlerMethod) handler;
+		Compartimento compartimento = AnnotatedElementUtils.findMergedAnnotation(metodo.getMethod(), Compartimento.class);
+		if(compartimento == null) {
+			compartimento = AnnotatedElementUtils.findMergedAnnotation(metodo.getBeanType(), Compartimento.class);
+		}
+		return compartimento != null ? compartimento.value() : null;
+	}
+
+}
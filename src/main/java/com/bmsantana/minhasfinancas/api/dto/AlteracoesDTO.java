@@ -0,0 +1,30 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.util.List;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resposta da sincronização. Com completo = true a lista traz todos os
+ * lançamentos do usuário e substitui a cópia do cliente; senão traz só os
+ * alterados desde o token enviado. O token devolvido vai na próxima chamada;
+ * com maisAlteracoes = true ela deve ser feita em seguida.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlteracoesDTO {
+
+	private String token;
+	private boolean completo;
+	private boolean maisAlteracoes;
+	private List<Lancamento> lancamentos;
+	private List<Long> removidos;
+
+}
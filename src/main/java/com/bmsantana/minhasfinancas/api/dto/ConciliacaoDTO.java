@@ -0,0 +1,22 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ConciliacaoDTO {
+
+	private String situacao;
+	private LocalDateTime inicio;
+	private LocalDateTime fim;
+	private Long usuariosProcessados;
+	private Long usuariosVerificados;
+	private Long divergencias;
+	private List<DivergenciaDTO> exemplosDivergencia;
+	private String erro;
+
+}
@@ -0,0 +1,16 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DivergenciaDTO {
+
+	private Long usuario;
+	private BigDecimal saldoCalculado;
+	private BigDecimal saldoEmMemoria;
+
+}
@@ -0,0 +1,28 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoDTO {
+
+	private String situacao;
+	private String formato;
+	private LocalDateTime inicio;
+	private LocalDateTime fim;
+	private long linhasLidas;
+	private long importadas;
+	private long duplicadas;
+	private long rejeitadas;
+	private List<String> rejeicoes;
+	private String erro;
+
+}
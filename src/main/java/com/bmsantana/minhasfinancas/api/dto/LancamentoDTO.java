@@ -11,11 +11,13 @@ public class LancamentoDTO {
 	
 	private Long id;
 	private String descricao;
+	private String categoria;
 	private Integer mes;
 	private Integer ano;
 	private BigDecimal valor;
 	private Long usuario;
 	private String tipo;
 	private String status;
+	private Integer parcelas;
 
 }
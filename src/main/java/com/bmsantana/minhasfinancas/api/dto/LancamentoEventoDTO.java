@@ -0,0 +1,15 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LancamentoEventoDTO {
+
+	private String tipo;
+	private Lancamento lancamento;
+
+}
@@ -0,0 +1,23 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LancamentoRecorrenteDTO {
+
+	private Long id;
+	private String descricao;
+	private String categoria;
+	private Integer mes;
+	private Integer ano;
+	private Integer mesFim;
+	private Integer anoFim;
+	private BigDecimal valor;
+	private Long usuario;
+	private String tipo;
+
+}
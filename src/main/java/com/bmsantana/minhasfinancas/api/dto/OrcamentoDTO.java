@@ -0,0 +1,23 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrcamentoDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private BigDecimal limite;
+	private BigDecimal gasto;
+	private BigDecimal disponivel;
+	private boolean ultrapassado;
+
+}
@@ -0,0 +1,22 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RebalanceamentoDTO {
+
+	private String situacao;
+	private List<String> membros;
+	private LocalDateTime inicio;
+	private LocalDateTime fim;
+	private Long usuariosAMover;
+	private Long usuariosMovidos;
+	private Long falhas;
+	private String erro;
+
+}
@@ -0,0 +1,17 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegraCategoriaDTO {
+
+	private String termo;
+	private String categoria;
+
+}
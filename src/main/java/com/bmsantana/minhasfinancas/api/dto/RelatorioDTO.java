@@ -0,0 +1,27 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatorioDTO {
+
+	private String id;
+	private String situacao;
+	private Integer anoInicial;
+	private Integer anoFinal;
+	private int progresso;
+	private LocalDateTime solicitacao;
+	private LocalDateTime inicio;
+	private LocalDateTime fim;
+	private Long bytes;
+	private String erro;
+
+}
@@ -0,0 +1,22 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ResumoDTO {
+
+	private Integer ano;
+	private BigDecimal receitas;
+	private BigDecimal despesas;
+	private BigDecimal saldo;
+	private Map<String, BigDecimal> receitasPorStatus;
+	private Map<String, BigDecimal> despesasPorStatus;
+	private List<ResumoMensalDTO> meses;
+
+}
@@ -0,0 +1,17 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SaldoMensalDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private BigDecimal movimento;
+	private BigDecimal saldo;
+
+}
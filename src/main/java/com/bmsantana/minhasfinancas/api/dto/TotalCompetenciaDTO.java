@@ -0,0 +1,19 @@
+package com.bmsantana.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TotalCompetenciaDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private String tipo;
+	private String status;
+	private long quantidade;
+	private BigDecimal total;
+
+}
@@ -0,0 +1,191 @@
+package com.bmsantana.minhasfinancas.api.idempotencia;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Guarda a resposta de requisições enviadas com o cabeçalho Idempotency-Key.
+ * As chaves são separadas por usuário: a mesma chave de usuários diferentes
+ * não se mistura. Uma repetição com a mesma chave recebe a resposta original
+ * sem executar de novo; se a primeira ainda estiver em andamento, a repetição
+ * aguarda por ela até o tempo de espera configurado e, depois dele, recebe 409.
+ *
+ * Respostas 5xx e exceções não são guardadas, para que o cliente possa tentar
+ * outra vez. As chaves expiram após o tempo configurado e o total guardado é
+ * limitado, descartando primeiro as mais antigas já concluídas. Execuções em
+ * andamento nunca são descartadas, senão uma repetição executaria de novo.
+ *
+ * As chaves ficam na memória desta instância. Com mais de uma instância, a
+ * repetição só é reconhecida se chegar à mesma instância da requisição
+ * original: o balanceador deve fixar cada usuário numa instância (ex: por
+ * hash do id do usuário). Sem isso, uma repetição que cai em outra instância
+ * é executada de novo.
+ */
+@Component
+public class RespostasIdempotentes {
+
+	public static final String CABECALHO = "Idempotency-Key";
+	public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+	private final ConcurrentMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+	private final Queue<Map.Entry<String, Entrada>> ordemInclusao = new ConcurrentLinkedQueue<>();
+	private final int maximoChaves;
+	private final long validadeNanos;
+	private final long esperaMillis;
+	private final Counter executadas = contador("executada");
+	private final Counter repetidas = contador("repetida");
+	private final Counter conflitos = contador("conflito");
+
+	public RespostasIdempotentes(
+			@Value("${minhasfinancas.idempotencia.maximo-chaves:10000}") int maximoChaves,
+			@Value("${minhasfinancas.idempotencia.validade-minutos:60}") long validadeMinutos,
+			@Value("${minhasfinancas.idempotencia.espera-segundos:30}") long esperaSegundos) {
+		this.maximoChaves = maximoChaves;
+		this.validadeNanos = TimeUnit.MINUTES.toNanos(validadeMinutos);
+		this.esperaMillis = TimeUnit.SECONDS.toMillis(esperaSegundos);
+	}
+
+	/**
+	 * Executa a requisição ou devolve a resposta já guardada para a chave do
+	 * usuário. operacao e requisicao identificam o que foi pedido: a mesma
+	 * chave usada com outro conteúdo é recusada com 422.
+	 */
+	public ResponseEntity executar(Long idUsuario, String chave, String operacao, Object requisicao, Supplier<ResponseEntity> execucao) {
+		if(chave == null || chave.trim().isEmpty()) {
+			return execucao.get();
+		}
+
+		String identificador = idUsuario + ":" + operacao + ":" + chave.trim();
+		String conteudo = String.valueOf(requisicao);
+		Entrada nova = new Entrada(conteudo);
+		Entrada existente;
+		while((existente = entradas.putIfAbsent(identificador, nova)) != null) {
+			if(!existente.expirada(System.nanoTime())) {
+				return repetir(existente, conteudo);
+			}
+			entradas.remove(identificador, existente);
+		}
+
+		executadas.increment();
+		ordemInclusao.add(new AbstractMap.SimpleImmutableEntry<>(identificador, nova));
+		limitar();
+
+		ResponseEntity resposta;
+		try {
+			resposta = execucao.get();
+		} catch (RuntimeException | Error e) {
+			entradas.remove(identificador, nova);
+			nova.resposta.completeExceptionally(e);
+			throw e;
+		}
+		if(resposta.getStatusCode().is5xxServerError()) {
+			entradas.remove(identificador, nova);
+		}
+		nova.expiraEm = System.nanoTime() + validadeNanos;
+		nova.resposta.complete(resposta);
+		return resposta;
+	}
+
+	@Scheduled(fixedRateString = "${minhasfinancas.idempotencia.limpeza-ms:60000}")
+	public void descartarExpiradas() {
+		long agora = System.nanoTime();
+		Map.Entry<String, Entrada> item;
+		while((item = ordemInclusao.peek()) != null && (item.getValue().expirada(agora) || entradas.get(item.getKey()) != item.getValue())) {
+			if(ordemInclusao.remove(item)) {
+				entradas.remove(item.getKey(), item.getValue());
+			}
+		}
+	}
+
+	private ResponseEntity repetir(Entrada existente, String conteudo) {
+		if(!existente.conteudo.equals(conteudo)) {
+			conflitos.increment();
+			return new ResponseEntity("A chave de idempotência informada já foi utilizada em outra requisição!",
+					HttpStatus.UNPROCESSABLE_ENTITY);
+		}
+		repetidas.increment();
+		ResponseEntity original;
+		try {
+			original = existente.resposta.get(esperaMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			return emAndamento();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return emAndamento();
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if(e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		return ResponseEntity.status(original.getStatusCode())
+				.headers(original.getHeaders())
+				.header(CABECALHO_REPETIDA, "true")
+				.body(original.getBody());
+	}
+
+	private ResponseEntity emAndamento() {
+		return new ResponseEntity("A requisição com esta chave de idempotência ainda está em andamento. Tente novamente mais tarde!",
+				HttpStatus.CONFLICT);
+	}
+
+	/**
+	 * Descarta as chaves concluídas mais antigas até voltar ao limite. As em
+	 * andamento ficam, mesmo que o total passe do limite por um tempo: são no
+	 * máximo uma por requisição em execução.
+	 */
+	private void limitar() {
+		descartarExpiradas();
+		Iterator<Map.Entry<String, Entrada>> itens = ordemInclusao.iterator();
+		while(entradas.size() > maximoChaves && itens.hasNext()) {
+			Map.Entry<String, Entrada> item = itens.next();
+			boolean descartada = entradas.get(item.getKey()) != item.getValue();
+			if(descartada || item.getValue().resposta.isDone()) {
+				itens.remove();
+				entradas.remove(item.getKey(), item.getValue());
+			}
+		}
+	}
+
+	private static Counter contador(String resultado) {
+		return Metrics.counter("minhasfinancas.idempotencia", "resultado", resultado);
+	}
+
+	private static class Entrada {
+
+		private final String conteudo;
+		private final CompletableFuture<ResponseEntity> resposta = new CompletableFuture<>();
+		private volatile long expiraEm = Long.MAX_VALUE;
+
+		Entrada(String conteudo) {
+			this.conteudo = conteudo;
+		}
+
+		boolean expirada(long agora) {
+			return expiraEm != Long.MAX_VALUE && agora - expiraEm > 0;
+		}
+	}
+
+}
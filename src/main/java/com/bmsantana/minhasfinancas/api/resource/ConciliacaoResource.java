@@ -0,0 +1,44 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.dto.ConciliacaoDTO;
+import com.bmsantana.minhasfinancas.service.ConciliacaoService;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/admin")
+public class ConciliacaoResource {
+
+	private final ConciliacaoService service;
+
+	@PostMapping("/conciliacao")
+	public ResponseEntity iniciar() {
+		if(!service.iniciar()) {
+			return new ResponseEntity("Já existe uma conciliação em execução!", HttpStatus.CONFLICT);
+		}
+		return new ResponseEntity(service.obterUltima(), HttpStatus.ACCEPTED);
+	}
+
+	@GetMapping("/conciliacao")
+	public ResponseEntity obterUltima() {
+		ConciliacaoDTO ultima = service.obterUltima();
+		if(ultima == null) {
+			return new ResponseEntity(HttpStatus.NO_CONTENT);
+		}
+		return ResponseEntity.ok(ultima);
+	}
+
+	@GetMapping("/estatisticas")
+	public ResponseEntity obterEstatisticas() {
+		return ResponseEntity.ok(service.obterEstatisticas());
+	}
+
+}
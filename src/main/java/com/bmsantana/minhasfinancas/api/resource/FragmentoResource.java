@@ -0,0 +1,44 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.config.fragmento.RebalanceamentoFragmentos;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/admin/fragmentos")
+@ConditionalOnProperty(name = "minhasfinancas.fragmentos.habilitado", havingValue = "true")
+public class FragmentoResource {
+
+	private final RebalanceamentoFragmentos rebalanceamento;
+
+	@GetMapping
+	public ResponseEntity obterSituacao() {
+		return ResponseEntity.ok(rebalanceamento.obterSituacao());
+	}
+
+	@PostMapping("/rebalanceamento")
+	public ResponseEntity rebalancear(@RequestBody List<String> membros) {
+		try {
+			if(!rebalanceamento.iniciar(membros)) {
+				return new ResponseEntity("Já existe um rebalanceamento em execução!", HttpStatus.CONFLICT);
+			}
+			return new ResponseEntity(rebalanceamento.obterSituacao(), HttpStatus.ACCEPTED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+}
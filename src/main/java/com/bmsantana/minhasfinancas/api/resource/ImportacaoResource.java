@@ -0,0 +1,64 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.compartimento.ClasseRequisicao;
+import com.bmsantana.minhasfinancas.api.compartimento.Compartimento;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.service.ImportacaoService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+import com.bmsantana.minhasfinancas.service.importacao.FormatoExtrato;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * O extrato vai no corpo da requisição, sem multipart (por exemplo
+ * Content-Type: text/csv), e é lido à medida que chega.
+ */
+@RequiredArgsConstructor
+@RestController
+@Compartimento(ClasseRequisicao.IMPORTACAO)
+@RequestMapping("/api/usuarios/{id}/importacoes")
+public class ImportacaoResource {
+
+	private final ImportacaoService service;
+	private final UsuarioService usuarioService;
+
+	@PostMapping
+	public ResponseEntity importar(@PathVariable("id") Long id, @RequestParam("formato") String formato,
+			@RequestParam(value = "charset", required = false) String charset, InputStream conteudo) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		Charset codificacao;
+		try {
+			codificacao = charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8;
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Informe um charset válido!");
+		}
+		try {
+			return ResponseEntity.ok(service.importar(id, FormatoExtrato.obter(formato), conteudo, codificacao));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@GetMapping
+	public ResponseEntity obterSituacao(@PathVariable("id") Long id) {
+		return service.obterSituacao(id)
+				.map(situacao -> ResponseEntity.ok(situacao))
+				.orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND));
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+import com.bmsantana.minhasfinancas.service.impl.NotificacaoLancamentoService;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/usuarios")
+public class LancamentoEventoResource {
+
+	private final NotificacaoLancamentoService notificacaoService;
+	private final UsuarioService usuarioService;
+
+	@GetMapping(value = "{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> eventos(@PathVariable("id") Long id) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+		return ResponseEntity.ok(notificacaoService.assinar(id));
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.dto.LancamentoRecorrenteDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRecorrente;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.LancamentoRecorrenteService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/lancamentos-recorrentes")
+public class LancamentoRecorrenteResource {
+
+	private final LancamentoRecorrenteService service;
+	private final UsuarioService usuarioService;
+
+	private LancamentoRecorrente converter(LancamentoRecorrenteDTO dto) {
+		LancamentoRecorrente recorrente = new LancamentoRecorrente();
+		recorrente.setId(dto.getId());
+		recorrente.setDescricao(dto.getDescricao());
+		recorrente.setCategoria(dto.getCategoria());
+		recorrente.setProximoMes(dto.getMes());
+		recorrente.setProximoAno(dto.getAno());
+		recorrente.setMesFim(dto.getMesFim());
+		recorrente.setAnoFim(dto.getAnoFim());
+		recorrente.setValor(dto.getValor());
+
+		Usuario usuario = usuarioService.obterPorId(dto.getUsuario())
+		.orElseThrow( () -> new RegraNegocioException("Usuário não encontrado para o ID informado!"));
+
+		recorrente.setUsuario(usuario);
+		if(dto.getTipo() != null) {
+			recorrente.setTipo(TipoLancamento.valueOf(dto.getTipo()));
+		}
+
+		return recorrente;
+	}
+
+	@PostMapping
+	public ResponseEntity salvar(@RequestBody LancamentoRecorrenteDTO dto) {
+		try {
+			LancamentoRecorrente entidade = converter(dto);
+			entidade = service.salvar(entidade);
+			return new ResponseEntity(entidade, HttpStatus.CREATED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+}
@@ -1,5 +1,9 @@
 package com.bmsantana.minhasfinancas.api.resource;
 
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,19 +15,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.bmsantana.minhasfinancas.api.compartimento.ClasseRequisicao;
+import com.bmsantana.minhasfinancas.api.compartimento.Compartimento;
 import com.bmsantana.minhasfinancas.api.dto.AtualizaStatusDTO;
 import com.bmsantana.minhasfinancas.api.dto.LancamentoDTO;
+import com.bmsantana.minhasfinancas.api.idempotencia.RespostasIdempotentes;
 import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
 import com.bmsantana.minhasfinancas.model.entity.Lancamento;
 import com.bmsantana.minhasfinancas.model.entity.Usuario;
 import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
 import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.filtro.FiltroLancamento;
+import com.bmsantana.minhasfinancas.service.BuscaLancamentoService;
+import com.bmsantana.minhasfinancas.service.GravacaoAgrupadaService;
 import com.bmsantana.minhasfinancas.service.LancamentoService;
+import com.bmsantana.minhasfinancas.service.SincronizacaoService;
 import com.bmsantana.minhasfinancas.service.UsuarioService;
+import com.bmsantana.minhasfinancas.util.TemposRequisicao;
+import com.bmsantana.minhasfinancas.util.TemposRequisicao.Fase;
 
 import lombok.RequiredArgsConstructor;
 
@@ -34,17 +48,24 @@ public class LancamentoResource {
 	
 	private final LancamentoService service;
 	private final UsuarioService usuarioService;
+	private final BuscaLancamentoService buscaService;
+	private final Optional<GravacaoAgrupadaService> gravacaoAgrupada;
+	private final RespostasIdempotentes respostasIdempotentes;
+	private final SincronizacaoService sincronizacaoService;
 		
 	private Lancamento converter(LancamentoDTO dto) {
 		Lancamento lancamento = new Lancamento();
 		lancamento.setId(dto.getId());
 		lancamento.setDescricao(dto.getDescricao());
+		lancamento.setCategoria(dto.getCategoria());
 		lancamento.setAno(dto.getAno());
 		lancamento.setMes(dto.getMes());
 		lancamento.setValor(dto.getValor());
 		
+		long inicio = TemposRequisicao.marcar();
 		Usuario usuario = usuarioService.obterPorId(dto.getUsuario())
 		.orElseThrow( () -> new RegraNegocioException("Usuário não encontrado para o ID informado!"));
+		TemposRequisicao.registrar(Fase.USUARIO, inicio);
 		
 		lancamento.setUsuario(usuario);
 		if(dto.getTipo() != null) {
@@ -57,13 +78,37 @@ public class LancamentoResource {
 		return lancamento;
 	}
 	
+	@Compartimento(ClasseRequisicao.ESCRITA)
 	@PostMapping
-	public ResponseEntity salvar( @RequestBody LancamentoDTO dto) {
+	public ResponseEntity salvar( @RequestBody LancamentoDTO dto,
+			@RequestHeader(value=RespostasIdempotentes.CABECALHO, required=false) String chave) {
+		return respostasIdempotentes.executar(dto.getUsuario(), chave, "salvar", dto, () -> {
+			try {
+				
+				Lancamento entidade = converter(dto);
+				if(gravacaoAgrupada.isPresent()) {
+					entidade = gravacaoAgrupada.get().salvar(entidade);
+				} else {
+					entidade = service.salvar(entidade);
+				}
+				return new ResponseEntity(entidade, HttpStatus.CREATED);
+				
+			} catch (RegraNegocioException e) {
+				
+				return ResponseEntity.badRequest().body(e.getMessage());
+				
+			}
+		});
+	}
+	
+	@Compartimento(ClasseRequisicao.ESCRITA)
+	@PostMapping("/parcelado")
+	public ResponseEntity salvarParcelado( @RequestBody LancamentoDTO dto) {
 		try {
 			
 			Lancamento entidade = converter(dto);
-			entidade = service.salvar(entidade);
-			return new ResponseEntity(entidade, HttpStatus.CREATED);
+			List<Lancamento> parcelas = service.salvarParcelado(entidade, dto.getParcelas());
+			return new ResponseEntity(parcelas, HttpStatus.CREATED);
 			
 		} catch (RegraNegocioException e) {
 			
@@ -72,9 +117,11 @@ public class LancamentoResource {
 		}
 	}
 	
+	@Compartimento(ClasseRequisicao.ESCRITA)
 	@PutMapping("{id}")
-	public ResponseEntity atualizar(@PathVariable("id") Long id, @RequestBody LancamentoDTO dto) {
-		return service.obterPorId(id).map(entidade -> {
+	public ResponseEntity atualizar(@PathVariable("id") Long id, @RequestBody LancamentoDTO dto,
+			@RequestHeader(value=RespostasIdempotentes.CABECALHO, required=false) String chave) {
+		return respostasIdempotentes.executar(dto.getUsuario(), chave, "atualizar:" + id, dto, () -> service.obterPorId(id).map(entidade -> {
 			try {
 				Lancamento lancamento = converter(dto);
 				lancamento.setId(entidade.getId());
@@ -83,12 +130,14 @@ public class LancamentoResource {
 			} catch (RegraNegocioException e) {
 				return ResponseEntity.badRequest().body(e.getMessage());
 			}
-		}).orElseGet( () -> new ResponseEntity("Lançamento não localizado na base de dados!", HttpStatus.BAD_REQUEST));
+		}).orElseGet( () -> new ResponseEntity("Lançamento não localizado na base de dados!", HttpStatus.BAD_REQUEST)));
 	}
 	
+	@Compartimento(ClasseRequisicao.ESCRITA)
 	@PutMapping("{id}/atualiza-status")
-	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto) {
-		return service.obterPorId(id).map(entidade -> {
+	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto,
+			@RequestHeader(value=RespostasIdempotentes.CABECALHO, required=false) String chave) {
+		return service.obterPorId(id).map(entidade -> respostasIdempotentes.executar(entidade.getUsuario().getId(), chave, "atualizar-status:" + id, dto, () -> {
 			StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
 			
 			if(statusSelecionado == null) {
@@ -96,16 +145,17 @@ public class LancamentoResource {
 			}
 			
 			try {
-				entidade.setStatus(statusSelecionado);
-				service.atualizar(entidade);
-				return ResponseEntity.ok(entidade);
+				Lancamento lancamento = entidade.toBuilder().status(statusSelecionado).build();
+				service.atualizar(lancamento);
+				return ResponseEntity.ok(lancamento);
 			} catch (RegraNegocioException e) {
 				return ResponseEntity.badRequest().body(e.getMessage());
 			}
-		}).orElseGet( () -> new ResponseEntity("Lançamento não localizado na base de dados!", HttpStatus.BAD_REQUEST));
+		})).orElseGet( () -> new ResponseEntity("Lançamento não localizado na base de dados!", HttpStatus.BAD_REQUEST));
 	}
 	
 	
+	@Compartimento(ClasseRequisicao.ESCRITA)
 	@DeleteMapping("{id}")
 	public ResponseEntity deletar(@PathVariable("id") Long id) {
 		return service.obterPorId(id).map(entidade -> {
@@ -114,30 +164,71 @@ public class LancamentoResource {
 		}).orElseGet( () -> new ResponseEntity("Lançamento não localizado na base de dados!", HttpStatus.BAD_REQUEST));
 	}
 	
+	@Compartimento(ClasseRequisicao.RELATORIO)
 	@GetMapping
 	public ResponseEntity buscar(
 				@RequestParam (value="descricao", required=false) String descricao,
 				@RequestParam (value="mes", required=false) Integer mes,
 				@RequestParam (value="ano", required=false) Integer ano,
+				@RequestParam (value="categoria", required=false) List<String> categorias,
+				@RequestParam (value="tipo", required=false) List<TipoLancamento> tipos,
+				@RequestParam (value="status", required=false) List<StatusLancamento> status,
+				@RequestParam (value="valorMinimo", required=false) BigDecimal valorMinimo,
+				@RequestParam (value="valorMaximo", required=false) BigDecimal valorMaximo,
+				@RequestParam (value="de", required=false) YearMonth de,
+				@RequestParam (value="ate", required=false) YearMonth ate,
+				@RequestParam (value="ordenacao", required=false) List<String> ordenacao,
 				@RequestParam (value="usuario") Long idUsuario
 			) {
 		
-		Lancamento lancamentoFiltro = new Lancamento();
-		lancamentoFiltro.setDescricao(descricao);
-		lancamentoFiltro.setMes(mes);
-		lancamentoFiltro.setAno(ano);
-		
 		Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
 		if(!usuario.isPresent()) {
 			return ResponseEntity.badRequest().body("Não foi possivel realizar a consulta.Usuário não encontrado para o ID informado!");
-		} else {
-			lancamentoFiltro.setUsuario(usuario.get());
 		}
 		
-		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
-		return ResponseEntity.ok(lancamentos);
+		FiltroLancamento filtro = FiltroLancamento.builder()
+				.usuario(idUsuario)
+				.descricao(descricao)
+				.mes(mes)
+				.ano(ano)
+				.categorias(categorias != null ? new HashSet<>(categorias) : null)
+				.tipos(tipos != null && !tipos.isEmpty() ? EnumSet.copyOf(tipos) : null)
+				.status(status != null && !status.isEmpty() ? EnumSet.copyOf(status) : null)
+				.valorMinimo(valorMinimo)
+				.valorMaximo(valorMaximo)
+				.inicio(de)
+				.fim(ate)
+				.ordenacao(ordenacao)
+				.build();
+		
+		try {
+			List<Lancamento> lancamentos = buscaService.buscar(filtro);
+			return ResponseEntity.ok(lancamentos);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 		
 	}
 	
+	/**
+	 * Alterações desde o token da última sincronização; sem token, a cópia
+	 * completa dos lançamentos do usuário.
+	 */
+	@Compartimento(ClasseRequisicao.LEITURA)
+	@GetMapping("/changes")
+	public ResponseEntity obterAlteracoes(
+				@RequestParam (value="usuario") Long idUsuario,
+				@RequestParam (value="since", required=false) String token,
+				@RequestParam (value="limite", required=false) Integer limite
+			) {
+		if(!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest().body("Não foi possivel realizar a consulta.Usuário não encontrado para o ID informado!");
+		}
+		try {
+			return ResponseEntity.ok(sincronizacaoService.obterAlteracoes(idUsuario, token, limite));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
 	
 }
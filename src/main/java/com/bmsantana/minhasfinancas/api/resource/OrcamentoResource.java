@@ -0,0 +1,71 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.time.LocalDate;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.dto.OrcamentoDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.service.OrcamentoService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/usuarios/{id}/orcamentos")
+public class OrcamentoResource {
+
+	private final OrcamentoService service;
+	private final UsuarioService usuarioService;
+
+	@GetMapping
+	public ResponseEntity obterSituacoes(@PathVariable("id") Long id,
+			@RequestParam(value = "ano", required = false) Integer ano) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		if(ano == null) {
+			ano = LocalDate.now().getYear();
+		}
+		return ResponseEntity.ok(service.obterSituacoes(id, ano));
+	}
+
+	@GetMapping("{ano}/{mes}")
+	public ResponseEntity obterSituacao(@PathVariable("id") Long id, @PathVariable("ano") Integer ano,
+			@PathVariable("mes") Integer mes) {
+		return service.obterSituacao(id, ano, mes)
+				.map(situacao -> ResponseEntity.ok(situacao))
+				.orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND));
+	}
+
+	@PutMapping("{ano}/{mes}")
+	public ResponseEntity definirLimite(@PathVariable("id") Long id, @PathVariable("ano") Integer ano,
+			@PathVariable("mes") Integer mes, @RequestBody OrcamentoDTO dto) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return ResponseEntity.badRequest().body("Usuário não encontrado para o ID informado!");
+		}
+		try {
+			return ResponseEntity.ok(service.definirLimite(id, ano, mes, dto.getLimite()));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@DeleteMapping("{ano}/{mes}")
+	public ResponseEntity remover(@PathVariable("id") Long id, @PathVariable("ano") Integer ano,
+			@PathVariable("mes") Integer mes) {
+		service.remover(id, ano, mes);
+		return new ResponseEntity(HttpStatus.NO_CONTENT);
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.dto.RegraCategoriaDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.RegraCategoria;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.service.CategorizacaoService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Regras de categorização do usuário em /api/usuarios/{id}/regras-categoria e
+ * regras globais em /api/admin/regras-categoria.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api")
+public class RegraCategoriaResource {
+
+	private final CategorizacaoService service;
+	private final UsuarioService usuarioService;
+
+	@GetMapping("/usuarios/{id}/regras-categoria")
+	public ResponseEntity buscar(@PathVariable("id") Long id) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		return ResponseEntity.ok(service.buscar(id));
+	}
+
+	@PostMapping("/usuarios/{id}/regras-categoria")
+	public ResponseEntity salvar(@PathVariable("id") Long id, @RequestBody RegraCategoriaDTO dto) {
+		Optional<Usuario> usuario = usuarioService.obterPorId(id);
+		if(!usuario.isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		return gravar(usuario.get(), dto);
+	}
+
+	@DeleteMapping("/usuarios/{id}/regras-categoria/{idRegra}")
+	public ResponseEntity deletar(@PathVariable("id") Long id, @PathVariable("idRegra") Long idRegra) {
+		return remover(idRegra, id);
+	}
+
+	@GetMapping("/admin/regras-categoria")
+	public ResponseEntity buscarGlobais() {
+		return ResponseEntity.ok(service.buscar(null));
+	}
+
+	@PostMapping("/admin/regras-categoria")
+	public ResponseEntity salvarGlobal(@RequestBody RegraCategoriaDTO dto) {
+		return gravar(null, dto);
+	}
+
+	@DeleteMapping("/admin/regras-categoria/{idRegra}")
+	public ResponseEntity deletarGlobal(@PathVariable("idRegra") Long idRegra) {
+		return remover(idRegra, null);
+	}
+
+	private ResponseEntity gravar(Usuario usuario, RegraCategoriaDTO dto) {
+		try {
+			RegraCategoria regra = RegraCategoria.builder()
+					.usuario(usuario)
+					.termo(dto.getTermo())
+					.categoria(dto.getCategoria())
+					.build();
+			return new ResponseEntity(service.salvar(regra), HttpStatus.CREATED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	private ResponseEntity remover(Long idRegra, Long idUsuario) {
+		return service.obterPorId(idRegra)
+				.filter(regra -> Objects.equals(regra.getUsuario() != null ? regra.getUsuario().getId() : null, idUsuario))
+				.map(regra -> {
+					service.deletar(regra);
+					return new ResponseEntity(HttpStatus.NO_CONTENT);
+				})
+				.orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND));
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.compartimento.ClasseRequisicao;
+import com.bmsantana.minhasfinancas.api.compartimento.Compartimento;
+import com.bmsantana.minhasfinancas.api.dto.RelatorioDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.service.RelatorioService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A solicitação só enfileira o relatório e devolve 202 com o id; o cliente
+ * acompanha a situação e baixa o arquivo quando estiver CONCLUIDO.
+ */
+@RequiredArgsConstructor
+@RestController
+@Compartimento(ClasseRequisicao.LEITURA)
+@RequestMapping("/api/usuarios/{id}/relatorios")
+public class RelatorioResource {
+
+	private static final String RETRY_AFTER_SEGUNDOS = "30";
+	private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+	private final RelatorioService service;
+	private final UsuarioService usuarioService;
+
+	@PostMapping
+	@Compartimento(ClasseRequisicao.ESCRITA)
+	public ResponseEntity solicitar(@PathVariable("id") Long id,
+			@RequestParam(value = "anoInicial", required = false) Integer anoInicial,
+			@RequestParam(value = "anoFinal", required = false) Integer anoFinal) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		try {
+			return new ResponseEntity(service.solicitar(id, anoInicial, anoFinal), HttpStatus.ACCEPTED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SEGUNDOS)
+					.body(e.getMessage());
+		}
+	}
+
+	@GetMapping("/{idRelatorio}")
+	public ResponseEntity obterSituacao(@PathVariable("id") Long id, @PathVariable("idRelatorio") String idRelatorio) {
+		return service.obterSituacao(id, idRelatorio)
+				.map(situacao -> ResponseEntity.ok(situacao))
+				.orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND));
+	}
+
+	@GetMapping("/{idRelatorio}/arquivo")
+	public ResponseEntity baixar(@PathVariable("id") Long id, @PathVariable("idRelatorio") String idRelatorio) {
+		Optional<RelatorioDTO> situacao = service.obterSituacao(id, idRelatorio);
+		if(!situacao.isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		if(!"CONCLUIDO".equals(situacao.get().getSituacao())) {
+			return new ResponseEntity("O relatório ainda não está disponível: " + situacao.get().getSituacao(), HttpStatus.CONFLICT);
+		}
+		Optional<Path> arquivo = service.obterArquivo(id, idRelatorio);
+		if(!arquivo.isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		return ResponseEntity.ok()
+				.contentType(CSV)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"relatorio-" + idRelatorio + ".csv\"")
+				.body(new FileSystemResource(arquivo.get()));
+	}
+
+}
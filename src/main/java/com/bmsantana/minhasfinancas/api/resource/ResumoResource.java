@@ -0,0 +1,41 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.time.LocalDate;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.compartimento.ClasseRequisicao;
+import com.bmsantana.minhasfinancas.api.compartimento.Compartimento;
+import com.bmsantana.minhasfinancas.service.AnaliseService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@Compartimento(ClasseRequisicao.RELATORIO)
+@RequestMapping("/api/usuarios")
+public class ResumoResource {
+
+	private final AnaliseService analiseService;
+	private final UsuarioService usuarioService;
+
+	@GetMapping("{id}/resumo")
+	public ResponseEntity obterResumo(@PathVariable("id") Long id,
+			@RequestParam(value = "ano", required = false) Integer ano) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		if(ano == null) {
+			ano = LocalDate.now().getYear();
+		}
+		return ResponseEntity.ok(analiseService.obterResumo(id, ano));
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.time.YearMonth;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bmsantana.minhasfinancas.api.compartimento.ClasseRequisicao;
+import com.bmsantana.minhasfinancas.api.compartimento.Compartimento;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.service.SaldoMensalService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@Compartimento(ClasseRequisicao.RELATORIO)
+@RequestMapping("/api/usuarios")
+public class SaldoMensalResource {
+
+	private final SaldoMensalService service;
+	private final UsuarioService usuarioService;
+
+	@GetMapping("{id}/saldo/serie")
+	public ResponseEntity obterSerie(@PathVariable("id") Long id,
+			@RequestParam(value = "de", required = false) YearMonth de,
+			@RequestParam(value = "ate", required = false) YearMonth ate) {
+		if(!usuarioService.obterPorId(id).isPresent()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		try {
+			return ResponseEntity.ok(service.obterSerie(id, de, ate));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+}
@@ -12,6 +12,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.bmsantana.minhasfinancas.api.compartimento.ClasseRequisicao;
+import com.bmsantana.minhasfinancas.api.compartimento.Compartimento;
 import com.bmsantana.minhasfinancas.api.dto.UsuarioDTO;
 import com.bmsantana.minhasfinancas.exception.ErroAutenticacao;
 import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
@@ -30,6 +32,7 @@ public class UsuarioResource {
 	private final LancamentoService lancamentoService;
 	
 	
+	@Compartimento(ClasseRequisicao.AUTENTICACAO)
 	@PostMapping("/autenticar")
 	public ResponseEntity autenticar(@RequestBody UsuarioDTO dto) {
 		
@@ -41,6 +44,7 @@ public class UsuarioResource {
 		}
 	}
 	
+	@Compartimento(ClasseRequisicao.ESCRITA)
 	@PostMapping
 	public ResponseEntity salvar(@RequestBody UsuarioDTO dto) {
 		
@@ -54,6 +58,7 @@ public class UsuarioResource {
 		}
 	}
 	
+	@Compartimento(ClasseRequisicao.LEITURA)
 	@GetMapping("{id}/saldo")
 	public ResponseEntity obterSaldo(@PathVariable("id") Long id) {
 		Optional<Usuario> usuario = service.obterPorId(id);
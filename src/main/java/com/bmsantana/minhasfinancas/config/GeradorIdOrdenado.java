@@ -0,0 +1,54 @@
+package com.bmsantana.minhasfinancas.config;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import com.bmsantana.minhasfinancas.util.GeradorIds;
+
+/**
+ * Gerador de ids do Hibernate que usa GeradorIds. O id sai no persist, sem
+ * consulta ao banco, e os inserts podem ir em lote (hibernate.jdbc.batch_size),
+ * o que não acontece com GenerationType.IDENTITY.
+ *
+ * O nó vem de minhasfinancas.ids.no, repassado ao Hibernate em
+ * application.properties, e não tem valor padrão: sem ele a aplicação não
+ * sobe, para que duas instâncias não gerem os mesmos ids por esquecimento.
+ * Cada instância precisa de um nó diferente, de 0 a 63, e cada nó gera no
+ * máximo 64 ids por milissegundo sustentados (ver GeradorIds). As entidades
+ * de um mesmo nó compartilham o gerador.
+ */
+public class GeradorIdOrdenado implements IdentifierGenerator, Configurable {
+
+	public static final String PROPRIEDADE_NO = "minhasfinancas.ids.no";
+
+	private static final ConcurrentMap<Long, GeradorIds> GERADORES = new ConcurrentHashMap<>();
+
+	private GeradorIds gerador;
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+		String no = ConfigurationHelper.getString(PROPRIEDADE_NO,
+				serviceRegistry.getService(ConfigurationService.class).getSettings(), "").trim();
+		if(no.isEmpty()) {
+			throw new IllegalStateException("Configure " + PROPRIEDADE_NO + " com um nó de 0 a " + GeradorIds.MAXIMO_NO
+					+ " diferente para cada instância da aplicação");
+		}
+		gerador = GERADORES.computeIfAbsent(Long.valueOf(no), GeradorIds::new);
+	}
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object entidade) {
+		return gerador.gerar();
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.bmsantana.minhasfinancas.config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.bmsantana.minhasfinancas.api.resource.LancamentoResource;
+import com.bmsantana.minhasfinancas.api.resource.UsuarioResource;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Ajustes para o perfil inicio-rapido, que liga a inicialização preguiçosa.
+ * Continuam sendo criados na subida os beans com tarefas agendadas (que não
+ * rodariam até alguém pedi-los) e os resources mais usados, para que a
+ * primeira requisição não pague a criação de toda a cadeia de dependências.
+ */
+@Configuration
+public class InicializacaoConfig {
+
+	private static final Logger log = LoggerFactory.getLogger(InicializacaoConfig.class);
+
+	@Bean
+	public static LazyInitializationExcludeFilter beansCriadosNaInicializacao() {
+		LazyInitializationExcludeFilter resources = LazyInitializationExcludeFilter.forBeanTypes(
+				LancamentoResource.class, UsuarioResource.class);
+		return (nome, definicao, tipo) -> resources.isExcluded(nome, definicao, tipo) || possuiTarefaAgendada(tipo);
+	}
+
+	/**
+	 * Registra quanto tempo se passou entre o início da JVM e o fim da primeira
+	 * requisição, no log e na métrica minhasfinancas.inicio.primeira.requisicao.
+	 */
+	@Bean
+	public OncePerRequestFilter medicaoPrimeiraRequisicao() {
+		AtomicBoolean medida = new AtomicBoolean();
+		return new OncePerRequestFilter() {
+			@Override
+			protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+					throws ServletException, IOException {
+				try {
+					chain.doFilter(request, response);
+				} finally {
+					if(!medida.get() && medida.compareAndSet(false, true)) {
+						long decorrido = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+						Metrics.timer("minhasfinancas.inicio.primeira.requisicao").record(decorrido, TimeUnit.MILLISECONDS);
+						log.info("Primeira requisição ({}) concluída {} ms após o início da JVM", request.getRequestURI(), decorrido);
+					}
+				}
+			}
+		};
+	}
+
+	private static boolean possuiTarefaAgendada(Class<?> tipo) {
+		if(tipo == null) {
+			return false;
+		}
+		AtomicBoolean encontrada = new AtomicBoolean();
+		ReflectionUtils.doWithMethods(tipo, metodo -> encontrada.set(true),
+				metodo -> !encontrada.get() && AnnotatedElementUtils.hasAnnotation(metodo, Scheduled.class));
+		return encontrada.get();
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca o parâmetro (Long) que contém o id do usuário dono dos dados, nos
+ * métodos de serviço que não recebem um Usuario, Lancamento ou filtro.
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ChaveFragmento {
+
+}
@@ -0,0 +1,42 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.util.function.Supplier;
+
+/**
+ * Fragmento (banco) usado pela thread atual. Sem fragmento definido as
+ * conexões vão para o fragmento principal.
+ */
+public final class ContextoFragmento {
+
+	private static final ThreadLocal<String> ATUAL = new ThreadLocal<>();
+
+	private ContextoFragmento() {
+	}
+
+	public static String atual() {
+		return ATUAL.get();
+	}
+
+	public static <T> T executar(String fragmento, Supplier<T> acao) {
+		String anterior = ATUAL.get();
+		ATUAL.set(fragmento);
+		try {
+			return acao.get();
+		} finally {
+			if(anterior != null) {
+				ATUAL.set(anterior);
+			} else {
+				ATUAL.remove();
+			}
+		}
+	}
+
+	static void definir(String fragmento) {
+		ATUAL.set(fragmento);
+	}
+
+	static void limpar() {
+		ATUAL.remove();
+	}
+
+}
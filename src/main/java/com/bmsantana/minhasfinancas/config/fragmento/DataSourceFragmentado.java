@@ -0,0 +1,42 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Entrega conexões do fragmento definido em ContextoFragmento. A escolha
+ * acontece quando a transação pede a conexão, por isso o contexto precisa
+ * estar definido antes do início da transação (ver RoteamentoFragmentos).
+ */
+public class DataSourceFragmentado extends AbstractRoutingDataSource implements Closeable {
+
+	private final Map<String, DataSource> fontes;
+
+	public DataSourceFragmentado(Map<String, DataSource> fontes, String principal) {
+		this.fontes = fontes;
+		setTargetDataSources(new HashMap<>(fontes));
+		setDefaultTargetDataSource(fontes.get(principal));
+		setLenientFallback(false);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return ContextoFragmento.atual();
+	}
+
+	@Override
+	public void close() throws IOException {
+		for(DataSource fonte : fontes.values()) {
+			if(fonte instanceof Closeable) {
+				((Closeable) fonte).close();
+			}
+		}
+	}
+
+}
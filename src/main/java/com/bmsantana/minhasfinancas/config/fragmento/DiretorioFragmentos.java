@@ -0,0 +1,256 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.util.AnelConsistente;
+
+/**
+ * Diz em qual fragmento estão os dados de cada usuário. A regra é o anel de
+ * hashing consistente sobre o id; usuários que ainda não foram movidos para
+ * o lugar indicado pelo anel (rebalanceamento em andamento ou falha ao
+ * mover) ficam fixados no fragmento onde estão.
+ *
+ * Membros do anel e usuários fixados são gravados no fragmento principal,
+ * que também guarda o cadastro de todos os usuários. Cada alteração avança a
+ * versão em fragmento_versao; as outras instâncias da aplicação conferem a
+ * versão a cada minhasfinancas.fragmentos.verificacao-ms e recarregam o
+ * estado quando ela muda. Cada instância também renova sua presença em
+ * fragmento_instancia, para o rebalanceamento saber se está sozinha: os
+ * bloqueios por usuário são locais e não protegem uma cópia contra escritas
+ * de outra instância.
+ */
+public class DiretorioFragmentos {
+
+	private static final int FAIXAS_BLOQUEIO = 256;
+
+	private final Map<String, DataSource> fontes;
+	private final String principal;
+	private final int pontosPorMembro;
+	private final long validadeInstanciaMs;
+	private final String instancia = UUID.randomUUID().toString();
+	private final JdbcTemplate catalogo;
+	private final TransactionTemplate transacaoCatalogo;
+	private final ReadWriteLock[] bloqueios = new ReadWriteLock[FAIXAS_BLOQUEIO];
+	private final ReadWriteLock bloqueioCadastro = new ReentrantReadWriteLock();
+	private volatile ConcurrentMap<Long, String> fixados = new ConcurrentHashMap<>();
+	private volatile AnelConsistente anel;
+	private volatile long versao = -1;
+
+	public DiretorioFragmentos(Map<String, DataSource> fontes, String principal, int pontosPorMembro, long validadeInstanciaMs) {
+		this.fontes = fontes;
+		this.principal = principal;
+		this.pontosPorMembro = pontosPorMembro;
+		this.validadeInstanciaMs = validadeInstanciaMs;
+		this.catalogo = new JdbcTemplate(fontes.get(principal));
+		this.transacaoCatalogo = new TransactionTemplate(new DataSourceTransactionManager(fontes.get(principal)));
+		for(int i = 0; i < FAIXAS_BLOQUEIO; i++) {
+			bloqueios[i] = new ReentrantReadWriteLock();
+		}
+	}
+
+	/**
+	 * Cria as tabelas do diretório, se preciso, e carrega o estado gravado.
+	 * Os membros iniciais só valem enquanto nenhum anel tiver sido gravado.
+	 */
+	public synchronized void iniciar(List<String> membrosIniciais) {
+		catalogo.execute("create table if not exists financas.fragmento_membro (nome varchar(50) primary key)");
+		catalogo.execute("create table if not exists financas.fragmento_usuario "
+				+ "(id_usuario bigint primary key, fragmento varchar(50) not null)");
+		catalogo.execute("create table if not exists financas.fragmento_versao (id integer primary key, versao bigint not null)");
+		catalogo.execute("create table if not exists financas.fragmento_instancia "
+				+ "(instancia varchar(50) primary key, visto timestamp not null)");
+		try {
+			if(catalogo.queryForObject("select count(*) from financas.fragmento_versao", Integer.class) == 0) {
+				catalogo.update("insert into financas.fragmento_versao (id, versao) values (1, 0)");
+			}
+		} catch (DuplicateKeyException e) {
+			// Outra instância subindo ao mesmo tempo já criou a linha.
+		}
+
+		List<String> membros = catalogo.queryForList("select nome from financas.fragmento_membro", String.class);
+		if(membros.isEmpty()) {
+			alterarAnel(criarAnel(membrosIniciais));
+		}
+		recarregar();
+		registrarPresenca();
+	}
+
+	/**
+	 * Recarrega anel e usuários fixados se outra instância os alterou, e
+	 * renova a presença desta instância.
+	 */
+	@Scheduled(fixedDelayString = "${minhasfinancas.fragmentos.verificacao-ms:1000}")
+	public void verificar() {
+		Long atual = catalogo.queryForObject("select versao from financas.fragmento_versao where id = 1", Long.class);
+		if(atual != versao) {
+			recarregar();
+		}
+		registrarPresenca();
+	}
+
+	/**
+	 * Quantidade de outras instâncias da aplicação vistas dentro da validade.
+	 */
+	public int outrasInstanciasAtivas() {
+		Timestamp agora = catalogo.queryForObject("select current_timestamp", Timestamp.class);
+		return catalogo.queryForObject("select count(*) from financas.fragmento_instancia where instancia <> ? and visto > ?",
+				Integer.class, instancia, new Timestamp(agora.getTime() - validadeInstanciaMs));
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		catalogo.update("delete from financas.fragmento_instancia where instancia = ?", instancia);
+	}
+
+	/**
+	 * Lê versão, anel e fixados numa só transação; as alterações locais
+	 * esperam a recarga terminar para não se perderem na troca do mapa.
+	 */
+	private synchronized void recarregar() {
+		transacaoCatalogo.execute(status -> {
+			long lida = catalogo.queryForObject("select versao from financas.fragmento_versao where id = 1", Long.class);
+			List<String> membros = catalogo.queryForList("select nome from financas.fragmento_membro", String.class);
+			ConcurrentMap<Long, String> lidos = new ConcurrentHashMap<>();
+			catalogo.query("select id_usuario, fragmento from financas.fragmento_usuario",
+					rs -> { lidos.put(rs.getLong(1), rs.getString(2)); });
+			anel = criarAnel(membros);
+			fixados = lidos;
+			versao = lida;
+			return null;
+		});
+	}
+
+	private void registrarPresenca() {
+		if(catalogo.update("update financas.fragmento_instancia set visto = current_timestamp where instancia = ?", instancia) == 0) {
+			catalogo.update("insert into financas.fragmento_instancia (instancia, visto) values (?, current_timestamp)", instancia);
+		}
+	}
+
+	public String localizar(Long idUsuario) {
+		String fixado = fixados.get(idUsuario);
+		return fixado != null ? fixado : anel.localizar(idUsuario);
+	}
+
+	public AnelConsistente anel() {
+		return anel;
+	}
+
+	public AnelConsistente criarAnel(List<String> membros) {
+		if(membros == null || membros.isEmpty()) {
+			throw new RegraNegocioException("Informe ao menos um fragmento!");
+		}
+		for(String membro : membros) {
+			if(!fontes.containsKey(membro)) {
+				throw new RegraNegocioException("Fragmento não configurado: " + membro);
+			}
+		}
+		return new AnelConsistente(new LinkedHashSet<>(membros), pontosPorMembro);
+	}
+
+	public synchronized void alterarAnel(AnelConsistente novo) {
+		transacaoCatalogo.execute(status -> {
+			catalogo.update("delete from financas.fragmento_membro");
+			catalogo.batchUpdate("insert into financas.fragmento_membro (nome) values (?)", argumentos(novo.membros()));
+			avancarVersao();
+			return null;
+		});
+		anel = novo;
+	}
+
+	public synchronized void fixar(Long idUsuario, String fragmento) {
+		transacaoCatalogo.execute(status -> {
+			if(catalogo.update("update financas.fragmento_usuario set fragmento = ? where id_usuario = ?", fragmento, idUsuario) == 0) {
+				catalogo.update("insert into financas.fragmento_usuario (id_usuario, fragmento) values (?, ?)", idUsuario, fragmento);
+			}
+			avancarVersao();
+			return null;
+		});
+		fixados.put(idUsuario, fragmento);
+	}
+
+	public synchronized void liberar(Long idUsuario) {
+		transacaoCatalogo.execute(status -> {
+			catalogo.update("delete from financas.fragmento_usuario where id_usuario = ?", idUsuario);
+			avancarVersao();
+			return null;
+		});
+		fixados.remove(idUsuario);
+	}
+
+	public Map<Long, String> fixados() {
+		return Collections.unmodifiableMap(fixados);
+	}
+
+	/**
+	 * Chamadas de serviço de um usuário seguram a leitura; mover o usuário de
+	 * fragmento segura a escrita.
+	 */
+	public ReadWriteLock bloqueio(Long idUsuario) {
+		return bloqueios[(Long.hashCode(idUsuario) & 0x7fffffff) % FAIXAS_BLOQUEIO];
+	}
+
+	/**
+	 * A cópia do cadastro de um usuário novo segura a leitura; a troca do anel
+	 * segura a escrita desde a leitura dos usuários existentes, para que todo
+	 * usuário novo seja visto por ela ou já use o anel novo.
+	 */
+	public ReadWriteLock bloqueioCadastro() {
+		return bloqueioCadastro;
+	}
+
+	public String principal() {
+		return principal;
+	}
+
+	public DataSource fonte(String nome) {
+		return fontes.get(nome);
+	}
+
+	public Map<String, DataSource> fontes() {
+		return Collections.unmodifiableMap(fontes);
+	}
+
+	/**
+	 * Todos os fragmentos configurados, o principal primeiro.
+	 */
+	public Set<String> nomes() {
+		Set<String> nomes = new LinkedHashSet<>();
+		nomes.add(principal);
+		nomes.addAll(fontes.keySet());
+		return nomes;
+	}
+
+	private void avancarVersao() {
+		catalogo.update("update financas.fragmento_versao set versao = versao + 1 where id = 1");
+	}
+
+	private static List<Object[]> argumentos(List<String> valores) {
+		List<Object[]> argumentos = new ArrayList<>(valores.size());
+		for(String valor : valores) {
+			argumentos.add(new Object[] { valor });
+		}
+		return argumentos;
+	}
+
+}
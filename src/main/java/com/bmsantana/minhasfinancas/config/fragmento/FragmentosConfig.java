@@ -0,0 +1,83 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Fragmentação dos dados por usuário, ligada por
+ * minhasfinancas.fragmentos.habilitado. Cada fragmento é declarado em
+ * minhasfinancas.fragmentos.fontes.&lt;nome&gt;.* com as mesmas propriedades de
+ * spring.datasource, que deixa de ser usado. Os ids precisam ser únicos entre
+ * os fragmentos, já que os dados de um usuário são copiados com os mesmos ids
+ * ao mudar de fragmento: os de usuários e lançamentos saem de
+ * GeradorIdOrdenado, que não depende do banco; as demais tabelas precisam de
+ * sequências com faixas distintas.
+ *
+ * Exige spring.jpa.open-in-view=false: com o EntityManager aberto na
+ * requisição inteira, a conexão da primeira transação seria reaproveitada
+ * pelas seguintes, mesmo quando o roteamento escolhe outro fragmento.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minhasfinancas.fragmentos.habilitado", havingValue = "true")
+public class FragmentosConfig {
+
+	@Bean
+	public DiretorioFragmentos diretorioFragmentos(Environment ambiente,
+			@Value("${minhasfinancas.fragmentos.principal}") String principal,
+			@Value("${minhasfinancas.fragmentos.membros:${minhasfinancas.fragmentos.principal}}") List<String> membros,
+			@Value("${minhasfinancas.fragmentos.pontos-por-membro:128}") int pontosPorMembro,
+			@Value("${minhasfinancas.fragmentos.validade-instancia-ms:10000}") long validadeInstanciaMs) {
+		Map<String, DataSourceProperties> propriedades = Binder.get(ambiente)
+				.bind("minhasfinancas.fragmentos.fontes", Bindable.mapOf(String.class, DataSourceProperties.class))
+				.orElseThrow(() -> new IllegalStateException("Nenhum fragmento configurado em minhasfinancas.fragmentos.fontes"));
+		if(ambiente.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+			throw new IllegalStateException("Configure spring.jpa.open-in-view=false para usar a fragmentação");
+		}
+		if(!propriedades.containsKey(principal)) {
+			throw new IllegalStateException("Fragmento principal não configurado: " + principal);
+		}
+
+		Map<String, DataSource> fontes = new LinkedHashMap<>();
+		propriedades.forEach((nome, fonte) -> {
+			HikariDataSource dataSource = fonte.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+			dataSource.setPoolName("fragmento-" + nome);
+			fontes.put(nome, dataSource);
+		});
+
+		DiretorioFragmentos diretorio = new DiretorioFragmentos(fontes, principal, pontosPorMembro, validadeInstanciaMs);
+		diretorio.iniciar(membros);
+		return diretorio;
+	}
+
+	@Bean
+	@Primary
+	public DataSourceFragmentado dataSource(DiretorioFragmentos diretorio) {
+		return new DataSourceFragmentado(diretorio.fontes(), diretorio.principal());
+	}
+
+	@Bean
+	public RoteamentoFragmentos roteamentoFragmentos(DiretorioFragmentos diretorio) {
+		return new RoteamentoFragmentos(diretorio);
+	}
+
+	@Bean
+	public RebalanceamentoFragmentos rebalanceamentoFragmentos(DiretorioFragmentos diretorio) {
+		return new RebalanceamentoFragmentos(diretorio);
+	}
+
+}
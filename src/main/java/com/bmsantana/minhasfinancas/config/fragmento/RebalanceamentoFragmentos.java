@@ -0,0 +1,331 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bmsantana.minhasfinancas.api.dto.RebalanceamentoDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.service.evento.UsuarioCadastradoEvento;
+import com.bmsantana.minhasfinancas.util.AnelConsistente;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Muda os membros do anel com a aplicação no ar. Os usuários que trocam de
+ * fragmento são fixados onde estão antes da troca do anel e depois movidos
+ * um a um: enquanto um usuário é copiado, as chamadas de serviço dele
+ * aguardam (ver DiretorioFragmentos.bloqueio); os demais seguem normalmente.
+ * Como esse bloqueio é local, o rebalanceamento só roda com uma única
+ * instância da aplicação no ar, conferido antes de trocar o anel e antes de
+ * mover cada usuário.
+ *
+ * O cadastro do usuário continua no principal; os fragmentos guardam uma
+ * cópia dele para as chaves estrangeiras dos lançamentos.
+ */
+public class RebalanceamentoFragmentos {
+
+	private static final Logger log = LoggerFactory.getLogger(RebalanceamentoFragmentos.class);
+
+	/** Tabelas com dados do usuário, na ordem de inclusão. */
+	private static final String[] TABELAS = { "lancamento", "lancamento_recorrente", "orcamento_mensal", "fechamento_mensal",
+			"sequencia_alteracao", "lancamento_removido" };
+
+	private final DiretorioFragmentos diretorio;
+	private final ExecutorService execucao = Executors.newSingleThreadExecutor();
+	private final AtomicBoolean emExecucao = new AtomicBoolean();
+	private final Counter movidos = Metrics.counter("minhasfinancas.fragmentos.usuarios", "resultado", "movido");
+	private final Counter falhas = Metrics.counter("minhasfinancas.fragmentos.usuarios", "resultado", "falha");
+	private volatile RebalanceamentoDTO ultimo;
+
+	public RebalanceamentoFragmentos(DiretorioFragmentos diretorio) {
+		this.diretorio = diretorio;
+	}
+
+	/**
+	 * Inicia o rebalanceamento em segundo plano. Devolve false se já houver um
+	 * em execução.
+	 */
+	public boolean iniciar(List<String> membros) {
+		AnelConsistente novo = diretorio.criarAnel(membros);
+		exigirInstanciaUnica();
+		if(!emExecucao.compareAndSet(false, true)) {
+			return false;
+		}
+		ultimo = RebalanceamentoDTO.builder().situacao("EM_EXECUCAO").membros(novo.membros()).inicio(LocalDateTime.now()).build();
+		execucao.execute(() -> {
+			try {
+				executar(novo);
+			} finally {
+				emExecucao.set(false);
+			}
+		});
+		return true;
+	}
+
+	public RebalanceamentoDTO rebalancear(List<String> membros) {
+		AnelConsistente novo = diretorio.criarAnel(membros);
+		exigirInstanciaUnica();
+		if(!emExecucao.compareAndSet(false, true)) {
+			throw new RegraNegocioException("Já existe um rebalanceamento em execução!");
+		}
+		try {
+			return executar(novo);
+		} finally {
+			emExecucao.set(false);
+		}
+	}
+
+	public RebalanceamentoDTO obterSituacao() {
+		RebalanceamentoDTO situacao = ultimo;
+		if(situacao == null) {
+			return RebalanceamentoDTO.builder().situacao("SEM_REBALANCEAMENTO").membros(diretorio.anel().membros()).build();
+		}
+		return situacao;
+	}
+
+	/**
+	 * Leva a cópia do cadastro para o fragmento do novo usuário. Se não for
+	 * possível, o usuário fica fixado no principal.
+	 */
+	@EventListener
+	public void aoCadastrarUsuario(UsuarioCadastradoEvento evento) {
+		Lock leitura = diretorio.bloqueioCadastro().readLock();
+		leitura.lock();
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			try {
+				copiarNovo(evento.getUsuario().getId());
+			} finally {
+				leitura.unlock();
+			}
+			return;
+		}
+		// Cadastro ainda não gravado: a troca do anel espera a transação terminar.
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				leitura.unlock();
+			}
+		});
+		copiarNovo(evento.getUsuario().getId());
+	}
+
+	private void copiarNovo(Long idUsuario) {
+		String destino = diretorio.localizar(idUsuario);
+		if(destino.equals(diretorio.principal())) {
+			return;
+		}
+		try {
+			transacao(destino).execute(status -> {
+				copiarCadastro(idUsuario, jdbc(destino));
+				return null;
+			});
+		} catch (RuntimeException e) {
+			log.warn("Usuário {} fixado no fragmento principal: falha ao copiar para {}", idUsuario, destino, e);
+			diretorio.fixar(idUsuario, diretorio.principal());
+		}
+	}
+
+	private void exigirInstanciaUnica() {
+		if(diretorio.outrasInstanciasAtivas() > 0) {
+			throw new RegraNegocioException("O rebalanceamento exige uma única instância da aplicação no ar!");
+		}
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		execucao.shutdownNow();
+	}
+
+	private RebalanceamentoDTO executar(AnelConsistente novo) {
+		LocalDateTime inicio = LocalDateTime.now();
+		try {
+			List<Movimento> movimentos = new ArrayList<>();
+			List<Long> liberados = new ArrayList<>();
+			// Cadastros novos esperam da leitura dos usuários até a troca do anel.
+			Lock cadastro = diretorio.bloqueioCadastro().writeLock();
+			cadastro.lock();
+			try {
+				Map<Long, String> fixados = diretorio.fixados();
+				jdbc(diretorio.principal()).query("select id from financas.usuario", rs -> {
+					long idUsuario = rs.getLong(1);
+					String origem = diretorio.localizar(idUsuario);
+					String destino = novo.localizar(idUsuario);
+					if(!origem.equals(destino)) {
+						movimentos.add(new Movimento(idUsuario, origem, destino));
+					} else if(fixados.containsKey(idUsuario)) {
+						liberados.add(idUsuario);
+					}
+				});
+
+				// Fixados antes da troca do anel, os usuários continuam onde estão até serem movidos.
+				exigirInstanciaUnica();
+				for(Movimento movimento : movimentos) {
+					diretorio.fixar(movimento.idUsuario, movimento.origem);
+				}
+				diretorio.alterarAnel(novo);
+			} finally {
+				cadastro.unlock();
+			}
+			for(Long idUsuario : liberados) {
+				diretorio.liberar(idUsuario);
+			}
+
+			long movidosAgora = 0;
+			long falhasAgora = 0;
+			for(Movimento movimento : movimentos) {
+				exigirInstanciaUnica();
+				if(mover(movimento)) {
+					movidosAgora++;
+				} else {
+					falhasAgora++;
+				}
+				ultimo = RebalanceamentoDTO.builder().situacao("EM_EXECUCAO").membros(novo.membros()).inicio(inicio)
+						.usuariosAMover((long) movimentos.size()).usuariosMovidos(movidosAgora).falhas(falhasAgora).build();
+			}
+
+			ultimo = ultimo(novo, inicio, movimentos.size(), movidosAgora, falhasAgora)
+					.situacao(falhasAgora == 0 ? "CONCLUIDO" : "CONCLUIDO_COM_FALHAS")
+					.build();
+		} catch (RuntimeException e) {
+			log.error("Falha no rebalanceamento dos fragmentos", e);
+			ultimo = ultimo(novo, inicio, 0, 0, 0).situacao("FALHOU").erro(e.getMessage()).build();
+		}
+		return ultimo;
+	}
+
+	/**
+	 * Copia os dados para o destino, passa a rotear o usuário para lá e só
+	 * então apaga a origem. Uma falha na cópia mantém o usuário na origem.
+	 */
+	private boolean mover(Movimento movimento) {
+		Lock escrita = diretorio.bloqueio(movimento.idUsuario).writeLock();
+		escrita.lock();
+		try {
+			try {
+				transacao(movimento.destino).execute(status -> {
+					copiar(movimento);
+					return null;
+				});
+			} catch (RuntimeException e) {
+				log.warn("Usuário {} mantido no fragmento {}: falha ao copiar para {}",
+						movimento.idUsuario, movimento.origem, movimento.destino, e);
+				falhas.increment();
+				return false;
+			}
+			diretorio.fixar(movimento.idUsuario, movimento.destino);
+			try {
+				transacao(movimento.origem).execute(status -> {
+					apagar(movimento.idUsuario, movimento.origem, jdbc(movimento.origem));
+					return null;
+				});
+			} catch (RuntimeException e) {
+				log.warn("Dados antigos do usuário {} não foram apagados do fragmento {}", movimento.idUsuario, movimento.origem, e);
+			}
+			diretorio.liberar(movimento.idUsuario);
+			movidos.increment();
+			return true;
+		} finally {
+			escrita.unlock();
+		}
+	}
+
+	private void copiar(Movimento movimento) {
+		JdbcTemplate origem = jdbc(movimento.origem);
+		JdbcTemplate destino = jdbc(movimento.destino);
+
+		// Restos de uma tentativa anterior que falhou no meio.
+		apagar(movimento.idUsuario, movimento.destino, destino);
+		copiarCadastro(movimento.idUsuario, destino);
+		for(String tabela : TABELAS) {
+			copiarLinhas(origem, destino, tabela, "id_usuario", movimento.idUsuario);
+		}
+	}
+
+	private void copiarCadastro(Long idUsuario, JdbcTemplate destino) {
+		Integer existe = destino.queryForObject("select count(*) from financas.usuario where id = ?", Integer.class, idUsuario);
+		if(existe == 0) {
+			copiarLinhas(jdbc(diretorio.principal()), destino, "usuario", "id", idUsuario);
+		}
+	}
+
+	private void apagar(Long idUsuario, String fragmento, JdbcTemplate jdbc) {
+		for(int i = TABELAS.length - 1; i >= 0; i--) {
+			jdbc.update("delete from financas." + TABELAS[i] + " where id_usuario = ?", idUsuario);
+		}
+		if(!fragmento.equals(diretorio.principal())) {
+			jdbc.update("delete from financas.usuario where id = ?", idUsuario);
+		}
+	}
+
+	private static void copiarLinhas(JdbcTemplate origem, JdbcTemplate destino, String tabela, String coluna, Long idUsuario) {
+		List<Map<String, Object>> linhas = origem.queryForList(
+				"select * from financas." + tabela + " where " + coluna + " = ?", idUsuario);
+		if(linhas.isEmpty()) {
+			return;
+		}
+		List<String> colunas = new ArrayList<>(linhas.get(0).keySet());
+		StringBuilder sql = new StringBuilder("insert into financas.").append(tabela)
+				.append(" (").append(String.join(", ", colunas)).append(") values (");
+		for(int i = 0; i < colunas.size(); i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		sql.append(")");
+
+		List<Object[]> valores = new ArrayList<>(linhas.size());
+		for(Map<String, Object> linha : linhas) {
+			valores.add(linha.values().toArray());
+		}
+		destino.batchUpdate(sql.toString(), valores);
+	}
+
+	private JdbcTemplate jdbc(String fragmento) {
+		return new JdbcTemplate(diretorio.fonte(fragmento));
+	}
+
+	private TransactionTemplate transacao(String fragmento) {
+		return new TransactionTemplate(new DataSourceTransactionManager(diretorio.fonte(fragmento)));
+	}
+
+	private RebalanceamentoDTO.RebalanceamentoDTOBuilder ultimo(AnelConsistente novo, LocalDateTime inicio,
+			long aMover, long movidosAgora, long falhasAgora) {
+		return RebalanceamentoDTO.builder()
+				.membros(novo.membros())
+				.inicio(inicio)
+				.fim(LocalDateTime.now())
+				.usuariosAMover(aMover)
+				.usuariosMovidos(movidosAgora)
+				.falhas(falhasAgora);
+	}
+
+	private static class Movimento {
+
+		private final Long idUsuario;
+		private final String origem;
+		private final String destino;
+
+		Movimento(Long idUsuario, String origem, String destino) {
+			this.idUsuario = idUsuario;
+			this.origem = origem;
+			this.destino = destino;
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRecorrente;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.filtro.FiltroLancamento;
+
+/**
+ * Escolhe o fragmento de cada chamada aos serviços, antes que a transação
+ * abra a conexão. O usuário vem do parâmetro marcado com ChaveFragmento ou do
+ * primeiro Usuario, Lancamento, LancamentoRecorrente ou FiltroLancamento
+ * recebido. Chamadas aninhadas continuam no fragmento da chamada externa.
+ *
+ * Sem usuário identificado: métodos que devolvem Optional procuram em todos
+ * os fragmentos (ex: lançamento por id) e os demais usam o principal
+ * (cadastro e autenticação de usuários).
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RoteamentoFragmentos {
+
+	private final DiretorioFragmentos diretorio;
+
+	public RoteamentoFragmentos(DiretorioFragmentos diretorio) {
+		this.diretorio = diretorio;
+	}
+
+	@Around("execution(public * com.bmsantana.minhasfinancas.service..*(..)) "
+			+ "&& @within(org.springframework.stereotype.Service)")
+	public Object rotear(ProceedingJoinPoint chamada) throws Throwable {
+		if(ContextoFragmento.atual() != null) {
+			return chamada.proceed();
+		}
+
+		Method metodo = AopUtils.getMostSpecificMethod(((MethodSignature) chamada.getSignature()).getMethod(),
+				AopUtils.getTargetClass(chamada.getTarget()));
+		if(metodo.isAnnotationPresent(TodosFragmentos.class)) {
+			return emTodos(chamada, metodo);
+		}
+
+		Long idUsuario = chave(metodo, chamada.getArgs());
+		if(idUsuario != null) {
+			Lock leitura = diretorio.bloqueio(idUsuario).readLock();
+			leitura.lock();
+			try {
+				return executar(diretorio.localizar(idUsuario), chamada);
+			} finally {
+				leitura.unlock();
+			}
+		}
+
+		if(Optional.class.equals(metodo.getReturnType())) {
+			return procurar(chamada);
+		}
+		return chamada.proceed();
+	}
+
+	private Object emTodos(ProceedingJoinPoint chamada, Method metodo) throws Throwable {
+		Object resultado = null;
+		long soma = 0;
+		for(String fragmento : diretorio.nomes()) {
+			resultado = executar(fragmento, chamada);
+			if(resultado instanceof Number) {
+				soma += ((Number) resultado).longValue();
+			}
+		}
+		if(metodo.getReturnType() == int.class || metodo.getReturnType() == Integer.class) {
+			return (int) soma;
+		}
+		if(metodo.getReturnType() == long.class || metodo.getReturnType() == Long.class) {
+			return soma;
+		}
+		return resultado;
+	}
+
+	private Object procurar(ProceedingJoinPoint chamada) throws Throwable {
+		Object resultado = Optional.empty();
+		for(String fragmento : diretorio.nomes()) {
+			resultado = executar(fragmento, chamada);
+			if(resultado != null && ((Optional<?>) resultado).isPresent()) {
+				return resultado;
+			}
+		}
+		return resultado;
+	}
+
+	private static Object executar(String fragmento, ProceedingJoinPoint chamada) throws Throwable {
+		ContextoFragmento.definir(fragmento);
+		try {
+			return chamada.proceed();
+		} finally {
+			ContextoFragmento.limpar();
+		}
+	}
+
+	private Long chave(Method metodo, Object[] argumentos) {
+		Annotation[][] anotacoes = metodo.getParameterAnnotations();
+		for(int i = 0; i < argumentos.length; i++) {
+			for(Annotation anotacao : anotacoes[i]) {
+				if(anotacao instanceof ChaveFragmento && argumentos[i] instanceof Long) {
+					return (Long) argumentos[i];
+				}
+			}
+		}
+		for(Object argumento : argumentos) {
+			Long idUsuario = chave(argumento);
+			if(idUsuario != null) {
+				return idUsuario;
+			}
+		}
+		return null;
+	}
+
+	private Long chave(Object argumento) {
+		if(argumento instanceof Usuario) {
+			return ((Usuario) argumento).getId();
+		}
+		if(argumento instanceof Lancamento) {
+			return chave(((Lancamento) argumento).getUsuario());
+		}
+		if(argumento instanceof LancamentoRecorrente) {
+			return chave(((LancamentoRecorrente) argumento).getUsuario());
+		}
+		if(argumento instanceof FiltroLancamento) {
+			return ((FiltroLancamento) argumento).getUsuario();
+		}
+		if(argumento instanceof Collection) {
+			Long idUsuario = null;
+			for(Object item : (Collection<?>) argumento) {
+				Long chaveItem = chave(item);
+				if(idUsuario != null && chaveItem != null && !diretorio.localizar(idUsuario).equals(diretorio.localizar(chaveItem))) {
+					throw new IllegalStateException("Lote com dados de usuários em fragmentos diferentes");
+				}
+				idUsuario = idUsuario != null ? idUsuario : chaveItem;
+			}
+			return idUsuario;
+		}
+		return null;
+	}
+
+}
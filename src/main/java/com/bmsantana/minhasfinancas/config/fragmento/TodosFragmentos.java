@@ -0,0 +1,19 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Método de serviço que processa dados de todos os usuários (ex: tarefas
+ * agendadas). Com fragmentação habilitada ele é executado uma vez em cada
+ * fragmento; retornos numéricos são somados.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TodosFragmentos {
+
+}
@@ -0,0 +1,121 @@
+package com.bmsantana.minhasfinancas.config.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * JSON pronto, em UTF-8, para JsonGenerator.writeRawValue. O gerador UTF-8
+ * copia os bytes direto para o seu buffer, sem passar por String. As formas
+ * "quoted" (o JSON escapado como conteúdo de uma string) não são usadas por
+ * writeRawValue e só são montadas se alguém as pedir.
+ */
+class JsonBruto implements SerializableString {
+
+	private final byte[] json;
+
+	JsonBruto(byte[] json) {
+		this.json = json;
+	}
+
+	@Override
+	public String getValue() {
+		return new String(json, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public int charLength() {
+		return getValue().length();
+	}
+
+	@Override
+	public byte[] asUnquotedUTF8() {
+		return json;
+	}
+
+	@Override
+	public int appendUnquotedUTF8(byte[] buffer, int offset) {
+		if(offset + json.length > buffer.length) {
+			return -1;
+		}
+		System.arraycopy(json, 0, buffer, offset, json.length);
+		return json.length;
+	}
+
+	@Override
+	public int appendUnquoted(char[] buffer, int offset) {
+		String valor = getValue();
+		if(offset + valor.length() > buffer.length) {
+			return -1;
+		}
+		valor.getChars(0, valor.length(), buffer, offset);
+		return valor.length();
+	}
+
+	@Override
+	public int writeUnquotedUTF8(OutputStream out) throws IOException {
+		out.write(json);
+		return json.length;
+	}
+
+	@Override
+	public int putUnquotedUTF8(ByteBuffer buffer) {
+		if(json.length > buffer.remaining()) {
+			return -1;
+		}
+		buffer.put(json);
+		return json.length;
+	}
+
+	@Override
+	public char[] asQuotedChars() {
+		return JsonStringEncoder.getInstance().quoteAsString(getValue());
+	}
+
+	@Override
+	public byte[] asQuotedUTF8() {
+		return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+	}
+
+	@Override
+	public int appendQuotedUTF8(byte[] buffer, int offset) {
+		byte[] escapado = asQuotedUTF8();
+		if(offset + escapado.length > buffer.length) {
+			return -1;
+		}
+		System.arraycopy(escapado, 0, buffer, offset, escapado.length);
+		return escapado.length;
+	}
+
+	@Override
+	public int appendQuoted(char[] buffer, int offset) {
+		char[] escapado = asQuotedChars();
+		if(offset + escapado.length > buffer.length) {
+			return -1;
+		}
+		System.arraycopy(escapado, 0, buffer, offset, escapado.length);
+		return escapado.length;
+	}
+
+	@Override
+	public int writeQuotedUTF8(OutputStream out) throws IOException {
+		byte[] escapado = asQuotedUTF8();
+		out.write(escapado);
+		return escapado.length;
+	}
+
+	@Override
+	public int putQuotedUTF8(ByteBuffer buffer) {
+		byte[] escapado = asQuotedUTF8();
+		if(escapado.length > buffer.remaining()) {
+			return -1;
+		}
+		buffer.put(escapado);
+		return escapado.length;
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.bmsantana.minhasfinancas.config.json;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.util.FragmentosJson;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+/**
+ * Listas grandes de histórico são quase todas de lançamentos efetivados ou
+ * cancelados; o JSON deles é guardado pronto e as respostas só concatenam os
+ * fragmentos. O módulo entra no ObjectMapper do Spring Boot, usado pelos
+ * conversores HTTP.
+ */
+@Configuration
+public class LancamentosJsonConfig {
+
+	private final FragmentosJson fragmentos;
+
+	public LancamentosJsonConfig(@Value("${minhasfinancas.json.cache.maximo-bytes:33554432}") long maximoBytes) {
+		this.fragmentos = new FragmentosJson("json-lancamentos", maximoBytes);
+	}
+
+	@Bean
+	public Module lancamentosEncerradosModule() {
+		return criarModulo(fragmentos);
+	}
+
+	static Module criarModulo(FragmentosJson fragmentos) {
+		SimpleModule modulo = new SimpleModule("lancamentos-encerrados");
+		modulo.setSerializerModifier(new BeanSerializerModifier() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription descricao,
+					JsonSerializer<?> serializador) {
+				if(descricao.getBeanClass() != Lancamento.class) {
+					return serializador;
+				}
+				return new SerializadorLancamentoEncerrado((JsonSerializer<Object>) serializador, fragmentos);
+			}
+		});
+		return modulo;
+	}
+
+	/**
+	 * A assinatura já impede que um fragmento antigo seja usado; remover na
+	 * alteração só devolve a memória mais cedo.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		if(evento.getLancamento().getId() != null) {
+			fragmentos.remover(evento.getLancamento().getId());
+		}
+	}
+
+}
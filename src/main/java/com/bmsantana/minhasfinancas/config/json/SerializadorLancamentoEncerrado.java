@@ -0,0 +1,125 @@
+package com.bmsantana.minhasfinancas.config.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.util.FragmentosJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Serializa lançamentos efetivados ou cancelados a partir do JSON guardado
+ * em FragmentosJson, que quase nunca muda; os demais, e qualquer formato que
+ * não seja JSON (CBOR, Smile), passam pelo serializador padrão do Jackson.
+ *
+ * O fragmento é montado por um gerador da mesma fábrica e com as mesmas
+ * opções do gerador da resposta; com indentação (pretty print) o lançamento
+ * passa pelo serializador padrão, já que o fragmento não sabe em que nível
+ * vai entrar. A assinatura guarda os valores de todos os campos que vão
+ * para o JSON, inclusive os do usuário, e as opções do gerador; um campo
+ * novo no lançamento precisa entrar nela também.
+ */
+public class SerializadorLancamentoEncerrado extends StdSerializer<Lancamento>
+		implements ContextualSerializer, ResolvableSerializer {
+
+	private static final long serialVersionUID = 1L;
+
+	private final JsonSerializer<Object> padrao;
+	private final FragmentosJson fragmentos;
+
+	public SerializadorLancamentoEncerrado(JsonSerializer<Object> padrao, FragmentosJson fragmentos) {
+		super(Lancamento.class);
+		this.padrao = padrao;
+		this.fragmentos = fragmentos;
+	}
+
+	@Override
+	public void serialize(Lancamento lancamento, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		if(!(gen instanceof UTF8JsonGenerator) || gen.getCodec() == null || gen.getPrettyPrinter() != null
+				|| lancamento.getId() == null || !encerrado(lancamento.getStatus())) {
+			padrao.serialize(lancamento, gen, provider);
+			return;
+		}
+
+		List<Object> assinatura = assinatura(lancamento, gen);
+		byte[] json = fragmentos.obter(lancamento.getId(), assinatura);
+		if(json == null) {
+			ByteArrayBuilder buffer = new ByteArrayBuilder(512);
+			try (JsonGenerator fragmento = gen.getCodec().getFactory().createGenerator(buffer)) {
+				fragmento.setCodec(gen.getCodec());
+				fragmento.overrideStdFeatures(gen.getFeatureMask(), ~0);
+				fragmento.setCharacterEscapes(gen.getCharacterEscapes());
+				fragmento.setHighestNonEscapedChar(gen.getHighestEscapedChar());
+				padrao.serialize(lancamento, fragmento, provider);
+			}
+			json = buffer.toByteArray();
+			fragmentos.guardar(lancamento.getId(), assinatura, json);
+		}
+		gen.writeRawValue(new JsonBruto(json));
+	}
+
+	@Override
+	public void serializeWithType(Lancamento lancamento, JsonGenerator gen, SerializerProvider provider,
+			TypeSerializer typeSer) throws IOException {
+		padrao.serializeWithType(lancamento, gen, provider, typeSer);
+	}
+
+	@Override
+	public void resolve(SerializerProvider provider) throws JsonMappingException {
+		if(padrao instanceof ResolvableSerializer) {
+			((ResolvableSerializer) padrao).resolve(provider);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+		if(!(padrao instanceof ContextualSerializer)) {
+			return this;
+		}
+		JsonSerializer<?> contextual = ((ContextualSerializer) padrao).createContextual(provider, property);
+		return contextual == padrao ? this : new SerializadorLancamentoEncerrado((JsonSerializer<Object>) contextual, fragmentos);
+	}
+
+	static boolean encerrado(StatusLancamento status) {
+		return status == StatusLancamento.EFETIVADO || status == StatusLancamento.CANCELADO;
+	}
+
+	/**
+	 * Valores que determinam o JSON: os campos do lançamento e do usuário e as
+	 * opções do gerador. Comparados por equals, sem risco de colisão.
+	 */
+	static List<Object> assinatura(Lancamento lancamento, JsonGenerator gen) {
+		Usuario usuario = lancamento.getUsuario();
+		return Arrays.asList(
+				lancamento.getId(),
+				lancamento.getDescricao(),
+				lancamento.getCategoria(),
+				lancamento.getMes(),
+				lancamento.getAno(),
+				lancamento.getValor(),
+				lancamento.getDataCadastro(),
+				lancamento.getTipo(),
+				lancamento.getStatus(),
+				usuario != null ? usuario.getId() : null,
+				usuario != null ? usuario.getNome() : null,
+				usuario != null ? usuario.getEmail() : null,
+				gen.getFeatureMask(),
+				gen.getHighestEscapedChar(),
+				gen.getCharacterEscapes());
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.bmsantana.minhasfinancas.config.tempos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.bmsantana.minhasfinancas.util.TemposRequisicao;
+import com.bmsantana.minhasfinancas.util.TemposRequisicao.Fase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Conversor JSON que mede só a serialização: o Jackson escreve num buffer da
+ * thread, reaproveitado entre requisições, e o envio para o cliente fica de
+ * fora da fase json. Fora de uma requisição medida escreve direto na resposta.
+ */
+public class ConversorJsonMedido extends MappingJackson2HttpMessageConverter {
+
+	/** Buffers maiores que isso não ficam presos à thread. */
+	private static final int MAXIMO_REAPROVEITADO = 256 * 1024;
+
+	private static final ThreadLocal<ByteArrayOutputStream> BUFFER = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(8192));
+
+	public ConversorJsonMedido(ObjectMapper objectMapper) {
+		super(objectMapper);
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		long inicio = TemposRequisicao.marcar();
+		if(inicio == 0) {
+			super.writeInternal(object, type, outputMessage);
+			return;
+		}
+
+		ByteArrayOutputStream buffer = BUFFER.get();
+		buffer.reset();
+		try {
+			super.writeInternal(object, type, new HttpOutputMessage() {
+				@Override
+				public OutputStream getBody() {
+					return buffer;
+				}
+
+				@Override
+				public HttpHeaders getHeaders() {
+					return outputMessage.getHeaders();
+				}
+			});
+			TemposRequisicao.registrar(Fase.JSON, inicio);
+			buffer.writeTo(outputMessage.getBody());
+		} finally {
+			if(buffer.size() > MAXIMO_REAPROVEITADO) {
+				BUFFER.remove();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.bmsantana.minhasfinancas.config.tempos;
+
+import org.hibernate.BaseSessionEventListener;
+
+import com.bmsantana.minhasfinancas.util.TemposRequisicao;
+import com.bmsantana.minhasfinancas.util.TemposRequisicao.Fase;
+
+/**
+ * Leva para TemposRequisicao o tempo de conexão, flush e SQL de cada sessão
+ * do Hibernate. Registrado em application.properties por
+ * hibernate.session.events.auto; o Hibernate cria uma instância por sessão.
+ */
+public class TemposHibernate extends BaseSessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private long inicioConexao;
+	private long inicioSql;
+	private long inicioFlush;
+
+	@Override
+	public void jdbcConnectionAcquisitionStart() {
+		inicioConexao = TemposRequisicao.marcar();
+	}
+
+	@Override
+	public void jdbcConnectionAcquisitionEnd() {
+		TemposRequisicao.registrar(Fase.CONEXAO, inicioConexao);
+		inicioConexao = 0;
+	}
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		inicioSql = TemposRequisicao.marcar();
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		TemposRequisicao.registrar(Fase.SQL, inicioSql);
+		inicioSql = 0;
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		inicioSql = TemposRequisicao.marcar();
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		TemposRequisicao.registrar(Fase.SQL, inicioSql);
+		inicioSql = 0;
+	}
+
+	@Override
+	public void flushStart() {
+		inicioFlush = TemposRequisicao.marcar();
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		TemposRequisicao.registrar(Fase.FLUSH, inicioFlush);
+		inicioFlush = 0;
+	}
+
+	@Override
+	public void partialFlushStart() {
+		inicioFlush = TemposRequisicao.marcar();
+	}
+
+	@Override
+	public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+		TemposRequisicao.registrar(Fase.FLUSH, inicioFlush);
+		inicioFlush = 0;
+	}
+
+}
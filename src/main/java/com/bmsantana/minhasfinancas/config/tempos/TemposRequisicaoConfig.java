@@ -0,0 +1,36 @@
+package com.bmsantana.minhasfinancas.config.tempos;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cabeçalho Server-Timing com o tempo das fases de cada requisição, ligado
+ * por minhasfinancas.tempos.habilitado. O conversor JSON substitui o padrão
+ * do Spring Boot, que só é criado quando não há outro MappingJackson2HttpMessageConverter.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minhasfinancas.tempos.habilitado", havingValue = "true", matchIfMissing = true)
+public class TemposRequisicaoConfig {
+
+	@Bean
+	public FilterRegistrationBean<TemposRequisicaoFilter> temposRequisicaoFilter(
+			@Value("${minhasfinancas.tempos.lenta-ms:500}") long lentaMs,
+			@Value("${minhasfinancas.tempos.amostragem-lentas:0.1}") double amostragemLentas) {
+		FilterRegistrationBean<TemposRequisicaoFilter> registro =
+				new FilterRegistrationBean<>(new TemposRequisicaoFilter(lentaMs, amostragemLentas));
+		registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registro;
+	}
+
+	@Bean
+	public ConversorJsonMedido mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+		return new ConversorJsonMedido(objectMapper);
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.bmsantana.minhasfinancas.config.tempos;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.bmsantana.minhasfinancas.util.TemposRequisicao;
+
+/**
+ * Mede cada requisição e devolve as fases no cabeçalho Server-Timing. O
+ * cabeçalho entra logo antes do primeiro byte do corpo, quando as fases do
+ * serviço e a serialização já terminaram; o total é o tempo até ali.
+ * Requisições lentas vão para o log, por amostragem.
+ */
+public class TemposRequisicaoFilter extends OncePerRequestFilter {
+
+	public static final String CABECALHO = "Server-Timing";
+
+	private static final Logger log = LoggerFactory.getLogger(TemposRequisicaoFilter.class);
+
+	private final long lentaNanos;
+	private final double amostragemLentas;
+
+	public TemposRequisicaoFilter(long lentaMs, double amostragemLentas) {
+		this.lentaNanos = TimeUnit.MILLISECONDS.toNanos(lentaMs);
+		this.amostragemLentas = amostragemLentas;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		TemposRequisicao tempos = TemposRequisicao.iniciar();
+		RespostaMedida resposta = new RespostaMedida(response, tempos);
+		try {
+			filterChain.doFilter(request, resposta);
+		} finally {
+			resposta.incluirCabecalho();
+			long decorrido = tempos.decorridoNanos();
+			if(decorrido >= lentaNanos && ThreadLocalRandom.current().nextDouble() < amostragemLentas) {
+				log.warn("Requisição lenta: {} {} {} em {} ms [{}]", request.getMethod(), request.getRequestURI(),
+						response.getStatus(), TimeUnit.NANOSECONDS.toMillis(decorrido), tempos.detalhamento());
+			}
+			TemposRequisicao.encerrar();
+		}
+	}
+
+	private static class RespostaMedida extends HttpServletResponseWrapper {
+
+		private final TemposRequisicao tempos;
+		private boolean incluido;
+
+		RespostaMedida(HttpServletResponse response, TemposRequisicao tempos) {
+			super(response);
+			this.tempos = tempos;
+		}
+
+		void incluirCabecalho() {
+			if(!incluido && !isCommitted()) {
+				setHeader(CABECALHO, tempos.cabecalho());
+			}
+			incluido = true;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			incluirCabecalho();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			incluirCabecalho();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			incluirCabecalho();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			incluirCabecalho();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			incluirCabecalho();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			incluirCabecalho();
+			super.sendRedirect(location);
+		}
+	}
+
+}
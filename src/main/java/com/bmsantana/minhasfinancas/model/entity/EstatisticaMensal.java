@@ -0,0 +1,53 @@
+package com.bmsantana.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="estatistica_mensal", schema="financas")
+public class EstatisticaMensal {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id")
+	private Long id;
+
+	@Column(name="ano")
+	private Integer ano;
+
+	@Column(name="mes")
+	private Integer mes;
+
+	@Column(name="receitas")
+	private BigDecimal receitas;
+
+	@Column(name="despesas")
+	private BigDecimal despesas;
+
+	@Column(name="usuarios_ativos")
+	private Long usuariosAtivos;
+
+	@Column(name="data_processamento")
+	@Convert(converter= Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataProcessamento;
+
+}
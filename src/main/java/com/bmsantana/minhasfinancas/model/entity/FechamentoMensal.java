@@ -0,0 +1,56 @@
+package com.bmsantana.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fechamento de um mês com movimento: movimento é receitas menos despesas do
+ * mês e saldo é o acumulado até o fim dele. Meses sem lançamentos não têm
+ * fechamento; o saldo deles é o do último fechamento anterior.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="fechamento_mensal", schema="financas", uniqueConstraints = {
+		@UniqueConstraint(name="uk_fechamento_usuario_ano_mes", columnNames={"id_usuario", "ano", "mes"})
+})
+public class FechamentoMensal {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id")
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name="id_usuario")
+	private Usuario usuario;
+
+	@Column(name="ano")
+	private Integer ano;
+
+	@Column(name="mes")
+	private Integer mes;
+
+	@Column(name="movimento")
+	private BigDecimal movimento;
+
+	@Column(name="saldo")
+	private BigDecimal saldo;
+
+}
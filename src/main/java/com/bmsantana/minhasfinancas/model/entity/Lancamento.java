@@ -9,16 +9,18 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
 import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,20 +29,28 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name="lancamento", schema="financas")
+@Table(name="lancamento", schema="financas", indexes = {
+		@Index(name="idx_lancamento_usuario_ano_mes", columnList="id_usuario, ano, mes"),
+		@Index(name="idx_lancamento_usuario_impressao", columnList="id_usuario, impressao"),
+		@Index(name="idx_lancamento_usuario_versao", columnList="id_usuario, versao")
+})
 public class Lancamento {
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(generator = "ids_lancamento")
+	@GenericGenerator(name = "ids_lancamento", strategy = "com.bmsantana.minhasfinancas.config.GeradorIdOrdenado")
 	@Column(name="id")
 	private Long id;
 	
 	@Column(name="descricao")
 	private String descricao;
 	
+	@Column(name="categoria")
+	private String categoria;
+	
 	@Column(name="mes")
 	private Integer mes;
 	
@@ -65,5 +75,15 @@ public class Lancamento {
 	@Column(name="status")
 	@Enumerated(value = EnumType.STRING)
 	private StatusLancamento status;
+	
+	/** Impressão digital da linha de extrato importada que originou o lançamento. */
+	@JsonIgnore
+	@Column(name="impressao")
+	private Long impressao;
+	
+	/** Posição da última alteração na sequência do usuário (ver SequenciaAlteracao). */
+	@JsonIgnore
+	@Column(name="versao")
+	private Long versao;
 		
 }
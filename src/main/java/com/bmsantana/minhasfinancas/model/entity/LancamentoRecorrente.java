@@ -0,0 +1,81 @@
+package com.bmsantana.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Modelo de um lançamento mensal (ex: contas fixas). Os lançamentos são
+ * gerados a partir de proximoMes/proximoAno até o limite de antecedência
+ * configurado, ou até mesFim/anoFim quando informados.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="lancamento_recorrente", schema="financas")
+public class LancamentoRecorrente {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id")
+	private Long id;
+
+	@Column(name="descricao")
+	private String descricao;
+
+	@Column(name="categoria")
+	private String categoria;
+
+	@ManyToOne
+	@JoinColumn(name="id_usuario")
+	private Usuario usuario;
+
+	@Column(name="valor")
+	private BigDecimal valor;
+
+	@Column(name="tipo")
+	@Enumerated(value = EnumType.STRING)
+	private TipoLancamento tipo;
+
+	@Column(name="proximo_mes")
+	private Integer proximoMes;
+
+	@Column(name="proximo_ano")
+	private Integer proximoAno;
+
+	@Column(name="mes_fim")
+	private Integer mesFim;
+
+	@Column(name="ano_fim")
+	private Integer anoFim;
+
+	@Column(name="ativo")
+	private boolean ativo;
+
+	@Column(name="data_cadastro")
+	@Convert(converter= Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate dataCadastro;
+
+}
@@ -0,0 +1,47 @@
+package com.bmsantana.minhasfinancas.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marca de um lançamento removido, guardada para que a sincronização
+ * incremental avise os clientes. O id é o do lançamento.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="lancamento_removido", schema="financas", indexes = {
+		@Index(name="idx_lancamento_removido_usuario_versao", columnList="id_usuario, versao")
+})
+public class LancamentoRemovido {
+
+	@Id
+	@Column(name="id")
+	private Long id;
+
+	@Column(name="id_usuario")
+	private Long idUsuario;
+
+	@Column(name="versao")
+	private Long versao;
+
+	@Column(name="data_remocao")
+	@Convert(converter= Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime dataRemocao;
+
+}
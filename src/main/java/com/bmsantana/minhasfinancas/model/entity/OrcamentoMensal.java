@@ -0,0 +1,56 @@
+package com.bmsantana.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Limite de despesas de um usuário num mês. totalDespesas é mantido a cada
+ * alteração de lançamento, então a situação do orçamento nunca exige somar
+ * os lançamentos do mês.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="orcamento_mensal", schema="financas", uniqueConstraints = {
+		@UniqueConstraint(name="uk_orcamento_usuario_ano_mes", columnNames={"id_usuario", "ano", "mes"})
+})
+public class OrcamentoMensal {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id")
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name="id_usuario")
+	private Usuario usuario;
+
+	@Column(name="ano")
+	private Integer ano;
+
+	@Column(name="mes")
+	private Integer mes;
+
+	@Column(name="limite")
+	private BigDecimal limite;
+
+	@Column(name="total_despesas")
+	private BigDecimal totalDespesas;
+
+}
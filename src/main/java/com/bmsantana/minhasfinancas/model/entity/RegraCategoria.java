@@ -0,0 +1,48 @@
+package com.bmsantana.minhasfinancas.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Regra de categorização automática: lançamentos sem categoria cuja
+ * descrição contém o termo recebem a categoria. Sem usuário a regra vale
+ * para todos.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="regra_categoria", schema="financas", indexes = {
+		@Index(name="idx_regra_categoria_usuario", columnList="id_usuario")
+})
+public class RegraCategoria {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id")
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name="id_usuario")
+	private Usuario usuario;
+
+	@Column(name="termo")
+	private String termo;
+
+	@Column(name="categoria")
+	private String categoria;
+
+}
@@ -0,0 +1,37 @@
+package com.bmsantana.minhasfinancas.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contador de alterações dos lançamentos de um usuário. Cada inclusão,
+ * alteração ou remoção recebe o próximo número, e a versão é o último
+ * número entregue. Remoções anteriores à versão mínima já foram descartadas,
+ * então clientes com token mais antigo precisam de uma cópia completa.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="sequencia_alteracao", schema="financas")
+public class SequenciaAlteracao {
+
+	@Id
+	@Column(name="id_usuario")
+	private Long idUsuario;
+
+	@Column(name="versao")
+	private Long versao;
+
+	@Column(name="versao_minima")
+	private Long versaoMinima;
+
+}
@@ -3,9 +3,11 @@ package com.bmsantana.minhasfinancas.model.entity;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.GenericGenerator;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -19,12 +21,15 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name="usuario", schema="financas")
+@Table(name="usuario", schema="financas", uniqueConstraints = {
+		@UniqueConstraint(name="uk_usuario_email", columnNames="email")
+})
 public class Usuario {
 	
 	@Id
 	@Column(name="id")
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(generator = "ids_usuario")
+	@GenericGenerator(name = "ids_usuario", strategy = "com.bmsantana.minhasfinancas.config.GeradorIdOrdenado")
 	private Long id;
 	
 	@Column(name="nome")
@@ -0,0 +1,10 @@
+package com.bmsantana.minhasfinancas.model.enums;
+
+public enum TipoAlteracaoLancamento {
+
+	CRIADO,
+	ATUALIZADO,
+	STATUS_ALTERADO,
+	REMOVIDO
+
+}
@@ -0,0 +1,188 @@
+package com.bmsantana.minhasfinancas.model.filtro;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+
+/**
+ * Traduz um FiltroLancamento em JPQL. A consulta depende só do formato do
+ * filtro (quais campos vieram e a ordenação), então o texto gerado é guardado
+ * por formato e reaproveitado, e o Hibernate reaproveita o plano já
+ * interpretado. O período é escrito como faixa de ano mais o mês nas pontas,
+ * para que o índice (id_usuario, ano, mes) seja usado mesmo virando o ano.
+ * A descrição é buscada como texto literal: % e _ digitados não são curingas.
+ */
+public class ConsultaLancamento {
+
+	private static final int MAXIMO_FORMATOS = 512;
+
+	private static final Set<String> CAMPOS_ORDENACAO = new HashSet<>(Arrays.asList(
+			"id", "descricao", "categoria", "valor", "ano", "mes", "competencia", "tipo", "status"));
+
+	private final ConcurrentMap<String, String> formatos = new ConcurrentHashMap<>();
+
+	public TypedQuery<Lancamento> criar(EntityManager entityManager, FiltroLancamento filtro) {
+		YearMonth inicio = filtro.competenciaInicial();
+		YearMonth fim = filtro.competenciaFinal();
+		boolean somenteMes = filtro.getMes() != null && filtro.getAno() == null;
+		Set<String> categorias = filtro.possuiCategorias()
+				? filtro.getCategorias().stream().map(c -> c.toLowerCase(Locale.ROOT)).collect(Collectors.toSet())
+				: null;
+
+		String formato = formato(filtro, inicio, fim, somenteMes, categorias);
+		String jpql = formatos.get(formato);
+		if(jpql == null) {
+			jpql = gerar(filtro, inicio, fim, somenteMes, categorias);
+			if(formatos.size() < MAXIMO_FORMATOS) {
+				formatos.putIfAbsent(formato, jpql);
+			}
+		}
+
+		TypedQuery<Lancamento> query = entityManager.createQuery(jpql, Lancamento.class);
+		query.setParameter("usuario", filtro.getUsuario());
+		if(filtro.getDescricao() != null) {
+			query.setParameter("descricao", "%" + literal(filtro.getDescricao().toLowerCase(Locale.ROOT)) + "%");
+		}
+		if(categorias != null) {
+			query.setParameter("categorias", categorias);
+		}
+		if(preenchido(filtro.getTipos())) {
+			query.setParameter("tipos", filtro.getTipos());
+		}
+		if(preenchido(filtro.getStatus())) {
+			query.setParameter("status", filtro.getStatus());
+		}
+		if(inicio != null) {
+			query.setParameter("anoInicio", inicio.getYear());
+			query.setParameter("mesInicio", inicio.getMonthValue());
+		}
+		if(fim != null) {
+			query.setParameter("anoFim", fim.getYear());
+			query.setParameter("mesFim", fim.getMonthValue());
+		}
+		if(somenteMes) {
+			query.setParameter("mes", filtro.getMes());
+		}
+		if(filtro.getValorMinimo() != null) {
+			query.setParameter("valorMinimo", filtro.getValorMinimo());
+		}
+		if(filtro.getValorMaximo() != null) {
+			query.setParameter("valorMaximo", filtro.getValorMaximo());
+		}
+		return query;
+	}
+
+	private String formato(FiltroLancamento filtro, YearMonth inicio, YearMonth fim, boolean somenteMes, Set<String> categorias) {
+		StringBuilder formato = new StringBuilder();
+		formato.append(filtro.getDescricao() != null ? 'D' : '-')
+				.append(categorias != null ? 'C' : '-')
+				.append(preenchido(filtro.getTipos()) ? 'T' : '-')
+				.append(preenchido(filtro.getStatus()) ? 'S' : '-')
+				.append(inicio != null ? 'I' : '-')
+				.append(fim != null ? 'F' : '-')
+				.append(somenteMes ? 'M' : '-')
+				.append(filtro.getValorMinimo() != null ? 'V' : '-')
+				.append(filtro.getValorMaximo() != null ? 'W' : '-');
+		if(filtro.getOrdenacao() != null) {
+			for(String item : filtro.getOrdenacao()) {
+				formato.append('|').append(item.trim().toLowerCase(Locale.ROOT));
+			}
+		}
+		return formato.toString();
+	}
+
+	private String gerar(FiltroLancamento filtro, YearMonth inicio, YearMonth fim, boolean somenteMes, Set<String> categorias) {
+		StringBuilder jpql = new StringBuilder("select l from Lancamento l where l.usuario.id = :usuario");
+		if(filtro.getDescricao() != null) {
+			jpql.append(" and lower(l.descricao) like :descricao escape '\\'");
+		}
+		if(categorias != null) {
+			jpql.append(" and lower(l.categoria) in :categorias");
+		}
+		if(preenchido(filtro.getTipos())) {
+			jpql.append(" and l.tipo in :tipos");
+		}
+		if(preenchido(filtro.getStatus())) {
+			jpql.append(" and l.status in :status");
+		}
+		if(inicio != null) {
+			jpql.append(" and l.ano >= :anoInicio and (l.ano > :anoInicio or l.mes >= :mesInicio)");
+		}
+		if(fim != null) {
+			jpql.append(" and l.ano <= :anoFim and (l.ano < :anoFim or l.mes <= :mesFim)");
+		}
+		if(somenteMes) {
+			jpql.append(" and l.mes = :mes");
+		}
+		if(filtro.getValorMinimo() != null) {
+			jpql.append(" and l.valor >= :valorMinimo");
+		}
+		if(filtro.getValorMaximo() != null) {
+			jpql.append(" and l.valor <= :valorMaximo");
+		}
+		jpql.append(" order by ").append(ordenacao(filtro));
+		return jpql.toString();
+	}
+
+	private String ordenacao(FiltroLancamento filtro) {
+		StringBuilder ordem = new StringBuilder();
+		for(String[] item : itensOrdenacao(filtro.getOrdenacao())) {
+			String direcao = item[1];
+			String campo = item[0].equals("competencia") ? "l.ano " + direcao + ", l.mes" : "l." + item[0];
+			ordem.append(campo).append(' ').append(direcao).append(", ");
+		}
+		ordem.setLength(ordem.length() - 2);
+		return ordem.toString();
+	}
+
+	/**
+	 * Valida os itens de ordenação e devolve pares (campo, direção), sempre
+	 * terminando por id para que a ordem seja estável.
+	 */
+	private static List<String[]> itensOrdenacao(List<String> ordenacao) {
+		List<String[]> itens = new ArrayList<>();
+		boolean possuiId = false;
+		if(ordenacao != null) {
+			for(String item : ordenacao) {
+				String[] partes = item.trim().toLowerCase(Locale.ROOT).split(":");
+				String campo = partes[0].trim();
+				String direcao = partes.length > 1 ? partes[1].trim() : "asc";
+				if(!CAMPOS_ORDENACAO.contains(campo) || partes.length > 2
+						|| !(direcao.equals("asc") || direcao.equals("desc"))) {
+					throw new RegraNegocioException("Ordenação inválida: " + item);
+				}
+				possuiId |= campo.equals("id");
+				itens.add(new String[] { campo, direcao });
+			}
+		}
+		if(!possuiId) {
+			itens.add(new String[] { "id", "asc" });
+		}
+		return itens;
+	}
+
+	/**
+	 * Escapa os curingas do like, que usa \ como caractere de escape.
+	 */
+	private static String literal(String texto) {
+		return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+
+	private static boolean preenchido(Set<?> valores) {
+		return valores != null && !valores.isEmpty();
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.bmsantana.minhasfinancas.model.filtro;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.util.IndiceCategorias;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Filtros da busca de lançamentos. Conjuntos vazios ou nulos não filtram;
+ * dentro de um conjunto os valores são combinados com OU e entre campos com E.
+ * ordenacao recebe itens no formato "campo" ou "campo:desc".
+ */
+@Data
+@Builder(toBuilder = true)
+public class FiltroLancamento {
+
+	private Long usuario;
+	private String descricao;
+	private Integer mes;
+	private Integer ano;
+	private YearMonth inicio;
+	private YearMonth fim;
+	private BigDecimal valorMinimo;
+	private BigDecimal valorMaximo;
+	private Set<String> categorias;
+	private Set<TipoLancamento> tipos;
+	private Set<StatusLancamento> status;
+	private List<String> ordenacao;
+
+	public boolean possuiCategorias() {
+		return categorias != null && !categorias.isEmpty();
+	}
+
+	/**
+	 * Primeiro mês do período, combinando ano/mes com inicio; nulo se aberto.
+	 */
+	public YearMonth competenciaInicial() {
+		YearMonth porAno = ano != null ? YearMonth.of(ano, mes != null ? mes : 1) : null;
+		if(porAno == null || (inicio != null && inicio.isAfter(porAno))) {
+			return inicio;
+		}
+		return porAno;
+	}
+
+	/**
+	 * Último mês do período, combinando ano/mes com fim; nulo se aberto.
+	 */
+	public YearMonth competenciaFinal() {
+		YearMonth porAno = ano != null ? YearMonth.of(ano, mes != null ? mes : 12) : null;
+		if(porAno == null || (fim != null && fim.isBefore(porAno))) {
+			return fim;
+		}
+		return porAno;
+	}
+
+	/**
+	 * Cópia equivalente em forma canônica, usada como chave de cache: ano/mes
+	 * e inicio/fim viram o mesmo período, textos e categorias são comparados
+	 * como a busca os compara e valores ignoram a escala.
+	 */
+	public FiltroLancamento normalizado() {
+		return FiltroLancamento.builder()
+				.usuario(usuario)
+				.descricao(descricao != null ? descricao.toLowerCase(Locale.ROOT) : null)
+				.mes(ano == null ? mes : null)
+				.inicio(competenciaInicial())
+				.fim(competenciaFinal())
+				.valorMinimo(valorMinimo != null ? valorMinimo.stripTrailingZeros() : null)
+				.valorMaximo(valorMaximo != null ? valorMaximo.stripTrailingZeros() : null)
+				.categorias(possuiCategorias()
+						? categorias.stream().map(c -> Objects.toString(IndiceCategorias.normalizarCategoria(c), "")).collect(Collectors.toCollection(TreeSet::new))
+						: null)
+				.tipos(tipos != null && !tipos.isEmpty() ? EnumSet.copyOf(tipos) : null)
+				.status(status != null && !status.isEmpty() ? EnumSet.copyOf(status) : null)
+				.ordenacao(ordenacao != null
+						? ordenacao.stream().map(item -> item.trim().toLowerCase(Locale.ROOT)).collect(Collectors.toList())
+						: null)
+				.build();
+	}
+
+	/**
+	 * Indica se um lançamento da competência informada pode estar no resultado.
+	 */
+	public boolean abrange(Integer anoLancamento, Integer mesLancamento) {
+		if(anoLancamento == null || mesLancamento == null) {
+			return true;
+		}
+		YearMonth competencia = YearMonth.of(anoLancamento, mesLancamento);
+		YearMonth de = competenciaInicial();
+		YearMonth ate = competenciaFinal();
+		return (de == null || !competencia.isBefore(de))
+				&& (ate == null || !competencia.isAfter(ate))
+				&& (ano != null || mes == null || mes.equals(mesLancamento));
+	}
+
+}
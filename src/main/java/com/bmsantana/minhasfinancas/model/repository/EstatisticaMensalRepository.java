@@ -0,0 +1,9 @@
+package com.bmsantana.minhasfinancas.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.bmsantana.minhasfinancas.model.entity.EstatisticaMensal;
+
+public interface EstatisticaMensalRepository extends JpaRepository<EstatisticaMensal, Long> {
+
+}
@@ -0,0 +1,57 @@
+package com.bmsantana.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bmsantana.minhasfinancas.model.entity.FechamentoMensal;
+
+public interface FechamentoMensalRepository extends JpaRepository<FechamentoMensal, Long> {
+
+	boolean existsByUsuarioId(Long idUsuario);
+
+	@Query(value = "select f from FechamentoMensal f where f.usuario.id = :idUsuario "
+			+ "and (f.ano < :ano or (f.ano = :ano and f.mes <= :mes)) order by f.ano, f.mes")
+	List<FechamentoMensal> obterAte(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes);
+
+	/**
+	 * Saldo do último fechamento antes do mês informado. Use PageRequest.of(0, 1).
+	 */
+	@Query(value = "select f.saldo from FechamentoMensal f where f.usuario.id = :idUsuario "
+			+ "and (f.ano < :ano or (f.ano = :ano and f.mes < :mes)) order by f.ano desc, f.mes desc")
+	List<BigDecimal> obterSaldoAnterior(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			Pageable pagina);
+
+	@Modifying
+	@Query(value = "update FechamentoMensal f set f.movimento = f.movimento + :delta, f.saldo = f.saldo + :delta "
+			+ "where f.usuario.id = :idUsuario and f.ano = :ano and f.mes = :mes")
+	int acumularNoMes(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("delta") BigDecimal delta);
+
+	/**
+	 * Leva a diferença de um mês para o saldo de todos os fechamentos seguintes.
+	 */
+	@Modifying
+	@Query(value = "update FechamentoMensal f set f.saldo = f.saldo + :delta "
+			+ "where f.usuario.id = :idUsuario and (f.ano > :ano or (f.ano = :ano and f.mes > :mes))")
+	int acumularNosSeguintes(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("delta") BigDecimal delta);
+
+}
@@ -0,0 +1,16 @@
+package com.bmsantana.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRecorrente;
+
+public interface LancamentoRecorrenteRepository extends JpaRepository<LancamentoRecorrente, Long> {
+
+	@Query(value = "select r from LancamentoRecorrente r where r.ativo = true and (r.proximoAno * 100 + r.proximoMes) <= :anoMes")
+	List<LancamentoRecorrente> findPendentesAte(@Param("anoMes") Integer anoMes);
+
+}
@@ -0,0 +1,28 @@
+package com.bmsantana.minhasfinancas.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRemovido;
+
+public interface LancamentoRemovidoRepository extends JpaRepository<LancamentoRemovido, Long> {
+
+	@Query(value = "select r from LancamentoRemovido r where r.idUsuario = :idUsuario "
+			+ "and r.versao > :desde and r.versao <= :ate order by r.versao")
+	List<LancamentoRemovido> obterRemovidos(
+			@Param("idUsuario") Long idUsuario,
+			@Param("desde") Long desde,
+			@Param("ate") Long ate,
+			Pageable pagina);
+
+	@Modifying
+	@Query(value = "delete from LancamentoRemovido r where r.dataRemocao < :limite")
+	int removerAnteriores(@Param("limite") LocalDateTime limite);
+
+}
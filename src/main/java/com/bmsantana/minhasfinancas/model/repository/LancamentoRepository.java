@@ -1,20 +1,95 @@
 package com.bmsantana.minhasfinancas.model.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
 import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
 
 public interface LancamentoRepository extends JpaRepository<Lancamento, Long>{
 	
+	/**
+	 * Lê o lançamento como está gravado, numa instância nova: nem a entidade
+	 * gerenciada da sessão nem alterações ainda não gravadas nela entram no
+	 * resultado (a consulta não provoca flush).
+	 */
+	@QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "COMMIT"))
+	@Query(value = "select new com.bmsantana.minhasfinancas.model.entity.Lancamento(l.id, l.descricao, l.categoria, "
+			+ "l.mes, l.ano, l.usuario, l.valor, l.dataCadastro, l.tipo, l.status, l.impressao, l.versao) "
+			+ "from Lancamento l where l.id = :id")
+	Optional<Lancamento> obterGravado(@Param("id") Long id);
+	
 	@Query(value = "select sum(l.valor) from Lancamento l join l.usuario u where u.id = :idUsuario and l.tipo = :tipo group by u")
 	BigDecimal obterSaldoPorTipoEUsuario(
 			@Param("idUsuario") Long idUsuario,
 			@Param("tipo") TipoLancamento tipo
 			);
-
+	
+	@Query(value = "select coalesce(sum(case when l.tipo = :receita then l.valor when l.tipo = :despesa then (0 - l.valor) else 0 end), 0) "
+			+ "from Lancamento l where l.usuario.id = :idUsuario")
+	BigDecimal obterSaldoPorUsuario(
+			@Param("idUsuario") Long idUsuario,
+			@Param("receita") TipoLancamento receita,
+			@Param("despesa") TipoLancamento despesa
+			);
+	
+	@Query(value = "select l.id, l.ano, l.mes, l.valor, l.tipo, l.status from Lancamento l where l.usuario.id = :idUsuario")
+	List<Object[]> obterColunasPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	@Query(value = "select l.id, l.categoria from Lancamento l where l.usuario.id = :idUsuario and l.categoria is not null")
+	List<Object[]> obterCategoriasPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	@Query(value = "select coalesce(sum(l.valor), 0) from Lancamento l where l.usuario.id = :idUsuario "
+			+ "and l.ano = :ano and l.mes = :mes and l.tipo = :tipo and (l.status is null or l.status <> :ignorado)")
+	BigDecimal obterTotalDoMes(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("tipo") TipoLancamento tipo,
+			@Param("ignorado") StatusLancamento ignorado
+			);
+	
+	@Query(value = "select l.ano, l.mes, l.tipo, sum(l.valor) from Lancamento l where l.usuario.id = :idUsuario "
+			+ "group by l.ano, l.mes, l.tipo order by l.ano, l.mes")
+	List<Object[]> obterTotaisPorMes(@Param("idUsuario") Long idUsuario);
+	
+	@Query(value = "select distinct l.ano from Lancamento l where l.usuario.id = :idUsuario order by l.ano")
+	List<Integer> obterAnosPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	@Query(value = "select l.mes, l.tipo, l.status, count(l), sum(l.valor) from Lancamento l where l.usuario.id = :idUsuario "
+			+ "and l.ano = :ano group by l.mes, l.tipo, l.status order by l.mes, l.tipo, l.status")
+	List<Object[]> obterTotaisDoAnoPorStatus(@Param("idUsuario") Long idUsuario, @Param("ano") Integer ano);
+	
+	@Query(value = "select l from Lancamento l where l.usuario.id = :idUsuario "
+			+ "and l.versao > :desde and l.versao <= :ate order by l.versao")
+	List<Lancamento> obterAlterados(
+			@Param("idUsuario") Long idUsuario,
+			@Param("desde") Long desde,
+			@Param("ate") Long ate,
+			Pageable pagina);
+	
+	/**
+	 * Cópia completa para a sincronização: inclui os lançamentos gravados antes
+	 * da numeração das alterações, que não têm versão.
+	 */
+	@Query(value = "select l from Lancamento l where l.usuario.id = :idUsuario and (l.versao is null or l.versao <= :ate)")
+	List<Lancamento> obterAteVersao(@Param("idUsuario") Long idUsuario, @Param("ate") Long ate);
+	
+	@Query(value = "select l.impressao from Lancamento l where l.usuario.id = :idUsuario and l.impressao in :impressoes")
+	List<Long> obterImpressoesExistentes(
+			@Param("idUsuario") Long idUsuario,
+			@Param("impressoes") Collection<Long> impressoes);
 }
@@ -0,0 +1,40 @@
+package com.bmsantana.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bmsantana.minhasfinancas.model.entity.OrcamentoMensal;
+
+public interface OrcamentoMensalRepository extends JpaRepository<OrcamentoMensal, Long> {
+
+	Optional<OrcamentoMensal> findByUsuarioIdAndAnoAndMes(Long idUsuario, Integer ano, Integer mes);
+
+	List<OrcamentoMensal> findByUsuarioIdAndAnoOrderByMes(Long idUsuario, Integer ano);
+
+	/**
+	 * Soma delta ao total do mês direto no banco, sem ler a linha antes.
+	 * Devolve 0 quando o usuário não tem orçamento para o mês.
+	 */
+	@Modifying
+	@Query(value = "update OrcamentoMensal o set o.totalDespesas = o.totalDespesas + :delta "
+			+ "where o.usuario.id = :idUsuario and o.ano = :ano and o.mes = :mes")
+	int acumularDespesas(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("delta") BigDecimal delta);
+
+	@Query(value = "select o.limite, o.totalDespesas from OrcamentoMensal o "
+			+ "where o.usuario.id = :idUsuario and o.ano = :ano and o.mes = :mes")
+	List<Object[]> obterLimiteETotal(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes);
+
+}
@@ -0,0 +1,22 @@
+package com.bmsantana.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bmsantana.minhasfinancas.model.entity.RegraCategoria;
+
+public interface RegraCategoriaRepository extends JpaRepository<RegraCategoria, Long> {
+
+	@Query(value = "select r.usuario.id, r.termo, r.categoria from RegraCategoria r order by r.id")
+	List<Object[]> obterTermos();
+
+	@Query(value = "select r from RegraCategoria r where r.usuario.id = :idUsuario order by r.id")
+	List<RegraCategoria> obterPorUsuario(@Param("idUsuario") Long idUsuario);
+
+	@Query(value = "select r from RegraCategoria r where r.usuario is null order by r.id")
+	List<RegraCategoria> obterGlobais();
+
+}
@@ -0,0 +1,32 @@
+package com.bmsantana.minhasfinancas.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bmsantana.minhasfinancas.model.entity.SequenciaAlteracao;
+
+public interface SequenciaAlteracaoRepository extends JpaRepository<SequenciaAlteracao, Long> {
+
+	@Modifying
+	@Query(value = "update SequenciaAlteracao s set s.versao = s.versao + :quantidade where s.idUsuario = :idUsuario")
+	int avancar(@Param("idUsuario") Long idUsuario, @Param("quantidade") long quantidade);
+
+	@Query(value = "select s.versao from SequenciaAlteracao s where s.idUsuario = :idUsuario")
+	Optional<Long> obterVersao(@Param("idUsuario") Long idUsuario);
+
+	/**
+	 * Leva a versão mínima de cada usuário para a última remoção anterior ao
+	 * limite. Deve ser chamado antes de apagar essas remoções.
+	 */
+	@Modifying
+	@Query(value = "update SequenciaAlteracao s set s.versaoMinima = (select max(r.versao) from LancamentoRemovido r "
+			+ "where r.idUsuario = s.idUsuario and r.dataRemocao < :limite) "
+			+ "where exists (select r.id from LancamentoRemovido r where r.idUsuario = s.idUsuario and r.dataRemocao < :limite)")
+	int avancarVersaoMinima(@Param("limite") LocalDateTime limite);
+
+}
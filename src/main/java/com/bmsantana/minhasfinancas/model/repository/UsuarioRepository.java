@@ -1,9 +1,20 @@
 package com.bmsantana.minhasfinancas.model.repository;
 
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.bmsantana.minhasfinancas.model.entity.Usuario;
 
@@ -12,5 +23,23 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 	boolean existsByEmail(String email);
 	
 	Optional<Usuario> findByEmail (String email);
+	
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+	@Query("select u.email from Usuario u")
+	Stream<String> obterEmails();
+	
+	/**
+	 * Usuários cujo email não está normalizado (espaços nas pontas ou maiúsculas).
+	 */
+	@Query("select u from Usuario u where u.email <> lower(trim(u.email))")
+	List<Usuario> obterComEmailNaoNormalizado();
+	
+	/**
+	 * Lê o usuário travando a linha até o fim da transação, para serializar
+	 * alterações que envolvem vários registros dele.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select u from Usuario u where u.id = :id")
+	Optional<Usuario> travarPorId(@Param("id") Long id);
 
 }
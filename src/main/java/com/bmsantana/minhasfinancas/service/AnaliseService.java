@@ -0,0 +1,20 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import com.bmsantana.minhasfinancas.api.dto.ResumoDTO;
+import com.bmsantana.minhasfinancas.api.dto.TotalCompetenciaDTO;
+
+public interface AnaliseService {
+
+	ResumoDTO obterResumo(Long idUsuario, Integer ano);
+
+	Optional<BigDecimal> obterSaldoEmMemoria(Long idUsuario);
+
+	List<Integer> obterAnosComLancamentos(Long idUsuario);
+
+	List<TotalCompetenciaDTO> obterTotaisDoAno(Long idUsuario, Integer ano);
+
+}
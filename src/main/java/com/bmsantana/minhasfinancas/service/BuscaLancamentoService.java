@@ -0,0 +1,12 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.util.List;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.filtro.FiltroLancamento;
+
+public interface BuscaLancamentoService {
+
+	List<Lancamento> buscar(FiltroLancamento filtro);
+
+}
@@ -0,0 +1,22 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.bmsantana.minhasfinancas.model.entity.RegraCategoria;
+
+public interface CategorizacaoService {
+
+	Optional<String> classificar(Long idUsuario, String descricao);
+
+	RegraCategoria salvar(RegraCategoria regra);
+
+	void deletar(RegraCategoria regra);
+
+	Optional<RegraCategoria> obterPorId(Long id);
+
+	List<RegraCategoria> buscar(Long idUsuario);
+
+	void recarregar();
+
+}
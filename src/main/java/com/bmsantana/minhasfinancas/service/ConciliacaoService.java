@@ -0,0 +1,18 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.util.List;
+
+import com.bmsantana.minhasfinancas.api.dto.ConciliacaoDTO;
+import com.bmsantana.minhasfinancas.model.entity.EstatisticaMensal;
+
+public interface ConciliacaoService {
+
+	boolean iniciar();
+
+	ConciliacaoDTO executar();
+
+	ConciliacaoDTO obterUltima();
+
+	List<EstatisticaMensal> obterEstatisticas();
+
+}
@@ -0,0 +1,13 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+
+public interface GravacaoAgrupadaService {
+
+	CompletableFuture<Lancamento> enfileirar(Lancamento lancamento);
+
+	Lancamento salvar(Lancamento lancamento);
+
+}
@@ -0,0 +1,16 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Optional;
+
+import com.bmsantana.minhasfinancas.api.dto.ImportacaoDTO;
+import com.bmsantana.minhasfinancas.service.importacao.FormatoExtrato;
+
+public interface ImportacaoService {
+
+	ImportacaoDTO importar(Long idUsuario, FormatoExtrato formato, InputStream conteudo, Charset charset);
+
+	Optional<ImportacaoDTO> obterSituacao(Long idUsuario);
+
+}
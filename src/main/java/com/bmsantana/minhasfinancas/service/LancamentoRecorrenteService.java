@@ -0,0 +1,11 @@
+package com.bmsantana.minhasfinancas.service;
+
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRecorrente;
+
+public interface LancamentoRecorrenteService {
+
+	LancamentoRecorrente salvar(LancamentoRecorrente recorrente);
+
+	int gerarLancamentosPendentes();
+
+}
@@ -11,12 +11,14 @@ public interface LancamentoService {
 	
 	Lancamento salvar (Lancamento lancamento);
 	
+	List<Lancamento> salvarParcelado (Lancamento lancamento, Integer parcelas);
+	
+	List<Lancamento> salvarTodos (List<Lancamento> lancamentos);
+	
 	Lancamento atualizar (Lancamento lancamento);
 	
 	void deletar (Lancamento lancamento);
 	
-	List<Lancamento> buscar(Lancamento lancamentoFiltro);
-	
 	void atualizarStatus(Lancamento lancamento, StatusLancamento status);
 	
 	void validar(Lancamento lancamento);
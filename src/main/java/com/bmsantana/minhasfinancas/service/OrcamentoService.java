@@ -0,0 +1,19 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import com.bmsantana.minhasfinancas.api.dto.OrcamentoDTO;
+
+public interface OrcamentoService {
+
+	OrcamentoDTO definirLimite(Long idUsuario, Integer ano, Integer mes, BigDecimal limite);
+
+	void remover(Long idUsuario, Integer ano, Integer mes);
+
+	Optional<OrcamentoDTO> obterSituacao(Long idUsuario, Integer ano, Integer mes);
+
+	List<OrcamentoDTO> obterSituacoes(Long idUsuario, Integer ano);
+
+}
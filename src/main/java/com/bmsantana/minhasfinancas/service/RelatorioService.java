@@ -0,0 +1,16 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import com.bmsantana.minhasfinancas.api.dto.RelatorioDTO;
+
+public interface RelatorioService {
+
+	RelatorioDTO solicitar(Long idUsuario, Integer anoInicial, Integer anoFinal);
+
+	Optional<RelatorioDTO> obterSituacao(Long idUsuario, String idRelatorio);
+
+	Optional<Path> obterArquivo(Long idUsuario, String idRelatorio);
+
+}
@@ -0,0 +1,12 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import com.bmsantana.minhasfinancas.api.dto.SaldoMensalDTO;
+
+public interface SaldoMensalService {
+
+	List<SaldoMensalDTO> obterSerie(Long idUsuario, YearMonth de, YearMonth ate);
+
+}
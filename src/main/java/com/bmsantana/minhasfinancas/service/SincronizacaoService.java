@@ -0,0 +1,13 @@
+package com.bmsantana.minhasfinancas.service;
+
+import com.bmsantana.minhasfinancas.api.dto.AlteracoesDTO;
+
+public interface SincronizacaoService {
+
+	long reservarVersoes(Long idUsuario, int quantidade);
+
+	void registrarRemocao(Long idUsuario, Long idLancamento);
+
+	AlteracoesDTO obterAlteracoes(Long idUsuario, String token, Integer limite);
+
+}
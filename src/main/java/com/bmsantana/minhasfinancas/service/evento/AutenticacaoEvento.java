@@ -0,0 +1,18 @@
+package com.bmsantana.minhasfinancas.service.evento;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publicado pelo UsuarioService a cada tentativa de autenticação. idUsuario
+ * é nulo quando o email não pertence a nenhum usuário.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AutenticacaoEvento {
+
+	private final String email;
+	private final Long idUsuario;
+	private final boolean sucesso;
+
+}
@@ -0,0 +1,42 @@
+package com.bmsantana.minhasfinancas.service.evento;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publicado pelo LancamentoService a cada inclusão, alteração ou exclusão.
+ * Em alterações, anterior traz uma cópia do lançamento antes da mudança.
+ */
+@Getter
+@RequiredArgsConstructor
+public class LancamentoAlteradoEvento {
+
+	private final TipoAlteracaoLancamento tipo;
+	private final Lancamento lancamento;
+	private final Lancamento anterior;
+
+	public Long getIdUsuario() {
+		return lancamento.getUsuario() != null ? lancamento.getUsuario().getId() : null;
+	}
+
+	/**
+	 * Usuário a quem o lançamento pertencia antes da alteração, quando ele
+	 * mudou de usuário; null nos demais casos.
+	 */
+	public Long getIdUsuarioAnterior() {
+		Long idAnterior = anterior != null && anterior.getUsuario() != null ? anterior.getUsuario().getId() : null;
+		return idAnterior != null && !idAnterior.equals(getIdUsuario()) ? idAnterior : null;
+	}
+
+	/**
+	 * Exclusão do lançamento para o usuário anterior, quando ele mudou de
+	 * usuário; null nos demais casos.
+	 */
+	public LancamentoAlteradoEvento removidoDoAnterior() {
+		return getIdUsuarioAnterior() != null ? new LancamentoAlteradoEvento(TipoAlteracaoLancamento.REMOVIDO, anterior, null) : null;
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.bmsantana.minhasfinancas.service.evento;
+
+import java.math.BigDecimal;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publicado quando o total de despesas de um mês passa do limite do
+ * orçamento (ultrapassado = true) ou volta a ficar dentro dele.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrcamentoUltrapassadoEvento {
+
+	private final Long idUsuario;
+	private final Integer ano;
+	private final Integer mes;
+	private final BigDecimal limite;
+	private final BigDecimal totalDespesas;
+	private final boolean ultrapassado;
+
+}
@@ -0,0 +1,17 @@
+package com.bmsantana.minhasfinancas.service.evento;
+
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publicado pelo UsuarioService depois que um novo usuário é gravado.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UsuarioCadastradoEvento {
+
+	private final Usuario usuario;
+
+}
@@ -0,0 +1,189 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bmsantana.minhasfinancas.api.dto.ResumoDTO;
+import com.bmsantana.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.bmsantana.minhasfinancas.api.dto.TotalCompetenciaDTO;
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.service.AnaliseService;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.util.EstadoPorUsuario;
+import com.bmsantana.minhasfinancas.util.LancamentosColunares;
+
+/**
+ * Mantém em memória uma cópia colunar dos lançamentos dos usuários ativos.
+ * A cópia é carregada do banco na primeira consulta e depois acompanha os
+ * eventos de alteração; usuários sem acesso recente são descartados. Um
+ * lançamento que muda de usuário sai da cópia do usuário anterior.
+ */
+@Service
+public class AnaliseServiceImpl implements AnaliseService {
+
+	private static final int RECEITA = TipoLancamento.RECEITA.ordinal();
+	private static final int DESPESA = TipoLancamento.DESPESA.ordinal();
+
+	private final LancamentoRepository repository;
+	private final EstadoPorUsuario<LancamentosColunares, LancamentoAlteradoEvento> colunas;
+
+	public AnaliseServiceImpl(LancamentoRepository repository,
+			@Value("${minhasfinancas.analise.maximo-usuarios:1000}") int maximoUsuarios,
+			@Value("${minhasfinancas.analise.inatividade-minutos:30}") long inatividadeMinutos) {
+		this.repository = repository;
+		this.colunas = new EstadoPorUsuario<>(this::carregar, this::aplicar,
+				maximoUsuarios, TimeUnit.MINUTES.toNanos(inatividadeMinutos));
+	}
+
+	/**
+	 * Resumo do ano: os totais, o saldo e os totais por status cobrem o mesmo
+	 * período dos meses. O saldo de todo o histórico é obterSaldoEmMemoria.
+	 */
+	@Override
+	public ResumoDTO obterResumo(@ChaveFragmento Long idUsuario, Integer ano) {
+		int de = LancamentosColunares.competencia(ano, 1);
+		int ate = LancamentosColunares.competencia(ano, 12);
+		long[][] porMes = new long[TipoLancamento.values().length][12];
+		long[][] porStatus = new long[TipoLancamento.values().length][StatusLancamento.values().length];
+
+		colunas.ler(idUsuario, dados -> {
+			dados.somarPorMes(de, ate, porMes);
+			dados.somarPorStatus(de, ate, porStatus);
+			return null;
+		});
+
+		long receitas = 0;
+		long despesas = 0;
+		Map<String, BigDecimal> receitasPorStatus = new LinkedHashMap<>();
+		Map<String, BigDecimal> despesasPorStatus = new LinkedHashMap<>();
+		for(StatusLancamento status : StatusLancamento.values()) {
+			receitas += porStatus[RECEITA][status.ordinal()];
+			despesas += porStatus[DESPESA][status.ordinal()];
+			receitasPorStatus.put(status.name(), valor(porStatus[RECEITA][status.ordinal()]));
+			despesasPorStatus.put(status.name(), valor(porStatus[DESPESA][status.ordinal()]));
+		}
+
+		List<ResumoMensalDTO> meses = new ArrayList<>(12);
+		for(int mes = 0; mes < 12; mes++) {
+			meses.add(new ResumoMensalDTO(mes + 1, valor(porMes[RECEITA][mes]), valor(porMes[DESPESA][mes])));
+		}
+
+		return ResumoDTO.builder()
+				.ano(ano)
+				.receitas(valor(receitas))
+				.despesas(valor(despesas))
+				.saldo(valor(receitas - despesas))
+				.receitasPorStatus(receitasPorStatus)
+				.despesasPorStatus(despesasPorStatus)
+				.meses(meses)
+				.build();
+	}
+
+	/**
+	 * Saldo da cópia em memória, sem carregá-la caso o usuário não esteja ativo.
+	 */
+	@Override
+	public Optional<BigDecimal> obterSaldoEmMemoria(@ChaveFragmento Long idUsuario) {
+		return colunas.lerSeCarregado(idUsuario, dados -> {
+			long receitas = dados.total(RECEITA, LancamentosColunares.QUALQUER, Integer.MIN_VALUE, Integer.MAX_VALUE);
+			long despesas = dados.total(DESPESA, LancamentosColunares.QUALQUER, Integer.MIN_VALUE, Integer.MAX_VALUE);
+			return valor(receitas - despesas);
+		});
+	}
+
+	@Override
+	public List<Integer> obterAnosComLancamentos(@ChaveFragmento Long idUsuario) {
+		return repository.obterAnosPorUsuario(idUsuario);
+	}
+
+	/**
+	 * Totais do ano por mês, tipo e status, agregados no banco: usado pelos
+	 * relatórios, que percorrem todo o histórico e não devem carregar a cópia
+	 * em memória de usuários inativos. Status nulo conta como pendente.
+	 */
+	@Override
+	public List<TotalCompetenciaDTO> obterTotaisDoAno(@ChaveFragmento Long idUsuario, Integer ano) {
+		Map<Integer, TotalCompetenciaDTO> totais = new TreeMap<>();
+		for(Object[] linha : repository.obterTotaisDoAnoPorStatus(idUsuario, ano)) {
+			Integer mes = (Integer) linha[0];
+			TipoLancamento tipo = (TipoLancamento) linha[1];
+			StatusLancamento status = StatusLancamento.values()[status((StatusLancamento) linha[2])];
+			long quantidade = ((Number) linha[3]).longValue();
+			BigDecimal total = (BigDecimal) linha[4];
+			totais.merge((mes * TipoLancamento.values().length + tipo.ordinal()) * StatusLancamento.values().length + status.ordinal(),
+					new TotalCompetenciaDTO(ano, mes, tipo.name(), status.name(), quantidade, total),
+					(atual, novo) -> new TotalCompetenciaDTO(ano, mes, tipo.name(), status.name(),
+							atual.getQuantidade() + novo.getQuantidade(), atual.getTotal().add(novo.getTotal())));
+		}
+		return new ArrayList<>(totais.values());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		colunas.aplicar(evento.getIdUsuario(), evento);
+		if(evento.getIdUsuarioAnterior() != null) {
+			colunas.aplicar(evento.getIdUsuarioAnterior(), evento.removidoDoAnterior());
+		}
+	}
+
+	@Scheduled(fixedRateString = "${minhasfinancas.analise.limpeza-ms:60000}")
+	public void descartarInativos() {
+		colunas.descartarInativos();
+	}
+
+	private LancamentosColunares carregar(Long idUsuario) {
+		List<Object[]> linhas = repository.obterColunasPorUsuario(idUsuario);
+		LancamentosColunares dados = new LancamentosColunares(linhas.size());
+		for(Object[] linha : linhas) {
+			dados.gravar((Long) linha[0],
+					LancamentosColunares.competencia((Integer) linha[1], (Integer) linha[2]),
+					centavos((BigDecimal) linha[3]),
+					((TipoLancamento) linha[4]).ordinal(),
+					status((StatusLancamento) linha[5]));
+		}
+		return dados;
+	}
+
+	private void aplicar(LancamentosColunares dados, LancamentoAlteradoEvento evento) {
+		Lancamento lancamento = evento.getLancamento();
+		if(evento.getTipo() == TipoAlteracaoLancamento.REMOVIDO) {
+			dados.remover(lancamento.getId());
+		} else {
+			dados.gravar(lancamento.getId(),
+					LancamentosColunares.competencia(lancamento.getAno(), lancamento.getMes()),
+					centavos(lancamento.getValor()),
+					lancamento.getTipo().ordinal(),
+					status(lancamento.getStatus()));
+		}
+	}
+
+	private static long centavos(BigDecimal valor) {
+		return valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+	}
+
+	private static int status(StatusLancamento status) {
+		return (status != null ? status : StatusLancamento.PENDENTE).ordinal();
+	}
+
+	private static BigDecimal valor(long centavos) {
+		return BigDecimal.valueOf(centavos, 2);
+	}
+
+}
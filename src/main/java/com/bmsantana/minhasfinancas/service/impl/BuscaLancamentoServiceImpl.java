@@ -0,0 +1,213 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.filtro.ConsultaLancamento;
+import com.bmsantana.minhasfinancas.model.filtro.FiltroLancamento;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.model.repository.SequenciaAlteracaoRepository;
+import com.bmsantana.minhasfinancas.service.BuscaLancamentoService;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.util.CachePorUsuario;
+import com.bmsantana.minhasfinancas.util.EstadoPorUsuario;
+import com.bmsantana.minhasfinancas.util.IndiceCategorias;
+
+/**
+ * Busca de lançamentos com filtros combinados. A busca vira uma única
+ * consulta, montada por ConsultaLancamento sobre o índice (id_usuario, ano,
+ * mes), e a ordenação é sempre a do banco. Categorias são comparadas sem
+ * acento, o que o banco não faz: o índice de categorias do usuário traduz as
+ * categorias pedidas nas grafias gravadas, que entram na consulta.
+ *
+ * Os resultados ficam em cache pelo filtro normalizado. Cada alteração
+ * invalida apenas as buscas do mesmo usuário cujo período inclui o mês do
+ * lançamento (antes e depois da alteração); um lançamento que muda de usuário
+ * também sai do índice do usuário anterior. Essa invalidação só alcança esta
+ * instância, então cada resultado guarda a versão da sequência de alterações
+ * do usuário em que foi lido e só é usado se ela ainda for a atual (uma
+ * leitura pela chave primária); o índice de categorias é refeito pelo mesmo
+ * critério.
+ *
+ * O cache guarda cópias desligadas do contexto de persistência e cada
+ * chamada recebe cópias novas, que podem ser alteradas sem afetar as demais.
+ */
+@Service
+public class BuscaLancamentoServiceImpl implements BuscaLancamentoService {
+
+	private final LancamentoRepository repository;
+	private final SequenciaAlteracaoRepository sequencias;
+	private final EntityManager entityManager;
+	private final TransactionTemplate leitura;
+	private final ConsultaLancamento consulta = new ConsultaLancamento();
+	private final EstadoPorUsuario<IndiceCategorias, LancamentoAlteradoEvento> indices;
+	private final CachePorUsuario<FiltroLancamento, Resultado> resultados;
+
+	public BuscaLancamentoServiceImpl(LancamentoRepository repository, SequenciaAlteracaoRepository sequencias,
+			EntityManager entityManager,
+			PlatformTransactionManager transactionManager,
+			@Value("${minhasfinancas.indice.maximo-usuarios:1000}") int maximoUsuarios,
+			@Value("${minhasfinancas.indice.inatividade-minutos:30}") long inatividadeMinutos,
+			@Value("${minhasfinancas.busca.cache.maximo-bytes:67108864}") long maximoBytesCache) {
+		this.repository = repository;
+		this.sequencias = sequencias;
+		this.entityManager = entityManager;
+		this.leitura = new TransactionTemplate(transactionManager);
+		this.leitura.setReadOnly(true);
+		this.indices = new EstadoPorUsuario<>(this::carregar, this::aplicar,
+				maximoUsuarios, TimeUnit.MINUTES.toNanos(inatividadeMinutos));
+		this.resultados = new CachePorUsuario<>("busca-lancamentos", maximoBytesCache);
+	}
+
+	@Override
+	public List<Lancamento> buscar(FiltroLancamento filtro) {
+		if(filtro.getMes() != null && (filtro.getMes() < 1 || filtro.getMes() > 12)) {
+			throw new RegraNegocioException("Informe um Mês válido!");
+		}
+		YearMonth inicio = filtro.competenciaInicial();
+		YearMonth fim = filtro.competenciaFinal();
+		if(inicio != null && fim != null && inicio.isAfter(fim)) {
+			return new ArrayList<>();
+		}
+
+		FiltroLancamento chave = filtro.normalizado();
+		return leitura.execute(status -> {
+			long versao = versaoAtual(filtro.getUsuario());
+			Resultado guardado = resultados.obter(filtro.getUsuario(), chave);
+			if(guardado != null && guardado.versao == versao) {
+				return copiar(guardado.lancamentos);
+			}
+			long geracao = resultados.geracao(filtro.getUsuario());
+			List<Lancamento> lancamentos = copiar(consultar(filtro, versao));
+			resultados.guardar(filtro.getUsuario(), chave, new Resultado(versao, lancamentos), tamanhoEstimado(lancamentos), geracao);
+			return copiar(lancamentos);
+		});
+	}
+
+	private long versaoAtual(Long idUsuario) {
+		return sequencias.obterVersao(idUsuario).orElse(0L);
+	}
+
+	private List<Lancamento> consultar(FiltroLancamento filtro, long versao) {
+		if(!filtro.possuiCategorias()) {
+			return consulta.criar(entityManager, filtro).getResultList();
+		}
+
+		Set<String> grafias = indices.ler(filtro.getUsuario(),
+				indice -> indice.getVersao() >= versao ? indice.grafias(filtro.getCategorias()) : null);
+		if(grafias == null) {
+			// Houve alteração depois da carga do índice, talvez em outra instância
+			indices.descartar(filtro.getUsuario());
+			grafias = indices.ler(filtro.getUsuario(), indice -> indice.grafias(filtro.getCategorias()));
+		}
+		if(grafias.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return consulta.criar(entityManager, filtro.toBuilder().categorias(grafias).build()).getResultList();
+	}
+
+	/**
+	 * Atualiza o índice antes de invalidar o cache, para que uma busca feita
+	 * entre os dois passos não guarde um resultado montado com o índice antigo.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		indices.aplicar(evento.getIdUsuario(), evento);
+		if(evento.getIdUsuarioAnterior() != null) {
+			indices.aplicar(evento.getIdUsuarioAnterior(), evento.removidoDoAnterior());
+		}
+		invalidar(evento.getLancamento());
+		if(evento.getAnterior() != null) {
+			invalidar(evento.getAnterior());
+		}
+	}
+
+	@Scheduled(fixedRateString = "${minhasfinancas.indice.limpeza-ms:60000}")
+	public void descartarInativos() {
+		indices.descartarInativos();
+	}
+
+	private void invalidar(Lancamento lancamento) {
+		if(lancamento.getUsuario() != null) {
+			resultados.invalidar(lancamento.getUsuario().getId(), chave -> chave.abrange(lancamento.getAno(), lancamento.getMes()));
+		}
+	}
+
+	/**
+	 * Estimativa grosseira do que a lista ocupa: cabeçalhos e campos do
+	 * lançamento mais os textos. O usuário é compartilhado e não entra na conta.
+	 */
+	private static long tamanhoEstimado(List<Lancamento> lancamentos) {
+		long tamanho = 256;
+		for(Lancamento lancamento : lancamentos) {
+			tamanho += 240;
+			tamanho += lancamento.getDescricao() != null ? 40 + 2L * lancamento.getDescricao().length() : 0;
+			tamanho += lancamento.getCategoria() != null ? 40 + 2L * lancamento.getCategoria().length() : 0;
+		}
+		return tamanho;
+	}
+
+	/**
+	 * Cópias sem vínculo com o contexto de persistência, com uma cópia do
+	 * usuário por lista. O usuário vai sem a senha, que a resposta não expõe.
+	 */
+	private static List<Lancamento> copiar(List<Lancamento> lancamentos) {
+		List<Lancamento> copias = new ArrayList<>(lancamentos.size());
+		Map<Long, Usuario> usuarios = new HashMap<>();
+		for(Lancamento lancamento : lancamentos) {
+			Usuario usuario = lancamento.getUsuario();
+			copias.add(lancamento.toBuilder()
+					.usuario(usuario == null ? null : usuarios.computeIfAbsent(usuario.getId(),
+							id -> Usuario.builder().id(id).nome(usuario.getNome()).email(usuario.getEmail()).build()))
+					.build());
+		}
+		return copias;
+	}
+
+	private IndiceCategorias carregar(Long idUsuario) {
+		IndiceCategorias indice = new IndiceCategorias(versaoAtual(idUsuario));
+		for(Object[] linha : repository.obterCategoriasPorUsuario(idUsuario)) {
+			indice.gravar((Long) linha[0], (String) linha[1]);
+		}
+		return indice;
+	}
+
+	private void aplicar(IndiceCategorias indice, LancamentoAlteradoEvento evento) {
+		Lancamento lancamento = evento.getLancamento();
+		if(evento.getTipo() == TipoAlteracaoLancamento.REMOVIDO) {
+			indice.remover(lancamento.getId());
+		} else {
+			indice.gravar(lancamento.getId(), lancamento.getCategoria());
+		}
+	}
+
+	private static class Resultado {
+
+		private final long versao;
+		private final List<Lancamento> lancamentos;
+
+		Resultado(long versao, List<Lancamento> lancamentos) {
+			this.versao = versao;
+			this.lancamentos = lancamentos;
+		}
+	}
+
+}
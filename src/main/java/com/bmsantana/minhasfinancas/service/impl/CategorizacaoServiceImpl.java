@@ -0,0 +1,141 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.RegraCategoria;
+import com.bmsantana.minhasfinancas.model.repository.RegraCategoriaRepository;
+import com.bmsantana.minhasfinancas.service.CategorizacaoService;
+import com.bmsantana.minhasfinancas.util.AutomatoPalavras;
+
+/**
+ * Categorização automática pela descrição. As regras ficam compiladas em
+ * autômatos (ver AutomatoPalavras): um com as regras globais e um por
+ * usuário que tenha regras próprias, que têm preferência. Classificar não
+ * consulta o banco e percorre a descrição uma vez por autômato, qualquer que
+ * seja a quantidade de regras.
+ *
+ * Cada alteração recompila só o autômato afetado e troca a referência; as
+ * classificações em andamento terminam com o anterior. A recarga periódica
+ * traz as alterações feitas por outras instâncias.
+ */
+@Service
+public class CategorizacaoServiceImpl implements CategorizacaoService {
+
+	private static final int TAMANHO_TERMO = 100;
+	private static final int TAMANHO_CATEGORIA = 255;
+
+	private final RegraCategoriaRepository repository;
+	private volatile AutomatoPalavras<String> globais = criar(Collections.emptyList());
+	private volatile Map<Long, AutomatoPalavras<String>> porUsuario = new ConcurrentHashMap<>();
+
+	public CategorizacaoServiceImpl(RegraCategoriaRepository repository) {
+		this.repository = repository;
+	}
+
+	@Override
+	public Optional<String> classificar(Long idUsuario, String descricao) {
+		if(descricao == null) {
+			return Optional.empty();
+		}
+		AutomatoPalavras<String> doUsuario = idUsuario != null ? porUsuario.get(idUsuario) : null;
+		String categoria = doUsuario != null ? doUsuario.procurar(descricao) : null;
+		return Optional.ofNullable(categoria != null ? categoria : globais.procurar(descricao));
+	}
+
+	@Override
+	public RegraCategoria salvar(RegraCategoria regra) {
+		validar(regra);
+		regra.setTermo(regra.getTermo().trim());
+		regra.setCategoria(regra.getCategoria().trim());
+		RegraCategoria salva = repository.save(regra);
+		compilar(idUsuario(salva));
+		return salva;
+	}
+
+	@Override
+	public void deletar(RegraCategoria regra) {
+		repository.delete(regra);
+		compilar(idUsuario(regra));
+	}
+
+	@Override
+	public Optional<RegraCategoria> obterPorId(Long id) {
+		return repository.findById(id);
+	}
+
+	@Override
+	public List<RegraCategoria> buscar(Long idUsuario) {
+		return idUsuario != null ? repository.obterPorUsuario(idUsuario) : repository.obterGlobais();
+	}
+
+	@Override
+	@Scheduled(fixedRateString = "${minhasfinancas.categorizacao.recarga-ms:60000}")
+	public synchronized void recarregar() {
+		List<RegraCategoria> regrasGlobais = new ArrayList<>();
+		Map<Long, List<RegraCategoria>> regrasPorUsuario = new HashMap<>();
+		for(Object[] termo : repository.obterTermos()) {
+			RegraCategoria regra = RegraCategoria.builder().termo((String) termo[1]).categoria((String) termo[2]).build();
+			if(termo[0] == null) {
+				regrasGlobais.add(regra);
+			} else {
+				regrasPorUsuario.computeIfAbsent((Long) termo[0], id -> new ArrayList<>()).add(regra);
+			}
+		}
+
+		Map<Long, AutomatoPalavras<String>> novos = new ConcurrentHashMap<>();
+		regrasPorUsuario.forEach((idUsuario, regras) -> novos.put(idUsuario, criar(regras)));
+		globais = criar(regrasGlobais);
+		porUsuario = novos;
+	}
+
+	private synchronized void compilar(Long idUsuario) {
+		if(idUsuario == null) {
+			globais = criar(repository.obterGlobais());
+			return;
+		}
+		List<RegraCategoria> regras = repository.obterPorUsuario(idUsuario);
+		if(regras.isEmpty()) {
+			porUsuario.remove(idUsuario);
+		} else {
+			porUsuario.put(idUsuario, criar(regras));
+		}
+	}
+
+	private static AutomatoPalavras<String> criar(List<RegraCategoria> regras) {
+		List<String> termos = new ArrayList<>(regras.size());
+		List<String> categorias = new ArrayList<>(regras.size());
+		for(RegraCategoria regra : regras) {
+			termos.add(regra.getTermo());
+			categorias.add(regra.getCategoria());
+		}
+		return new AutomatoPalavras<>(termos, categorias);
+	}
+
+	private static void validar(RegraCategoria regra) {
+		if(regra.getTermo() == null || AutomatoPalavras.normalizar(regra.getTermo()).trim().isEmpty()) {
+			throw new RegraNegocioException("Informe um termo válido!");
+		}
+		if(regra.getTermo().trim().length() > TAMANHO_TERMO) {
+			throw new RegraNegocioException("O termo deve ter no máximo " + TAMANHO_TERMO + " caracteres!");
+		}
+		if(regra.getCategoria() == null || regra.getCategoria().trim().isEmpty()
+				|| regra.getCategoria().trim().length() > TAMANHO_CATEGORIA) {
+			throw new RegraNegocioException("Informe uma categoria válida!");
+		}
+	}
+
+	private static Long idUsuario(RegraCategoria regra) {
+		return regra.getUsuario() != null ? regra.getUsuario().getId() : null;
+	}
+
+}
@@ -0,0 +1,354 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bmsantana.minhasfinancas.api.dto.ConciliacaoDTO;
+import com.bmsantana.minhasfinancas.api.dto.DivergenciaDTO;
+import com.bmsantana.minhasfinancas.config.fragmento.ContextoFragmento;
+import com.bmsantana.minhasfinancas.config.fragmento.DiretorioFragmentos;
+import com.bmsantana.minhasfinancas.model.entity.EstatisticaMensal;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.EstatisticaMensalRepository;
+import com.bmsantana.minhasfinancas.service.AnaliseService;
+import com.bmsantana.minhasfinancas.service.ConciliacaoService;
+
+/**
+ * Recalcula o saldo de todos os usuários e as estatísticas mensais da
+ * plataforma. Os usuários com lançamentos são divididos em faixas de
+ * tamanho-faixa usuários, processadas em paralelo num ForkJoinPool. As faixas
+ * são montadas pelos ids que existem, não pelo intervalo entre o menor e o
+ * maior: os ids de GeradorIds são esparsos e convivem com os antigos, bem
+ * menores. Cada faixa lê do banco já agrupada por usuário e mês, então a
+ * memória usada depende do tamanho da faixa e não do total de lançamentos. O
+ * saldo recalculado é comparado com a cópia em memória do AnaliseService dos
+ * usuários que estiverem ativos.
+ *
+ * Com fragmentação habilitada as faixas são montadas em cada fragmento e lidas
+ * dele. Um usuário só é contado no fragmento em que está no diretório, para
+ * não somar duas vezes quem estiver no meio de uma mudança de fragmento.
+ */
+@Service
+public class ConciliacaoServiceImpl implements ConciliacaoService {
+
+	private static final Logger log = LoggerFactory.getLogger(ConciliacaoServiceImpl.class);
+
+	private static final String SQL_USUARIOS = "select distinct id_usuario from financas.lancamento"
+			+ " where id_usuario is not null order by id_usuario";
+	private static final String SQL_FAIXA = "select id_usuario, ano, mes, tipo, sum(valor) from financas.lancamento"
+			+ " where id_usuario between ? and ? group by id_usuario, ano, mes, tipo order by id_usuario, ano, mes";
+	private static final int MAXIMO_EXEMPLOS = 100;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final EstatisticaMensalRepository estatisticaRepository;
+	private final AnaliseService analiseService;
+	private final DiretorioFragmentos diretorio;
+	private final int paralelismo;
+	private final long tamanhoFaixa;
+
+	private final ExecutorService execucao = Executors.newSingleThreadExecutor();
+	private final AtomicBoolean emExecucao = new AtomicBoolean();
+	private volatile ConciliacaoDTO ultima;
+
+	public ConciliacaoServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			EstatisticaMensalRepository estatisticaRepository, AnaliseService analiseService,
+			Optional<DiretorioFragmentos> diretorio,
+			@Value("${minhasfinancas.conciliacao.paralelismo:4}") int paralelismo,
+			@Value("${minhasfinancas.conciliacao.tamanho-faixa:1000}") long tamanhoFaixa) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.estatisticaRepository = estatisticaRepository;
+		this.analiseService = analiseService;
+		this.diretorio = diretorio.orElse(null);
+		this.paralelismo = paralelismo;
+		this.tamanhoFaixa = tamanhoFaixa;
+	}
+
+	@Override
+	public boolean iniciar() {
+		if(!emExecucao.compareAndSet(false, true)) {
+			return false;
+		}
+		ultima = ConciliacaoDTO.builder().situacao("EM_EXECUCAO").inicio(LocalDateTime.now()).build();
+		execucao.execute(() -> {
+			try {
+				executar();
+			} finally {
+				emExecucao.set(false);
+			}
+		});
+		return true;
+	}
+
+	@Scheduled(cron = "${minhasfinancas.conciliacao.cron:-}")
+	public void agendar() {
+		iniciar();
+	}
+
+	@Override
+	public ConciliacaoDTO executar() {
+		LocalDateTime inicio = LocalDateTime.now();
+		try {
+			Parcial total = new Parcial();
+			List<Faixa> faixas = new ArrayList<>();
+			for(String fragmento : fragmentos()) {
+				faixas.addAll(ContextoFragmento.executar(fragmento, () -> dividirEmFaixas(fragmento)));
+			}
+
+			if(!faixas.isEmpty()) {
+				ForkJoinPool pool = new ForkJoinPool(paralelismo);
+				try {
+					total = pool.invoke(new Faixas(faixas, 0, faixas.size()));
+				} finally {
+					pool.shutdown();
+				}
+			}
+
+			gravarEstatisticas(total);
+
+			ultima = ConciliacaoDTO.builder()
+					.situacao("CONCLUIDA")
+					.inicio(inicio)
+					.fim(LocalDateTime.now())
+					.usuariosProcessados(total.usuariosProcessados)
+					.usuariosVerificados(total.usuariosVerificados)
+					.divergencias(total.divergencias)
+					.exemplosDivergencia(total.exemplos)
+					.build();
+		} catch (RuntimeException e) {
+			log.error("Falha na conciliação de saldos", e);
+			ultima = ConciliacaoDTO.builder()
+					.situacao("FALHOU")
+					.inicio(inicio)
+					.fim(LocalDateTime.now())
+					.erro(e.getMessage())
+					.build();
+		}
+		return ultima;
+	}
+
+	@Override
+	public ConciliacaoDTO obterUltima() {
+		return ultima;
+	}
+
+	@Override
+	public List<EstatisticaMensal> obterEstatisticas() {
+		return estatisticaRepository.findAll(Sort.by("ano", "mes"));
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		execucao.shutdownNow();
+	}
+
+	private void gravarEstatisticas(Parcial total) {
+		LocalDateTime processamento = LocalDateTime.now();
+		List<EstatisticaMensal> estatisticas = new ArrayList<>(total.meses.size());
+		for(Map.Entry<Integer, Mes> item : total.meses.entrySet()) {
+			estatisticas.add(EstatisticaMensal.builder()
+					.ano(item.getKey() / 12)
+					.mes(item.getKey() % 12 + 1)
+					.receitas(item.getValue().receitas)
+					.despesas(item.getValue().despesas)
+					.usuariosAtivos(item.getValue().usuarios)
+					.dataProcessamento(processamento)
+					.build());
+		}
+
+		transactionTemplate.execute(status -> {
+			estatisticaRepository.deleteAllInBatch();
+			return estatisticaRepository.saveAll(estatisticas);
+		});
+	}
+
+	/**
+	 * Fragmentos a conciliar; sem fragmentação, só o banco padrão (null).
+	 */
+	private Collection<String> fragmentos() {
+		return diretorio != null ? diretorio.nomes() : Collections.singletonList(null);
+	}
+
+	/**
+	 * Primeiro e último id de cada faixa do fragmento, lendo só os ids em ordem.
+	 */
+	private List<Faixa> dividirEmFaixas(String fragmento) {
+		List<Faixa> faixas = new ArrayList<>();
+		long[] contador = { 0 };
+		jdbcTemplate.query(SQL_USUARIOS, rs -> {
+			long usuario = rs.getLong(1);
+			if(contador[0]++ % tamanhoFaixa == 0) {
+				faixas.add(new Faixa(fragmento, usuario));
+			} else {
+				faixas.get(faixas.size() - 1).ate = usuario;
+			}
+		});
+		return faixas;
+	}
+
+	private Parcial processar(Faixa faixa) {
+		return ContextoFragmento.executar(faixa.fragmento, () -> processar(faixa.fragmento, faixa.de, faixa.ate));
+	}
+
+	private Parcial processar(String fragmento, long de, long ate) {
+		Parcial parcial = new Parcial();
+		long[] usuarioAtual = { -1 };
+		int[] competenciaAtual = { -1 };
+		BigDecimal[] saldoAtual = { BigDecimal.ZERO };
+
+		jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(SQL_FAIXA);
+			ps.setLong(1, de);
+			ps.setLong(2, ate);
+			return ps;
+		}, rs -> {
+			long usuario = rs.getLong(1);
+			if(fragmento != null && !fragmento.equals(diretorio.localizar(usuario))) {
+				return;
+			}
+			int competencia = rs.getInt(2) * 12 + rs.getInt(3) - 1;
+			TipoLancamento tipo = TipoLancamento.valueOf(rs.getString(4));
+			BigDecimal soma = rs.getBigDecimal(5);
+
+			if(usuario != usuarioAtual[0]) {
+				if(usuarioAtual[0] != -1) {
+					verificar(parcial, usuarioAtual[0], saldoAtual[0]);
+				}
+				usuarioAtual[0] = usuario;
+				competenciaAtual[0] = -1;
+				saldoAtual[0] = BigDecimal.ZERO;
+			}
+
+			Mes mes = parcial.meses.computeIfAbsent(competencia, c -> new Mes());
+			if(competencia != competenciaAtual[0]) {
+				mes.usuarios++;
+				competenciaAtual[0] = competencia;
+			}
+			if(tipo == TipoLancamento.RECEITA) {
+				mes.receitas = mes.receitas.add(soma);
+				saldoAtual[0] = saldoAtual[0].add(soma);
+			} else {
+				mes.despesas = mes.despesas.add(soma);
+				saldoAtual[0] = saldoAtual[0].subtract(soma);
+			}
+		});
+
+		if(usuarioAtual[0] != -1) {
+			verificar(parcial, usuarioAtual[0], saldoAtual[0]);
+		}
+		return parcial;
+	}
+
+	private void verificar(Parcial parcial, long usuario, BigDecimal saldo) {
+		parcial.usuariosProcessados++;
+		analiseService.obterSaldoEmMemoria(usuario).ifPresent(emMemoria -> {
+			parcial.usuariosVerificados++;
+			if(emMemoria.compareTo(saldo) != 0) {
+				parcial.divergencias++;
+				if(parcial.exemplos.size() < MAXIMO_EXEMPLOS) {
+					parcial.exemplos.add(new DivergenciaDTO(usuario, saldo, emMemoria));
+				}
+			}
+		});
+	}
+
+	private class Faixas extends RecursiveTask<Parcial> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Faixa> faixas;
+		private final int inicio;
+		private final int fim;
+
+		Faixas(List<Faixa> faixas, int inicio, int fim) {
+			this.faixas = faixas;
+			this.inicio = inicio;
+			this.fim = fim;
+		}
+
+		@Override
+		protected Parcial compute() {
+			if(fim - inicio == 1) {
+				return processar(faixas.get(inicio));
+			}
+			int meio = inicio + (fim - inicio) / 2;
+			Faixas esquerda = new Faixas(faixas, inicio, meio);
+			esquerda.fork();
+			Parcial direita = new Faixas(faixas, meio, fim).compute();
+			return esquerda.join().somar(direita);
+		}
+	}
+
+	private static class Faixa {
+
+		private final String fragmento;
+		private final long de;
+		private long ate;
+
+		Faixa(String fragmento, long de) {
+			this.fragmento = fragmento;
+			this.de = de;
+			this.ate = de;
+		}
+	}
+
+	private static class Parcial {
+
+		private final Map<Integer, Mes> meses = new TreeMap<>();
+		private final List<DivergenciaDTO> exemplos = new ArrayList<>();
+		private long usuariosProcessados;
+		private long usuariosVerificados;
+		private long divergencias;
+
+		Parcial somar(Parcial outra) {
+			for(Map.Entry<Integer, Mes> item : outra.meses.entrySet()) {
+				Mes mes = meses.computeIfAbsent(item.getKey(), c -> new Mes());
+				mes.receitas = mes.receitas.add(item.getValue().receitas);
+				mes.despesas = mes.despesas.add(item.getValue().despesas);
+				mes.usuarios += item.getValue().usuarios;
+			}
+			for(DivergenciaDTO divergencia : outra.exemplos) {
+				if(exemplos.size() < MAXIMO_EXEMPLOS) {
+					exemplos.add(divergencia);
+				}
+			}
+			usuariosProcessados += outra.usuariosProcessados;
+			usuariosVerificados += outra.usuariosVerificados;
+			divergencias += outra.divergencias;
+			return this;
+		}
+	}
+
+	private static class Mes {
+
+		private BigDecimal receitas = BigDecimal.ZERO;
+		private BigDecimal despesas = BigDecimal.ZERO;
+		private long usuarios;
+	}
+
+}
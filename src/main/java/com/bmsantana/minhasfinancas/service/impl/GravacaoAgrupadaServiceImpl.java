@@ -0,0 +1,247 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.bmsantana.minhasfinancas.config.fragmento.DiretorioFragmentos;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.service.GravacaoAgrupadaService;
+import com.bmsantana.minhasfinancas.service.LancamentoService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Grava novos lançamentos em lotes: os pedidos entram numa fila limitada e uma
+ * única thread os agrupa (até tamanhoLote itens ou esperaMs milissegundos) numa
+ * só transação por fragmento. Quem chamou só recebe o retorno depois do
+ * commit do seu lote. Depois de parar, os pedidos são gravados diretamente,
+ * sem passar pela fila.
+ *
+ * Qualquer falha inesperada do gravador, inclusive Error, encerra com erro os
+ * pedidos do lote em andamento e o gravador segue atendendo a fila. salvar()
+ * espera no máximo tempoMaximoMs pelo resultado.
+ */
+@Service
+@ConditionalOnProperty(name = "minhasfinancas.gravacao-agrupada.habilitada", havingValue = "true")
+public class GravacaoAgrupadaServiceImpl implements GravacaoAgrupadaService {
+
+	private static final Logger log = LoggerFactory.getLogger(GravacaoAgrupadaServiceImpl.class);
+
+	private final LancamentoService service;
+	private final DiretorioFragmentos diretorio;
+	private final BlockingQueue<Pedido> fila;
+	private final int tamanhoLote;
+	private final long esperaNanos;
+	private final long tempoMaximoMs;
+	private final DistributionSummary lotes = Metrics.summary("minhasfinancas.gravacao.agrupada.lote");
+
+	/** Enfileirar segura a leitura; parar segura a escrita para mudar ativo. */
+	private final ReadWriteLock estado = new ReentrantReadWriteLock();
+
+	private volatile boolean ativo;
+	private Thread gravador;
+
+	public GravacaoAgrupadaServiceImpl(LancamentoService service, Optional<DiretorioFragmentos> diretorio,
+			@Value("${minhasfinancas.gravacao-agrupada.capacidade:10000}") int capacidade,
+			@Value("${minhasfinancas.gravacao-agrupada.tamanho-lote:100}") int tamanhoLote,
+			@Value("${minhasfinancas.gravacao-agrupada.espera-ms:5}") long esperaMs,
+			@Value("${minhasfinancas.gravacao-agrupada.tempo-maximo-ms:30000}") long tempoMaximoMs) {
+		this.service = service;
+		this.diretorio = diretorio.orElse(null);
+		this.fila = new ArrayBlockingQueue<>(capacidade);
+		this.tamanhoLote = tamanhoLote;
+		this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+		this.tempoMaximoMs = tempoMaximoMs;
+	}
+
+	@PostConstruct
+	public void iniciar() {
+		ativo = true;
+		gravador = new Thread(this::executar, "gravacao-agrupada-lancamento");
+		gravador.setDaemon(true);
+		gravador.start();
+	}
+
+	@PreDestroy
+	public void parar() throws InterruptedException {
+		Lock escrita = estado.writeLock();
+		escrita.lock();
+		try {
+			ativo = false;
+		} finally {
+			escrita.unlock();
+		}
+		gravador.join(TimeUnit.SECONDS.toMillis(30));
+		// Se o gravador não terminou a tempo, ninguém mais vai atender a fila.
+		for(Pedido pedido = fila.poll(); pedido != null; pedido = fila.poll()) {
+			pedido.resultado.completeExceptionally(new IllegalStateException("Gravação agrupada encerrada"));
+		}
+	}
+
+	/**
+	 * Valida e enfileira o lançamento, bloqueando enquanto a fila estiver cheia.
+	 */
+	@Override
+	public CompletableFuture<Lancamento> enfileirar(Lancamento lancamento) {
+		service.validar(lancamento);
+		Pedido pedido = new Pedido(lancamento);
+		Lock leitura = estado.readLock();
+		leitura.lock();
+		try {
+			if(!ativo) {
+				pedido.resultado.complete(service.salvarTodos(Collections.singletonList(lancamento)).get(0));
+				return pedido.resultado;
+			}
+			fila.put(pedido);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pedido.resultado.completeExceptionally(e);
+		} catch (RuntimeException e) {
+			pedido.resultado.completeExceptionally(e);
+		} finally {
+			leitura.unlock();
+		}
+		return pedido.resultado;
+	}
+
+	@Override
+	public Lancamento salvar(Lancamento lancamento) {
+		try {
+			return enfileirar(lancamento).get(tempoMaximoMs, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Falha na gravação agrupada", e.getCause());
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Tempo esgotado aguardando a gravação agrupada");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Gravação agrupada interrompida", e);
+		}
+	}
+
+	private void executar() {
+		List<Pedido> lote = new ArrayList<>(tamanhoLote);
+		while(ativo || !fila.isEmpty()) {
+			try {
+				Pedido primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+				if(primeiro == null) {
+					continue;
+				}
+				lote.add(primeiro);
+
+				long limite = System.nanoTime() + esperaNanos;
+				while(lote.size() < tamanhoLote) {
+					fila.drainTo(lote, tamanhoLote - lote.size());
+					long restante = limite - System.nanoTime();
+					if(lote.size() >= tamanhoLote || restante <= 0) {
+						break;
+					}
+					Pedido proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+					if(proximo == null) {
+						break;
+					}
+					lote.add(proximo);
+				}
+
+				for(List<Pedido> doFragmento : agruparPorFragmento(lote)) {
+					gravar(doFragmento);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Throwable e) {
+				log.error("Falha inesperada na gravação agrupada de lançamentos", e);
+				for(Pedido pedido : lote) {
+					pedido.resultado.completeExceptionally(e);
+				}
+			} finally {
+				lote.clear();
+			}
+		}
+	}
+
+	/**
+	 * Uma transação só alcança um fragmento; com fragmentação, o lote é
+	 * dividido pelo fragmento atual de cada usuário.
+	 */
+	private Collection<List<Pedido>> agruparPorFragmento(List<Pedido> lote) {
+		if(diretorio == null) {
+			return Collections.singletonList(lote);
+		}
+		Map<String, List<Pedido>> grupos = new LinkedHashMap<>();
+		for(Pedido pedido : lote) {
+			Usuario usuario = pedido.lancamento.getUsuario();
+			String fragmento = usuario != null && usuario.getId() != null
+					? diretorio.localizar(usuario.getId()) : diretorio.principal();
+			grupos.computeIfAbsent(fragmento, f -> new ArrayList<>()).add(pedido);
+		}
+		return grupos.values();
+	}
+
+	private void gravar(List<Pedido> lote) {
+		lotes.record(lote.size());
+		List<Lancamento> lancamentos = new ArrayList<>(lote.size());
+		for(Pedido pedido : lote) {
+			lancamentos.add(pedido.lancamento);
+		}
+
+		try {
+			List<Lancamento> salvos = service.salvarTodos(lancamentos);
+			for(int i = 0; i < lote.size(); i++) {
+				lote.get(i).resultado.complete(salvos.get(i));
+			}
+		} catch (RuntimeException e) {
+			if(lote.size() == 1) {
+				lote.get(0).resultado.completeExceptionally(e);
+				return;
+			}
+			// Um item com problema não deve derrubar o lote inteiro: grava um a um.
+			for(Pedido pedido : lote) {
+				try {
+					pedido.lancamento.setId(null);
+					pedido.resultado.complete(service.salvarTodos(Collections.singletonList(pedido.lancamento)).get(0));
+				} catch (RuntimeException erro) {
+					pedido.resultado.completeExceptionally(erro);
+				}
+			}
+		}
+	}
+
+	private static class Pedido {
+
+		private final Lancamento lancamento;
+		private final CompletableFuture<Lancamento> resultado = new CompletableFuture<>();
+
+		Pedido(Lancamento lancamento) {
+			this.lancamento = lancamento;
+		}
+	}
+
+}
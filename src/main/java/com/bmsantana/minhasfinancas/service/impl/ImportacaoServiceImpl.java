@@ -0,0 +1,298 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bmsantana.minhasfinancas.api.dto.ImportacaoDTO;
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.service.ImportacaoService;
+import com.bmsantana.minhasfinancas.service.LancamentoService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+import com.bmsantana.minhasfinancas.service.importacao.FormatoExtrato;
+import com.bmsantana.minhasfinancas.service.importacao.LeitorExtrato;
+import com.bmsantana.minhasfinancas.service.importacao.LinhaExtrato;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Importação de extratos lidos direto do corpo da requisição. As linhas são
+ * convertidas e validadas uma a uma e gravadas em blocos, cada bloco na sua
+ * transação (salvarTodos, com os mesmos eventos de um cadastro comum); a
+ * memória usada depende do tamanho do bloco, não do arquivo.
+ *
+ * Cada linha leva a impressão digital do seu conteúdo. Antes de gravar um
+ * bloco as impressões já existentes do usuário são consultadas de uma vez e
+ * essas linhas são puladas, então reenviar o mesmo extrato, ou um que se
+ * sobrepõe ao anterior, só inclui o que falta. Uma importação interrompida
+ * mantém os blocos já gravados e pode ser reenviada inteira.
+ *
+ * Linhas sem identificador do banco são numeradas pela ocorrência do mesmo
+ * conteúdo no arquivo. Como a data faz parte da impressão, só linhas do mesmo
+ * dia podem se repetir, e o extrato vem em ordem de data: basta lembrar os
+ * conteúdos do dia corrente, e a memória não cresce com o arquivo. Uma linha
+ * de um dia já encerrado é rejeitada, porque a numeração dela não pode mais
+ * ser refeita; reenviar o extrato ordenado inclui o que faltou.
+ *
+ * A regra de uma importação por usuário vale por instância: o andamento fica
+ * em memória, e com várias instâncias duas importações do mesmo usuário
+ * podem rodar ao mesmo tempo em instâncias diferentes, com risco de gravar a
+ * mesma linha duas vezes.
+ */
+@Service
+public class ImportacaoServiceImpl implements ImportacaoService {
+
+	private static final Logger log = LoggerFactory.getLogger(ImportacaoServiceImpl.class);
+
+	private static final int MAXIMO_REJEICOES = 20;
+	private static final int TAMANHO_DESCRICAO = 255;
+
+	private final LancamentoService lancamentoService;
+	private final UsuarioService usuarioService;
+	private final LancamentoRepository repository;
+	private final int tamanhoBloco;
+	private final long validadeMinutos;
+	private final ConcurrentMap<Long, Progresso> importacoes = new ConcurrentHashMap<>();
+	private final Counter importadas = contador("importada");
+	private final Counter duplicadas = contador("duplicada");
+	private final Counter rejeitadas = contador("rejeitada");
+
+	public ImportacaoServiceImpl(LancamentoService lancamentoService, UsuarioService usuarioService,
+			LancamentoRepository repository,
+			@Value("${minhasfinancas.importacao.tamanho-bloco:500}") int tamanhoBloco,
+			@Value("${minhasfinancas.importacao.validade-minutos:60}") long validadeMinutos) {
+		this.lancamentoService = lancamentoService;
+		this.usuarioService = usuarioService;
+		this.repository = repository;
+		this.tamanhoBloco = tamanhoBloco;
+		this.validadeMinutos = validadeMinutos;
+	}
+
+	@Override
+	public ImportacaoDTO importar(@ChaveFragmento Long idUsuario, FormatoExtrato formato, InputStream conteudo, Charset charset) {
+		Usuario usuario = usuarioService.obterPorId(idUsuario)
+				.orElseThrow(() -> new RegraNegocioException("Usuário não encontrado para o ID informado!"));
+
+		Progresso progresso = new Progresso(formato);
+		if(importacoes.compute(idUsuario, (id, atual) -> atual != null && atual.fim == null ? atual : progresso) != progresso) {
+			throw new RegraNegocioException("Já existe uma importação em andamento para este usuário!");
+		}
+
+		try (LeitorExtrato leitor = formato.criarLeitor(new InputStreamReader(conteudo, charset))) {
+			processar(usuario, leitor, progresso);
+			progresso.concluir(null);
+		} catch (IOException e) {
+			progresso.concluir("Falha na leitura do arquivo: " + e.getMessage());
+			throw new RegraNegocioException(progresso.erro);
+		} catch (RuntimeException e) {
+			progresso.concluir(e.getMessage());
+			throw e;
+		} finally {
+			log.info("Importação {} do usuário {}: {} linhas, {} importadas, {} duplicadas, {} rejeitadas",
+					formato, idUsuario, progresso.linhasLidas, progresso.importadas, progresso.duplicadas, progresso.rejeitadas);
+		}
+		return progresso.situacao();
+	}
+
+	@Override
+	public Optional<ImportacaoDTO> obterSituacao(Long idUsuario) {
+		return Optional.ofNullable(importacoes.get(idUsuario)).map(Progresso::situacao);
+	}
+
+	@Scheduled(fixedRateString = "${minhasfinancas.importacao.limpeza-ms:60000}")
+	public void removerConcluidas() {
+		LocalDateTime limite = LocalDateTime.now().minusMinutes(validadeMinutos);
+		importacoes.values().removeIf(progresso -> progresso.fim != null && progresso.fim.isBefore(limite));
+	}
+
+	private void processar(Usuario usuario, LeitorExtrato leitor, Progresso progresso) throws IOException {
+		Ocorrencias ocorrencias = new Ocorrencias();
+		Map<Long, Lancamento> bloco = new LinkedHashMap<>();
+
+		while(true) {
+			LinhaExtrato linha;
+			try {
+				linha = leitor.proxima();
+			} catch (RegraNegocioException e) {
+				rejeitar(leitor, progresso, e);
+				continue;
+			}
+			if(linha == null) {
+				break;
+			}
+			progresso.linhasLidas++;
+
+			Lancamento lancamento;
+			try {
+				lancamento = converter(usuario, linha, ocorrencias.impressao(linha));
+				lancamentoService.validar(lancamento);
+			} catch (RegraNegocioException e) {
+				rejeitar(leitor, progresso, e);
+				continue;
+			}
+
+			if(bloco.putIfAbsent(lancamento.getImpressao(), lancamento) != null) {
+				progresso.duplicadas++;
+				duplicadas.increment();
+			}
+			if(bloco.size() >= tamanhoBloco) {
+				gravar(usuario, bloco, progresso);
+			}
+		}
+		if(!bloco.isEmpty()) {
+			gravar(usuario, bloco, progresso);
+		}
+	}
+
+	private void gravar(Usuario usuario, Map<Long, Lancamento> bloco, Progresso progresso) {
+		for(Long existente : repository.obterImpressoesExistentes(usuario.getId(), bloco.keySet())) {
+			if(bloco.remove(existente) != null) {
+				progresso.duplicadas++;
+				duplicadas.increment();
+			}
+		}
+		if(!bloco.isEmpty()) {
+			lancamentoService.salvarTodos(new ArrayList<>(bloco.values()));
+			progresso.importadas += bloco.size();
+			importadas.increment(bloco.size());
+		}
+		bloco.clear();
+	}
+
+	private void rejeitar(LeitorExtrato leitor, Progresso progresso, RegraNegocioException e) {
+		progresso.rejeitar(leitor.posicao(), e.getMessage());
+		rejeitadas.increment();
+	}
+
+	private static Lancamento converter(Usuario usuario, LinhaExtrato linha, long impressao) {
+		String descricao = linha.getDescricao();
+		if(descricao != null && descricao.length() > TAMANHO_DESCRICAO) {
+			descricao = descricao.substring(0, TAMANHO_DESCRICAO);
+		}
+		return Lancamento.builder()
+				.usuario(usuario)
+				.descricao(descricao)
+				.categoria(linha.getCategoria())
+				.ano(linha.getData().getYear())
+				.mes(linha.getData().getMonthValue())
+				.valor(linha.getValor().abs())
+				.tipo(linha.getValor().signum() < 0 ? TipoLancamento.DESPESA : TipoLancamento.RECEITA)
+				.dataCadastro(LocalDate.now())
+				.impressao(impressao)
+				.build();
+	}
+
+	private static Counter contador(String resultado) {
+		return Metrics.counter("minhasfinancas.importacao.linhas", "resultado", resultado);
+	}
+
+	/**
+	 * Numeração das linhas idênticas sem identificador. Guarda as contagens só
+	 * do dia corrente e as datas já encerradas, uma entrada por dia.
+	 */
+	private static class Ocorrencias {
+
+		private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+		private LocalDate data;
+		private final Map<Long, Integer> contagens = new HashMap<>();
+		private final Set<LocalDate> encerradas = new HashSet<>();
+
+		long impressao(LinhaExtrato linha) {
+			long impressao = linha.impressao(0);
+			if(linha.getIdentificador() != null) {
+				return impressao;
+			}
+			if(!linha.getData().equals(data)) {
+				if(encerradas.contains(linha.getData())) {
+					throw new RegraNegocioException("Linha fora da ordem de data: " + linha.getData().format(FORMATO_DATA)
+							+ ". Envie o extrato ordenado por data!");
+				}
+				if(data != null) {
+					encerradas.add(data);
+				}
+				data = linha.getData();
+				contagens.clear();
+			}
+			int ocorrencia = contagens.merge(impressao, 1, Integer::sum) - 1;
+			return ocorrencia > 0 ? linha.impressao(ocorrencia) : impressao;
+		}
+	}
+
+	/**
+	 * Andamento de uma importação. Só a thread da importação escreve; as
+	 * consultas de situação leem os contadores como estiverem no momento.
+	 */
+	private static class Progresso {
+
+		private final FormatoExtrato formato;
+		private final LocalDateTime inicio = LocalDateTime.now();
+		private final List<String> rejeicoes = new CopyOnWriteArrayList<>();
+		private volatile long linhasLidas;
+		private volatile long importadas;
+		private volatile long duplicadas;
+		private volatile long rejeitadas;
+		private volatile LocalDateTime fim;
+		private volatile String erro;
+
+		Progresso(FormatoExtrato formato) {
+			this.formato = formato;
+		}
+
+		void rejeitar(long posicao, String motivo) {
+			rejeitadas++;
+			if(rejeicoes.size() < MAXIMO_REJEICOES) {
+				rejeicoes.add(posicao + ": " + motivo);
+			}
+		}
+
+		void concluir(String erro) {
+			this.erro = erro;
+			this.fim = LocalDateTime.now();
+		}
+
+		ImportacaoDTO situacao() {
+			LocalDateTime concluida = fim;
+			return ImportacaoDTO.builder()
+					.situacao(concluida == null ? "EM_ANDAMENTO" : erro == null ? "CONCLUIDA" : "FALHOU")
+					.formato(formato.name())
+					.inicio(inicio)
+					.fim(concluida)
+					.linhasLidas(linhasLidas)
+					.importadas(importadas)
+					.duplicadas(duplicadas)
+					.rejeitadas(rejeitadas)
+					.rejeicoes(new ArrayList<>(rejeicoes))
+					.erro(erro)
+					.build();
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bmsantana.minhasfinancas.config.fragmento.TodosFragmentos;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRecorrente;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRecorrenteRepository;
+import com.bmsantana.minhasfinancas.service.LancamentoRecorrenteService;
+import com.bmsantana.minhasfinancas.service.LancamentoService;
+
+/**
+ * Modelos de lançamento que se repetem todo mês. Cada execução gera os meses
+ * pendentes até o horizonte de antecedência, no máximo maximoMesesPorExecucao
+ * por modelo; um modelo muito atrasado é completado nas execuções seguintes.
+ *
+ * A geração agendada grava cada modelo na sua transação: os bloqueios por
+ * usuário duram só a gravação do modelo, e a falha de um modelo não desfaz os
+ * demais (ele fica pendente para a próxima execução).
+ */
+@Service
+public class LancamentoRecorrenteServiceImpl implements LancamentoRecorrenteService {
+
+	private static final Logger log = LoggerFactory.getLogger(LancamentoRecorrenteServiceImpl.class);
+
+	private LancamentoRecorrenteRepository repository;
+	private LancamentoService lancamentoService;
+	private TransactionTemplate transacao;
+	private int mesesAntecedencia;
+	private int maximoMesesPorExecucao;
+
+	public LancamentoRecorrenteServiceImpl(LancamentoRecorrenteRepository repository,
+			LancamentoService lancamentoService,
+			PlatformTransactionManager transactionManager,
+			@Value("${minhasfinancas.recorrencia.meses-antecedencia:3}") int mesesAntecedencia,
+			@Value("${minhasfinancas.recorrencia.maximo-meses-por-execucao:24}") int maximoMesesPorExecucao) {
+		this.repository = repository;
+		this.lancamentoService = lancamentoService;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.mesesAntecedencia = mesesAntecedencia;
+		this.maximoMesesPorExecucao = maximoMesesPorExecucao;
+	}
+
+	@Override
+	@Transactional
+	public LancamentoRecorrente salvar(LancamentoRecorrente recorrente) {
+		lancamentoService.validar(criarLancamento(recorrente, recorrente.getProximoMes(), recorrente.getProximoAno()));
+
+		if(recorrente.getMesFim() != null || recorrente.getAnoFim() != null) {
+			if(recorrente.getMesFim() == null || recorrente.getAnoFim() == null
+					|| recorrente.getMesFim() < 1 || recorrente.getMesFim() > 12
+					|| fim(recorrente).isBefore(YearMonth.of(recorrente.getProximoAno(), recorrente.getProximoMes()))) {
+				throw new RegraNegocioException("Informe um Mês/Ano final válido!");
+			}
+		}
+
+		recorrente.setAtivo(true);
+		recorrente.setDataCadastro(LocalDate.now());
+		recorrente = repository.save(recorrente);
+		gerar(recorrente, limite());
+		return recorrente;
+	}
+
+	@Override
+	@TodosFragmentos
+	@Scheduled(cron = "${minhasfinancas.recorrencia.cron:0 0 3 * * *}")
+	public int gerarLancamentosPendentes() {
+		YearMonth limite = limite();
+		List<Long> pendentes = transacao.execute(status -> repository.findPendentesAte(limite.getYear() * 100 + limite.getMonthValue())
+				.stream().map(LancamentoRecorrente::getId).collect(Collectors.toList()));
+		int gerados = 0;
+		for(Long id : pendentes) {
+			try {
+				gerados += transacao.execute(status -> repository.findById(id).map(recorrente -> gerar(recorrente, limite)).orElse(0));
+			} catch (RuntimeException e) {
+				log.error("Falha ao gerar os lançamentos do modelo recorrente {}", id, e);
+			}
+		}
+		return gerados;
+	}
+
+	private int gerar(LancamentoRecorrente recorrente, YearMonth limite) {
+		YearMonth fim = fim(recorrente);
+		if(fim != null && fim.isBefore(limite)) {
+			limite = fim;
+		}
+		YearMonth competencia = YearMonth.of(recorrente.getProximoAno(), recorrente.getProximoMes());
+		YearMonth ultimoDaExecucao = competencia.plusMonths(maximoMesesPorExecucao - 1);
+		if(ultimoDaExecucao.isBefore(limite)) {
+			limite = ultimoDaExecucao;
+		}
+
+		List<Lancamento> lancamentos = new ArrayList<>();
+		while(!competencia.isAfter(limite)) {
+			lancamentos.add(criarLancamento(recorrente, competencia.getMonthValue(), competencia.getYear()));
+			competencia = competencia.plusMonths(1);
+		}
+		if(!lancamentos.isEmpty()) {
+			lancamentoService.salvarTodos(lancamentos);
+		}
+
+		recorrente.setProximoMes(competencia.getMonthValue());
+		recorrente.setProximoAno(competencia.getYear());
+		if(fim != null && competencia.isAfter(fim)) {
+			recorrente.setAtivo(false);
+		}
+		repository.save(recorrente);
+		return lancamentos.size();
+	}
+
+	private Lancamento criarLancamento(LancamentoRecorrente recorrente, Integer mes, Integer ano) {
+		return Lancamento.builder()
+				.descricao(recorrente.getDescricao())
+				.categoria(recorrente.getCategoria())
+				.mes(mes)
+				.ano(ano)
+				.valor(recorrente.getValor())
+				.usuario(recorrente.getUsuario())
+				.tipo(recorrente.getTipo())
+				.status(StatusLancamento.PENDENTE)
+				.dataCadastro(LocalDate.now())
+				.build();
+	}
+
+	private YearMonth limite() {
+		return YearMonth.now().plusMonths(mesesAntecedencia);
+	}
+
+	private YearMonth fim(LancamentoRecorrente recorrente) {
+		if(recorrente.getMesFim() == null || recorrente.getAnoFim() == null) {
+			return null;
+		}
+		return YearMonth.of(recorrente.getAnoFim(), recorrente.getMesFim());
+	}
+
+}
@@ -1,30 +1,57 @@
 package com.bmsantana.minhasfinancas.service.impl;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
-import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
 import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
 import com.bmsantana.minhasfinancas.model.entity.Lancamento;
 import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
 import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
 import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.service.CategorizacaoService;
 import com.bmsantana.minhasfinancas.service.LancamentoService;
+import com.bmsantana.minhasfinancas.service.SincronizacaoService;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.util.ExecucaoCompartilhada;
+import com.bmsantana.minhasfinancas.util.TemposRequisicao;
+import com.bmsantana.minhasfinancas.util.TemposRequisicao.Fase;
 
 @Service
 public class LancamentoServiceImpl implements LancamentoService{
 	
+	private static final int MAXIMO_PARCELAS = 360;
+	
 	private LancamentoRepository repository;
 	
-	public LancamentoServiceImpl (LancamentoRepository repository) {
+	private ApplicationEventPublisher publisher;
+	
+	private SincronizacaoService sincronizacao;
+	
+	private CategorizacaoService categorizacao;
+	
+	private final ExecucaoCompartilhada<Long, BigDecimal> saldos = new ExecucaoCompartilhada<>("saldo");
+	
+	public LancamentoServiceImpl (LancamentoRepository repository, ApplicationEventPublisher publisher,
+			SincronizacaoService sincronizacao, CategorizacaoService categorizacao) {
 		this.repository = repository;
+		this.publisher = publisher;
+		this.sincronizacao = sincronizacao;
+		this.categorizacao = categorizacao;
 	}
 
 	@Override
@@ -32,7 +59,69 @@ public class LancamentoServiceImpl implements LancamentoService{
 	public Lancamento salvar(Lancamento lancamento) {
 		validar(lancamento);
 		lancamento.setStatus(StatusLancamento.PENDENTE);
-		return repository.save(lancamento);
+		categorizar(lancamento);
+		versionar(Collections.singletonList(lancamento));
+		Lancamento salvo = repository.save(lancamento);
+		publicar(TipoAlteracaoLancamento.CRIADO, salvo, null);
+		return salvo;
+	}
+	
+	@Override
+	@Transactional
+	public List<Lancamento> salvarTodos(List<Lancamento> lancamentos) {
+		for(Lancamento lancamento : lancamentos) {
+			validar(lancamento);
+			lancamento.setStatus(StatusLancamento.PENDENTE);
+		}
+		return gravarNovos(lancamentos);
+	}
+	
+	@Override
+	@Transactional
+	public List<Lancamento> salvarParcelado(Lancamento lancamento, Integer parcelas) {
+		if(parcelas == null || parcelas < 2 || parcelas > MAXIMO_PARCELAS) {
+			throw new RegraNegocioException("Informe uma quantidade de parcelas válida!");
+		}
+		validar(lancamento);
+		
+		// O valor é dividido em centavos; a diferença do arredondamento fica na primeira parcela.
+		BigDecimal total = lancamento.getValor().setScale(2, RoundingMode.HALF_EVEN);
+		BigDecimal valorParcela = total.divide(BigDecimal.valueOf(parcelas), 2, RoundingMode.DOWN);
+		if(valorParcela.compareTo(BigDecimal.ZERO) < 1) {
+			throw new RegraNegocioException("Valor insuficiente para a quantidade de parcelas informada!");
+		}
+		BigDecimal resto = total.subtract(valorParcela.multiply(BigDecimal.valueOf(parcelas)));
+		
+		YearMonth inicio = YearMonth.of(lancamento.getAno(), lancamento.getMes());
+		List<Lancamento> lancamentos = new ArrayList<>(parcelas);
+		for(int i = 0; i < parcelas; i++) {
+			YearMonth competencia = inicio.plusMonths(i);
+			lancamentos.add(Lancamento.builder()
+					.descricao(String.format("%s (%d/%d)", lancamento.getDescricao(), i + 1, parcelas))
+					.categoria(lancamento.getCategoria())
+					.mes(competencia.getMonthValue())
+					.ano(competencia.getYear())
+					.valor(i == 0 ? valorParcela.add(resto) : valorParcela)
+					.usuario(lancamento.getUsuario())
+					.tipo(lancamento.getTipo())
+					.status(StatusLancamento.PENDENTE)
+					.dataCadastro(lancamento.getDataCadastro())
+					.build());
+		}
+		
+		return gravarNovos(lancamentos);
+	}
+	
+	private List<Lancamento> gravarNovos(List<Lancamento> lancamentos) {
+		for(Lancamento lancamento : lancamentos) {
+			categorizar(lancamento);
+		}
+		versionar(lancamentos);
+		List<Lancamento> salvos = repository.saveAll(lancamentos);
+		for(Lancamento salvo : salvos) {
+			publicar(TipoAlteracaoLancamento.CRIADO, salvo, null);
+		}
+		return salvos;
 	}
 
 	@Override
@@ -40,7 +129,23 @@ public class LancamentoServiceImpl implements LancamentoService{
 	public Lancamento atualizar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
 		validar(lancamento);
-		return repository.save(lancamento);
+		
+		// Estado gravado, lido à parte: lancamento pode ser a própria entidade gerenciada, já alterada.
+		Lancamento anterior = repository.obterGravado(lancamento.getId()).orElse(null);
+		if(anterior != null && lancamento.getImpressao() == null) {
+			// Alterar um lançamento importado não pode fazer a linha do extrato ser importada de novo.
+			lancamento.setImpressao(anterior.getImpressao());
+		}
+		versionar(Collections.singletonList(lancamento));
+		if(anterior != null && !Objects.equals(idUsuario(anterior), idUsuario(lancamento))) {
+			// Para o usuário de antes o lançamento deixou de existir.
+			sincronizacao.registrarRemocao(idUsuario(anterior), anterior.getId());
+		}
+		Lancamento salvo = repository.save(lancamento);
+		
+		boolean statusAlterado = anterior != null && anterior.getStatus() != salvo.getStatus();
+		publicar(statusAlterado ? TipoAlteracaoLancamento.STATUS_ALTERADO : TipoAlteracaoLancamento.ATUALIZADO, salvo, anterior);
+		return salvo;
 	}
 	
 	@Override
@@ -48,17 +153,10 @@ public class LancamentoServiceImpl implements LancamentoService{
 	public void deletar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
 		repository.delete(lancamento);
-	}
-
-	@Override
-	@Transactional(readOnly = true)
-	public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
-		Example example = Example.of(lancamentoFiltro, ExampleMatcher
-																	.matching()
-																	.withIgnoreCase()
-																	.withStringMatcher(StringMatcher.CONTAINING));
-		
-		return repository.findAll(example);
+		if(idUsuario(lancamento) != null) {
+			sincronizacao.registrarRemocao(idUsuario(lancamento), lancamento.getId());
+		}
+		publicar(TipoAlteracaoLancamento.REMOVIDO, lancamento, lancamento);
 	}
 
 	@Override
@@ -70,51 +168,101 @@ public class LancamentoServiceImpl implements LancamentoService{
 
 	@Override
 	public void validar(Lancamento lancamento) {
-		if(lancamento.getDescricao() == null || lancamento.getDescricao().trim().equals("")) {
-			throw new RegraNegocioException("Informe uma descrição válida!");
-		}
+		long inicio = TemposRequisicao.marcar();
+		try {
+			if(lancamento.getDescricao() == null || lancamento.getDescricao().trim().equals("")) {
+				throw new RegraNegocioException("Informe uma descrição válida!");
+			}
 		
-		if(lancamento.getMes() == null || lancamento.getMes() < 1 || lancamento.getMes() > 12) {
-			throw new RegraNegocioException("Informe um Mês válido!");
-		}
+			if(lancamento.getMes() == null || lancamento.getMes() < 1 || lancamento.getMes() > 12) {
+				throw new RegraNegocioException("Informe um Mês válido!");
+			}
 		
-		if(lancamento.getAno() == null || lancamento.getAno().toString().length() != 4) {
-			throw new RegraNegocioException("Informe um Ano válido!");
-		}
+			if(lancamento.getAno() == null || lancamento.getAno().toString().length() != 4) {
+				throw new RegraNegocioException("Informe um Ano válido!");
+			}
 		
-		if(lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null) {
-			throw new RegraNegocioException("Informe um Usuário válido!");
-		}
+			if(lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null) {
+				throw new RegraNegocioException("Informe um Usuário válido!");
+			}
 		
-		if(lancamento.getValor() == null || lancamento.getValor().compareTo(BigDecimal.ZERO) < 1) {
-			throw new RegraNegocioException("Informe um Valor válido!");
-		}
+			if(lancamento.getValor() == null || lancamento.getValor().compareTo(BigDecimal.ZERO) < 1) {
+				throw new RegraNegocioException("Informe um Valor válido!");
+			}
 		
-		if(lancamento.getTipo() == null) {
-			throw new RegraNegocioException("Informe um Tipo de lançamento!");
+			if(lancamento.getTipo() == null) {
+				throw new RegraNegocioException("Informe um Tipo de lançamento!");
+			}
+		} finally {
+			TemposRequisicao.registrar(Fase.VALIDACAO, inicio);
 		}
 	}
 
+	/**
+	 * Lançamentos novos sem categoria recebem a da regra que casar com a descrição.
+	 */
+	private void categorizar(Lancamento lancamento) {
+		if((lancamento.getCategoria() == null || lancamento.getCategoria().trim().isEmpty()) && idUsuario(lancamento) != null) {
+			categorizacao.classificar(idUsuario(lancamento), lancamento.getDescricao()).ifPresent(lancamento::setCategoria);
+		}
+	}
+	
+	/**
+	 * Numera as gravações na sequência de alterações de cada usuário (ver
+	 * SincronizacaoService), em ordem de usuário para não haver espera cruzada
+	 * entre lotes.
+	 */
+	private void versionar(List<Lancamento> lancamentos) {
+		Map<Long, List<Lancamento>> porUsuario = new TreeMap<>();
+		for(Lancamento lancamento : lancamentos) {
+			if(idUsuario(lancamento) != null) {
+				porUsuario.computeIfAbsent(idUsuario(lancamento), id -> new ArrayList<>()).add(lancamento);
+			}
+		}
+		porUsuario.forEach((idUsuario, doUsuario) -> {
+			long versao = sincronizacao.reservarVersoes(idUsuario, doUsuario.size()) - doUsuario.size();
+			for(Lancamento lancamento : doUsuario) {
+				lancamento.setVersao(++versao);
+			}
+		});
+	}
+	
+	private static Long idUsuario(Lancamento lancamento) {
+		return lancamento.getUsuario() != null ? lancamento.getUsuario().getId() : null;
+	}
+
+	private void publicar(TipoAlteracaoLancamento tipo, Lancamento lancamento, Lancamento anterior) {
+		publisher.publishEvent(new LancamentoAlteradoEvento(tipo, lancamento, anterior));
+	}
+
 	@Override
 	public Optional<Lancamento> obterPorId(Long id) {
 		return repository.findById(id);
 	}
 
+	/*
+	 * Sem @Transactional de propósito: chamadas concorrentes para o mesmo usuário
+	 * aguardam a que já está em andamento, e não devem segurar uma conexão enquanto esperam.
+	 * Receitas e despesas são somadas numa única consulta (transação somente
+	 * leitura do repositório), para que as duas somas vejam o mesmo estado.
+	 */
 	@Override
-	@Transactional(readOnly = true)
-	public BigDecimal obterSaldoPorUsuario(Long id) {
-		BigDecimal receitas = repository.obterSaldoPorTipoEUsuario(id, TipoLancamento.RECEITA);
-		BigDecimal despesas = repository.obterSaldoPorTipoEUsuario(id, TipoLancamento.DESPESA);
-		
-		if(receitas == null) {
-			receitas = BigDecimal.ZERO;
+	public BigDecimal obterSaldoPorUsuario(@ChaveFragmento Long id) {
+		return saldos.executar(id, () -> repository.obterSaldoPorUsuario(id, TipoLancamento.RECEITA, TipoLancamento.DESPESA));
+	}
+	
+	/**
+	 * Depois do commit de uma alteração, um saldo que já estava sendo calculado
+	 * pode não incluí-la: quem consultar a partir daqui inicia outro cálculo.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		if(evento.getIdUsuario() != null) {
+			saldos.invalidar(evento.getIdUsuario());
 		}
-		
-		if(despesas == null) {
-			despesas = BigDecimal.ZERO;
+		if(evento.getIdUsuarioAnterior() != null) {
+			saldos.invalidar(evento.getIdUsuarioAnterior());
 		}
-		
-		return receitas.subtract(receitas);
 	}
 
 }
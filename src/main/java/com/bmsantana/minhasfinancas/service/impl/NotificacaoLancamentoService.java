@@ -0,0 +1,192 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.bmsantana.minhasfinancas.api.dto.LancamentoEventoDTO;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.service.LancamentoService;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Envia por Server-Sent Events as alterações de lançamentos de cada usuário,
+ * sempre depois do commit. Cada conexão tem uma fila limitada; quem não
+ * consome rápido o bastante e deixa a fila encher é desconectado, e o cliente
+ * deve reconectar e recarregar os dados.
+ *
+ * Todo envio, inclusive o heartbeat, acontece nas threads de envio, uma
+ * conexão por vez: um cliente lento segura no máximo uma dessas threads,
+ * nunca a thread dos jobs agendados. Um lançamento que troca de usuário
+ * chega ao usuário anterior como REMOVIDO.
+ */
+@Service
+public class NotificacaoLancamentoService {
+
+	private final LancamentoService lancamentoService;
+	private final ConcurrentMap<Long, Set<Assinatura>> assinaturas = new ConcurrentHashMap<>();
+	private final ExecutorService envio;
+	private final int capacidade;
+	private final long timeoutMs;
+	private final Counter desconectadas = Metrics.counter("minhasfinancas.eventos.desconectadas");
+
+	public NotificacaoLancamentoService(LancamentoService lancamentoService,
+			@Value("${minhasfinancas.eventos.capacidade:256}") int capacidade,
+			@Value("${minhasfinancas.eventos.timeout-ms:1800000}") long timeoutMs,
+			@Value("${minhasfinancas.eventos.threads:4}") int threads) {
+		this.lancamentoService = lancamentoService;
+		this.capacidade = capacidade;
+		this.timeoutMs = timeoutMs;
+		this.envio = Executors.newFixedThreadPool(threads);
+	}
+
+	public SseEmitter assinar(Long idUsuario) {
+		SseEmitter emitter = new SseEmitter(timeoutMs);
+		Assinatura assinatura = new Assinatura(idUsuario, emitter, capacidade);
+
+		assinaturas.computeIfAbsent(idUsuario, id -> ConcurrentHashMap.newKeySet()).add(assinatura);
+		emitter.onCompletion(() -> remover(assinatura));
+		emitter.onTimeout(() -> remover(assinatura));
+		emitter.onError(erro -> remover(assinatura));
+		return emitter;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		notificar(evento.getIdUsuario(), LancamentoEventoDTO.builder()
+				.tipo(evento.getTipo().name())
+				.lancamento(evento.getLancamento())
+				.build());
+
+		Lancamento anterior = evento.getAnterior();
+		Long idAnterior = anterior != null && anterior.getUsuario() != null ? anterior.getUsuario().getId() : null;
+		if(idAnterior != null && !idAnterior.equals(evento.getIdUsuario())) {
+			notificar(idAnterior, LancamentoEventoDTO.builder()
+					.tipo(TipoAlteracaoLancamento.REMOVIDO.name())
+					.lancamento(anterior)
+					.build());
+		}
+	}
+
+	public int contarAssinaturas(Long idUsuario) {
+		Set<Assinatura> doUsuario = assinaturas.get(idUsuario);
+		return doUsuario != null ? doUsuario.size() : 0;
+	}
+
+	private void notificar(Long idUsuario, LancamentoEventoDTO dto) {
+		Set<Assinatura> doUsuario = idUsuario != null ? assinaturas.get(idUsuario) : null;
+		if(doUsuario == null || doUsuario.isEmpty()) {
+			return;
+		}
+		for(Assinatura assinatura : doUsuario) {
+			if(assinatura.fila.offer(dto)) {
+				agendarEnvio(assinatura);
+			} else {
+				desconectadas.increment();
+				remover(assinatura);
+				assinatura.emitter.complete();
+			}
+		}
+	}
+
+	/**
+	 * Só marca o heartbeat; o envio fica com as threads de envio.
+	 */
+	@Scheduled(fixedRateString = "${minhasfinancas.eventos.heartbeat-ms:30000}")
+	public void manterConexoes() {
+		for(Set<Assinatura> doUsuario : assinaturas.values()) {
+			for(Assinatura assinatura : doUsuario) {
+				assinatura.heartbeat.set(true);
+				agendarEnvio(assinatura);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		envio.shutdownNow();
+		for(Set<Assinatura> doUsuario : assinaturas.values()) {
+			for(Assinatura assinatura : doUsuario) {
+				assinatura.emitter.complete();
+			}
+		}
+		assinaturas.clear();
+	}
+
+	private void agendarEnvio(Assinatura assinatura) {
+		if(assinatura.agendada.compareAndSet(false, true)) {
+			envio.execute(() -> enviar(assinatura));
+		}
+	}
+
+	private void enviar(Assinatura assinatura) {
+		try {
+			if(assinatura.heartbeat.getAndSet(false)) {
+				assinatura.emitter.send(SseEmitter.event().comment("ping"));
+			}
+			List<LancamentoEventoDTO> pendentes = new ArrayList<>();
+			assinatura.fila.drainTo(pendentes);
+			if(pendentes.isEmpty()) {
+				return;
+			}
+			for(LancamentoEventoDTO dto : pendentes) {
+				assinatura.emitter.send(SseEmitter.event().name("lancamento").data(dto));
+			}
+			// Um único saldo por rajada de alterações, calculado fora da thread da requisição.
+			assinatura.emitter.send(SseEmitter.event().name("saldo").data(lancamentoService.obterSaldoPorUsuario(assinatura.idUsuario)));
+		} catch (IOException | IllegalStateException e) {
+			remover(assinatura);
+		} finally {
+			assinatura.agendada.set(false);
+			if(!assinatura.fila.isEmpty() || assinatura.heartbeat.get()) {
+				agendarEnvio(assinatura);
+			}
+		}
+	}
+
+	private void remover(Assinatura assinatura) {
+		Set<Assinatura> doUsuario = assinaturas.get(assinatura.idUsuario);
+		if(doUsuario != null) {
+			doUsuario.remove(assinatura);
+			if(doUsuario.isEmpty()) {
+				assinaturas.remove(assinatura.idUsuario, doUsuario);
+			}
+		}
+	}
+
+	private static class Assinatura {
+
+		private final Long idUsuario;
+		private final SseEmitter emitter;
+		private final BlockingQueue<LancamentoEventoDTO> fila;
+		private final AtomicBoolean agendada = new AtomicBoolean();
+		private final AtomicBoolean heartbeat = new AtomicBoolean();
+
+		Assinatura(Long idUsuario, SseEmitter emitter, int capacidade) {
+			this.idUsuario = idUsuario;
+			this.emitter = emitter;
+			this.fila = new ArrayBlockingQueue<>(capacidade);
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bmsantana.minhasfinancas.api.dto.OrcamentoDTO;
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.OrcamentoMensal;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.model.repository.OrcamentoMensalRepository;
+import com.bmsantana.minhasfinancas.model.repository.UsuarioRepository;
+import com.bmsantana.minhasfinancas.service.OrcamentoService;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.service.evento.OrcamentoUltrapassadoEvento;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Orçamentos mensais de despesas. O total de cada orçamento acompanha as
+ * alterações de lançamentos dentro da mesma transação: cada alteração de
+ * despesa vira no máximo dois updates por chave (mês anterior e mês atual do
+ * lançamento), sem ler os demais lançamentos. Despesas canceladas não contam.
+ *
+ * A criação do orçamento e as alterações de lançamentos travam a linha do
+ * usuário (UsuarioRepository.travarPorId), como em SaldoMensalServiceImpl:
+ * uma despesa gravada durante a criação entra ou na soma inicial ou no
+ * acumulado, nunca em nenhum dos dois.
+ */
+@Service
+public class OrcamentoServiceImpl implements OrcamentoService {
+
+	private static final String RESTRICAO_MES = "uk_orcamento_usuario_ano_mes";
+
+	private final OrcamentoMensalRepository repository;
+	private final LancamentoRepository lancamentoRepository;
+	private final UsuarioRepository usuarioRepository;
+	private final ApplicationEventPublisher publisher;
+	private final Counter ultrapassados = Metrics.counter("minhasfinancas.orcamento.limite", "situacao", "ultrapassado");
+	private final Counter normalizados = Metrics.counter("minhasfinancas.orcamento.limite", "situacao", "normalizado");
+
+	public OrcamentoServiceImpl(OrcamentoMensalRepository repository, LancamentoRepository lancamentoRepository,
+			UsuarioRepository usuarioRepository, ApplicationEventPublisher publisher) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.usuarioRepository = usuarioRepository;
+		this.publisher = publisher;
+	}
+
+	/**
+	 * Cria ou altera o limite do mês. Na criação o total parte da soma das
+	 * despesas já lançadas no mês; é a única vez em que os lançamentos são lidos.
+	 * A soma é lida com o usuário travado, então nenhuma despesa concorrente
+	 * fica de fora. Se ainda assim outra instância criar o mesmo mês antes
+	 * (restrição uk_orcamento_usuario_ano_mes), o erro vira regra de negócio.
+	 */
+	@Override
+	@Transactional
+	public OrcamentoDTO definirLimite(@ChaveFragmento Long idUsuario, Integer ano, Integer mes, BigDecimal limite) {
+		if(ano == null || ano.toString().length() != 4) {
+			throw new RegraNegocioException("Informe um Ano válido!");
+		}
+		if(mes == null || mes < 1 || mes > 12) {
+			throw new RegraNegocioException("Informe um Mês válido!");
+		}
+		if(limite == null || limite.compareTo(BigDecimal.ZERO) < 1) {
+			throw new RegraNegocioException("Informe um limite maior que zero!");
+		}
+
+		if(idUsuario == null || !usuarioRepository.travarPorId(idUsuario).isPresent()) {
+			throw new RegraNegocioException("Informe um Usuário válido!");
+		}
+
+		OrcamentoMensal orcamento = repository.findByUsuarioIdAndAnoAndMes(idUsuario, ano, mes)
+				.orElseGet(() -> OrcamentoMensal.builder()
+						.usuario(Usuario.builder().id(idUsuario).build())
+						.ano(ano)
+						.mes(mes)
+						.totalDespesas(lancamentoRepository.obterTotalDoMes(idUsuario, ano, mes,
+								TipoLancamento.DESPESA, StatusLancamento.CANCELADO))
+						.build());
+		orcamento.setLimite(limite);
+		try {
+			return converter(repository.saveAndFlush(orcamento));
+		} catch (DataIntegrityViolationException e) {
+			if(violouRestricao(e, RESTRICAO_MES)) {
+				throw new RegraNegocioException("O orçamento do mês foi criado por outra requisição. Tente novamente!");
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	@Transactional
+	public void remover(@ChaveFragmento Long idUsuario, Integer ano, Integer mes) {
+		repository.findByUsuarioIdAndAnoAndMes(idUsuario, ano, mes).ifPresent(repository::delete);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<OrcamentoDTO> obterSituacao(@ChaveFragmento Long idUsuario, Integer ano, Integer mes) {
+		return repository.findByUsuarioIdAndAnoAndMes(idUsuario, ano, mes).map(this::converter);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<OrcamentoDTO> obterSituacoes(@ChaveFragmento Long idUsuario, Integer ano) {
+		return repository.findByUsuarioIdAndAnoOrderByMes(idUsuario, ano).stream()
+				.map(this::converter)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Roda na transação de quem alterou o lançamento, para que o total do
+	 * orçamento seja gravado junto com a alteração. Os usuários afetados são
+	 * travados na ordem dos ids, a mesma de SaldoMensalServiceImpl.
+	 */
+	@EventListener
+	@Transactional
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		boolean removido = evento.getTipo() == TipoAlteracaoLancamento.REMOVIDO;
+		Lancamento atual = removido ? null : evento.getLancamento();
+		Lancamento anterior = removido ? evento.getLancamento() : evento.getAnterior();
+
+		Set<Long> afetados = new TreeSet<>();
+		if(despesa(atual).signum() != 0) {
+			afetados.add(atual.getUsuario().getId());
+		}
+		if(despesa(anterior).signum() != 0) {
+			afetados.add(anterior.getUsuario().getId());
+		}
+		afetados.forEach(usuarioRepository::travarPorId);
+
+		if(atual != null && anterior != null && mesmoMes(atual, anterior)) {
+			acumular(atual, despesa(atual).subtract(despesa(anterior)));
+			return;
+		}
+		if(anterior != null) {
+			acumular(anterior, despesa(anterior).negate());
+		}
+		if(atual != null) {
+			acumular(atual, despesa(atual));
+		}
+	}
+
+	private void acumular(Lancamento lancamento, BigDecimal delta) {
+		if(delta.signum() == 0 || lancamento.getUsuario() == null) {
+			return;
+		}
+		Long idUsuario = lancamento.getUsuario().getId();
+		if(repository.acumularDespesas(idUsuario, lancamento.getAno(), lancamento.getMes(), delta) == 0) {
+			return;
+		}
+
+		List<Object[]> situacao = repository.obterLimiteETotal(idUsuario, lancamento.getAno(), lancamento.getMes());
+		BigDecimal limite = (BigDecimal) situacao.get(0)[0];
+		BigDecimal total = (BigDecimal) situacao.get(0)[1];
+		boolean antes = total.subtract(delta).compareTo(limite) > 0;
+		boolean depois = total.compareTo(limite) > 0;
+		if(antes != depois) {
+			(depois ? ultrapassados : normalizados).increment();
+			publisher.publishEvent(new OrcamentoUltrapassadoEvento(idUsuario, lancamento.getAno(), lancamento.getMes(),
+					limite, total, depois));
+		}
+	}
+
+	private static BigDecimal despesa(Lancamento lancamento) {
+		if(lancamento == null || lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null
+				|| lancamento.getTipo() != TipoLancamento.DESPESA || lancamento.getStatus() == StatusLancamento.CANCELADO
+				|| lancamento.getValor() == null) {
+			return BigDecimal.ZERO;
+		}
+		return lancamento.getValor();
+	}
+
+	private static boolean violouRestricao(DataIntegrityViolationException e, String nome) {
+		for(Throwable causa = e; causa != null; causa = causa.getCause()) {
+			if(causa instanceof ConstraintViolationException) {
+				String restricao = ((ConstraintViolationException) causa).getConstraintName();
+				return restricao != null && restricao.toLowerCase(Locale.ROOT).contains(nome);
+			}
+		}
+		return false;
+	}
+
+	private static boolean mesmoMes(Lancamento atual, Lancamento anterior) {
+		return atual.getUsuario() != null && anterior.getUsuario() != null
+				&& Objects.equals(atual.getUsuario().getId(), anterior.getUsuario().getId())
+				&& Objects.equals(atual.getAno(), anterior.getAno())
+				&& Objects.equals(atual.getMes(), anterior.getMes());
+	}
+
+	private OrcamentoDTO converter(OrcamentoMensal orcamento) {
+		return OrcamentoDTO.builder()
+				.ano(orcamento.getAno())
+				.mes(orcamento.getMes())
+				.limite(orcamento.getLimite())
+				.gasto(orcamento.getTotalDespesas())
+				.disponivel(orcamento.getLimite().subtract(orcamento.getTotalDespesas()))
+				.ultrapassado(orcamento.getTotalDespesas().compareTo(orcamento.getLimite()) > 0)
+				.build();
+	}
+
+}
@@ -0,0 +1,223 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.service.evento.AutenticacaoEvento;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.service.evento.OrcamentoUltrapassadoEvento;
+import com.bmsantana.minhasfinancas.util.FilaCircular;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Trilha de auditoria das alterações de lançamentos, dos limites de orçamento
+ * ultrapassados e das autenticações.
+ *
+ * Quem gera o evento apenas coloca o registro numa FilaCircular, sem bloquear
+ * e sem fazer E/S; com a fila cheia o registro é descartado e contado. Uma
+ * única thread esvazia a fila e grava uma linha JSON por registro em arquivos
+ * que só recebem acréscimos, abrindo um novo segmento ao atingir o tamanho
+ * configurado.
+ */
+@Service
+public class RegistroAuditoria {
+
+	private static final Logger log = LoggerFactory.getLogger(RegistroAuditoria.class);
+	private static final int TAMANHO_LOTE = 512;
+
+	private final FilaCircular<Registro> fila;
+	private final Path diretorio;
+	private final long tamanhoSegmento;
+	private final long esperaNanos;
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final Counter enfileirados = contador("enfileirado");
+	private final Counter descartados = contador("descartado");
+	private final Counter gravados = contador("gravado");
+	private final Counter falhas = contador("falha");
+
+	private volatile boolean ativo;
+	private Thread gravador;
+	private Writer segmento;
+	private long bytesSegmento;
+	private int numeroSegmento;
+
+	public RegistroAuditoria(
+			@Value("${minhasfinancas.auditoria.diretorio:auditoria}") String diretorio,
+			@Value("${minhasfinancas.auditoria.capacidade:65536}") int capacidade,
+			@Value("${minhasfinancas.auditoria.tamanho-segmento-bytes:67108864}") long tamanhoSegmento,
+			@Value("${minhasfinancas.auditoria.espera-ms:5}") long esperaMs) {
+		this.fila = new FilaCircular<>(capacidade);
+		this.diretorio = Paths.get(diretorio);
+		this.tamanhoSegmento = tamanhoSegmento;
+		this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+		Metrics.gauge("minhasfinancas.auditoria.fila", fila, FilaCircular::tamanho);
+	}
+
+	@PostConstruct
+	public void iniciar() {
+		ativo = true;
+		gravador = new Thread(this::executar, "registro-auditoria");
+		gravador.setDaemon(true);
+		gravador.start();
+	}
+
+	@PreDestroy
+	public void parar() throws InterruptedException {
+		ativo = false;
+		gravador.join(TimeUnit.SECONDS.toMillis(30));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		Lancamento lancamento = evento.getLancamento();
+		Map<String, Object> detalhes = new LinkedHashMap<>();
+		detalhes.put("ano", lancamento.getAno());
+		detalhes.put("mes", lancamento.getMes());
+		detalhes.put("valor", lancamento.getValor());
+		detalhes.put("tipo", lancamento.getTipo());
+		detalhes.put("status", lancamento.getStatus());
+		if(evento.getAnterior() != null) {
+			detalhes.put("statusAnterior", evento.getAnterior().getStatus());
+			detalhes.put("valorAnterior", evento.getAnterior().getValor());
+		}
+		registrar(new Registro("LANCAMENTO_" + evento.getTipo().name(), evento.getIdUsuario(), lancamento.getId(), detalhes));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoUltrapassarOrcamento(OrcamentoUltrapassadoEvento evento) {
+		Map<String, Object> detalhes = new LinkedHashMap<>();
+		detalhes.put("ano", evento.getAno());
+		detalhes.put("mes", evento.getMes());
+		detalhes.put("limite", evento.getLimite());
+		detalhes.put("totalDespesas", evento.getTotalDespesas());
+		registrar(new Registro(evento.isUltrapassado() ? "ORCAMENTO_ULTRAPASSADO" : "ORCAMENTO_NORMALIZADO",
+				evento.getIdUsuario(), null, detalhes));
+	}
+
+	@EventListener
+	public void aoAutenticar(AutenticacaoEvento evento) {
+		Map<String, Object> detalhes = new LinkedHashMap<>();
+		detalhes.put("email", evento.getEmail());
+		registrar(new Registro(evento.isSucesso() ? "LOGIN" : "LOGIN_RECUSADO", evento.getIdUsuario(), null, detalhes));
+	}
+
+	private void registrar(Registro registro) {
+		if(fila.oferecer(registro)) {
+			enfileirados.increment();
+		} else {
+			descartados.increment();
+		}
+	}
+
+	private void executar() {
+		List<Registro> lote = new ArrayList<>(TAMANHO_LOTE);
+		while(ativo || fila.tamanho() > 0) {
+			if(fila.drenar(lote, TAMANHO_LOTE) == 0) {
+				LockSupport.parkNanos(esperaNanos);
+				continue;
+			}
+			try {
+				gravar(lote);
+				gravados.increment(lote.size());
+			} catch (IOException | RuntimeException e) {
+				falhas.increment(lote.size());
+				log.error("Falha ao gravar {} registros de auditoria", lote.size(), e);
+				fecharSegmento();
+			} finally {
+				lote.clear();
+			}
+		}
+		fecharSegmento();
+	}
+
+	private void gravar(List<Registro> lote) throws IOException {
+		if(segmento == null) {
+			abrirSegmento();
+		}
+		for(Registro registro : lote) {
+			Map<String, Object> linha = new LinkedHashMap<>();
+			linha.put("momento", registro.momento);
+			linha.put("acao", registro.acao);
+			linha.put("usuario", registro.idUsuario);
+			linha.put("lancamento", registro.idLancamento);
+			linha.putAll(registro.detalhes);
+			byte[] json = mapper.writeValueAsBytes(linha);
+			segmento.write(new String(json, StandardCharsets.UTF_8));
+			segmento.write('\n');
+			bytesSegmento += json.length + 1;
+		}
+		segmento.flush();
+		if(bytesSegmento >= tamanhoSegmento) {
+			fecharSegmento();
+		}
+	}
+
+	private void abrirSegmento() throws IOException {
+		Files.createDirectories(diretorio);
+		Path arquivo = diretorio.resolve(String.format("auditoria-%d-%05d.log", System.currentTimeMillis(), numeroSegmento++));
+		segmento = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(arquivo,
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+		bytesSegmento = 0;
+	}
+
+	private void fecharSegmento() {
+		if(segmento == null) {
+			return;
+		}
+		try {
+			segmento.close();
+		} catch (IOException e) {
+			log.error("Falha ao fechar o segmento de auditoria", e);
+		}
+		segmento = null;
+	}
+
+	private static Counter contador(String resultado) {
+		return Metrics.counter("minhasfinancas.auditoria.registros", "resultado", resultado);
+	}
+
+	private static class Registro {
+
+		private final long momento = System.currentTimeMillis();
+		private final String acao;
+		private final Long idUsuario;
+		private final Long idLancamento;
+		private final Map<String, Object> detalhes;
+
+		Registro(String acao, Long idUsuario, Long idLancamento, Map<String, Object> detalhes) {
+			this.acao = acao;
+			this.idUsuario = idUsuario;
+			this.idLancamento = idLancamento;
+			this.detalhes = detalhes;
+		}
+	}
+
+}
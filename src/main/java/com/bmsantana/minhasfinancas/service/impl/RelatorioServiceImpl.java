@@ -0,0 +1,300 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bmsantana.minhasfinancas.api.dto.RelatorioDTO;
+import com.bmsantana.minhasfinancas.api.dto.TotalCompetenciaDTO;
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.service.AnaliseService;
+import com.bmsantana.minhasfinancas.service.RelatorioService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Relatórios gerados em segundo plano por um conjunto fixo de threads, com
+ * fila limitada e um número máximo de relatórios em andamento por usuário;
+ * acima disso a solicitação é recusada com RejectedExecutionException.
+ *
+ * O relatório percorre o histórico ano a ano (um total por mês, tipo e
+ * status) e é gravado em CSV no diretório configurado, primeiro num arquivo
+ * temporário que só é renomeado ao final. Relatórios concluídos e seus
+ * arquivos são apagados depois da validade; arquivos sem relatório conhecido
+ * (de uma execução anterior da aplicação) também.
+ *
+ * Os relatórios e seus arquivos pertencem à instância que os gerou: situação
+ * e download só os encontram nela. Com mais de uma instância, o balanceador
+ * deve fixar cada usuário numa instância (ex: por hash do id do usuário);
+ * sem isso, a consulta que cai em outra instância responde que o relatório
+ * não existe.
+ */
+@Service
+public class RelatorioServiceImpl implements RelatorioService {
+
+	private static final Logger log = LoggerFactory.getLogger(RelatorioServiceImpl.class);
+
+	private static final String CABECALHO = "ano;mes;tipo;status;quantidade;total\r\n";
+	private static final String EXTENSAO = ".csv";
+	private static final String TEMPORARIO = ".tmp";
+
+	private final AnaliseService analiseService;
+	private final Path diretorio;
+	private final int maximoPorUsuario;
+	private final long validadeMinutos;
+	private final ThreadPoolExecutor execucao;
+	private final ConcurrentMap<String, Tarefa> tarefas = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, Integer> emAndamento = new ConcurrentHashMap<>();
+	private final Counter concluidos = contador("concluido");
+	private final Counter falhas = contador("falhou");
+	private final Counter recusados = contador("recusado");
+
+	public RelatorioServiceImpl(AnaliseService analiseService,
+			@Value("${minhasfinancas.relatorios.diretorio:relatorios}") String diretorio,
+			@Value("${minhasfinancas.relatorios.trabalhadores:2}") int trabalhadores,
+			@Value("${minhasfinancas.relatorios.fila:50}") int fila,
+			@Value("${minhasfinancas.relatorios.maximo-por-usuario:2}") int maximoPorUsuario,
+			@Value("${minhasfinancas.relatorios.validade-minutos:60}") long validadeMinutos) {
+		this.analiseService = analiseService;
+		this.diretorio = Paths.get(diretorio);
+		this.maximoPorUsuario = maximoPorUsuario;
+		this.validadeMinutos = validadeMinutos;
+
+		AtomicInteger numero = new AtomicInteger();
+		this.execucao = new ThreadPoolExecutor(trabalhadores, trabalhadores, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(fila), tarefa -> {
+					Thread thread = new Thread(tarefa, "relatorio-" + numero.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		Metrics.gauge("minhasfinancas.relatorios.fila", execucao, executor -> executor.getQueue().size());
+	}
+
+	@Override
+	public RelatorioDTO solicitar(@ChaveFragmento Long idUsuario, Integer anoInicial, Integer anoFinal) {
+		if(anoInicial != null && anoFinal != null && anoInicial > anoFinal) {
+			throw new RegraNegocioException("O ano inicial deve ser menor ou igual ao ano final!");
+		}
+		if(emAndamento.merge(idUsuario, 1, Integer::sum) > maximoPorUsuario) {
+			liberarVaga(idUsuario);
+			recusados.increment();
+			throw new RejectedExecutionException("Limite de relatórios em andamento atingido, aguarde a conclusão dos anteriores!");
+		}
+
+		Tarefa tarefa = new Tarefa(UUID.randomUUID().toString(), idUsuario, anoInicial, anoFinal);
+		tarefas.put(tarefa.id, tarefa);
+		try {
+			execucao.execute(() -> executar(tarefa));
+		} catch (RejectedExecutionException e) {
+			tarefas.remove(tarefa.id);
+			liberarVaga(idUsuario);
+			recusados.increment();
+			throw new RejectedExecutionException("Fila de relatórios cheia, tente novamente mais tarde!");
+		}
+		return tarefa.situacao();
+	}
+
+	@Override
+	public Optional<RelatorioDTO> obterSituacao(Long idUsuario, String idRelatorio) {
+		return tarefa(idUsuario, idRelatorio).map(Tarefa::situacao);
+	}
+
+	@Override
+	public Optional<Path> obterArquivo(Long idUsuario, String idRelatorio) {
+		return tarefa(idUsuario, idRelatorio)
+				.map(tarefa -> tarefa.arquivo)
+				.filter(Files::exists);
+	}
+
+	@Scheduled(fixedRateString = "${minhasfinancas.relatorios.limpeza-ms:60000}")
+	public void removerExpirados() {
+		LocalDateTime limite = LocalDateTime.now().minusMinutes(validadeMinutos);
+		tarefas.values().removeIf(tarefa -> tarefa.fim != null && tarefa.fim.isBefore(limite));
+
+		if(!Files.isDirectory(diretorio)) {
+			return;
+		}
+		long limiteArquivos = limite.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			arquivos.filter(arquivo -> !tarefas.containsKey(idDoArquivo(arquivo)))
+					.forEach(arquivo -> apagarSeAnterior(arquivo, limiteArquivos));
+		} catch (IOException e) {
+			log.warn("Falha ao listar os relatórios em {}", diretorio, e);
+		}
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		execucao.shutdownNow();
+	}
+
+	private void executar(Tarefa tarefa) {
+		tarefa.inicio = LocalDateTime.now();
+		Path temporario = diretorio.resolve(tarefa.id + TEMPORARIO);
+		try {
+			List<Integer> anos = new ArrayList<>();
+			for(Integer ano : analiseService.obterAnosComLancamentos(tarefa.idUsuario)) {
+				if((tarefa.anoInicial == null || ano >= tarefa.anoInicial) && (tarefa.anoFinal == null || ano <= tarefa.anoFinal)) {
+					anos.add(ano);
+				}
+			}
+
+			Files.createDirectories(diretorio);
+			try (Writer saida = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+				saida.write(CABECALHO);
+				for(int i = 0; i < anos.size(); i++) {
+					if(Thread.currentThread().isInterrupted()) {
+						throw new IllegalStateException("Geração do relatório interrompida!");
+					}
+					for(TotalCompetenciaDTO total : analiseService.obterTotaisDoAno(tarefa.idUsuario, anos.get(i))) {
+						escrever(saida, total);
+					}
+					tarefa.progresso = (i + 1) * 100 / anos.size();
+				}
+			}
+
+			Path arquivo = diretorio.resolve(tarefa.id + EXTENSAO);
+			Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			tarefa.bytes = Files.size(arquivo);
+			tarefa.arquivo = arquivo;
+			tarefa.progresso = 100;
+			tarefa.concluir(null);
+			concluidos.increment();
+		} catch (IOException | RuntimeException e) {
+			log.warn("Falha ao gerar o relatório {} do usuário {}", tarefa.id, tarefa.idUsuario, e);
+			apagar(temporario);
+			tarefa.concluir(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+			falhas.increment();
+		} finally {
+			liberarVaga(tarefa.idUsuario);
+		}
+	}
+
+	private static void escrever(Writer saida, TotalCompetenciaDTO total) throws IOException {
+		saida.append(total.getAno().toString()).append(';')
+				.append(total.getMes().toString()).append(';')
+				.append(total.getTipo()).append(';')
+				.append(total.getStatus()).append(';')
+				.append(Long.toString(total.getQuantidade())).append(';')
+				.append(total.getTotal().toPlainString()).append("\r\n");
+	}
+
+	private Optional<Tarefa> tarefa(Long idUsuario, String idRelatorio) {
+		return Optional.ofNullable(tarefas.get(idRelatorio))
+				.filter(tarefa -> tarefa.idUsuario.equals(idUsuario));
+	}
+
+	private void liberarVaga(Long idUsuario) {
+		emAndamento.computeIfPresent(idUsuario, (id, quantidade) -> quantidade > 1 ? quantidade - 1 : null);
+	}
+
+	private static String idDoArquivo(Path arquivo) {
+		String nome = arquivo.getFileName().toString();
+		int ponto = nome.indexOf('.');
+		return ponto >= 0 ? nome.substring(0, ponto) : nome;
+	}
+
+	private static void apagarSeAnterior(Path arquivo, long limite) {
+		try {
+			if(Files.getLastModifiedTime(arquivo).toMillis() < limite) {
+				Files.deleteIfExists(arquivo);
+			}
+		} catch (IOException e) {
+			log.warn("Falha ao apagar o relatório {}", arquivo, e);
+		}
+	}
+
+	private static void apagar(Path arquivo) {
+		try {
+			Files.deleteIfExists(arquivo);
+		} catch (IOException e) {
+			log.warn("Falha ao apagar o relatório {}", arquivo, e);
+		}
+	}
+
+	private static Counter contador(String resultado) {
+		return Metrics.counter("minhasfinancas.relatorios", "resultado", resultado);
+	}
+
+	/**
+	 * Andamento de um relatório. Só a thread de geração escreve; as consultas
+	 * leem os campos como estiverem no momento.
+	 */
+	private static class Tarefa {
+
+		private final String id;
+		private final Long idUsuario;
+		private final Integer anoInicial;
+		private final Integer anoFinal;
+		private final LocalDateTime solicitacao = LocalDateTime.now();
+		private volatile LocalDateTime inicio;
+		private volatile int progresso;
+		private volatile Path arquivo;
+		private volatile Long bytes;
+		private volatile String erro;
+		private volatile LocalDateTime fim;
+
+		Tarefa(String id, Long idUsuario, Integer anoInicial, Integer anoFinal) {
+			this.id = id;
+			this.idUsuario = idUsuario;
+			this.anoInicial = anoInicial;
+			this.anoFinal = anoFinal;
+		}
+
+		void concluir(String erro) {
+			this.erro = erro;
+			this.fim = LocalDateTime.now();
+		}
+
+		RelatorioDTO situacao() {
+			LocalDateTime concluido = fim;
+			String situacao;
+			if(concluido != null) {
+				situacao = erro == null ? "CONCLUIDO" : "FALHOU";
+			} else {
+				situacao = inicio != null ? "EM_EXECUCAO" : "PENDENTE";
+			}
+			return RelatorioDTO.builder()
+					.id(id)
+					.situacao(situacao)
+					.anoInicial(anoInicial)
+					.anoFinal(anoFinal)
+					.progresso(progresso)
+					.solicitacao(solicitacao)
+					.inicio(inicio)
+					.fim(concluido)
+					.bytes(bytes)
+					.erro(erro)
+					.build();
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bmsantana.minhasfinancas.api.dto.SaldoMensalDTO;
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.FechamentoMensal;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.FechamentoMensalRepository;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.model.repository.UsuarioRepository;
+import com.bmsantana.minhasfinancas.service.SaldoMensalService;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+
+/**
+ * Saldo de fim de mês a partir de fechamentos gravados. Os fechamentos de um
+ * usuário são gerados de uma vez na primeira consulta da série; depois cada
+ * alteração de lançamento soma a diferença no fechamento do seu mês e no
+ * saldo dos fechamentos seguintes, sem ler os demais lançamentos.
+ *
+ * Conta todos os lançamentos, como o saldo de /api/usuarios/{id}/saldo.
+ */
+@Service
+public class SaldoMensalServiceImpl implements SaldoMensalService {
+
+	private static final int MAXIMO_MESES = 1200;
+
+	private final FechamentoMensalRepository repository;
+	private final LancamentoRepository lancamentoRepository;
+	private final UsuarioRepository usuarioRepository;
+
+	public SaldoMensalServiceImpl(FechamentoMensalRepository repository, LancamentoRepository lancamentoRepository,
+			UsuarioRepository usuarioRepository) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.usuarioRepository = usuarioRepository;
+	}
+
+	/**
+	 * Um item por mês entre de e ate. Sem de, a série começa no primeiro mês
+	 * com lançamentos; sem ate, termina no mês atual ou no último mês com
+	 * lançamentos, o que vier depois.
+	 */
+	@Override
+	@Transactional
+	public List<SaldoMensalDTO> obterSerie(@ChaveFragmento Long idUsuario, YearMonth de, YearMonth ate) {
+		if(de != null && ate != null && de.isAfter(ate)) {
+			throw new RegraNegocioException("Informe um período válido!");
+		}
+		if(!repository.existsByUsuarioId(idUsuario)) {
+			gerarFechamentos(idUsuario);
+		}
+
+		YearMonth limite = ate != null ? ate : YearMonth.of(9999, 12);
+		List<FechamentoMensal> fechamentos = repository.obterAte(idUsuario, limite.getYear(), limite.getMonthValue());
+		if(fechamentos.isEmpty() && de == null) {
+			return Collections.emptyList();
+		}
+
+		YearMonth inicio = de != null ? de : competencia(fechamentos.get(0));
+		YearMonth fim = ate;
+		if(fim == null) {
+			YearMonth ultimo = fechamentos.isEmpty() ? inicio : competencia(fechamentos.get(fechamentos.size() - 1));
+			fim = ultimo.isAfter(YearMonth.now()) ? ultimo : YearMonth.now();
+			fim = fim.isBefore(inicio) ? inicio : fim;
+		}
+		if(ChronoUnit.MONTHS.between(inicio, fim) >= MAXIMO_MESES) {
+			throw new RegraNegocioException("Informe um período de no máximo " + MAXIMO_MESES + " meses!");
+		}
+
+		// Os fechamentos já são a soma acumulada: basta andar pelos meses levando o último saldo.
+		BigDecimal saldo = BigDecimal.ZERO;
+		int i = 0;
+		while(i < fechamentos.size() && competencia(fechamentos.get(i)).isBefore(inicio)) {
+			saldo = fechamentos.get(i++).getSaldo();
+		}
+		List<SaldoMensalDTO> serie = new ArrayList<>();
+		for(YearMonth mes = inicio; !mes.isAfter(fim); mes = mes.plusMonths(1)) {
+			BigDecimal movimento = BigDecimal.ZERO;
+			if(i < fechamentos.size() && competencia(fechamentos.get(i)).equals(mes)) {
+				movimento = fechamentos.get(i).getMovimento();
+				saldo = fechamentos.get(i++).getSaldo();
+			}
+			serie.add(new SaldoMensalDTO(mes.getYear(), mes.getMonthValue(), movimento, saldo));
+		}
+		return serie;
+	}
+
+	/**
+	 * Roda na transação de quem alterou o lançamento. A linha de cada usuário
+	 * afetado fica travada até o commit, o que ordena as alterações
+	 * concorrentes dele e a geração inicial dos fechamentos. Um lançamento que
+	 * troca de usuário afeta os dois; cada um só acumula se já tiver
+	 * fechamentos, e as travas seguem a ordem dos ids para não haver deadlock.
+	 */
+	@EventListener
+	@Transactional
+	public void aoAlterarLancamento(LancamentoAlteradoEvento evento) {
+		boolean removido = evento.getTipo() == TipoAlteracaoLancamento.REMOVIDO;
+		Lancamento atual = removido ? null : evento.getLancamento();
+		Lancamento anterior = removido ? evento.getLancamento() : evento.getAnterior();
+
+		Set<Long> afetados = new TreeSet<>();
+		if(atual != null && idUsuario(atual) != null) {
+			afetados.add(idUsuario(atual));
+		}
+		if(anterior != null && idUsuario(anterior) != null) {
+			afetados.add(idUsuario(anterior));
+		}
+		Set<Long> comFechamentos = new HashSet<>();
+		for(Long idUsuario : afetados) {
+			if(usuarioRepository.travarPorId(idUsuario).isPresent() && repository.existsByUsuarioId(idUsuario)) {
+				comFechamentos.add(idUsuario);
+			}
+		}
+
+		if(atual != null && anterior != null && mesmoMes(atual, anterior)) {
+			if(comFechamentos.contains(idUsuario(atual))) {
+				acumular(idUsuario(atual), atual, movimento(atual).subtract(movimento(anterior)));
+			}
+			return;
+		}
+		if(anterior != null && comFechamentos.contains(idUsuario(anterior))) {
+			acumular(idUsuario(anterior), anterior, movimento(anterior).negate());
+		}
+		if(atual != null && comFechamentos.contains(idUsuario(atual))) {
+			acumular(idUsuario(atual), atual, movimento(atual));
+		}
+	}
+
+	private void gerarFechamentos(Long idUsuario) {
+		if(!usuarioRepository.travarPorId(idUsuario).isPresent() || repository.existsByUsuarioId(idUsuario)) {
+			return;
+		}
+
+		Usuario usuario = Usuario.builder().id(idUsuario).build();
+		List<FechamentoMensal> fechamentos = new ArrayList<>();
+		FechamentoMensal atual = null;
+		BigDecimal saldo = BigDecimal.ZERO;
+		for(Object[] total : lancamentoRepository.obterTotaisPorMes(idUsuario)) {
+			Integer ano = (Integer) total[0];
+			Integer mes = (Integer) total[1];
+			BigDecimal movimento = sinal((TipoLancamento) total[2], (BigDecimal) total[3]);
+			if(atual == null || !atual.getAno().equals(ano) || !atual.getMes().equals(mes)) {
+				atual = FechamentoMensal.builder().usuario(usuario).ano(ano).mes(mes).movimento(BigDecimal.ZERO).build();
+				fechamentos.add(atual);
+			}
+			saldo = saldo.add(movimento);
+			atual.setMovimento(atual.getMovimento().add(movimento));
+			atual.setSaldo(saldo);
+		}
+		repository.saveAll(fechamentos);
+	}
+
+	private void acumular(Long idUsuario, Lancamento lancamento, BigDecimal delta) {
+		if(delta.signum() == 0 || idUsuario == null) {
+			return;
+		}
+		Integer ano = lancamento.getAno();
+		Integer mes = lancamento.getMes();
+		if(repository.acumularNoMes(idUsuario, ano, mes, delta) == 0) {
+			BigDecimal saldoAnterior = repository.obterSaldoAnterior(idUsuario, ano, mes, PageRequest.of(0, 1)).stream()
+					.findFirst()
+					.orElse(BigDecimal.ZERO);
+			repository.save(FechamentoMensal.builder()
+					.usuario(Usuario.builder().id(idUsuario).build())
+					.ano(ano)
+					.mes(mes)
+					.movimento(delta)
+					.saldo(saldoAnterior.add(delta))
+					.build());
+		}
+		repository.acumularNosSeguintes(idUsuario, ano, mes, delta);
+	}
+
+	private static BigDecimal movimento(Lancamento lancamento) {
+		return sinal(lancamento.getTipo(), lancamento.getValor());
+	}
+
+	private static BigDecimal sinal(TipoLancamento tipo, BigDecimal valor) {
+		if(tipo == null || valor == null) {
+			return BigDecimal.ZERO;
+		}
+		return tipo == TipoLancamento.RECEITA ? valor : valor.negate();
+	}
+
+	private static Long idUsuario(Lancamento lancamento) {
+		return lancamento.getUsuario() != null ? lancamento.getUsuario().getId() : null;
+	}
+
+	private static boolean mesmoMes(Lancamento atual, Lancamento anterior) {
+		return Objects.equals(idUsuario(atual), idUsuario(anterior))
+				&& Objects.equals(atual.getAno(), anterior.getAno())
+				&& Objects.equals(atual.getMes(), anterior.getMes());
+	}
+
+	private static YearMonth competencia(FechamentoMensal fechamento) {
+		return YearMonth.of(fechamento.getAno(), fechamento.getMes());
+	}
+
+}
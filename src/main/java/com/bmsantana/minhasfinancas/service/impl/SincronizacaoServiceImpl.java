@@ -0,0 +1,166 @@
+package com.bmsantana.minhasfinancas.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bmsantana.minhasfinancas.api.dto.AlteracoesDTO;
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
+import com.bmsantana.minhasfinancas.config.fragmento.TodosFragmentos;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRemovido;
+import com.bmsantana.minhasfinancas.model.entity.SequenciaAlteracao;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRemovidoRepository;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.model.repository.SequenciaAlteracaoRepository;
+import com.bmsantana.minhasfinancas.model.repository.UsuarioRepository;
+import com.bmsantana.minhasfinancas.service.SincronizacaoService;
+
+/**
+ * Sincronização incremental para clientes offline. Toda gravação de
+ * lançamento reserva números na sequência do usuário com a linha dele
+ * travada até o commit, então uma versão só fica visível depois de todas as
+ * anteriores. Por isso a consulta lê a versão atual primeiro e devolve só o
+ * que está até ela: nada anterior ao token devolvido pode aparecer depois.
+ *
+ * O token é a versão já entregue ao cliente. As consultas usam os índices
+ * (id_usuario, versao) de lançamentos e remoções, e o custo depende só do
+ * que mudou desde o token.
+ */
+@Service
+public class SincronizacaoServiceImpl implements SincronizacaoService {
+
+	private final SequenciaAlteracaoRepository repository;
+	private final LancamentoRepository lancamentoRepository;
+	private final LancamentoRemovidoRepository removidoRepository;
+	private final UsuarioRepository usuarioRepository;
+	private final int limitePadrao;
+	private final int limiteMaximo;
+	private final long retencaoDias;
+
+	public SincronizacaoServiceImpl(SequenciaAlteracaoRepository repository, LancamentoRepository lancamentoRepository,
+			LancamentoRemovidoRepository removidoRepository, UsuarioRepository usuarioRepository,
+			@Value("${minhasfinancas.sincronizacao.limite-padrao:500}") int limitePadrao,
+			@Value("${minhasfinancas.sincronizacao.limite-maximo:2000}") int limiteMaximo,
+			@Value("${minhasfinancas.sincronizacao.retencao-dias:90}") long retencaoDias) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.removidoRepository = removidoRepository;
+		this.usuarioRepository = usuarioRepository;
+		this.limitePadrao = limitePadrao;
+		this.limiteMaximo = limiteMaximo;
+		this.retencaoDias = retencaoDias;
+	}
+
+	/**
+	 * Reserva a quantidade de números e devolve o último deles.
+	 */
+	@Override
+	@Transactional
+	public long reservarVersoes(@ChaveFragmento Long idUsuario, int quantidade) {
+		usuarioRepository.travarPorId(idUsuario);
+		if(repository.avancar(idUsuario, quantidade) == 0) {
+			repository.save(SequenciaAlteracao.builder().idUsuario(idUsuario).versao((long) quantidade).versaoMinima(0L).build());
+			return quantidade;
+		}
+		return repository.obterVersao(idUsuario).get();
+	}
+
+	@Override
+	@Transactional
+	public void registrarRemocao(@ChaveFragmento Long idUsuario, Long idLancamento) {
+		removidoRepository.save(LancamentoRemovido.builder()
+				.id(idLancamento)
+				.idUsuario(idUsuario)
+				.versao(reservarVersoes(idUsuario, 1))
+				.dataRemocao(LocalDateTime.now())
+				.build());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public AlteracoesDTO obterAlteracoes(@ChaveFragmento Long idUsuario, String token, Integer limite) {
+		Long desde = lerToken(token);
+		Optional<SequenciaAlteracao> sequencia = repository.findById(idUsuario);
+		long atual = sequencia.map(SequenciaAlteracao::getVersao).orElse(0L);
+		long minima = sequencia.map(SequenciaAlteracao::getVersaoMinima).orElse(0L);
+
+		if(desde == null || desde < minima || desde > atual) {
+			return AlteracoesDTO.builder()
+					.token(Long.toString(atual))
+					.completo(true)
+					.lancamentos(lancamentoRepository.obterAteVersao(idUsuario, atual))
+					.removidos(Collections.emptyList())
+					.build();
+		}
+
+		int tamanho = limite == null ? limitePadrao : Math.max(1, Math.min(limite, limiteMaximo));
+		PageRequest pagina = PageRequest.of(0, tamanho + 1);
+		List<Lancamento> alterados = lancamentoRepository.obterAlterados(idUsuario, desde, atual, pagina);
+		List<LancamentoRemovido> removidos = removidoRepository.obterRemovidos(idUsuario, desde, atual, pagina);
+
+		// As duas listas vêm em ordem de versão; a página leva as menores.
+		List<Lancamento> lancamentos = new ArrayList<>();
+		List<Long> idsRemovidos = new ArrayList<>();
+		long ultima = desde;
+		int i = 0;
+		int j = 0;
+		while(i + j < tamanho && (i < alterados.size() || j < removidos.size())) {
+			if(j >= removidos.size() || (i < alterados.size() && alterados.get(i).getVersao() < removidos.get(j).getVersao())) {
+				ultima = alterados.get(i).getVersao();
+				lancamentos.add(alterados.get(i++));
+			} else {
+				ultima = removidos.get(j).getVersao();
+				idsRemovidos.add(removidos.get(j++).getId());
+			}
+		}
+		boolean mais = i < alterados.size() || j < removidos.size();
+
+		return AlteracoesDTO.builder()
+				.token(Long.toString(mais ? ultima : atual))
+				.completo(false)
+				.maisAlteracoes(mais)
+				.lancamentos(lancamentos)
+				.removidos(idsRemovidos)
+				.build();
+	}
+
+	/**
+	 * Descarta as marcas de remoção mais antigas que a retenção; clientes que
+	 * não sincronizam desde então recebem a cópia completa.
+	 */
+	@Transactional
+	@TodosFragmentos
+	@Scheduled(cron = "${minhasfinancas.sincronizacao.limpeza-cron:0 30 3 * * *}")
+	public int removerMarcasAntigas() {
+		LocalDateTime limite = LocalDateTime.now().minusDays(retencaoDias);
+		repository.avancarVersaoMinima(limite);
+		return removidoRepository.removerAnteriores(limite);
+	}
+
+	private static Long lerToken(String token) {
+		if(token == null || token.isEmpty()) {
+			return null;
+		}
+		long versao;
+		try {
+			versao = Long.parseLong(token);
+		} catch (NumberFormatException e) {
+			throw new RegraNegocioException("Token de sincronização inválido!");
+		}
+		if(versao < 0) {
+			throw new RegraNegocioException("Token de sincronização inválido!");
+		}
+		return versao;
+	}
+
+}
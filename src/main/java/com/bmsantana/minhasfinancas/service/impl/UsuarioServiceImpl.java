@@ -1,57 +1,209 @@
 package com.bmsantana.minhasfinancas.service.impl;
 
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.bmsantana.minhasfinancas.config.fragmento.ChaveFragmento;
+import com.bmsantana.minhasfinancas.config.fragmento.TodosFragmentos;
 import com.bmsantana.minhasfinancas.exception.ErroAutenticacao;
 import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
 import com.bmsantana.minhasfinancas.model.entity.Usuario;
 import com.bmsantana.minhasfinancas.model.repository.UsuarioRepository;
 import com.bmsantana.minhasfinancas.service.UsuarioService;
+import com.bmsantana.minhasfinancas.service.evento.AutenticacaoEvento;
+import com.bmsantana.minhasfinancas.service.evento.UsuarioCadastradoEvento;
+import com.bmsantana.minhasfinancas.util.FiltroBloom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 
 @Service
 public class UsuarioServiceImpl implements UsuarioService{
 	
+	private static final Logger log = LoggerFactory.getLogger(UsuarioServiceImpl.class);
+	private static final String EMAIL_EXISTENTE = "Já existe um usuário cadastrado com este email!";
+	private static final String RESTRICAO_EMAIL = "uk_usuario_email";
+	
 	private UsuarioRepository repository;	
+	private final ApplicationEventPublisher publisher;
+	private final long emailsEsperados;
+	private final Counter emailsNovosPeloFiltro = contadorEmail("filtro");
+	private final Counter emailsConsultados = contadorEmail("consulta");
+	
+	/**
+	 * Emails já cadastrados, normalizados. Fica nulo até a carga feita após a
+	 * subida; enquanto isso todo cadastro consulta o banco.
+	 */
+	private volatile FiltroBloom emails;
+	private volatile FiltroBloom emailsEmCarga;
 
-	public UsuarioServiceImpl(UsuarioRepository repository) {
+	public UsuarioServiceImpl(UsuarioRepository repository, ApplicationEventPublisher publisher,
+			@Value("${minhasfinancas.usuario.emails-esperados:1000000}") long emailsEsperados) {
 		super();
 		this.repository = repository;
+		this.publisher = publisher;
+		this.emailsEsperados = emailsEsperados;
 	}
 
 	@Override
 	public Usuario autenticar(String email, String senha) {
-		Optional<Usuario> usuario = repository.findByEmail(email);
+		String normalizado = normalizarEmail(email);
+		Optional<Usuario> usuario = repository.findByEmail(normalizado);
+		if(!usuario.isPresent() && !Objects.equals(normalizado, email)) {
+			// cadastros anteriores à normalização guardaram o email como digitado
+			usuario = repository.findByEmail(email);
+		}
 		
 		if(!usuario.isPresent()) {
+			publisher.publishEvent(new AutenticacaoEvento(email, null, false));
 			throw new ErroAutenticacao("Usuário não localizado para o email informado!");
 		}
 		
 		if(!usuario.get().getSenha().equals(senha)) {
+			publisher.publishEvent(new AutenticacaoEvento(email, usuario.get().getId(), false));
 			throw new ErroAutenticacao("Senha inválida!");
 		}
+		publisher.publishEvent(new AutenticacaoEvento(email, usuario.get().getId(), true));
 		return usuario.get();
 	}
 
+	/**
+	 * O email é gravado normalizado (sem espaços nas pontas e em minúsculas),
+	 * o mesmo valor usado no filtro e na consulta de existência. Quando o
+	 * filtro garante que o email é novo, a consulta é dispensada. A unicidade
+	 * de fato é garantida pela restrição uk_usuario_email no banco, que também
+	 * cobre dois cadastros simultâneos com o mesmo email; outras violações de
+	 * integridade seguem como erro.
+	 */
 	@Override
 	public Usuario salvarUsuario(Usuario usuario) {
-		validarEmail(usuario.getEmail());
-		return repository.save(usuario);
+		FiltroBloom filtro = emails;
+		String email = normalizarEmail(usuario.getEmail());
+		usuario.setEmail(email);
+		if(filtro != null && email != null && !filtro.talvezContenha(email)) {
+			emailsNovosPeloFiltro.increment();
+		} else {
+			emailsConsultados.increment();
+			validarEmail(email);
+		}
+		
+		Usuario salvo;
+		try {
+			salvo = repository.save(usuario);
+		} catch (DataIntegrityViolationException e) {
+			if(violouEmailUnico(e)) {
+				throw new RegraNegocioException(EMAIL_EXISTENTE);
+			}
+			throw e;
+		}
+		incluirEmail(email);
+		publisher.publishEvent(new UsuarioCadastradoEvento(salvo));
+		return salvo;
 	}
 
 	@Override
 	public void validarEmail(String email) {
 		boolean existe = repository.existsByEmail(email);
 		if(existe) {
-			throw new RegraNegocioException("Já existe um usuário cadastrado com este email!");
+			throw new RegraNegocioException(EMAIL_EXISTENTE);
 		}
 		
 	}
 
 	@Override
-	public Optional<Usuario> obterPorId(Long id) {
+	public Optional<Usuario> obterPorId(@ChaveFragmento Long id) {
 		return repository.findById(id);
 	}
+	
+	/**
+	 * Cadastros anteriores à normalização guardaram o email como digitado, e a
+	 * consulta exata não os encontra: Foo@x.com deixaria cadastrar foo@x.com.
+	 * Na subida, antes da carga do filtro, esses emails passam a ser gravados
+	 * normalizados. Se o email normalizado já é de outro cadastro, os dois
+	 * ficam como estão e o caso vai para o log, para unificação manual.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@Transactional
+	@TodosFragmentos
+	public void normalizarEmailsAnteriores() {
+		for(Usuario usuario : repository.obterComEmailNaoNormalizado()) {
+			String email = normalizarEmail(usuario.getEmail());
+			if(repository.existsByEmail(email)) {
+				log.warn("O email do usuário {} só difere de outro cadastro em maiúsculas ou espaços; unifique os cadastros", usuario.getId());
+				continue;
+			}
+			usuario.setEmail(email);
+			repository.saveAndFlush(usuario);
+		}
+	}
+	
+	/**
+	 * Monta o filtro com os emails cadastrados. Cadastros feitos durante a
+	 * carga entram tanto no filtro atual quanto no novo.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void carregarEmails() {
+		FiltroBloom novo = new FiltroBloom(Math.max(emailsEsperados, 2 * repository.count()), 0.01);
+		emailsEmCarga = novo;
+		try (Stream<String> cadastrados = repository.obterEmails()) {
+			cadastrados.map(UsuarioServiceImpl::normalizarEmail).forEach(email -> {
+				if(email != null) {
+					novo.incluir(email);
+				}
+			});
+		}
+		emails = novo;
+		emailsEmCarga = null;
+		log.info("Filtro de emails de usuários carregado");
+	}
+	
+	private void incluirEmail(String email) {
+		if(email == null) {
+			return;
+		}
+		FiltroBloom filtro = emails;
+		if(filtro != null) {
+			filtro.incluir(email);
+		}
+		FiltroBloom emCarga = emailsEmCarga;
+		if(emCarga != null) {
+			emCarga.incluir(email);
+		}
+	}
+	
+	private static boolean violouEmailUnico(DataIntegrityViolationException e) {
+		for(Throwable causa = e; causa != null; causa = causa.getCause()) {
+			if(causa instanceof ConstraintViolationException) {
+				String restricao = ((ConstraintViolationException) causa).getConstraintName();
+				return restricao != null && restricao.toLowerCase(Locale.ROOT).contains(RESTRICAO_EMAIL);
+			}
+		}
+		return false;
+	}
+	
+	private static String normalizarEmail(String email) {
+		return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+	}
+	
+	private static Counter contadorEmail(String verificacao) {
+		return Metrics.counter("minhasfinancas.usuario.email.verificacao", "verificacao", verificacao);
+	}
 
 }
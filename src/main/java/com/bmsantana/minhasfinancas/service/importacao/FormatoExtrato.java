@@ -0,0 +1,34 @@
+package com.bmsantana.minhasfinancas.service.importacao;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+
+public enum FormatoExtrato {
+
+	CSV {
+		@Override
+		public LeitorExtrato criarLeitor(Reader conteudo) throws IOException {
+			return new LeitorCsv(conteudo);
+		}
+	},
+	OFX {
+		@Override
+		public LeitorExtrato criarLeitor(Reader conteudo) throws IOException {
+			return new LeitorOfx(conteudo);
+		}
+	};
+
+	public abstract LeitorExtrato criarLeitor(Reader conteudo) throws IOException;
+
+	public static FormatoExtrato obter(String nome) {
+		for(FormatoExtrato formato : values()) {
+			if(formato.name().equalsIgnoreCase(nome)) {
+				return formato;
+			}
+		}
+		throw new RegraNegocioException("Informe um formato de extrato válido (csv ou ofx)!");
+	}
+
+}
@@ -0,0 +1,236 @@
+package com.bmsantana.minhasfinancas.service.importacao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+
+/**
+ * Extrato em CSV com cabeçalho. As colunas data, descricao (ou historico) e
+ * valor são obrigatórias; categoria e identificador são opcionais. O
+ * separador (ponto e vírgula, vírgula ou tabulação) é o que mais aparece no
+ * cabeçalho, e valores aceitam tanto 1.234,56 quanto 1,234.56.
+ *
+ * Campos entre aspas não podem ter quebra de linha.
+ */
+public class LeitorCsv implements LeitorExtrato {
+
+	private static final int TAMANHO_MAXIMO_LINHA = 8192;
+	private static final char[] SEPARADORES = { ';', ',', '\t' };
+	private static final DateTimeFormatter[] FORMATOS_DATA = {
+			DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT),
+			DateTimeFormatter.ISO_LOCAL_DATE,
+			DateTimeFormatter.ofPattern("dd-MM-uuuu").withResolverStyle(ResolverStyle.STRICT)
+	};
+
+	private final Reader leitor;
+	private final StringBuilder linhaAtual = new StringBuilder();
+	private char separador;
+	private int colunaData = -1;
+	private int colunaDescricao = -1;
+	private int colunaValor = -1;
+	private int colunaCategoria = -1;
+	private int colunaIdentificador = -1;
+	private long linha;
+	private boolean fim;
+
+	/**
+	 * Lê o cabeçalho; sem as colunas obrigatórias o arquivo é recusado aqui.
+	 */
+	public LeitorCsv(Reader leitor) throws IOException {
+		this.leitor = leitor;
+		lerCabecalho();
+	}
+
+	@Override
+	public LinhaExtrato proxima() throws IOException {
+		String texto;
+		do {
+			texto = lerLinha();
+			if(texto == null) {
+				return null;
+			}
+		} while(texto.trim().isEmpty());
+
+		List<String> campos = separar(texto);
+		if(campos.size() <= Math.max(colunaData, Math.max(colunaDescricao, colunaValor))) {
+			throw new RegraNegocioException("Quantidade de colunas inválida!");
+		}
+		return LinhaExtrato.builder()
+				.data(lerData(campos.get(colunaData)))
+				.descricao(campos.get(colunaDescricao).trim())
+				.valor(lerValor(campos.get(colunaValor)))
+				.categoria(opcional(campos, colunaCategoria))
+				.identificador(opcional(campos, colunaIdentificador))
+				.build();
+	}
+
+	@Override
+	public long posicao() {
+		return linha;
+	}
+
+	@Override
+	public void close() throws IOException {
+		leitor.close();
+	}
+
+	private void lerCabecalho() throws IOException {
+		String cabecalho = lerLinha();
+		if(cabecalho == null) {
+			throw new RegraNegocioException("O arquivo está vazio!");
+		}
+		if(cabecalho.startsWith("\uFEFF")) {
+			cabecalho = cabecalho.substring(1);
+		}
+
+		separador = SEPARADORES[0];
+		long maior = -1;
+		for(char candidato : SEPARADORES) {
+			long quantidade = cabecalho.chars().filter(c -> c == candidato).count();
+			if(quantidade > maior) {
+				maior = quantidade;
+				separador = candidato;
+			}
+		}
+
+		List<String> colunas = separar(cabecalho);
+		for(int i = 0; i < colunas.size(); i++) {
+			String nome = normalizar(colunas.get(i));
+			if(colunaData < 0 && Arrays.asList("data", "date", "data lancamento").contains(nome)) {
+				colunaData = i;
+			} else if(colunaDescricao < 0 && Arrays.asList("descricao", "historico", "description").contains(nome)) {
+				colunaDescricao = i;
+			} else if(colunaValor < 0 && Arrays.asList("valor", "amount", "valor (r$)").contains(nome)) {
+				colunaValor = i;
+			} else if(colunaCategoria < 0 && Arrays.asList("categoria", "category").contains(nome)) {
+				colunaCategoria = i;
+			} else if(colunaIdentificador < 0 && Arrays.asList("identificador", "id", "fitid").contains(nome)) {
+				colunaIdentificador = i;
+			}
+		}
+		if(colunaData < 0 || colunaDescricao < 0 || colunaValor < 0) {
+			throw new RegraNegocioException("O cabeçalho do CSV deve ter as colunas data, descricao e valor!");
+		}
+	}
+
+	/**
+	 * Lê uma linha física com tamanho limitado; o excesso de uma linha longa
+	 * demais é descartado até a quebra de linha seguinte.
+	 */
+	private String lerLinha() throws IOException {
+		if(fim) {
+			return null;
+		}
+		linhaAtual.setLength(0);
+		boolean longaDemais = false;
+		int c;
+		while((c = leitor.read()) != -1 && c != '\n') {
+			if(linhaAtual.length() < TAMANHO_MAXIMO_LINHA) {
+				linhaAtual.append((char) c);
+			} else {
+				longaDemais = true;
+			}
+		}
+		if(c == -1) {
+			fim = true;
+			if(linhaAtual.length() == 0) {
+				return null;
+			}
+		}
+		linha++;
+		if(longaDemais) {
+			throw new RegraNegocioException("Linha maior que " + TAMANHO_MAXIMO_LINHA + " caracteres!");
+		}
+		int tamanho = linhaAtual.length();
+		if(tamanho > 0 && linhaAtual.charAt(tamanho - 1) == '\r') {
+			linhaAtual.setLength(tamanho - 1);
+		}
+		return linhaAtual.toString();
+	}
+
+	private List<String> separar(String texto) {
+		List<String> campos = new ArrayList<>();
+		StringBuilder campo = new StringBuilder();
+		boolean entreAspas = false;
+		for(int i = 0; i < texto.length(); i++) {
+			char c = texto.charAt(i);
+			if(entreAspas) {
+				if(c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+					campo.append('"');
+					i++;
+				} else if(c == '"') {
+					entreAspas = false;
+				} else {
+					campo.append(c);
+				}
+			} else if(c == '"') {
+				entreAspas = true;
+			} else if(c == separador) {
+				campos.add(campo.toString());
+				campo.setLength(0);
+			} else {
+				campo.append(c);
+			}
+		}
+		campos.add(campo.toString());
+		return campos;
+	}
+
+	private static String opcional(List<String> campos, int coluna) {
+		if(coluna < 0 || coluna >= campos.size() || campos.get(coluna).trim().isEmpty()) {
+			return null;
+		}
+		return campos.get(coluna).trim();
+	}
+
+	private static LocalDate lerData(String texto) {
+		String data = texto.trim();
+		for(DateTimeFormatter formato : FORMATOS_DATA) {
+			try {
+				return LocalDate.parse(data, formato);
+			} catch (DateTimeParseException e) {
+				// tenta o próximo formato
+			}
+		}
+		throw new RegraNegocioException("Data inválida: " + data);
+	}
+
+	static BigDecimal lerValor(String texto) {
+		String valor = texto.trim().replace("R$", "").replace(" ", "").replace("\u00A0", "");
+		boolean negativo = valor.startsWith("(") && valor.endsWith(")");
+		if(negativo) {
+			valor = valor.substring(1, valor.length() - 1);
+		}
+		int virgula = valor.lastIndexOf(',');
+		int ponto = valor.lastIndexOf('.');
+		if(virgula > ponto) {
+			valor = valor.replace(".", "").replace(',', '.');
+		} else if(virgula >= 0) {
+			valor = valor.replace(",", "");
+		}
+		try {
+			BigDecimal numero = new BigDecimal(valor);
+			return negativo ? numero.negate() : numero;
+		} catch (NumberFormatException e) {
+			throw new RegraNegocioException("Valor inválido: " + texto.trim());
+		}
+	}
+
+	private static String normalizar(String nome) {
+		return Normalizer.normalize(nome.trim(), Normalizer.Form.NFD)
+				.replaceAll("\\p{M}", "")
+				.toLowerCase(Locale.ROOT);
+	}
+
+}
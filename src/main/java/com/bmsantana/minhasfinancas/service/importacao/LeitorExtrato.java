@@ -0,0 +1,21 @@
+package com.bmsantana.minhasfinancas.service.importacao;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Lê as movimentações de um extrato uma a uma, sem carregar o arquivo.
+ */
+public interface LeitorExtrato extends Closeable {
+
+	/**
+	 * Próxima movimentação, ou null no fim do arquivo. Uma linha que não pode
+	 * ser interpretada lança RegraNegocioException depois de consumida, e a
+	 * leitura pode continuar na seguinte.
+	 */
+	LinhaExtrato proxima() throws IOException;
+
+	/** Posição da última movimentação lida, para as mensagens de erro. */
+	long posicao();
+
+}
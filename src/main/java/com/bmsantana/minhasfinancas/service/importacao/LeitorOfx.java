@@ -0,0 +1,135 @@
+package com.bmsantana.minhasfinancas.service.importacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+
+/**
+ * Extrato OFX, tanto o 1.x (SGML, sem fechamento dos elementos) quanto o 2.x
+ * (XML). Só as transações (STMTTRN) interessam: o arquivo é percorrido marca a
+ * marca e cada transação vira uma linha ao encontrar o seu fechamento. A
+ * descrição é o MEMO, ou o NAME quando não houver MEMO.
+ */
+public class LeitorOfx implements LeitorExtrato {
+
+	private static final int TAMANHO_MAXIMO_MARCA = 64;
+	private static final int TAMANHO_MAXIMO_TEXTO = 1024;
+
+	private final Reader leitor;
+	private final StringBuilder marca = new StringBuilder();
+	private final StringBuilder texto = new StringBuilder();
+	private boolean marcaAberta;
+	private long transacoes;
+
+	public LeitorOfx(Reader leitor) {
+		this.leitor = leitor instanceof BufferedReader ? leitor : new BufferedReader(leitor);
+	}
+
+	@Override
+	public LinhaExtrato proxima() throws IOException {
+		Map<String, String> campos = null;
+		String nome;
+		while((nome = proximaMarca()) != null) {
+			if(nome.equals("STMTTRN")) {
+				campos = new HashMap<>();
+				transacoes++;
+			} else if(campos != null && nome.equals("/STMTTRN")) {
+				return montar(campos);
+			} else if(campos != null && !nome.startsWith("/")) {
+				campos.put(nome, texto());
+			}
+		}
+		if(campos != null) {
+			throw new RegraNegocioException("Transação incompleta no fim do arquivo!");
+		}
+		return null;
+	}
+
+	@Override
+	public long posicao() {
+		return transacoes;
+	}
+
+	@Override
+	public void close() throws IOException {
+		leitor.close();
+	}
+
+	/**
+	 * Avança até a próxima marca e lê o texto que vem depois dela, até o
+	 * próximo '&lt;'. Devolve null no fim do arquivo.
+	 */
+	private String proximaMarca() throws IOException {
+		int c;
+		if(!marcaAberta) {
+			while((c = leitor.read()) != -1 && c != '<') {
+				// texto fora de transações e cabeçalho do OFX 1.x
+			}
+			if(c == -1) {
+				return null;
+			}
+		}
+		marca.setLength(0);
+		while((c = leitor.read()) != -1 && c != '>') {
+			if(marca.length() < TAMANHO_MAXIMO_MARCA) {
+				marca.append((char) c);
+			}
+		}
+		if(c == -1) {
+			return null;
+		}
+		texto.setLength(0);
+		while((c = leitor.read()) != -1 && c != '<') {
+			if(texto.length() < TAMANHO_MAXIMO_TEXTO) {
+				texto.append((char) c);
+			}
+		}
+		marcaAberta = c == '<';
+		return marca.toString().trim().toUpperCase(Locale.ROOT);
+	}
+
+	private String texto() {
+		return texto.toString().trim()
+				.replace("&lt;", "<")
+				.replace("&gt;", ">")
+				.replace("&amp;", "&");
+	}
+
+	private static LinhaExtrato montar(Map<String, String> campos) {
+		String valor = campos.get("TRNAMT");
+		if(valor == null || valor.isEmpty()) {
+			throw new RegraNegocioException("Transação sem valor!");
+		}
+		String descricao = campos.get("MEMO");
+		if(descricao == null || descricao.isEmpty()) {
+			descricao = campos.get("NAME");
+		}
+		String identificador = campos.get("FITID");
+		return LinhaExtrato.builder()
+				.data(lerData(campos.get("DTPOSTED")))
+				.descricao(descricao)
+				.valor(LeitorCsv.lerValor(valor))
+				.identificador(identificador == null || identificador.isEmpty() ? null : identificador)
+				.build();
+	}
+
+	private static LocalDate lerData(String texto) {
+		if(texto == null || texto.length() < 8) {
+			throw new RegraNegocioException("Transação sem data!");
+		}
+		try {
+			return LocalDate.parse(texto.substring(0, 8), DateTimeFormatter.BASIC_ISO_DATE);
+		} catch (DateTimeParseException e) {
+			throw new RegraNegocioException("Data inválida: " + texto);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.bmsantana.minhasfinancas.service.importacao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uma movimentação lida do extrato. O valor vem com o sinal do banco:
+ * negativo é saída (despesa), positivo é entrada (receita).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinhaExtrato {
+
+	private LocalDate data;
+	private String descricao;
+	private BigDecimal valor;
+	private String categoria;
+	/** Identificador da transação no banco (FITID do OFX), quando houver. */
+	private String identificador;
+
+	/**
+	 * Hash do conteúdo que identifica a movimentação entre importações. Com o
+	 * identificador do banco ele basta; sem ele, data, valor e descrição, e
+	 * ocorrencia separa linhas idênticas do mesmo arquivo (duas compras iguais
+	 * no mesmo dia).
+	 */
+	public long impressao(int ocorrencia) {
+		String conteudo = identificador != null
+				? "id|" + identificador + "|" + valorNormalizado()
+				: data + "|" + valorNormalizado() + "|" + descricaoNormalizada() + "|" + ocorrencia;
+		long hash = 0xcbf29ce484222325L;
+		for(byte b : conteudo.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private String valorNormalizado() {
+		return valor.setScale(2, RoundingMode.HALF_EVEN).toPlainString();
+	}
+
+	private String descricaoNormalizada() {
+		return descricao == null ? "" : descricao.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Hashing consistente: cada membro ocupa vários pontos de um anel de 64 bits
+ * e a chave pertence ao primeiro ponto a partir do seu hash. Ao incluir ou
+ * retirar um membro só mudam de dono as chaves vizinhas dos seus pontos,
+ * cerca de 1/N do total.
+ *
+ * Imutável; a posição dos pontos não depende da ordem dos membros.
+ */
+public class AnelConsistente {
+
+	private final NavigableMap<Long, String> pontos = new TreeMap<>();
+	private final List<String> membros;
+
+	public AnelConsistente(Collection<String> membros, int pontosPorMembro) {
+		if(membros.isEmpty()) {
+			throw new IllegalArgumentException("O anel precisa de ao menos um membro");
+		}
+		List<String> ordenados = new ArrayList<>(membros);
+		Collections.sort(ordenados);
+		for(String membro : ordenados) {
+			for(int i = 0; i < pontosPorMembro; i++) {
+				pontos.putIfAbsent(hash(membro + "#" + i), membro);
+			}
+		}
+		this.membros = Collections.unmodifiableList(ordenados);
+	}
+
+	public String localizar(long chave) {
+		Map.Entry<Long, String> ponto = pontos.ceilingEntry(misturar(chave));
+		return (ponto != null ? ponto : pontos.firstEntry()).getValue();
+	}
+
+	public List<String> membros() {
+		return membros;
+	}
+
+	private static long hash(String texto) {
+		long hash = 0xcbf29ce484222325L;
+		for(byte b : texto.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return misturar(hash);
+	}
+
+	private static long misturar(long valor) {
+		valor ^= valor >>> 33;
+		valor *= 0xff51afd7ed558ccdL;
+		valor ^= valor >>> 33;
+		valor *= 0xc4ceb9fe1a85ec53L;
+		valor ^= valor >>> 33;
+		return valor;
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Autômato de Aho-Corasick para procurar vários termos num texto de uma vez,
+ * numa única passada pelo texto e sem depender da quantidade de termos.
+ *
+ * Texto e termos são normalizados do mesmo jeito: minúsculas, sem acentos,
+ * e qualquer sequência de caracteres que não seja letra ou dígito vira um
+ * espaço, com um espaço em cada ponta. Assim um termo só casa com palavras
+ * inteiras ("bar" não casa com "barbearia"). Quando vários termos aparecem,
+ * vence o mais longo e, entre os de mesmo tamanho, o que veio primeiro.
+ *
+ * Depois de criado o autômato não muda; pode ser consultado por várias
+ * threads ao mesmo tempo.
+ */
+public class AutomatoPalavras<T> {
+
+	private static final int NENHUM = -1;
+	private static final char[] SEM_ACENTO = new char[0x250];
+
+	static {
+		for(char c = 0; c < SEM_ACENTO.length; c++) {
+			String decomposto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+			SEM_ACENTO[c] = Character.toLowerCase(decomposto.charAt(0));
+		}
+	}
+
+	/** Transições do estado e: rotulos/destinos[inicio[e]..inicio[e + 1]), em ordem de rótulo. */
+	private final int[] inicio;
+	private final char[] rotulos;
+	private final int[] destinos;
+	private final int[] falha;
+	/** Melhor termo que termina no estado, considerando também os sufixos (cadeia de falhas). */
+	private final int[] melhor;
+	private final int[] comprimentos;
+	private final List<T> valores;
+
+	/**
+	 * Termos e valores na mesma ordem; termos vazios depois de normalizados
+	 * são ignorados.
+	 */
+	public AutomatoPalavras(List<String> termos, List<T> valores) {
+		if(termos.size() != valores.size()) {
+			throw new IllegalArgumentException("Termos e valores devem ter o mesmo tamanho");
+		}
+		this.valores = new ArrayList<>(valores);
+		this.comprimentos = new int[termos.size()];
+
+		// Trie provisória, depois compactada em vetores.
+		List<TreeMap<Character, Integer>> filhos = new ArrayList<>();
+		List<Integer> termoDoEstado = new ArrayList<>();
+		filhos.add(new TreeMap<>());
+		termoDoEstado.add(NENHUM);
+		for(int i = 0; i < termos.size(); i++) {
+			String termo = normalizar(termos.get(i));
+			if(termo.trim().isEmpty()) {
+				continue;
+			}
+			comprimentos[i] = termo.length();
+			int estado = 0;
+			for(int j = 0; j < termo.length(); j++) {
+				Integer proximo = filhos.get(estado).get(termo.charAt(j));
+				if(proximo == null) {
+					proximo = filhos.size();
+					filhos.get(estado).put(termo.charAt(j), proximo);
+					filhos.add(new TreeMap<>());
+					termoDoEstado.add(NENHUM);
+				}
+				estado = proximo;
+			}
+			if(termoDoEstado.get(estado) == NENHUM) {
+				termoDoEstado.set(estado, i);
+			}
+		}
+
+		int estados = filhos.size();
+		int transicoes = estados - 1;
+		this.inicio = new int[estados + 1];
+		this.rotulos = new char[transicoes];
+		this.destinos = new int[transicoes];
+		int posicao = 0;
+		for(int estado = 0; estado < estados; estado++) {
+			inicio[estado] = posicao;
+			for(Map.Entry<Character, Integer> filho : filhos.get(estado).entrySet()) {
+				rotulos[posicao] = filho.getKey();
+				destinos[posicao++] = filho.getValue();
+			}
+		}
+		inicio[estados] = posicao;
+
+		// Falhas e melhores termos em largura: o estado de falha é sempre mais raso.
+		this.falha = new int[estados];
+		this.melhor = new int[estados];
+		melhor[0] = NENHUM;
+		Deque<Integer> fila = new ArrayDeque<>();
+		for(int t = inicio[0]; t < inicio[1]; t++) {
+			falha[destinos[t]] = 0;
+			melhor[destinos[t]] = termoDoEstado.get(destinos[t]);
+			fila.add(destinos[t]);
+		}
+		while(!fila.isEmpty()) {
+			int estado = fila.poll();
+			for(int t = inicio[estado]; t < inicio[estado + 1]; t++) {
+				int filho = destinos[t];
+				int f = falha[estado];
+				int destino = transicao(f, rotulos[t]);
+				while(f != 0 && destino == NENHUM) {
+					f = falha[f];
+					destino = transicao(f, rotulos[t]);
+				}
+				falha[filho] = destino != NENHUM ? destino : 0;
+				melhor[filho] = escolher(termoDoEstado.get(filho), melhor[falha[filho]]);
+				fila.add(filho);
+			}
+		}
+	}
+
+	/**
+	 * Valor do melhor termo encontrado no texto, ou null se nenhum aparecer.
+	 */
+	public T procurar(String texto) {
+		if(texto == null || melhor.length == 1) {
+			return null;
+		}
+		// Mesma normalização de normalizar(), feita durante a passada.
+		int estado = avancar(0, ' ');
+		int encontrado = NENHUM;
+		char anterior = ' ';
+		for(int i = 0; i < texto.length(); i++) {
+			char c = normalizar(texto.charAt(i));
+			if(c == ' ' && anterior == ' ') {
+				continue;
+			}
+			anterior = c;
+			estado = avancar(estado, c);
+			encontrado = escolher(encontrado, melhor[estado]);
+		}
+		if(anterior != ' ') {
+			estado = avancar(estado, ' ');
+			encontrado = escolher(encontrado, melhor[estado]);
+		}
+		return encontrado != NENHUM ? valores.get(encontrado) : null;
+	}
+
+	public int tamanho() {
+		return valores.size();
+	}
+
+	public static String normalizar(String texto) {
+		StringBuilder normalizado = new StringBuilder(texto.length() + 2).append(' ');
+		for(int i = 0; i < texto.length(); i++) {
+			char c = normalizar(texto.charAt(i));
+			if(c != ' ' || normalizado.charAt(normalizado.length() - 1) != ' ') {
+				normalizado.append(c);
+			}
+		}
+		if(normalizado.charAt(normalizado.length() - 1) != ' ') {
+			normalizado.append(' ');
+		}
+		return normalizado.toString();
+	}
+
+	private static char normalizar(char c) {
+		if(!Character.isLetterOrDigit(c)) {
+			return ' ';
+		}
+		return c < SEM_ACENTO.length ? SEM_ACENTO[c] : Character.toLowerCase(c);
+	}
+
+	private int avancar(int estado, char c) {
+		int destino = transicao(estado, c);
+		while(estado != 0 && destino == NENHUM) {
+			estado = falha[estado];
+			destino = transicao(estado, c);
+		}
+		return destino != NENHUM ? destino : 0;
+	}
+
+	private int transicao(int estado, char c) {
+		int t = Arrays.binarySearch(rotulos, inicio[estado], inicio[estado + 1], c);
+		return t >= 0 ? destinos[t] : NENHUM;
+	}
+
+	private int escolher(int a, int b) {
+		if(a == NENHUM) {
+			return b;
+		}
+		if(b == NENHUM) {
+			return a;
+		}
+		if(comprimentos[a] != comprimentos[b]) {
+			return comprimentos[a] > comprimentos[b] ? a : b;
+		}
+		return Math.min(a, b);
+	}
+
+}
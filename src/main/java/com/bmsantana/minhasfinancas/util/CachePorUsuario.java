@@ -0,0 +1,178 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+
+/**
+ * Cache LRU limitado pelo tamanho estimado em bytes, com as chaves agrupadas
+ * por usuário para que uma alteração invalide só as entradas dele que forem
+ * afetadas.
+ *
+ * Para não guardar um resultado lido antes de uma alteração que terminou
+ * durante a leitura, quem consulta pega a geração do usuário antes de ler e a
+ * devolve ao guardar; se houve invalidação nesse meio tempo o valor é
+ * descartado. As gerações ficam num vetor fixo indexado pelo hash do usuário,
+ * então usuários que colidem só perdem uma gravação no cache, nunca recebem
+ * dado velho.
+ */
+public class CachePorUsuario<K, V> {
+
+	private static final int FAIXAS_GERACAO = 1024;
+
+	private final long maximoBytes;
+	private final LinkedHashMap<Chave<K>, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Long, Set<Chave<K>>> porUsuario = new HashMap<>();
+	private final AtomicLongArray geracoes = new AtomicLongArray(FAIXAS_GERACAO);
+	private long bytes;
+
+	private final Counter acertos;
+	private final Counter faltas;
+	private final Counter descartes;
+	private final Counter invalidacoes;
+
+	public CachePorUsuario(String nome, long maximoBytes) {
+		this.maximoBytes = maximoBytes;
+		this.acertos = Metrics.counter("minhasfinancas.cache", "cache", nome, "resultado", "acerto");
+		this.faltas = Metrics.counter("minhasfinancas.cache", "cache", nome, "resultado", "falta");
+		this.descartes = Metrics.counter("minhasfinancas.cache.remocoes", "cache", nome, "motivo", "limite");
+		this.invalidacoes = Metrics.counter("minhasfinancas.cache.remocoes", "cache", nome, "motivo", "invalidacao");
+		Metrics.gauge("minhasfinancas.cache.bytes", Collections.singletonList(Tag.of("cache", nome)), this, CachePorUsuario::bytes);
+		Metrics.gauge("minhasfinancas.cache.taxa.acerto", Collections.singletonList(Tag.of("cache", nome)), this, CachePorUsuario::taxaAcerto);
+	}
+
+	public long geracao(Long idUsuario) {
+		return geracoes.get(faixa(idUsuario));
+	}
+
+	public synchronized V obter(Long idUsuario, K chave) {
+		Entrada<V> entrada = entradas.get(new Chave<>(idUsuario, chave));
+		if(entrada == null) {
+			faltas.increment();
+			return null;
+		}
+		acertos.increment();
+		return entrada.valor;
+	}
+
+	/**
+	 * Guarda o valor se não houve invalidação do usuário desde geracaoLida.
+	 * Valores maiores que o limite inteiro do cache não são guardados.
+	 */
+	public synchronized void guardar(Long idUsuario, K chave, V valor, long tamanhoBytes, long geracaoLida) {
+		if(tamanhoBytes > maximoBytes || geracao(idUsuario) != geracaoLida) {
+			return;
+		}
+		Chave<K> item = new Chave<>(idUsuario, chave);
+		Entrada<V> anterior = entradas.put(item, new Entrada<>(valor, tamanhoBytes));
+		if(anterior != null) {
+			bytes -= anterior.tamanhoBytes;
+		}
+		bytes += tamanhoBytes;
+		porUsuario.computeIfAbsent(idUsuario, id -> new HashSet<>()).add(item);
+
+		Iterator<Map.Entry<Chave<K>, Entrada<V>>> maisAntigas = entradas.entrySet().iterator();
+		while(bytes > maximoBytes && maisAntigas.hasNext()) {
+			Map.Entry<Chave<K>, Entrada<V>> maisAntiga = maisAntigas.next();
+			maisAntigas.remove();
+			esquecer(maisAntiga.getKey(), maisAntiga.getValue());
+			descartes.increment();
+		}
+	}
+
+	/**
+	 * Remove as entradas do usuário cuja chave atende ao predicado.
+	 */
+	public void invalidar(Long idUsuario, Predicate<K> afetada) {
+		geracoes.incrementAndGet(faixa(idUsuario));
+		synchronized (this) {
+			Set<Chave<K>> chaves = porUsuario.get(idUsuario);
+			if(chaves == null) {
+				return;
+			}
+			for(Iterator<Chave<K>> iterator = chaves.iterator(); iterator.hasNext();) {
+				Chave<K> item = iterator.next();
+				if(afetada.test(item.chave)) {
+					iterator.remove();
+					bytes -= entradas.remove(item).tamanhoBytes;
+					invalidacoes.increment();
+				}
+			}
+			if(chaves.isEmpty()) {
+				porUsuario.remove(idUsuario);
+			}
+		}
+	}
+
+	public synchronized long bytes() {
+		return bytes;
+	}
+
+	private double taxaAcerto() {
+		double total = acertos.count() + faltas.count();
+		return total == 0 ? 0 : acertos.count() / total;
+	}
+
+	private void esquecer(Chave<K> item, Entrada<V> entrada) {
+		bytes -= entrada.tamanhoBytes;
+		Set<Chave<K>> chaves = porUsuario.get(item.idUsuario);
+		if(chaves != null) {
+			chaves.remove(item);
+			if(chaves.isEmpty()) {
+				porUsuario.remove(item.idUsuario);
+			}
+		}
+	}
+
+	private static int faixa(Long idUsuario) {
+		int hash = idUsuario.hashCode();
+		return (hash ^ (hash >>> 16)) & (FAIXAS_GERACAO - 1);
+	}
+
+	private static class Chave<K> {
+
+		private final Long idUsuario;
+		private final K chave;
+
+		Chave(Long idUsuario, K chave) {
+			this.idUsuario = idUsuario;
+			this.chave = chave;
+		}
+
+		@Override
+		public boolean equals(Object outro) {
+			if(!(outro instanceof Chave)) {
+				return false;
+			}
+			Chave<?> item = (Chave<?>) outro;
+			return idUsuario.equals(item.idUsuario) && chave.equals(item.chave);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * idUsuario.hashCode() + chave.hashCode();
+		}
+	}
+
+	private static class Entrada<V> {
+
+		private final V valor;
+		private final long tamanhoBytes;
+
+		Entrada(V valor, long tamanhoBytes) {
+			this.valor = valor;
+			this.tamanhoBytes = tamanhoBytes;
+		}
+	}
+
+}
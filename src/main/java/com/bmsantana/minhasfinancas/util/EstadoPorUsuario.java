@@ -0,0 +1,165 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Estrutura em memória mantida por usuário ativo. É carregada na primeira
+ * leitura e depois atualizada pelos eventos de alteração; eventos que chegam
+ * durante a carga são reaplicados ao final, por isso o aplicador precisa ser
+ * idempotente (incluir/substituir ou remover por id).
+ *
+ * O acesso a cada estrutura é serializado pelo monitor da sua entrada.
+ */
+public class EstadoPorUsuario<T, E> {
+
+	private final Function<Long, T> carregador;
+	private final BiConsumer<T, E> aplicador;
+	private final ConcurrentMap<Long, Entrada<T, E>> entradas = new ConcurrentHashMap<>();
+	private final int maximoUsuarios;
+	private final long inatividadeNanos;
+
+	public EstadoPorUsuario(Function<Long, T> carregador, BiConsumer<T, E> aplicador, int maximoUsuarios, long inatividadeNanos) {
+		this.carregador = carregador;
+		this.aplicador = aplicador;
+		this.maximoUsuarios = maximoUsuarios;
+		this.inatividadeNanos = inatividadeNanos;
+	}
+
+	public <R> R ler(Long idUsuario, Function<T, R> leitura) {
+		Entrada<T, E> entrada = obterEntrada(idUsuario);
+		synchronized (entrada) {
+			entrada.aguardarCarga();
+			return leitura.apply(entrada.dados);
+		}
+	}
+
+	/**
+	 * Lê a estrutura somente se o usuário já estiver carregado.
+	 */
+	public <R> Optional<R> lerSeCarregado(Long idUsuario, Function<T, R> leitura) {
+		Entrada<T, E> entrada = entradas.get(idUsuario);
+		if(entrada == null) {
+			return Optional.empty();
+		}
+		synchronized (entrada) {
+			if(!entrada.carregada) {
+				return Optional.empty();
+			}
+			return Optional.ofNullable(leitura.apply(entrada.dados));
+		}
+	}
+
+	public void aplicar(Long idUsuario, E evento) {
+		Entrada<T, E> entrada = entradas.get(idUsuario);
+		if(entrada == null) {
+			return;
+		}
+		synchronized (entrada) {
+			if(entrada.carregada) {
+				aplicador.accept(entrada.dados, evento);
+			} else {
+				entrada.pendentes.add(evento);
+			}
+		}
+	}
+
+	/**
+	 * Esquece a estrutura do usuário; a próxima leitura carrega de novo.
+	 */
+	public void descartar(Long idUsuario) {
+		entradas.remove(idUsuario);
+	}
+
+	public void descartarInativos() {
+		long agora = System.nanoTime();
+		entradas.values().removeIf(entrada -> agora - entrada.ultimoAcesso > inatividadeNanos);
+	}
+
+	private Entrada<T, E> obterEntrada(Long idUsuario) {
+		Entrada<T, E> entrada = entradas.get(idUsuario);
+		if(entrada == null) {
+			Entrada<T, E> nova = new Entrada<>();
+			entrada = entradas.putIfAbsent(idUsuario, nova);
+			if(entrada == null) {
+				entrada = nova;
+				limitarUsuarios();
+				carregar(idUsuario, nova);
+			}
+		}
+		entrada.ultimoAcesso = System.nanoTime();
+		return entrada;
+	}
+
+	private void carregar(Long idUsuario, Entrada<T, E> entrada) {
+		try {
+			T dados = carregador.apply(idUsuario);
+			synchronized (entrada) {
+				entrada.dados = dados;
+				for(E evento : entrada.pendentes) {
+					aplicador.accept(dados, evento);
+				}
+				entrada.pendentes.clear();
+				entrada.carregada = true;
+				entrada.notifyAll();
+			}
+		} catch (RuntimeException e) {
+			entradas.remove(idUsuario, entrada);
+			synchronized (entrada) {
+				entrada.falhou = true;
+				entrada.notifyAll();
+			}
+			throw e;
+		}
+	}
+
+	private void limitarUsuarios() {
+		while(entradas.size() > maximoUsuarios) {
+			Long maisAntigo = null;
+			long menorAcesso = Long.MAX_VALUE;
+			for(Map.Entry<Long, Entrada<T, E>> item : entradas.entrySet()) {
+				if(item.getValue().carregada && item.getValue().ultimoAcesso < menorAcesso) {
+					menorAcesso = item.getValue().ultimoAcesso;
+					maisAntigo = item.getKey();
+				}
+			}
+			if(maisAntigo == null) {
+				return;
+			}
+			entradas.remove(maisAntigo);
+		}
+	}
+
+	private static class Entrada<T, E> {
+
+		private T dados;
+		private final List<E> pendentes = new ArrayList<>();
+		private volatile boolean carregada;
+		private volatile boolean falhou;
+		private volatile long ultimoAcesso = System.nanoTime();
+
+		void aguardarCarga() {
+			boolean interrompida = false;
+			while(!carregada && !falhou) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrompida = true;
+				}
+			}
+			if(interrompida) {
+				Thread.currentThread().interrupt();
+			}
+			if(falhou) {
+				throw new IllegalStateException("Não foi possível carregar os dados do usuário");
+			}
+		}
+	}
+
+}
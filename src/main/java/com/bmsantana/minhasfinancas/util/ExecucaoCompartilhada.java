@@ -0,0 +1,70 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Agrupa chamadas concorrentes com a mesma chave: a primeira executa a
+ * computação e as demais aguardam e recebem o mesmo resultado (ou erro).
+ * Nada é guardado depois que a execução termina.
+ *
+ * invalidar separa a execução em andamento de quem chegar depois: quem já
+ * aguarda continua com ela, mas as chamadas seguintes iniciam outra. Serve
+ * para quem acabou de gravar não receber um resultado calculado antes da
+ * sua gravação.
+ */
+public class ExecucaoCompartilhada<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> emAndamento = new ConcurrentHashMap<>();
+	private final Counter executadas;
+	private final Counter coalescidas;
+
+	public ExecucaoCompartilhada(String operacao) {
+		this.executadas = Metrics.counter("minhasfinancas.execucao.compartilhada", "operacao", operacao, "resultado", "executada");
+		this.coalescidas = Metrics.counter("minhasfinancas.execucao.compartilhada", "operacao", operacao, "resultado", "coalescida");
+	}
+
+	public V executar(K chave, Supplier<V> computacao) {
+		CompletableFuture<V> novo = new CompletableFuture<>();
+		CompletableFuture<V> existente = emAndamento.putIfAbsent(chave, novo);
+
+		if(existente != null) {
+			coalescidas.increment();
+			return aguardar(existente);
+		}
+
+		executadas.increment();
+		try {
+			V resultado = computacao.get();
+			novo.complete(resultado);
+			return resultado;
+		} catch (RuntimeException | Error e) {
+			novo.completeExceptionally(e);
+			throw e;
+		} finally {
+			emAndamento.remove(chave, novo);
+		}
+	}
+
+	public void invalidar(K chave) {
+		emAndamento.remove(chave);
+	}
+
+	private V aguardar(CompletableFuture<V> futuro) {
+		try {
+			return futuro.join();
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fila circular limitada, sem bloqueio, para vários produtores e um único
+ * consumidor. Cada posição tem um número de sequência que indica se está
+ * livre para o produtor da volta atual ou pronta para o consumidor, então
+ * produtores só disputam o incremento da cauda (CAS) e nunca esperam: com a
+ * fila cheia, oferecer devolve false.
+ */
+public class FilaCircular<T> {
+
+	private final int mascara;
+	private final AtomicReferenceArray<T> itens;
+	private final AtomicLongArray sequencias;
+	private final AtomicLong cauda = new AtomicLong();
+	private volatile long cabeca;
+
+	/**
+	 * A capacidade é arredondada para a próxima potência de dois.
+	 */
+	public FilaCircular(int capacidadeMinima) {
+		int capacidade = Integer.highestOneBit(Math.max(capacidadeMinima, 2) - 1) << 1;
+		this.mascara = capacidade - 1;
+		this.itens = new AtomicReferenceArray<>(capacidade);
+		this.sequencias = new AtomicLongArray(capacidade);
+		for(int i = 0; i < capacidade; i++) {
+			sequencias.set(i, i);
+		}
+	}
+
+	public boolean oferecer(T item) {
+		while(true) {
+			long posicao = cauda.get();
+			int indice = (int) posicao & mascara;
+			long diferenca = sequencias.get(indice) - posicao;
+			if(diferenca == 0) {
+				if(cauda.compareAndSet(posicao, posicao + 1)) {
+					itens.lazySet(indice, item);
+					sequencias.set(indice, posicao + 1);
+					return true;
+				}
+			} else if(diferenca < 0) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Move para destino até maximo itens prontos. Só pode ser chamado pela
+	 * thread consumidora.
+	 */
+	public int drenar(List<T> destino, int maximo) {
+		int quantidade = 0;
+		long posicao = cabeca;
+		while(quantidade < maximo) {
+			int indice = (int) posicao & mascara;
+			if(sequencias.get(indice) != posicao + 1) {
+				break;
+			}
+			destino.add(itens.get(indice));
+			itens.lazySet(indice, null);
+			sequencias.set(indice, posicao + mascara + 1);
+			posicao++;
+			quantidade++;
+		}
+		cabeca = posicao;
+		return quantidade;
+	}
+
+	public int tamanho() {
+		return (int) Math.max(0, cauda.get() - cabeca);
+	}
+
+	public int capacidade() {
+		return mascara + 1;
+	}
+
+}
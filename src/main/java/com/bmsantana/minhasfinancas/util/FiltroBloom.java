@@ -0,0 +1,73 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para textos: responde "com certeza não contém" ou "talvez
+ * contenha". Inclusões podem ser feitas de várias threads ao mesmo tempo.
+ *
+ * O tamanho é calculado para a quantidade esperada de elementos e a taxa de
+ * falso positivo desejada; passando dessa quantidade a taxa sobe.
+ */
+public class FiltroBloom {
+
+	private final AtomicLongArray bits;
+	private final long quantidadeBits;
+	private final int quantidadeHashes;
+
+	public FiltroBloom(long elementosEsperados, double taxaFalsoPositivo) {
+		long elementos = Math.max(elementosEsperados, 1);
+		long tamanho = (long) Math.ceil(-elementos * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+		this.bits = new AtomicLongArray((int) Math.max((tamanho + 63) / 64, 1));
+		this.quantidadeBits = bits.length() * 64L;
+		this.quantidadeHashes = Math.max(1, (int) Math.round((double) quantidadeBits / elementos * Math.log(2)));
+	}
+
+	public void incluir(String valor) {
+		long hash = hash(valor);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for(int i = 1; i <= quantidadeHashes; i++) {
+			long bit = posicao(h1 + i * h2);
+			long mascara = 1L << bit;
+			bits.accumulateAndGet((int) (bit >>> 6), mascara, (atual, m) -> atual | m);
+		}
+	}
+
+	public boolean talvezContenha(String valor) {
+		long hash = hash(valor);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for(int i = 1; i <= quantidadeHashes; i++) {
+			long bit = posicao(h1 + i * h2);
+			if((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long posicao(int hashCombinado) {
+		return (hashCombinado & Integer.MAX_VALUE) % quantidadeBits;
+	}
+
+	/**
+	 * FNV-1a de 64 bits sobre os bytes UTF-8, seguido da mistura final do
+	 * MurmurHash3 para espalhar melhor os bits.
+	 */
+	private static long hash(String valor) {
+		long hash = 0xcbf29ce484222325L;
+		for(byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+
+/**
+ * JSON já serializado de entidades, por id, limitado pelo total de bytes. Cada
+ * fragmento guarda a assinatura do estado que o gerou (os próprios valores
+ * dos campos, comparados por equals) e só é devolvido para uma assinatura
+ * igual, então um fragmento antigo nunca sai, mesmo que a invalidação chegue
+ * atrasada; remover serve para liberar memória.
+ *
+ * Leituras concorrentes não se bloqueiam. Ao passar do limite saem os
+ * fragmentos mais antigos.
+ */
+public class FragmentosJson {
+
+	/** Custo aproximado de cada fragmento além dos bytes do JSON. */
+	private static final int SOBRECARGA = 96;
+
+	private final long maximoBytes;
+	private final LinkedHashMap<Long, Fragmento> fragmentos = new LinkedHashMap<>();
+	private final ReadWriteLock bloqueio = new ReentrantReadWriteLock();
+	private long bytes;
+
+	private final Counter acertos;
+	private final Counter faltas;
+	private final Counter descartes;
+	private final Counter invalidacoes;
+
+	public FragmentosJson(String nome, long maximoBytes) {
+		this.maximoBytes = maximoBytes;
+		this.acertos = Metrics.counter("minhasfinancas.cache", "cache", nome, "resultado", "acerto");
+		this.faltas = Metrics.counter("minhasfinancas.cache", "cache", nome, "resultado", "falta");
+		this.descartes = Metrics.counter("minhasfinancas.cache.remocoes", "cache", nome, "motivo", "limite");
+		this.invalidacoes = Metrics.counter("minhasfinancas.cache.remocoes", "cache", nome, "motivo", "invalidacao");
+		Metrics.gauge("minhasfinancas.cache.bytes", Collections.singletonList(Tag.of("cache", nome)), this, FragmentosJson::bytes);
+	}
+
+	/**
+	 * Bytes do JSON guardado para o id, ou null se não houver fragmento com a
+	 * assinatura informada. O vetor devolvido é compartilhado e não deve ser alterado.
+	 */
+	public byte[] obter(Long id, Object assinatura) {
+		bloqueio.readLock().lock();
+		try {
+			Fragmento fragmento = fragmentos.get(id);
+			if(fragmento == null || !Objects.equals(fragmento.assinatura, assinatura)) {
+				faltas.increment();
+				return null;
+			}
+			acertos.increment();
+			return fragmento.json;
+		} finally {
+			bloqueio.readLock().unlock();
+		}
+	}
+
+	public void guardar(Long id, Object assinatura, byte[] json) {
+		long tamanho = json.length + SOBRECARGA;
+		if(tamanho > maximoBytes) {
+			return;
+		}
+		bloqueio.writeLock().lock();
+		try {
+			Fragmento anterior = fragmentos.remove(id);
+			if(anterior != null) {
+				bytes -= anterior.json.length + SOBRECARGA;
+			}
+			fragmentos.put(id, new Fragmento(assinatura, json));
+			bytes += tamanho;
+
+			Iterator<Map.Entry<Long, Fragmento>> maisAntigos = fragmentos.entrySet().iterator();
+			while(bytes > maximoBytes && maisAntigos.hasNext()) {
+				bytes -= maisAntigos.next().getValue().json.length + SOBRECARGA;
+				maisAntigos.remove();
+				descartes.increment();
+			}
+		} finally {
+			bloqueio.writeLock().unlock();
+		}
+	}
+
+	public void remover(Long id) {
+		bloqueio.writeLock().lock();
+		try {
+			Fragmento removido = fragmentos.remove(id);
+			if(removido != null) {
+				bytes -= removido.json.length + SOBRECARGA;
+				invalidacoes.increment();
+			}
+		} finally {
+			bloqueio.writeLock().unlock();
+		}
+	}
+
+	public long bytes() {
+		bloqueio.readLock().lock();
+		try {
+			return bytes;
+		} finally {
+			bloqueio.readLock().unlock();
+		}
+	}
+
+	private static class Fragmento {
+
+		private final Object assinatura;
+		private final byte[] json;
+
+		Fragmento(Object assinatura, byte[] json) {
+			this.assinatura = assinatura;
+			this.json = json;
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Ids numéricos ordenados pelo tempo e gerados em memória, sem ir ao banco:
+ * milissegundos desde 2020-01-01 (41 bits), nó (6 bits) e contador (6 bits).
+ * O total cabe em 53 bits, para o id chegar inteiro aos clientes JavaScript.
+ *
+ * Ids de nós diferentes nunca se repetem; num mesmo nó são crescentes. Se o
+ * contador estoura dentro de um milissegundo, o gerador segue no próximo,
+ * adiantado em relação ao relógio, e só espera quando o adiantamento passa de
+ * um segundo. Um relógio que volta não gera repetidos: o gerador continua de
+ * onde parou.
+ */
+public class GeradorIds {
+
+	public static final int BITS_NO = 6;
+	public static final int BITS_CONTADOR = 6;
+	public static final long MAXIMO_NO = (1L << BITS_NO) - 1;
+
+	/** 2020-01-01T00:00:00Z */
+	private static final long EPOCA = 1577836800000L;
+	private static final long ADIANTAMENTO_MAXIMO_MS = 1000;
+	private static final long MASCARA_CONTADOR = (1L << BITS_CONTADOR) - 1;
+
+	private final long no;
+	private final LongSupplier relogio;
+	/** Último (milissegundo, contador) gerado, no formato do id sem o nó. */
+	private final AtomicLong ultimo = new AtomicLong();
+
+	public GeradorIds(long no) {
+		this(no, System::currentTimeMillis);
+	}
+
+	public GeradorIds(long no, LongSupplier relogio) {
+		if(no < 0 || no > MAXIMO_NO) {
+			throw new IllegalArgumentException("Nó deve estar entre 0 e " + MAXIMO_NO + ": " + no);
+		}
+		this.no = no;
+		this.relogio = relogio;
+	}
+
+	public long gerar() {
+		while(true) {
+			long agora = relogio.getAsLong() - EPOCA;
+			long anterior = ultimo.get();
+			long proximo = Math.max(agora << BITS_CONTADOR, anterior + 1);
+			if((proximo >>> BITS_CONTADOR) - agora > ADIANTAMENTO_MAXIMO_MS) {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+				continue;
+			}
+			if(ultimo.compareAndSet(anterior, proximo)) {
+				return (proximo >>> BITS_CONTADOR) << (BITS_NO + BITS_CONTADOR)
+						| no << BITS_CONTADOR
+						| (proximo & MASCARA_CONTADOR);
+			}
+		}
+	}
+
+	public static long no(long id) {
+		return (id >>> BITS_CONTADOR) & MAXIMO_NO;
+	}
+
+	public static long instante(long id) {
+		return (id >>> (BITS_NO + BITS_CONTADOR)) + EPOCA;
+	}
+
+}
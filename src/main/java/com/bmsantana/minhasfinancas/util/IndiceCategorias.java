@@ -0,0 +1,92 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice em memória das categorias de um usuário: para cada categoria sem
+ * acento, as grafias gravadas no banco, para que a busca por categoria possa
+ * ser feita pelo próprio banco. Guarda também a grafia de cada lançamento,
+ * para retirá-la quando ele muda ou é excluído, e a versão da sequência de
+ * alterações do usuário em que foi carregado.
+ *
+ * Não é thread-safe; quem usa deve sincronizar o acesso.
+ */
+public class IndiceCategorias {
+
+	/** Quantos lançamentos usam cada grafia de cada categoria normalizada. */
+	private final Map<String, Map<String, Integer>> grafias = new HashMap<>();
+	private final Map<Long, String> grafiaPorLancamento = new HashMap<>();
+	private final long versao;
+
+	public IndiceCategorias(long versao) {
+		this.versao = versao;
+	}
+
+	public static String normalizarCategoria(String categoria) {
+		if(categoria == null || categoria.trim().isEmpty()) {
+			return null;
+		}
+		String semAcento = Normalizer.normalize(categoria.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+		return semAcento.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Inclui o lançamento ou, se o id já existir, substitui sua categoria.
+	 */
+	public void gravar(long id, String categoria) {
+		remover(id);
+		String normalizada = normalizarCategoria(categoria);
+		if(normalizada != null) {
+			grafiaPorLancamento.put(id, categoria);
+			grafias.computeIfAbsent(normalizada, c -> new HashMap<>()).merge(categoria, 1, Integer::sum);
+		}
+	}
+
+	public void remover(long id) {
+		String grafia = grafiaPorLancamento.remove(id);
+		if(grafia == null) {
+			return;
+		}
+		String normalizada = normalizarCategoria(grafia);
+		Map<String, Integer> daCategoria = grafias.get(normalizada);
+		if(daCategoria.merge(grafia, -1, Integer::sum) == 0) {
+			daCategoria.remove(grafia);
+		}
+		if(daCategoria.isEmpty()) {
+			grafias.remove(normalizada);
+		}
+	}
+
+	public long getVersao() {
+		return versao;
+	}
+
+	/**
+	 * Quantos lançamentos com categoria estão no índice.
+	 */
+	public int tamanho() {
+		return grafiaPorLancamento.size();
+	}
+
+	/**
+	 * Grafias gravadas das categorias informadas, comparadas sem acento e sem
+	 * diferenciar maiúsculas. Vazio se nenhum lançamento usa as categorias.
+	 */
+	public Set<String> grafias(Collection<String> categorias) {
+		Set<String> resultado = new HashSet<>();
+		for(String categoria : categorias) {
+			Map<String, Integer> daCategoria = grafias.get(normalizarCategoria(categoria));
+			if(daCategoria != null) {
+				resultado.addAll(daCategoria.keySet());
+			}
+		}
+		return resultado;
+	}
+
+}
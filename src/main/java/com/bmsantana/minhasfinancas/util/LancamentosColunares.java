@@ -0,0 +1,134 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lançamentos de um usuário guardados em colunas de tipos primitivos:
+ * competência (ano * 12 + mês - 1), valor em centavos e tipo/status pelo
+ * ordinal do enum. As agregações percorrem os arrays sem criar objetos.
+ *
+ * Não é thread-safe; quem usa deve sincronizar o acesso.
+ */
+public class LancamentosColunares {
+
+	public static final int QUALQUER = -1;
+
+	private long[] ids;
+	private int[] competencias;
+	private long[] centavos;
+	private byte[] tipos;
+	private byte[] status;
+	private int tamanho;
+	private final Map<Long, Integer> posicoes = new HashMap<>();
+
+	public LancamentosColunares() {
+		this(16);
+	}
+
+	public LancamentosColunares(int capacidade) {
+		capacidade = Math.max(capacidade, 16);
+		ids = new long[capacidade];
+		competencias = new int[capacidade];
+		centavos = new long[capacidade];
+		tipos = new byte[capacidade];
+		status = new byte[capacidade];
+	}
+
+	public static int competencia(int ano, int mes) {
+		return ano * 12 + mes - 1;
+	}
+
+	/**
+	 * Inclui o lançamento ou, se o id já existir, substitui seus valores.
+	 */
+	public void gravar(long id, int competencia, long valorCentavos, int tipo, int statusLancamento) {
+		Integer posicao = posicoes.get(id);
+		int i;
+		if(posicao != null) {
+			i = posicao;
+		} else {
+			if(tamanho == ids.length) {
+				crescer();
+			}
+			i = tamanho++;
+			ids[i] = id;
+			posicoes.put(id, i);
+		}
+		competencias[i] = competencia;
+		centavos[i] = valorCentavos;
+		tipos[i] = (byte) tipo;
+		status[i] = (byte) statusLancamento;
+	}
+
+	public void remover(long id) {
+		Integer posicao = posicoes.remove(id);
+		if(posicao == null) {
+			return;
+		}
+		int i = posicao;
+		int ultimo = --tamanho;
+		if(i != ultimo) {
+			ids[i] = ids[ultimo];
+			competencias[i] = competencias[ultimo];
+			centavos[i] = centavos[ultimo];
+			tipos[i] = tipos[ultimo];
+			status[i] = status[ultimo];
+			posicoes.put(ids[i], i);
+		}
+	}
+
+	public int tamanho() {
+		return tamanho;
+	}
+
+	/**
+	 * Soma em centavos dos lançamentos do tipo informado entre as competências
+	 * de e ate (inclusive). Use QUALQUER em statusLancamento para não filtrar.
+	 */
+	public long total(int tipo, int statusLancamento, int de, int ate) {
+		long soma = 0;
+		for(int i = 0; i < tamanho; i++) {
+			if(tipos[i] == tipo && competencias[i] >= de && competencias[i] <= ate
+					&& (statusLancamento == QUALQUER || status[i] == statusLancamento)) {
+				soma += centavos[i];
+			}
+		}
+		return soma;
+	}
+
+	/**
+	 * Acumula em porMes[tipo][competencia - de] a soma de cada mês do intervalo.
+	 */
+	public void somarPorMes(int de, int ate, long[][] porMes) {
+		for(int i = 0; i < tamanho; i++) {
+			int competencia = competencias[i];
+			if(competencia >= de && competencia <= ate) {
+				porMes[tipos[i]][competencia - de] += centavos[i];
+			}
+		}
+	}
+
+	/**
+	 * Acumula em porStatus[tipo][status] a soma das competências do intervalo.
+	 */
+	public void somarPorStatus(int de, int ate, long[][] porStatus) {
+		for(int i = 0; i < tamanho; i++) {
+			int competencia = competencias[i];
+			if(competencia >= de && competencia <= ate) {
+				porStatus[tipos[i]][status[i]] += centavos[i];
+			}
+		}
+	}
+
+	private void crescer() {
+		int capacidade = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacidade);
+		competencias = Arrays.copyOf(competencias, capacidade);
+		centavos = Arrays.copyOf(centavos, capacidade);
+		tipos = Arrays.copyOf(tipos, capacidade);
+		status = Arrays.copyOf(status, capacidade);
+	}
+
+}
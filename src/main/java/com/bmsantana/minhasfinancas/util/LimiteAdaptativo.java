@@ -0,0 +1,154 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de execuções simultâneas que se ajusta à latência observada. Enquanto
+ * a latência média fica perto da mínima o limite cresce (na ordem da raiz do
+ * limite atual); quando a latência passa de tolerancia vezes a mínima, sinal
+ * de fila no banco ou no pool de conexões, o limite cai proporcionalmente.
+ * Cada falha (erro ou tempo esgotado) também derruba o limite.
+ *
+ * A latência mínima é refeita a cada janela de amostras a partir de um
+ * percentil baixo da janela, e não da média: sob sobrecarga contínua a média
+ * já está inflada e viraria a nova referência.
+ *
+ * adquirir() devolve false na hora acima do limite; adquirir(espera) aguarda
+ * no máximo esse tempo por uma vaga.
+ */
+public class LimiteAdaptativo {
+
+	/** Peso de cada novo cálculo sobre o limite, para não oscilar a cada resposta. */
+	private static final double SUAVIZACAO = 0.2;
+	private static final double SUAVIZACAO_LATENCIA = 0.1;
+	/** A latência mínima é refeita a cada janela, acompanhando mudanças do banco. */
+	private static final int AMOSTRAS_POR_JANELA = 500;
+	/** Percentil da janela usado como nova latência mínima. */
+	private static final double PERCENTIL_REFERENCIA = 0.1;
+	/** Fator aplicado ao limite a cada falha. */
+	private static final double REDUCAO_FALHA = 0.9;
+
+	private final int minimo;
+	private final int maximo;
+	private final double tolerancia;
+	private final AtomicInteger emExecucao = new AtomicInteger();
+	private final Object vagas = new Object();
+	private final AtomicInteger aguardando = new AtomicInteger();
+	private volatile double limite;
+
+	private long latenciaMinima = Long.MAX_VALUE;
+	private double latenciaMedia;
+	private final long[] janela = new long[AMOSTRAS_POR_JANELA];
+	private int amostras;
+
+	public LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia) {
+		if(minimo < 1 || maximo < minimo) {
+			throw new IllegalArgumentException("Limites inválidos: mínimo " + minimo + ", máximo " + maximo);
+		}
+		this.minimo = minimo;
+		this.maximo = maximo;
+		this.tolerancia = tolerancia;
+		this.limite = Math.max(minimo, Math.min(maximo, inicial));
+	}
+
+	public boolean adquirir() {
+		int limiteAtual = limite();
+		while(true) {
+			int atual = emExecucao.get();
+			if(atual >= limiteAtual) {
+				return false;
+			}
+			if(emExecucao.compareAndSet(atual, atual + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Como adquirir(), mas aguarda até esperaNanos por uma vaga devolvida.
+	 */
+	public boolean adquirir(long esperaNanos) throws InterruptedException {
+		if(adquirir()) {
+			return true;
+		}
+		long prazo = System.nanoTime() + esperaNanos;
+		aguardando.incrementAndGet();
+		try {
+			synchronized(vagas) {
+				while(!adquirir()) {
+					long restante = prazo - System.nanoTime();
+					if(restante <= 0) {
+						return false;
+					}
+					TimeUnit.NANOSECONDS.timedWait(vagas, restante);
+				}
+				return true;
+			}
+		} finally {
+			aguardando.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Devolve a vaga. latenciaNanos só entra no ajuste do limite quando
+	 * positiva; respostas sem latência significativa (ex: assíncronas) são
+	 * liberadas com 0.
+	 */
+	public void liberar(long latenciaNanos) {
+		int emUso = emExecucao.getAndDecrement();
+		if(latenciaNanos > 0) {
+			ajustar(latenciaNanos, emUso);
+		}
+		avisar();
+	}
+
+	/**
+	 * Devolve a vaga de uma execução que falhou e reduz o limite.
+	 */
+	public void liberarComFalha() {
+		emExecucao.getAndDecrement();
+		synchronized(this) {
+			limite = Math.max(minimo, limite * REDUCAO_FALHA);
+		}
+		avisar();
+	}
+
+	private void avisar() {
+		if(aguardando.get() > 0) {
+			synchronized(vagas) {
+				vagas.notify();
+			}
+		}
+	}
+
+	private synchronized void ajustar(long latencia, int emUso) {
+		latenciaMedia = amostras == 0 ? latencia : latenciaMedia + (latencia - latenciaMedia) * SUAVIZACAO_LATENCIA;
+		latenciaMinima = Math.min(latenciaMinima, latencia);
+		janela[amostras % AMOSTRAS_POR_JANELA] = latencia;
+		if(++amostras % AMOSTRAS_POR_JANELA == 0) {
+			long[] ordenadas = janela.clone();
+			Arrays.sort(ordenadas);
+			latenciaMinima = ordenadas[(int) (AMOSTRAS_POR_JANELA * PERCENTIL_REFERENCIA)];
+		}
+
+		double atual = limite;
+		double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * latenciaMinima / latenciaMedia));
+		double novo = atual * gradiente + Math.sqrt(atual);
+		if(novo > atual && emUso * 2 < atual) {
+			// Sem demanda perto do limite atual não há indício de que um maior seja seguro.
+			return;
+		}
+		limite = Math.max(minimo, Math.min(maximo, atual * (1 - SUAVIZACAO) + novo * SUAVIZACAO));
+	}
+
+	public int limite() {
+		return (int) limite;
+	}
+
+	public int emExecucao() {
+		return emExecucao.get();
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.Locale;
+
+/**
+ * Tempo gasto em cada fase da requisição atual. Cada thread reaproveita a
+ * mesma instância entre requisições, e medir uma fase não aloca nada: marcar
+ * devolve o instante inicial (ou 0 fora de uma requisição medida) e registrar
+ * soma o decorrido no array da fase.
+ *
+ * As fases podem se sobrepor: o SQL executado no flush conta nas duas.
+ */
+public final class TemposRequisicao {
+
+	public enum Fase {
+
+		CONEXAO("conexao"),
+		USUARIO("usuario"),
+		VALIDACAO("validacao"),
+		FLUSH("flush"),
+		SQL("sql"),
+		JSON("json");
+
+		private final String nome;
+
+		Fase(String nome) {
+			this.nome = nome;
+		}
+
+		public String getNome() {
+			return nome;
+		}
+	}
+
+	private static final Fase[] FASES = Fase.values();
+	private static final ThreadLocal<TemposRequisicao> ATUAL = new ThreadLocal<>();
+	private static final ThreadLocal<TemposRequisicao> DA_THREAD = ThreadLocal.withInitial(TemposRequisicao::new);
+
+	private final long[] nanos = new long[FASES.length];
+	private final int[] ocorrencias = new int[FASES.length];
+	private long inicio;
+
+	private TemposRequisicao() {
+	}
+
+	public static TemposRequisicao iniciar() {
+		TemposRequisicao tempos = DA_THREAD.get();
+		for(int i = 0; i < FASES.length; i++) {
+			tempos.nanos[i] = 0;
+			tempos.ocorrencias[i] = 0;
+		}
+		tempos.inicio = System.nanoTime();
+		ATUAL.set(tempos);
+		return tempos;
+	}
+
+	public static void encerrar() {
+		ATUAL.remove();
+	}
+
+	public static long marcar() {
+		return ATUAL.get() != null ? System.nanoTime() : 0;
+	}
+
+	public static void registrar(Fase fase, long inicio) {
+		if(inicio == 0) {
+			return;
+		}
+		TemposRequisicao tempos = ATUAL.get();
+		if(tempos != null) {
+			tempos.nanos[fase.ordinal()] += System.nanoTime() - inicio;
+			tempos.ocorrencias[fase.ordinal()]++;
+		}
+	}
+
+	public long decorridoNanos() {
+		return System.nanoTime() - inicio;
+	}
+
+	public long nanos(Fase fase) {
+		return nanos[fase.ordinal()];
+	}
+
+	public int ocorrencias(Fase fase) {
+		return ocorrencias[fase.ordinal()];
+	}
+
+	/**
+	 * Valor do cabeçalho Server-Timing: as fases que ocorreram e o total até agora.
+	 */
+	public String cabecalho() {
+		StringBuilder valor = new StringBuilder(128);
+		for(Fase fase : FASES) {
+			if(ocorrencias[fase.ordinal()] > 0) {
+				duracao(valor.append(fase.nome).append(";dur="), nanos[fase.ordinal()]).append(", ");
+			}
+		}
+		return duracao(valor.append("total;dur="), decorridoNanos()).toString();
+	}
+
+	/**
+	 * Texto para log, com a quantidade de ocorrências de cada fase.
+	 */
+	public String detalhamento() {
+		StringBuilder valor = new StringBuilder(128);
+		for(Fase fase : FASES) {
+			if(ocorrencias[fase.ordinal()] > 0) {
+				duracao(valor.append(valor.length() > 0 ? ", " : "").append(fase.nome).append('='), nanos[fase.ordinal()])
+						.append("ms x").append(ocorrencias[fase.ordinal()]);
+			}
+		}
+		return valor.toString();
+	}
+
+	private static StringBuilder duracao(StringBuilder valor, long nanos) {
+		return valor.append(String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0));
+	}
+
+}
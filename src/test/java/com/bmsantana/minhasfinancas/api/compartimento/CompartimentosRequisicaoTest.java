@@ -0,0 +1,96 @@
+package com.bmsantana.minhasfinancas.api.compartimento;
+
+import java.util.Collections;
+
+import javax.servlet.DispatcherType;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import com.bmsantana.minhasfinancas.util.LimiteAdaptativo;
+
+public class CompartimentosRequisicaoTest {
+
+	static class Recurso {
+
+		@Compartimento(ClasseRequisicao.LEITURA)
+		public void ler() {
+		}
+	}
+
+	LimiteAdaptativo limite = new LimiteAdaptativo(1, 1, 1, 2.0);
+
+	CompartimentosRequisicao compartimentos = new CompartimentosRequisicao(
+			Collections.singletonMap(ClasseRequisicao.LEITURA, limite), 0, 1);
+
+	private static HandlerMethod handler() throws Exception {
+		return new HandlerMethod(new Recurso(), Recurso.class.getMethod("ler"));
+	}
+
+	@Test
+	public void naoLimitarODespachoAssincrono() throws Exception {
+		// O despacho ASYNC de uma resposta assíncrona não ocupa nem devolve vaga
+
+		// Cenário
+		HandlerMethod handler = handler();
+		MockHttpServletRequest original = new MockHttpServletRequest();
+		MockHttpServletResponse resposta = new MockHttpServletResponse();
+		Assertions.assertThat(compartimentos.preHandle(original, resposta, handler)).isTrue();
+		compartimentos.afterConcurrentHandlingStarted(original, resposta, handler);
+		Assertions.assertThat(limite.adquirir()).isTrue();
+
+		MockHttpServletRequest assincrono = new MockHttpServletRequest();
+		assincrono.setDispatcherType(DispatcherType.ASYNC);
+
+		// Execução
+		boolean seguiu = compartimentos.preHandle(assincrono, resposta, handler);
+		compartimentos.afterCompletion(assincrono, resposta, handler, null);
+
+		// Verificação
+		Assertions.assertThat(seguiu).isTrue();
+		Assertions.assertThat(resposta.getStatus()).isEqualTo(200);
+		Assertions.assertThat(limite.emExecucao()).isEqualTo(1);
+	}
+
+	@Test
+	public void reduzirLimiteEmRespostasComErro() throws Exception {
+		// Uma resposta 5xx devolve a vaga e derruba o limite da classe
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(10, 1, 10, 2.0);
+		CompartimentosRequisicao compartimentos = new CompartimentosRequisicao(
+				Collections.singletonMap(ClasseRequisicao.LEITURA, limite), 0, 1);
+		HandlerMethod handler = handler();
+		MockHttpServletRequest requisicao = new MockHttpServletRequest();
+		MockHttpServletResponse resposta = new MockHttpServletResponse();
+		compartimentos.preHandle(requisicao, resposta, handler);
+		resposta.setStatus(503);
+
+		// Execução
+		compartimentos.afterCompletion(requisicao, resposta, handler, null);
+
+		// Verificação
+		Assertions.assertThat(limite.emExecucao()).isZero();
+		Assertions.assertThat(limite.limite()).isEqualTo(9);
+	}
+
+	@Test
+	public void derivarMaximosDaLatenciaAlvo() {
+		// O máximo é a vazão esperada vezes a latência alvo, e o limite começa abaixo dele para poder crescer
+
+		// Verificação
+		Assertions.assertThat(ClasseRequisicao.LEITURA.getMaximo(200)).isEqualTo(40);
+		Assertions.assertThat(ClasseRequisicao.ESCRITA.getMaximo(200)).isEqualTo(20);
+		Assertions.assertThat(ClasseRequisicao.AUTENTICACAO.getMaximo(200)).isEqualTo(10);
+		Assertions.assertThat(ClasseRequisicao.LEITURA.getMaximo(400)).isEqualTo(80);
+		for(ClasseRequisicao classe : ClasseRequisicao.values()) {
+			Assertions.assertThat(classe.getInicial(200)).isBetween(classe.getMinimo(200), classe.getMaximo(200));
+		}
+		Assertions.assertThat(ClasseRequisicao.ESCRITA.getInicial(200)).isLessThan(ClasseRequisicao.ESCRITA.getMaximo(200));
+		Assertions.assertThat(ClasseRequisicao.IMPORTACAO.getMinimo(200)).isEqualTo(ClasseRequisicao.IMPORTACAO.getMaximo(200));
+	}
+
+}
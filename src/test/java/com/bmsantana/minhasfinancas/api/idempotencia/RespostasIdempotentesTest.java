@@ -0,0 +1,211 @@
+package com.bmsantana.minhasfinancas.api.idempotencia;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+public class RespostasIdempotentesTest {
+
+	@Test
+	public void repetirRespostaSemExecutarNovamente() {
+		// A repetição com a mesma chave deve receber a resposta original
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(100, 60, 5);
+		AtomicInteger chamadas = new AtomicInteger();
+
+		// Execução
+		ResponseEntity primeira = respostas.executar(1L, "chave", "salvar", "dto", () -> new ResponseEntity(chamadas.incrementAndGet(), HttpStatus.CREATED));
+		ResponseEntity segunda = respostas.executar(1L, "chave", "salvar", "dto", () -> new ResponseEntity(chamadas.incrementAndGet(), HttpStatus.CREATED));
+
+		// Verificação
+		Assertions.assertThat(chamadas.get()).isEqualTo(1);
+		Assertions.assertThat(segunda.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		Assertions.assertThat(segunda.getBody()).isEqualTo(primeira.getBody());
+		Assertions.assertThat(segunda.getHeaders().getFirst(RespostasIdempotentes.CABECALHO_REPETIDA)).isEqualTo("true");
+	}
+
+	@Test
+	public void recusarChaveComOutroConteudo() {
+		// A mesma chave enviada com outro conteúdo deve ser recusada
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(100, 60, 5);
+		respostas.executar(1L, "chave", "salvar", "dto", () -> new ResponseEntity(HttpStatus.CREATED));
+
+		// Execução
+		ResponseEntity resposta = respostas.executar(1L, "chave", "salvar", "outro dto", () -> new ResponseEntity(HttpStatus.CREATED));
+
+		// Verificação
+		Assertions.assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+	}
+
+	@Test
+	public void naoGuardarErroDoServidor() {
+		// Respostas 5xx não devem impedir uma nova tentativa
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(100, 60, 5);
+		AtomicInteger chamadas = new AtomicInteger();
+		respostas.executar(1L, "chave", "salvar", "dto", () -> {
+			chamadas.incrementAndGet();
+			return new ResponseEntity(HttpStatus.SERVICE_UNAVAILABLE);
+		});
+
+		// Execução
+		ResponseEntity resposta = respostas.executar(1L, "chave", "salvar", "dto", () -> {
+			chamadas.incrementAndGet();
+			return new ResponseEntity(HttpStatus.CREATED);
+		});
+
+		// Verificação
+		Assertions.assertThat(chamadas.get()).isEqualTo(2);
+		Assertions.assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+	}
+
+	@Test
+	public void aguardarExecucaoEmAndamento() throws Exception {
+		// Uma repetição concorrente deve aguardar a primeira em vez de executar
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(100, 60, 5);
+		AtomicInteger chamadas = new AtomicInteger();
+		CountDownLatch iniciou = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		// Execução
+		Future<ResponseEntity> primeira = executor.submit(() -> respostas.executar(1L, "chave", "salvar", "dto", () -> {
+			chamadas.incrementAndGet();
+			iniciou.countDown();
+			aguardar(liberar);
+			return new ResponseEntity(HttpStatus.CREATED);
+		}));
+		iniciou.await(5, TimeUnit.SECONDS);
+		Future<ResponseEntity> segunda = executor.submit(() -> respostas.executar(1L, "chave", "salvar", "dto", () -> {
+			chamadas.incrementAndGet();
+			return new ResponseEntity(HttpStatus.CREATED);
+		}));
+		Thread.sleep(100);
+		liberar.countDown();
+
+		// Verificação
+		Assertions.assertThat(primeira.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		Assertions.assertThat(segunda.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		Assertions.assertThat(chamadas.get()).isEqualTo(1);
+		executor.shutdown();
+	}
+
+	@Test
+	public void descartarChavesMaisAntigasAoAtingirLimite() {
+		// Acima do limite de chaves a mais antiga deve ser descartada
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(2, 60, 5);
+		AtomicInteger chamadas = new AtomicInteger();
+		respostas.executar(1L, "a", "salvar", "dto", () -> new ResponseEntity(chamadas.incrementAndGet(), HttpStatus.CREATED));
+		respostas.executar(1L, "b", "salvar", "dto", () -> new ResponseEntity(chamadas.incrementAndGet(), HttpStatus.CREATED));
+		respostas.executar(1L, "c", "salvar", "dto", () -> new ResponseEntity(chamadas.incrementAndGet(), HttpStatus.CREATED));
+
+		// Execução
+		ResponseEntity resposta = respostas.executar(1L, "a", "salvar", "dto", () -> new ResponseEntity(chamadas.incrementAndGet(), HttpStatus.CREATED));
+
+		// Verificação
+		Assertions.assertThat(resposta.getBody()).isEqualTo(4);
+	}
+
+	@Test
+	public void naoDescartarChaveEmAndamentoAoAtingirLimite() throws Exception {
+		// Acima do limite só chaves concluídas saem; a em andamento continua valendo
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(1, 60, 5);
+		AtomicInteger chamadas = new AtomicInteger();
+		CountDownLatch iniciou = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		Future<ResponseEntity> primeira = executor.submit(() -> respostas.executar(1L, "lenta", "salvar", "dto", () -> {
+			chamadas.incrementAndGet();
+			iniciou.countDown();
+			aguardar(liberar);
+			return new ResponseEntity(HttpStatus.CREATED);
+		}));
+		iniciou.await(5, TimeUnit.SECONDS);
+
+		// Execução
+		respostas.executar(1L, "b", "salvar", "dto", () -> new ResponseEntity(HttpStatus.CREATED));
+		respostas.executar(1L, "c", "salvar", "dto", () -> new ResponseEntity(HttpStatus.CREATED));
+		Future<ResponseEntity> repeticao = executor.submit(() -> respostas.executar(1L, "lenta", "salvar", "dto", () -> {
+			chamadas.incrementAndGet();
+			return new ResponseEntity(HttpStatus.CREATED);
+		}));
+		Thread.sleep(100);
+		liberar.countDown();
+
+		// Verificação
+		Assertions.assertThat(primeira.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		Assertions.assertThat(repeticao.get(5, TimeUnit.SECONDS).getHeaders().getFirst(RespostasIdempotentes.CABECALHO_REPETIDA)).isEqualTo("true");
+		Assertions.assertThat(chamadas.get()).isEqualTo(1);
+		executor.shutdown();
+	}
+
+	@Test
+	public void separarChavesPorUsuario() {
+		// A mesma chave usada por outro usuário é uma requisição nova, não um conflito
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(100, 60, 5);
+		respostas.executar(1L, "chave", "salvar", "dto do usuário 1", () -> new ResponseEntity(1, HttpStatus.CREATED));
+
+		// Execução
+		ResponseEntity resposta = respostas.executar(2L, "chave", "salvar", "dto do usuário 2", () -> new ResponseEntity(2, HttpStatus.CREATED));
+
+		// Verificação
+		Assertions.assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		Assertions.assertThat(resposta.getBody()).isEqualTo(2);
+		Assertions.assertThat(resposta.getHeaders().containsKey(RespostasIdempotentes.CABECALHO_REPETIDA)).isFalse();
+	}
+
+	@Test
+	public void limitarEsperaPelaExecucaoEmAndamento() throws Exception {
+		// A repetição não espera indefinidamente: passado o tempo de espera recebe 409
+
+		// Cenário
+		RespostasIdempotentes respostas = new RespostasIdempotentes(100, 60, 0);
+		CountDownLatch iniciou = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<ResponseEntity> primeira = executor.submit(() -> respostas.executar(1L, "chave", "salvar", "dto", () -> {
+			iniciou.countDown();
+			aguardar(liberar);
+			return new ResponseEntity(HttpStatus.CREATED);
+		}));
+		iniciou.await(5, TimeUnit.SECONDS);
+
+		// Execução
+		ResponseEntity repeticao = respostas.executar(1L, "chave", "salvar", "dto", () -> new ResponseEntity(HttpStatus.CREATED));
+		liberar.countDown();
+
+		// Verificação
+		Assertions.assertThat(repeticao.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		Assertions.assertThat(primeira.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		executor.shutdown();
+	}
+
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.bmsantana.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.LancamentoService;
+import com.bmsantana.minhasfinancas.service.OrcamentoService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+
+/**
+ * Passa pelo resource, pelos serviços e pelo banco. Roda com open-in-view
+ * ligado, o caso em que a entidade lida pelo resource é a mesma instância
+ * gerenciada que o serviço altera.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.jpa.open-in-view=true")
+@AutoConfigureMockMvc
+public class LancamentoResourceTest {
+
+	private static final AtomicInteger USUARIOS = new AtomicInteger();
+
+	@TestConfiguration
+	static class Configuracao {
+
+		@Bean
+		ColetorEventos coletorEventos() {
+			return new ColetorEventos();
+		}
+	}
+
+	static class ColetorEventos {
+
+		final List<LancamentoAlteradoEvento> eventos = new CopyOnWriteArrayList<>();
+
+		@EventListener
+		public void aoAlterar(LancamentoAlteradoEvento evento) {
+			eventos.add(evento);
+		}
+	}
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	UsuarioService usuarioService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	OrcamentoService orcamentoService;
+
+	@Autowired
+	ColetorEventos coletor;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		int numero = USUARIOS.incrementAndGet();
+		usuario = usuarioService.salvarUsuario(Usuario.builder()
+				.nome("usuario" + numero).email("recurso" + numero + "@email.com").senha("senha").build());
+	}
+
+	private Lancamento lancar(String valor, TipoLancamento tipo) {
+		return lancamentoService.salvar(Lancamento.builder().descricao("Lançamento").ano(2020).mes(1)
+				.valor(new BigDecimal(valor)).tipo(tipo).usuario(usuario).build());
+	}
+
+	private void atualizarStatus(Lancamento lancamento, StatusLancamento status) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.put("/api/lancamentos/" + lancamento.getId() + "/atualiza-status")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"status\":\"" + status + "\"}"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("status").value(status.name()));
+	}
+
+	@Test
+	public void publicarStatusAnteriorAoAtualizarStatus() throws Exception {
+		// O evento da troca de status leva o status gravado antes da requisição
+
+		// Cenário
+		Lancamento lancamento = lancar("40.00", TipoLancamento.DESPESA);
+		coletor.eventos.clear();
+
+		// Execução
+		atualizarStatus(lancamento, StatusLancamento.EFETIVADO);
+
+		// Verificação
+		Assertions.assertThat(coletor.eventos).hasSize(1);
+		LancamentoAlteradoEvento evento = coletor.eventos.get(0);
+		Assertions.assertThat(evento.getTipo()).isEqualTo(TipoAlteracaoLancamento.STATUS_ALTERADO);
+		Assertions.assertThat(evento.getAnterior().getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		Assertions.assertThat(evento.getLancamento().getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		Assertions.assertThat(lancamentoService.obterPorId(lancamento.getId()).get().getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+	}
+
+	@Test
+	public void descontarDoOrcamentoDespesaCanceladaPeloStatus() throws Exception {
+		// Cancelar uma despesa pelo endpoint de status tira o valor do total do orçamento
+
+		// Cenário
+		orcamentoService.definirLimite(usuario.getId(), 2020, 1, new BigDecimal("100.00"));
+		Lancamento despesa = lancar("40.00", TipoLancamento.DESPESA);
+
+		// Execução
+		atualizarStatus(despesa, StatusLancamento.CANCELADO);
+
+		// Verificação
+		Assertions.assertThat(orcamentoService.obterSituacao(usuario.getId(), 2020, 1).get().getGasto()).isEqualByComparingTo("0");
+	}
+
+}
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -15,18 +16,25 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.bmsantana.minhasfinancas.api.compartimento.ClasseRequisicao;
+import com.bmsantana.minhasfinancas.api.compartimento.CompartimentosRequisicao;
 import com.bmsantana.minhasfinancas.api.dto.UsuarioDTO;
+import com.bmsantana.minhasfinancas.config.JacksonConfig;
 import com.bmsantana.minhasfinancas.exception.ErroAutenticacao;
 import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
 import com.bmsantana.minhasfinancas.model.entity.Usuario;
 import com.bmsantana.minhasfinancas.service.LancamentoService;
 import com.bmsantana.minhasfinancas.service.UsuarioService;
+import com.bmsantana.minhasfinancas.util.LimiteAdaptativo;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 @WebMvcTest(controllers = UsuarioResource.class)
+@Import(JacksonConfig.class)
 public class UsuarioResourceTest {
 
 	static final String API = "/api/usuarios";
@@ -41,6 +49,9 @@ public class UsuarioResourceTest {
 	@MockBean
 	LancamentoService lancamentoService;
 
+	@Autowired
+	CompartimentosRequisicao compartimentos;
+
 	@Test
 	public void autenticar() throws Exception {
 		// Deve autenticar um usuário
@@ -64,6 +75,33 @@ public class UsuarioResourceTest {
 				.andExpect(MockMvcResultMatchers.jsonPath("email").value(usuario.getEmail()));
 	}
 
+	@Test
+	public void autenticarEmCborESmile() throws Exception {
+		// Deve ler a requisição e responder no formato binário pedido, com os mesmos campos do JSON
+		// Cenário
+		String email = "email@email.com";
+		String senha = "senha";
+		Usuario usuario = Usuario.builder().id(1l).nome("usuario").email(email).senha(senha).build();
+		Mockito.when(service.autenticar(email, senha)).thenReturn(usuario);
+
+		for(MediaType formato : new MediaType[] { MediaType.valueOf("application/cbor"), MediaType.valueOf("application/x-jackson-smile") }) {
+			ObjectMapper mapper = new ObjectMapper(formato.getSubtype().equals("cbor") ? new CBORFactory() : new SmileFactory());
+			byte[] corpo = mapper.writeValueAsBytes(UsuarioDTO.builder().email(email).senha(senha).build());
+
+			// Execução
+			MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(API.concat("/autenticar")).accept(formato)
+					.contentType(formato).content(corpo);
+			byte[] resposta = mvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+					.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(formato))
+					.andReturn().getResponse().getContentAsByteArray();
+
+			// Verificação
+			Usuario lido = mapper.readValue(resposta, Usuario.class);
+			org.assertj.core.api.Assertions.assertThat(lido).extracting(Usuario::getId, Usuario::getNome, Usuario::getEmail, Usuario::getSenha)
+					.containsExactly(1l, "usuario", email, null);
+		}
+	}
+
 	@Test
 	public void badRequestAutenticar() throws Exception {
 		// Deve retornar uma BadRequest ao tentar autenticar um usuário
@@ -125,4 +163,31 @@ public class UsuarioResourceTest {
 		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isBadRequest());
 	}
 
+	@Test
+	public void recusarAutenticacaoComLimiteEsgotado() throws Exception {
+		// Deve responder 503 com Retry-After, sem chamar o serviço, quando as vagas de autenticação estão ocupadas
+		// Cenário
+		LimiteAdaptativo limite = compartimentos.limite(ClasseRequisicao.AUTENTICACAO);
+		int ocupadas = 0;
+		while(limite.adquirir()) {
+			ocupadas++;
+		}
+
+		String jsonUsuario = new ObjectMapper().writeValueAsString(UsuarioDTO.builder().email("email@email.com").senha("senha").build());
+
+		// Execução e verificação
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(API.concat("/autenticar")).accept(JSON)
+				.contentType(JSON).content(jsonUsuario);
+
+		try {
+			mvc.perform(request).andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+					.andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+			Mockito.verify(service, Mockito.never()).autenticar(Mockito.anyString(), Mockito.anyString());
+		} finally {
+			for(int i = 0; i < ocupadas; i++) {
+				limite.liberar(0);
+			}
+		}
+	}
+
 }
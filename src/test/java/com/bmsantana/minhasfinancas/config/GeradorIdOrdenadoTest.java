@@ -0,0 +1,45 @@
+package com.bmsantana.minhasfinancas.config;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.bmsantana.minhasfinancas.util.GeradorIds;
+
+public class GeradorIdOrdenadoTest {
+
+	private static GeradorIdOrdenado configurar(Map<String, Object> configuracao) {
+		ConfigurationService configuracoes = Mockito.mock(ConfigurationService.class);
+		Mockito.when(configuracoes.getSettings()).thenReturn(configuracao);
+		ServiceRegistry registro = Mockito.mock(ServiceRegistry.class);
+		Mockito.when(registro.getService(ConfigurationService.class)).thenReturn(configuracoes);
+		GeradorIdOrdenado gerador = new GeradorIdOrdenado();
+		gerador.configure(null, new Properties(), registro);
+		return gerador;
+	}
+
+	@Test
+	public void gerarIdsDoNoConfigurado() {
+		GeradorIdOrdenado gerador = configurar(Collections.singletonMap(GeradorIdOrdenado.PROPRIEDADE_NO, "7"));
+
+		Assertions.assertThat(GeradorIds.no((Long) gerador.generate(null, null))).isEqualTo(7);
+	}
+
+	@Test
+	public void recusarSubirSemNoConfigurado() {
+		// Sem nó configurado, duas instâncias gerariam os mesmos ids
+
+		Assertions.assertThatThrownBy(() -> configurar(Collections.emptyMap()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining(GeradorIdOrdenado.PROPRIEDADE_NO);
+		Assertions.assertThatThrownBy(() -> configurar(Collections.singletonMap(GeradorIdOrdenado.PROPRIEDADE_NO, "")))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+}
@@ -0,0 +1,273 @@
+package com.bmsantana.minhasfinancas.config.fragmento;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.bmsantana.minhasfinancas.api.dto.ConciliacaoDTO;
+import com.bmsantana.minhasfinancas.api.dto.RebalanceamentoDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.EstatisticaMensal;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.ConciliacaoService;
+import com.bmsantana.minhasfinancas.service.LancamentoService;
+import com.bmsantana.minhasfinancas.service.UsuarioService;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"minhasfinancas.fragmentos.habilitado=true",
+		"minhasfinancas.fragmentos.principal=a",
+		"minhasfinancas.fragmentos.membros=a",
+		"minhasfinancas.fragmentos.fontes.a.url=jdbc:h2:mem:fragmento_a;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:fragmentos.sql'",
+		"minhasfinancas.fragmentos.fontes.a.username=sa",
+		"minhasfinancas.fragmentos.fontes.b.url=jdbc:h2:mem:fragmento_b;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:fragmentos.sql'",
+		"minhasfinancas.fragmentos.fontes.b.username=sa",
+		"spring.jpa.hibernate.ddl-auto=validate" })
+@AutoConfigureMockMvc
+public class FragmentosTest {
+
+	private static final AtomicInteger USUARIOS = new AtomicInteger();
+
+	@Autowired
+	UsuarioService usuarioService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	RebalanceamentoFragmentos rebalanceamento;
+
+	@Autowired
+	DiretorioFragmentos diretorio;
+
+	@Autowired
+	ConciliacaoService conciliacaoService;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	public void moverUsuariosAoAlterarOsFragmentos() {
+		// Todos os dados de cada usuário devem estar num só fragmento, antes e depois de incluir e retirar um fragmento
+
+		// Cenário
+		rebalanceamento.rebalancear(Collections.singletonList("a"));
+		List<Usuario> usuarios = new ArrayList<>();
+		for(int i = 0; i < 20; i++) {
+			Usuario usuario = cadastrar();
+			lancar(usuario, "100.00", TipoLancamento.RECEITA);
+			lancar(usuario, "30.00", TipoLancamento.DESPESA);
+			usuarios.add(usuario);
+		}
+
+		// Execução
+		RebalanceamentoDTO inclusao = rebalanceamento.rebalancear(Arrays.asList("a", "b"));
+
+		// Verificação
+		long noFragmentoB = usuarios.stream().filter(usuario -> diretorio.localizar(usuario.getId()).equals("b")).count();
+		Assertions.assertThat(inclusao.getSituacao()).isEqualTo("CONCLUIDO");
+		Assertions.assertThat(noFragmentoB).isBetween(1L, 19L);
+		// Usuários de outros testes também se movem; todos os que estão em b vieram de a
+		long todosNoFragmentoB = new JdbcTemplate(diretorio.fonte("a")).queryForList("select id from financas.usuario", Long.class)
+				.stream().filter(id -> diretorio.localizar(id).equals("b")).count();
+		Assertions.assertThat(inclusao.getUsuariosMovidos()).isEqualTo(todosNoFragmentoB);
+		Assertions.assertThat(diretorio.fixados()).isEmpty();
+		for(Usuario usuario : usuarios) {
+			String fragmento = diretorio.localizar(usuario.getId());
+			String outro = fragmento.equals("a") ? "b" : "a";
+			Assertions.assertThat(contar(fragmento, usuario)).isEqualTo(2);
+			Assertions.assertThat(contar(outro, usuario)).isZero();
+			Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo("70");
+			Assertions.assertThat(usuarioService.obterPorId(usuario.getId())).isPresent();
+		}
+
+		// Execução
+		RebalanceamentoDTO retirada = rebalanceamento.rebalancear(Collections.singletonList("a"));
+
+		// Verificação
+		Assertions.assertThat(retirada.getUsuariosMovidos()).isGreaterThanOrEqualTo(noFragmentoB);
+		for(Usuario usuario : usuarios) {
+			Assertions.assertThat(diretorio.localizar(usuario.getId())).isEqualTo("a");
+			Assertions.assertThat(contar("a", usuario)).isEqualTo(2);
+			Assertions.assertThat(contar("b", usuario)).isZero();
+		}
+	}
+
+	@Test
+	public void gravarNovosUsuariosNoFragmentoDoAnel() {
+		// Lançamentos de um usuário novo vão para o fragmento indicado pelo anel e são achados pelo id
+
+		// Cenário
+		rebalanceamento.rebalancear(Arrays.asList("a", "b"));
+		Usuario usuario = cadastrar();
+		while(!diretorio.localizar(usuario.getId()).equals("b")) {
+			usuario = cadastrar();
+		}
+
+		// Execução
+		Lancamento lancamento = lancar(usuario, "50.00", TipoLancamento.DESPESA);
+
+		// Verificação
+		Assertions.assertThat(contar("b", usuario)).isEqualTo(1);
+		Assertions.assertThat(contar("a", usuario)).isZero();
+		Assertions.assertThat(lancamentoService.obterPorId(lancamento.getId())).isPresent();
+		Assertions.assertThat(usuarioService.obterPorId(usuario.getId()).get().getEmail()).isEqualTo(usuario.getEmail());
+	}
+
+	@Test
+	public void recarregarAlteracoesDeOutraInstancia() {
+		// Usuários fixados por outra instância devem valer aqui depois da verificação
+
+		// Cenário
+		rebalanceamento.rebalancear(Collections.singletonList("a"));
+		Long idUsuario = 999_999L;
+		DiretorioFragmentos outraInstancia = new DiretorioFragmentos(diretorio.fontes(), "a", 128, 10000);
+		outraInstancia.iniciar(Collections.singletonList("a"));
+		try {
+			// Execução
+			outraInstancia.fixar(idUsuario, "b");
+			diretorio.verificar();
+			String fixado = diretorio.localizar(idUsuario);
+			outraInstancia.liberar(idUsuario);
+			diretorio.verificar();
+
+			// Verificação
+			Assertions.assertThat(fixado).isEqualTo("b");
+			Assertions.assertThat(diretorio.localizar(idUsuario)).isEqualTo("a");
+			Assertions.assertThat(diretorio.outrasInstanciasAtivas()).isEqualTo(1);
+			Assertions.assertThatThrownBy(() -> rebalanceamento.rebalancear(Arrays.asList("a", "b")))
+					.isInstanceOf(RegraNegocioException.class);
+			Assertions.assertThat(diretorio.anel().membros()).containsExactly("a");
+		} finally {
+			outraInstancia.encerrar();
+		}
+		Assertions.assertThat(diretorio.outrasInstanciasAtivas()).isZero();
+	}
+
+	@Test
+	public void esperarTrocaDoAnelParaCopiarCadastroNovo() throws Exception {
+		// Um cadastro durante a troca do anel só é copiado depois dela, já com o anel novo
+
+		// Cenário
+		rebalanceamento.rebalancear(Collections.singletonList("a"));
+		Lock troca = diretorio.bloqueioCadastro().writeLock();
+		troca.lock();
+		CompletableFuture<Usuario> cadastro;
+		try {
+			// Execução
+			cadastro = CompletableFuture.supplyAsync(this::cadastrar);
+			Thread.sleep(200);
+
+			// Verificação
+			Assertions.assertThat(cadastro).isNotDone();
+		} finally {
+			troca.unlock();
+		}
+		Usuario usuario = cadastro.get(5, TimeUnit.SECONDS);
+		Assertions.assertThat(usuarioService.obterPorId(usuario.getId())).isPresent();
+	}
+
+	@Test
+	public void conciliarTodosOsFragmentos() {
+		// A conciliação lê os lançamentos de cada fragmento, não só os do principal
+
+		// Cenário
+		rebalanceamento.rebalancear(Arrays.asList("a", "b"));
+		Usuario emA = cadastrarEm("a");
+		Usuario emB = cadastrarEm("b");
+		lancamentoService.salvar(Lancamento.builder().descricao("Lançamento").ano(1999).mes(3)
+				.valor(new BigDecimal("10.00")).tipo(TipoLancamento.RECEITA).usuario(emA).build());
+		lancamentoService.salvar(Lancamento.builder().descricao("Lançamento").ano(1999).mes(3)
+				.valor(new BigDecimal("25.00")).tipo(TipoLancamento.RECEITA).usuario(emB).build());
+
+		// Execução
+		ConciliacaoDTO conciliacao = conciliacaoService.executar();
+
+		// Verificação
+		long usuariosComLancamentos = 0;
+		for(String fragmento : diretorio.nomes()) {
+			usuariosComLancamentos += new JdbcTemplate(diretorio.fonte(fragmento))
+					.queryForList("select distinct id_usuario from financas.lancamento", Long.class)
+					.stream().filter(id -> diretorio.localizar(id).equals(fragmento)).count();
+		}
+		EstatisticaMensal marco = conciliacaoService.obterEstatisticas().stream()
+				.filter(estatistica -> estatistica.getAno() == 1999 && estatistica.getMes() == 3)
+				.findFirst().get();
+		Assertions.assertThat(conciliacao.getSituacao()).isEqualTo("CONCLUIDA");
+		Assertions.assertThat(conciliacao.getUsuariosProcessados()).isEqualTo(usuariosComLancamentos);
+		Assertions.assertThat(marco.getReceitas()).isEqualByComparingTo("35");
+		Assertions.assertThat(marco.getUsuariosAtivos()).isEqualTo(2L);
+	}
+
+	@Test
+	public void alterarPelaApiLancamentoDeOutroFragmento() throws Exception {
+		// Cada transação da requisição usa a conexão do fragmento do usuário, não a da primeira consulta
+
+		// Cenário
+		rebalanceamento.rebalancear(Arrays.asList("a", "b"));
+		Usuario usuario = cadastrarEm("b");
+		Lancamento lancamento = lancar(usuario, "50.00", TipoLancamento.DESPESA);
+		JdbcTemplate fragmentoB = new JdbcTemplate(diretorio.fonte("b"));
+
+		// Execução
+		mvc.perform(MockMvcRequestBuilders.put("/api/lancamentos/" + lancamento.getId() + "/atualiza-status")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"status\":\"EFETIVADO\"}"))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		String status = fragmentoB.queryForObject("select status from financas.lancamento where id = ?", String.class,
+				lancamento.getId());
+		mvc.perform(MockMvcRequestBuilders.delete("/api/lancamentos/" + lancamento.getId()))
+				.andExpect(MockMvcResultMatchers.status().isNoContent());
+
+		// Verificação
+		Assertions.assertThat(status).isEqualTo("EFETIVADO");
+		Assertions.assertThat(contar("b", usuario)).isZero();
+	}
+
+	private Usuario cadastrarEm(String fragmento) {
+		Usuario usuario = cadastrar();
+		while(!diretorio.localizar(usuario.getId()).equals(fragmento)) {
+			usuario = cadastrar();
+		}
+		return usuario;
+	}
+
+	private Usuario cadastrar() {
+		int numero = USUARIOS.incrementAndGet();
+		return usuarioService.salvarUsuario(Usuario.builder()
+				.nome("usuario" + numero).email("fragmento" + numero + "@email.com").senha("senha").build());
+	}
+
+	private Lancamento lancar(Usuario usuario, String valor, TipoLancamento tipo) {
+		return lancamentoService.salvar(Lancamento.builder().descricao("Lançamento").ano(2020).mes(1)
+				.valor(new BigDecimal(valor)).tipo(tipo).usuario(usuario).build());
+	}
+
+	private int contar(String fragmento, Usuario usuario) {
+		return new JdbcTemplate(diretorio.fonte(fragmento))
+				.queryForObject("select count(*) from financas.lancamento where id_usuario = ?", Integer.class, usuario.getId());
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.bmsantana.minhasfinancas.config.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.util.FragmentosJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SerializadorLancamentoEncerradoTest {
+
+	private final FragmentosJson fragmentos = new FragmentosJson("teste", 1024 * 1024);
+	private final ObjectMapper padrao = Jackson2ObjectMapperBuilder.json().build();
+	private final ObjectMapper comFragmentos = Jackson2ObjectMapperBuilder.json()
+			.modulesToInstall(LancamentosJsonConfig.criarModulo(fragmentos)).build();
+
+	private static Lancamento lancamento(long id, StatusLancamento status) {
+		return Lancamento.builder().id(id).descricao("Mercado \"Central\"").categoria("Alimentação").ano(2020).mes(1)
+				.valor(new BigDecimal("350.25")).tipo(TipoLancamento.DESPESA).status(status)
+				.dataCadastro(LocalDate.of(2020, 1, 10))
+				.usuario(Usuario.builder().id(1L).nome("usuario").email("usuario@email.com").senha("senha").build())
+				.build();
+	}
+
+	@Test
+	public void gerarOMesmoJsonDoPadrao() throws Exception {
+		// A lista montada com fragmentos deve ser idêntica à serialização padrão, inclusive na segunda vez
+
+		// Cenário
+		List<Lancamento> lancamentos = Arrays.asList(lancamento(1, StatusLancamento.EFETIVADO),
+				lancamento(2, StatusLancamento.PENDENTE), lancamento(3, StatusLancamento.CANCELADO));
+		String esperado = padrao.writeValueAsString(lancamentos);
+
+		// Execução
+		byte[] primeira = comFragmentos.writeValueAsBytes(lancamentos);
+		byte[] segunda = comFragmentos.writeValueAsBytes(lancamentos);
+
+		// Verificação
+		Assertions.assertThat(new String(primeira, "UTF-8")).isEqualTo(esperado);
+		Assertions.assertThat(new String(segunda, "UTF-8")).isEqualTo(esperado);
+		Assertions.assertThat(fragmentos.bytes()).isPositive();
+	}
+
+	@Test
+	public void naoGuardarLancamentoPendente() throws Exception {
+		// Só lançamentos efetivados ou cancelados viram fragmentos
+
+		// Execução
+		comFragmentos.writeValueAsBytes(lancamento(1, StatusLancamento.PENDENTE));
+
+		// Verificação
+		Assertions.assertThat(fragmentos.bytes()).isZero();
+	}
+
+	@Test
+	public void naoConfundirValoresComMesmoHashCode() throws Exception {
+		// Valores diferentes com o mesmo hashCode não podem devolver o JSON guardado do outro
+
+		// Cenário
+		Lancamento lancamento = lancamento(1, StatusLancamento.EFETIVADO);
+		comFragmentos.writeValueAsBytes(lancamento);
+		BigDecimal mesmoHashCode = new BigDecimal(BigInteger.valueOf(35024), 33);
+		Assertions.assertThat(mesmoHashCode.hashCode()).isEqualTo(lancamento.getValor().hashCode());
+
+		// Execução
+		lancamento.setValor(mesmoHashCode);
+		String json = new String(comFragmentos.writeValueAsBytes(lancamento), "UTF-8");
+
+		// Verificação
+		Assertions.assertThat(json).isEqualTo(padrao.writeValueAsString(lancamento));
+	}
+
+	@Test
+	public void seguirOpcoesDoGeradorDaAplicacao() throws Exception {
+		// Opções do ObjectMapper da aplicação, como escapar não-ASCII e indentar, valem também para os fragmentos
+
+		// Cenário
+		List<Lancamento> lancamentos = Arrays.asList(lancamento(1, StatusLancamento.EFETIVADO), lancamento(3, StatusLancamento.CANCELADO));
+		ObjectMapper escapandoPadrao = Jackson2ObjectMapperBuilder.json().featuresToEnable(JsonGenerator.Feature.ESCAPE_NON_ASCII).build();
+		ObjectMapper escapandoComFragmentos = Jackson2ObjectMapperBuilder.json().featuresToEnable(JsonGenerator.Feature.ESCAPE_NON_ASCII)
+				.modulesToInstall(LancamentosJsonConfig.criarModulo(fragmentos)).build();
+		ObjectMapper indentandoPadrao = Jackson2ObjectMapperBuilder.json().indentOutput(true).build();
+		ObjectMapper indentandoComFragmentos = Jackson2ObjectMapperBuilder.json().indentOutput(true)
+				.modulesToInstall(LancamentosJsonConfig.criarModulo(fragmentos)).build();
+		comFragmentos.writeValueAsBytes(lancamentos);
+
+		// Execução
+		String escapado = new String(escapandoComFragmentos.writeValueAsBytes(lancamentos), "UTF-8");
+		String indentado = new String(indentandoComFragmentos.writeValueAsBytes(lancamentos), "UTF-8");
+
+		// Verificação
+		Assertions.assertThat(escapado).isEqualTo(escapandoPadrao.writeValueAsString(lancamentos)).contains("\\u00E7");
+		Assertions.assertThat(indentado).isEqualTo(indentandoPadrao.writeValueAsString(lancamentos));
+	}
+
+	@Test
+	public void refletirAlteracaoDoLancamento() throws Exception {
+		// Um lançamento alterado depois de guardado não pode sair com o JSON antigo
+
+		// Cenário
+		Lancamento lancamento = lancamento(1, StatusLancamento.EFETIVADO);
+		comFragmentos.writeValueAsBytes(lancamento);
+
+		// Execução
+		lancamento.setStatus(StatusLancamento.CANCELADO);
+		lancamento.setDescricao("Mercado");
+		String json = new String(comFragmentos.writeValueAsBytes(lancamento), "UTF-8");
+
+		// Verificação
+		Assertions.assertThat(json).isEqualTo(padrao.writeValueAsString(lancamento));
+		Assertions.assertThat(json).contains("\"descricao\":\"Mercado\"").contains("CANCELADO");
+	}
+
+	@Test
+	public void escaparJsonBrutoComoString() throws Exception {
+		// As formas "quoted" do JSON bruto são o JSON escapado como conteúdo de string
+
+		// Cenário
+		JsonBruto bruto = new JsonBruto("{\"a\":\"ç\"}".getBytes("UTF-8"));
+		byte[] buffer = new byte[64];
+
+		// Execução
+		int tamanho = bruto.appendQuotedUTF8(buffer, 0);
+
+		// Verificação
+		Assertions.assertThat(new String(bruto.asQuotedChars())).isEqualTo("{\\\"a\\\":\\\"ç\\\"}");
+		Assertions.assertThat(new String(buffer, 0, tamanho, "UTF-8")).isEqualTo(new String(bruto.asQuotedChars()));
+		Assertions.assertThat(bruto.appendQuotedUTF8(new byte[4], 0)).isEqualTo(-1);
+	}
+
+}
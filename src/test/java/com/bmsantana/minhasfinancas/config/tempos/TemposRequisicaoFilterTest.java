@@ -0,0 +1,55 @@
+package com.bmsantana.minhasfinancas.config.tempos;
+
+import java.nio.charset.StandardCharsets;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.bmsantana.minhasfinancas.util.TemposRequisicao;
+import com.bmsantana.minhasfinancas.util.TemposRequisicao.Fase;
+
+public class TemposRequisicaoFilterTest {
+
+	@Test
+	public void incluirCabecalhoAntesDoCorpo() throws Exception {
+		// O cabeçalho deve levar as fases medidas até o início do corpo
+
+		// Cenário
+		TemposRequisicaoFilter filtro = new TemposRequisicaoFilter(500, 0.1);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		// Execução
+		filtro.doFilter(new MockHttpServletRequest("GET", "/api/lancamentos"), response, (req, resp) -> {
+			TemposRequisicao.registrar(Fase.USUARIO, TemposRequisicao.marcar());
+			resp.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+			resp.flushBuffer();
+			TemposRequisicao.registrar(Fase.SQL, TemposRequisicao.marcar());
+		});
+
+		// Verificação
+		Assertions.assertThat(response.getHeader(TemposRequisicaoFilter.CABECALHO))
+				.startsWith("usuario;dur=")
+				.contains("total;dur=")
+				.doesNotContain("sql");
+		Assertions.assertThat(TemposRequisicao.marcar()).isZero();
+	}
+
+	@Test
+	public void incluirCabecalhoSemCorpo() throws Exception {
+		// Uma resposta sem corpo recebe o cabeçalho ao final do processamento
+
+		// Cenário
+		TemposRequisicaoFilter filtro = new TemposRequisicaoFilter(500, 0.1);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		// Execução
+		filtro.doFilter(new MockHttpServletRequest("DELETE", "/api/lancamentos/1"), response,
+				(req, resp) -> TemposRequisicao.registrar(Fase.FLUSH, TemposRequisicao.marcar()));
+
+		// Verificação
+		Assertions.assertThat(response.getHeader(TemposRequisicaoFilter.CABECALHO)).startsWith("flush;dur=");
+	}
+
+}
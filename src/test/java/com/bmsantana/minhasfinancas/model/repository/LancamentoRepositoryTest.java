@@ -3,6 +3,7 @@ package com.bmsantana.minhasfinancas.model.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -17,6 +18,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
 import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
 import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
 
@@ -102,4 +104,45 @@ public class LancamentoRepositoryTest {
 		assertThat(lancamentoEncontrado.isPresent()).isTrue();
 	}
 
+	@Test
+	public void obterSaldoPorUsuario() {
+		//Deve somar receitas e subtrair despesas do usuário numa única consulta
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+		Usuario semLancamentos = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		Lancamento receita = criarLancamento();
+		receita.setUsuario(usuario);
+		entityManager.persist(receita);
+		Lancamento despesa = criarLancamento();
+		despesa.setUsuario(usuario);
+		despesa.setTipo(TipoLancamento.DESPESA);
+		despesa.setValor(BigDecimal.valueOf(3));
+		entityManager.persist(despesa);
+		
+		assertThat(repository.obterSaldoPorUsuario(usuario.getId(), TipoLancamento.RECEITA, TipoLancamento.DESPESA)).isEqualByComparingTo("7");
+		assertThat(repository.obterSaldoPorUsuario(semLancamentos.getId(), TipoLancamento.RECEITA, TipoLancamento.DESPESA)).isEqualByComparingTo("0");
+	}
+
+	@Test
+	public void obterTotaisDoAnoPorStatus() {
+		//Deve somar os lançamentos do usuário no ano por mês, tipo e status
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+		for(int mes : new int[] { 1, 1, 2 }) {
+			Lancamento lancamento = criarLancamento();
+			lancamento.setUsuario(usuario);
+			lancamento.setMes(mes);
+			entityManager.persist(lancamento);
+		}
+		Lancamento outroAno = criarLancamento();
+		outroAno.setUsuario(usuario);
+		outroAno.setAno(2019);
+		entityManager.persist(outroAno);
+		
+		List<Object[]> totais = repository.obterTotaisDoAnoPorStatus(usuario.getId(), 2020);
+		
+		assertThat(repository.obterAnosPorUsuario(usuario.getId())).containsExactly(2019, 2020);
+		assertThat(totais).hasSize(2);
+		assertThat(totais.get(0)).containsExactly(1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 2L, new BigDecimal("20.00"));
+		assertThat(totais.get(1)[0]).isEqualTo(2);
+	}
+
 }
@@ -1,5 +1,6 @@
 package com.bmsantana.minhasfinancas.model.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.assertj.core.api.Assertions;
@@ -111,4 +112,20 @@ public class UsuarioRepositoryTest {
 		Assertions.assertThat(result.isPresent()).isFalse();
 	}
 
+	@Test
+	public void obterUsuariosComEmailNaoNormalizado() {
+		//Retorna só os usuários com maiúsculas ou espaços nas pontas do email
+		
+		//cenário
+		entityManager.persist(criarUsuario());
+		entityManager.persist(Usuario.builder().nome("antigo").email("Antigo@Email.com").senha("senha").build());
+		entityManager.persist(Usuario.builder().nome("espaco").email(" espaco@email.com").senha("senha").build());
+		
+		//ação
+		List<Usuario> result = repository.obterComEmailNaoNormalizado();
+		
+		//Verificação
+		Assertions.assertThat(result).extracting(Usuario::getNome).containsExactlyInAnyOrder("antigo", "espaco");
+	}
+
 }
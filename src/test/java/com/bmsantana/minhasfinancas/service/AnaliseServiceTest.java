@@ -0,0 +1,108 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.bmsantana.minhasfinancas.api.dto.ResumoDTO;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.service.impl.AnaliseServiceImpl;
+
+public class AnaliseServiceTest {
+
+	LancamentoRepository repository = Mockito.mock(LancamentoRepository.class);
+
+	AnaliseServiceImpl service = new AnaliseServiceImpl(repository, 100, 30);
+
+	private static Object[] linha(Long id, String valor) {
+		return linha(id, 2020, valor, TipoLancamento.RECEITA, StatusLancamento.PENDENTE);
+	}
+
+	private static Object[] linha(Long id, int ano, String valor, TipoLancamento tipo, StatusLancamento status) {
+		return new Object[] { id, ano, 1, new BigDecimal(valor), tipo, status };
+	}
+
+	private static Lancamento lancamento(Long idUsuario) {
+		return Lancamento.builder().id(10L).descricao("Salário").ano(2020).mes(1).valor(new BigDecimal("100.00"))
+				.tipo(TipoLancamento.RECEITA).usuario(Usuario.builder().id(idUsuario).build()).build();
+	}
+
+	@Test
+	public void moverLancamentoEntreCopiasAoTrocarDeUsuario() {
+		// O lançamento que muda de usuário sai da cópia do anterior e entra na do novo
+
+		// Cenário
+		Mockito.when(repository.obterColunasPorUsuario(1L)).thenReturn(Collections.singletonList(linha(10L, "100.00")));
+		Mockito.when(repository.obterColunasPorUsuario(2L)).thenReturn(Collections.emptyList());
+		service.obterResumo(1L, 2020);
+		service.obterResumo(2L, 2020);
+
+		// Execução
+		service.aoAlterarLancamento(new LancamentoAlteradoEvento(TipoAlteracaoLancamento.ATUALIZADO, lancamento(2L), lancamento(1L)));
+
+		// Verificação
+		Assertions.assertThat(service.obterSaldoEmMemoria(1L)).hasValueSatisfying(saldo -> Assertions.assertThat(saldo).isZero());
+		Assertions.assertThat(service.obterSaldoEmMemoria(2L)).hasValueSatisfying(saldo -> Assertions.assertThat(saldo).isEqualByComparingTo("100"));
+	}
+
+	@Test
+	public void reaplicarTrocaDeUsuarioRecebidaDuranteACarga() throws Exception {
+		// A troca de usuário que chega enquanto a cópia do anterior é carregada é reaplicada ao final da carga
+
+		// Cenário
+		CountDownLatch carregando = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		Mockito.when(repository.obterColunasPorUsuario(1L)).thenAnswer(invocacao -> {
+			carregando.countDown();
+			liberar.await(5, TimeUnit.SECONDS);
+			return Collections.singletonList(linha(10L, "100.00"));
+		});
+		CompletableFuture<ResumoDTO> carga = CompletableFuture.supplyAsync(() -> service.obterResumo(1L, 2020));
+		carregando.await(5, TimeUnit.SECONDS);
+
+		// Execução
+		service.aoAlterarLancamento(new LancamentoAlteradoEvento(TipoAlteracaoLancamento.ATUALIZADO, lancamento(2L), lancamento(1L)));
+		liberar.countDown();
+
+		// Verificação
+		Assertions.assertThat(carga.get(5, TimeUnit.SECONDS).getReceitas()).isZero();
+		Assertions.assertThat(service.obterSaldoEmMemoria(1L)).hasValueSatisfying(saldo -> Assertions.assertThat(saldo).isZero());
+	}
+
+	@Test
+	public void totalizarSoOAnoDoResumo() {
+		// Totais, saldo e totais por status do resumo são do ano pedido, como os meses
+
+		// Cenário
+		Mockito.when(repository.obterColunasPorUsuario(1L)).thenReturn(Arrays.asList(
+				linha(10L, 2019, "500.00", TipoLancamento.RECEITA, StatusLancamento.EFETIVADO),
+				linha(11L, 2020, "100.00", TipoLancamento.RECEITA, StatusLancamento.EFETIVADO),
+				linha(12L, 2020, "30.00", TipoLancamento.DESPESA, StatusLancamento.PENDENTE)));
+
+		// Execução
+		ResumoDTO resumo = service.obterResumo(1L, 2020);
+
+		// Verificação
+		Assertions.assertThat(resumo.getReceitas()).isEqualByComparingTo("100");
+		Assertions.assertThat(resumo.getDespesas()).isEqualByComparingTo("30");
+		Assertions.assertThat(resumo.getSaldo()).isEqualByComparingTo("70");
+		Assertions.assertThat(resumo.getReceitasPorStatus().get("EFETIVADO")).isEqualByComparingTo("100");
+		Assertions.assertThat(resumo.getDespesasPorStatus().get("PENDENTE")).isEqualByComparingTo("30");
+		Assertions.assertThat(resumo.getMeses().get(0).getReceitas()).isEqualByComparingTo("100");
+		Assertions.assertThat(service.obterSaldoEmMemoria(1L)).hasValueSatisfying(saldo -> Assertions.assertThat(saldo).isEqualByComparingTo("570"));
+	}
+
+}
@@ -0,0 +1,272 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.SequenciaAlteracao;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.filtro.FiltroLancamento;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.service.impl.BuscaLancamentoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(BuscaLancamentoServiceImpl.class)
+public class BuscaLancamentoServiceTest {
+
+	@Autowired
+	BuscaLancamentoServiceImpl service;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+		criarLancamento("Mercado", "Alimentação", 2019, 11, "120.00", TipoLancamento.DESPESA);
+		criarLancamento("Salário", null, 2019, 12, "3000.00", TipoLancamento.RECEITA);
+		criarLancamento("Restaurante", "Alimentação", 2020, 1, "80.00", TipoLancamento.DESPESA);
+		criarLancamento("Aluguel", "Moradia", 2020, 2, "1500.00", TipoLancamento.DESPESA);
+		entityManager.flush();
+	}
+
+	private void criarLancamento(String descricao, String categoria, int ano, int mes, String valor, TipoLancamento tipo) {
+		entityManager.persist(Lancamento.builder().descricao(descricao).categoria(categoria).ano(ano).mes(mes)
+				.valor(new BigDecimal(valor)).tipo(tipo).status(StatusLancamento.PENDENTE).usuario(usuario).build());
+	}
+
+	private List<String> descricoes(List<Lancamento> lancamentos) {
+		return lancamentos.stream().map(Lancamento::getDescricao).collect(Collectors.toList());
+	}
+
+	@Test
+	public void buscarPorFaixaDeValorECompetencia() {
+		// Deve filtrar por período que atravessa o ano e por faixa de valor, na ordem pedida
+
+		// Cenário
+		FiltroLancamento filtro = FiltroLancamento.builder()
+				.usuario(usuario.getId())
+				.inicio(YearMonth.of(2019, 12))
+				.fim(YearMonth.of(2020, 2))
+				.valorMinimo(new BigDecimal("100"))
+				.ordenacao(Collections.singletonList("valor:desc"))
+				.build();
+
+		// Execução
+		List<Lancamento> resultado = service.buscar(filtro);
+
+		// Verificação
+		Assertions.assertThat(descricoes(resultado)).containsExactly("Salário", "Aluguel");
+	}
+
+	@Test
+	public void buscarPorTipoEAno() {
+		// Deve combinar lista de tipos com o ano informado
+
+		// Cenário
+		FiltroLancamento filtro = FiltroLancamento.builder()
+				.usuario(usuario.getId())
+				.ano(2020)
+				.tipos(EnumSet.of(TipoLancamento.DESPESA))
+				.ordenacao(Arrays.asList("competencia:desc"))
+				.build();
+
+		// Execução
+		List<Lancamento> resultado = service.buscar(filtro);
+
+		// Verificação
+		Assertions.assertThat(descricoes(resultado)).containsExactly("Aluguel", "Restaurante");
+	}
+
+	@Test
+	public void buscarPorCategoriaComFaixaDeValor() {
+		// Deve aplicar a faixa de valor e a ordenação também na busca pelo índice de categorias
+
+		// Cenário
+		FiltroLancamento filtro = FiltroLancamento.builder()
+				.usuario(usuario.getId())
+				.categorias(Collections.singleton("alimentacao"))
+				.valorMaximo(new BigDecimal("100"))
+				.ordenacao(Collections.singletonList("descricao"))
+				.build();
+
+		// Execução
+		List<Lancamento> resultado = service.buscar(filtro);
+
+		// Verificação
+		Assertions.assertThat(descricoes(resultado)).containsExactly("Restaurante");
+	}
+
+	@Test
+	public void buscarCategoriaComGrafiasDiferentesOrdenadaPeloBanco() {
+		// Categorias com e sem acento entram na mesma busca, feita e ordenada pelo banco
+
+		// Cenário
+		criarLancamento("Feira", "ALIMENTACAO", 2020, 3, "45.00", TipoLancamento.DESPESA);
+		entityManager.flush();
+		FiltroLancamento filtro = FiltroLancamento.builder()
+				.usuario(usuario.getId())
+				.categorias(Collections.singleton("Alimentação"))
+				.ordenacao(Collections.singletonList("valor:desc"))
+				.build();
+
+		// Execução
+		List<Lancamento> resultado = service.buscar(filtro);
+
+		// Verificação
+		Assertions.assertThat(descricoes(resultado)).containsExactly("Mercado", "Restaurante", "Feira");
+	}
+
+	@Test
+	public void buscarDescricaoComCuringasComoTexto() {
+		// % e _ na descrição procurada são texto, não curingas do like
+
+		// Cenário
+		criarLancamento("Desconto 10%", null, 2020, 3, "10.00", TipoLancamento.RECEITA);
+		criarLancamento("conta_luz", null, 2020, 3, "90.00", TipoLancamento.DESPESA);
+		entityManager.flush();
+
+		// Execução
+		List<Lancamento> porcentagem = service.buscar(FiltroLancamento.builder().usuario(usuario.getId()).descricao("%").build());
+		List<Lancamento> sublinhado = service.buscar(FiltroLancamento.builder().usuario(usuario.getId()).descricao("_").build());
+
+		// Verificação
+		Assertions.assertThat(descricoes(porcentagem)).containsExactly("Desconto 10%");
+		Assertions.assertThat(descricoes(sublinhado)).containsExactly("conta_luz");
+	}
+
+	@Test
+	public void invalidarBuscaGuardadaAoAlterarMesAbrangido() {
+		// Um novo lançamento deve invalidar só as buscas cujo período inclui o seu mês
+
+		// Cenário
+		FiltroLancamento ano2020 = FiltroLancamento.builder().usuario(usuario.getId()).ano(2020).build();
+		FiltroLancamento ano2019 = FiltroLancamento.builder().usuario(usuario.getId()).ano(2019).build();
+		service.buscar(ano2020);
+		List<Lancamento> guardado2019 = service.buscar(ano2019);
+		Lancamento novo = entityManager.persist(Lancamento.builder().descricao("Luz").ano(2020).mes(3)
+				.valor(new BigDecimal("90.00")).tipo(TipoLancamento.DESPESA).status(StatusLancamento.PENDENTE).usuario(usuario).build());
+		entityManager.flush();
+
+		// Execução
+		service.aoAlterarLancamento(new LancamentoAlteradoEvento(TipoAlteracaoLancamento.CRIADO, novo, null));
+
+		// Verificação
+		Assertions.assertThat(descricoes(service.buscar(ano2020))).containsExactly("Restaurante", "Aluguel", "Luz");
+		criarLancamento("Gravado sem evento", null, 2019, 12, "10.00", TipoLancamento.DESPESA);
+		entityManager.flush();
+		Assertions.assertThat(descricoes(service.buscar(ano2019))).isEqualTo(descricoes(guardado2019));
+	}
+
+	@Test
+	public void descartarBuscaGuardadaAoMudarAVersaoDoUsuario() {
+		// Uma alteração feita em outra instância não gera evento aqui, mas avança a versão do usuário no banco
+
+		// Cenário
+		FiltroLancamento alimentacao = FiltroLancamento.builder()
+				.usuario(usuario.getId())
+				.categorias(Collections.singleton("alimentacao"))
+				.build();
+		Assertions.assertThat(descricoes(service.buscar(alimentacao))).containsExactlyInAnyOrder("Mercado", "Restaurante");
+		criarLancamento("Feira", "Alimentacão", 2020, 3, "45.00", TipoLancamento.DESPESA);
+		entityManager.persist(SequenciaAlteracao.builder().idUsuario(usuario.getId()).versao(1L).versaoMinima(0L).build());
+		entityManager.flush();
+
+		// Execução
+		List<Lancamento> resultado = service.buscar(alimentacao);
+
+		// Verificação
+		Assertions.assertThat(descricoes(resultado)).containsExactlyInAnyOrder("Mercado", "Restaurante", "Feira");
+	}
+
+	@Test
+	public void devolverCopiasDoResultadoGuardado() {
+		// Alterar o que uma busca devolveu não altera o cache nem o banco
+
+		// Cenário
+		FiltroLancamento filtro = FiltroLancamento.builder().usuario(usuario.getId()).ano(2020).build();
+		List<Lancamento> primeira = service.buscar(filtro);
+
+		// Execução
+		primeira.get(0).setDescricao("Alterada");
+		primeira.get(0).getUsuario().setNome("alterado");
+		entityManager.flush();
+		entityManager.clear();
+
+		// Verificação
+		List<Lancamento> segunda = service.buscar(filtro);
+		Assertions.assertThat(descricoes(segunda)).containsExactly("Restaurante", "Aluguel");
+		Assertions.assertThat(segunda.get(0).getUsuario().getNome()).isEqualTo("usuario");
+		Assertions.assertThat(entityManager.find(Lancamento.class, segunda.get(0).getId()).getDescricao()).isEqualTo("Restaurante");
+	}
+
+	@Test
+	public void retirarDoIndiceDoUsuarioAnteriorAoTrocarDeUsuario() {
+		// O lançamento que muda de usuário não deve mais aparecer nas buscas do usuário anterior
+
+		// Cenário
+		Usuario outro = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		FiltroLancamento alimentacao = FiltroLancamento.builder()
+				.usuario(usuario.getId())
+				.categorias(Collections.singleton("alimentacao"))
+				.build();
+		Assertions.assertThat(descricoes(service.buscar(alimentacao))).containsExactlyInAnyOrder("Mercado", "Restaurante");
+		Lancamento restaurante = entityManager.getEntityManager()
+				.createQuery("select l from Lancamento l where l.descricao = 'Restaurante'", Lancamento.class).getSingleResult();
+		Lancamento anterior = restaurante.toBuilder().build();
+		restaurante.setUsuario(outro);
+		entityManager.flush();
+
+		// Execução
+		service.aoAlterarLancamento(new LancamentoAlteradoEvento(TipoAlteracaoLancamento.ATUALIZADO, restaurante, anterior));
+
+		// Verificação
+		Assertions.assertThat(descricoes(service.buscar(alimentacao))).containsExactly("Mercado");
+		Assertions.assertThat(descricoes(service.buscar(FiltroLancamento.builder().usuario(outro.getId())
+				.categorias(Collections.singleton("alimentacao")).build()))).containsExactly("Restaurante");
+	}
+
+	@Test
+	public void erroOrdenacaoInvalida() {
+		// Deve rejeitar campos de ordenação desconhecidos
+
+		// Cenário
+		FiltroLancamento filtro = FiltroLancamento.builder()
+				.usuario(usuario.getId())
+				.ordenacao(Collections.singletonList("senha"))
+				.build();
+
+		// Execução e Verificação
+		Assertions.assertThatThrownBy(() -> service.buscar(filtro))
+				.isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Ordenação inválida: senha");
+	}
+
+}
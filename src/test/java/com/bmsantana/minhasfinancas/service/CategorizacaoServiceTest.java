@@ -0,0 +1,131 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.RegraCategoria;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.impl.CategorizacaoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.SincronizacaoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ CategorizacaoServiceImpl.class, LancamentoServiceImpl.class, SincronizacaoServiceImpl.class })
+public class CategorizacaoServiceTest {
+
+	@Autowired
+	CategorizacaoService service;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+		service.recarregar();
+	}
+
+	private RegraCategoria regra(Usuario usuario, String termo, String categoria) {
+		return service.salvar(RegraCategoria.builder().usuario(usuario).termo(termo).categoria(categoria).build());
+	}
+
+	@Test
+	public void preferirRegrasDoUsuario() {
+		// As regras do usuário valem antes das globais, que valem para todos
+
+		// Cenário
+		Usuario outro = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		regra(null, "mercado", "Alimentação");
+		regra(null, "posto", "Transporte");
+		regra(usuario, "mercado", "Casa");
+
+		// Execução e Verificação
+		Assertions.assertThat(service.classificar(usuario.getId(), "Mercado Central")).contains("Casa");
+		Assertions.assertThat(service.classificar(usuario.getId(), "Posto BR")).contains("Transporte");
+		Assertions.assertThat(service.classificar(outro.getId(), "Mercado Central")).contains("Alimentação");
+		Assertions.assertThat(service.classificar(outro.getId(), "Cinema")).isEmpty();
+	}
+
+	@Test
+	public void trocarAutomatoAoAlterarRegras() {
+		// Incluir ou remover uma regra deve valer na classificação seguinte
+
+		// Cenário
+		RegraCategoria regra = regra(usuario, "academia", "Saúde");
+		Assertions.assertThat(service.classificar(usuario.getId(), "Academia Forma")).contains("Saúde");
+
+		// Execução
+		service.deletar(regra);
+
+		// Verificação
+		Assertions.assertThat(service.classificar(usuario.getId(), "Academia Forma")).isEmpty();
+		Assertions.assertThat(service.buscar(usuario.getId())).isEmpty();
+	}
+
+	@Test
+	public void recarregarTodasAsRegras() {
+		// A recarga deve trazer regras gravadas por fora do serviço
+
+		// Cenário
+		entityManager.persist(RegraCategoria.builder().termo("cinema").categoria("Lazer").build());
+		entityManager.persist(RegraCategoria.builder().usuario(usuario).termo("cinema").categoria("Cultura").build());
+		entityManager.flush();
+		Assertions.assertThat(service.classificar(usuario.getId(), "Cinema Shopping")).isEmpty();
+
+		// Execução
+		service.recarregar();
+
+		// Verificação
+		Assertions.assertThat(service.classificar(usuario.getId(), "Cinema Shopping")).contains("Cultura");
+		Assertions.assertThat(service.classificar(null, "Cinema Shopping")).contains("Lazer");
+	}
+
+	@Test
+	public void categorizarLancamentoSemCategoria() {
+		// Lançamentos novos sem categoria recebem a da regra; os que já têm categoria a mantêm
+
+		// Cenário
+		regra(null, "farmacia", "Saúde");
+		Lancamento.LancamentoBuilder lancamento = Lancamento.builder().usuario(usuario).descricao("Farmácia Popular")
+				.ano(2020).mes(1).valor(BigDecimal.TEN).tipo(TipoLancamento.DESPESA).dataCadastro(LocalDate.now());
+
+		// Execução
+		Lancamento semCategoria = lancamentoService.salvar(lancamento.build());
+		Lancamento comCategoria = lancamentoService.salvar(lancamento.categoria("Presentes").build());
+
+		// Verificação
+		Assertions.assertThat(semCategoria.getCategoria()).isEqualTo("Saúde");
+		Assertions.assertThat(comCategoria.getCategoria()).isEqualTo("Presentes");
+	}
+
+	@Test
+	public void recusarRegraInvalida() {
+		Assertions.assertThatThrownBy(() -> regra(usuario, " - ", "Outros")).isInstanceOf(RegraNegocioException.class);
+		Assertions.assertThatThrownBy(() -> regra(usuario, "padaria", " ")).isInstanceOf(RegraNegocioException.class);
+	}
+
+}
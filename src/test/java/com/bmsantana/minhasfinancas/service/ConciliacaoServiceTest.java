@@ -0,0 +1,143 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bmsantana.minhasfinancas.api.dto.ConciliacaoDTO;
+import com.bmsantana.minhasfinancas.model.entity.EstatisticaMensal;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.EstatisticaMensalRepository;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.model.repository.UsuarioRepository;
+import com.bmsantana.minhasfinancas.service.impl.ConciliacaoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ConciliacaoServiceImpl.class)
+@TestPropertySource(properties = "minhasfinancas.conciliacao.tamanho-faixa=1")
+public class ConciliacaoServiceTest {
+
+	@Autowired
+	ConciliacaoServiceImpl service;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	EstatisticaMensalRepository estatisticaRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	AnaliseService analiseService;
+
+	@AfterEach
+	public void tearDown() {
+		lancamentoRepository.deleteAll();
+		usuarioRepository.deleteAll();
+		estatisticaRepository.deleteAll();
+	}
+
+	private Usuario criarUsuario(String email) {
+		return usuarioRepository.save(Usuario.builder().nome("usuario").email(email).senha("senha").build());
+	}
+
+	private Usuario criarUsuarioAntigo(long id, String email) {
+		jdbcTemplate.update("insert into financas.usuario (id, nome, email, senha) values (?, 'usuario', ?, 'senha')", id, email);
+		return usuarioRepository.findById(id).get();
+	}
+
+	private void criarLancamento(Usuario usuario, int mes, String valor, TipoLancamento tipo) {
+		lancamentoRepository.save(Lancamento.builder().descricao("Lançamento").ano(2020).mes(mes)
+				.valor(new BigDecimal(valor)).tipo(tipo).status(StatusLancamento.PENDENTE).usuario(usuario).build());
+	}
+
+	@Test
+	public void conciliar() {
+		// Deve recalcular as estatísticas mensais e apontar saldos divergentes da memória
+
+		// Cenário
+		Usuario primeiro = criarUsuario("primeiro@email.com");
+		Usuario segundo = criarUsuario("segundo@email.com");
+		criarLancamento(primeiro, 1, "100.00", TipoLancamento.RECEITA);
+		criarLancamento(primeiro, 1, "30.00", TipoLancamento.DESPESA);
+		criarLancamento(segundo, 1, "50.00", TipoLancamento.DESPESA);
+		criarLancamento(segundo, 2, "10.00", TipoLancamento.RECEITA);
+
+		Mockito.when(analiseService.obterSaldoEmMemoria(Mockito.anyLong())).thenReturn(Optional.empty());
+		Mockito.when(analiseService.obterSaldoEmMemoria(primeiro.getId())).thenReturn(Optional.of(new BigDecimal("70.00")));
+		Mockito.when(analiseService.obterSaldoEmMemoria(segundo.getId())).thenReturn(Optional.of(new BigDecimal("-10.00")));
+
+		// Execução
+		ConciliacaoDTO resultado = service.executar();
+
+		// Verificação
+		Assertions.assertThat(resultado.getSituacao()).isEqualTo("CONCLUIDA");
+		Assertions.assertThat(resultado.getUsuariosProcessados()).isEqualTo(2);
+		Assertions.assertThat(resultado.getUsuariosVerificados()).isEqualTo(2);
+		Assertions.assertThat(resultado.getDivergencias()).isEqualTo(1);
+		Assertions.assertThat(resultado.getExemplosDivergencia().get(0).getUsuario()).isEqualTo(segundo.getId());
+
+		List<EstatisticaMensal> estatisticas = service.obterEstatisticas();
+		Assertions.assertThat(estatisticas).hasSize(2);
+		Assertions.assertThat(estatisticas.get(0).getMes()).isEqualTo(1);
+		Assertions.assertThat(estatisticas.get(0).getReceitas()).isEqualByComparingTo("100");
+		Assertions.assertThat(estatisticas.get(0).getDespesas()).isEqualByComparingTo("80");
+		Assertions.assertThat(estatisticas.get(0).getUsuariosAtivos()).isEqualTo(2);
+		Assertions.assertThat(estatisticas.get(1).getUsuariosAtivos()).isEqualTo(1);
+	}
+
+	@Test
+	public void conciliarIdsAntigosEGerados() {
+		// Ids antigos, pequenos, e ids gerados, esparsos e enormes, devem ser processados sem percorrer o intervalo entre eles
+
+		// Cenário
+		Usuario antigo = criarUsuarioAntigo(7, "antigo@email.com");
+		Usuario novo = criarUsuario("novo@email.com");
+		Usuario outroNovo = criarUsuario("outro@email.com");
+		criarLancamento(antigo, 1, "10.00", TipoLancamento.RECEITA);
+		criarLancamento(novo, 1, "20.00", TipoLancamento.RECEITA);
+		criarLancamento(outroNovo, 1, "5.00", TipoLancamento.DESPESA);
+		Mockito.when(analiseService.obterSaldoEmMemoria(Mockito.anyLong())).thenReturn(Optional.empty());
+
+		// Execução
+		ConciliacaoDTO resultado = service.executar();
+
+		// Verificação
+		Assertions.assertThat(novo.getId() - antigo.getId()).isGreaterThan(1_000_000_000L);
+		Assertions.assertThat(resultado.getSituacao()).isEqualTo("CONCLUIDA");
+		Assertions.assertThat(resultado.getUsuariosProcessados()).isEqualTo(3);
+		Assertions.assertThat(service.obterEstatisticas().get(0).getReceitas()).isEqualByComparingTo("30");
+		Assertions.assertThat(service.obterEstatisticas().get(0).getUsuariosAtivos()).isEqualTo(3);
+	}
+
+}
@@ -0,0 +1,193 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.bmsantana.minhasfinancas.config.fragmento.DiretorioFragmentos;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.impl.GravacaoAgrupadaServiceImpl;
+
+public class GravacaoAgrupadaServiceTest {
+
+	LancamentoService service;
+
+	DiretorioFragmentos diretorio;
+
+	GravacaoAgrupadaServiceImpl gravacao;
+
+	@BeforeEach
+	public void setUp() {
+		service = Mockito.mock(LancamentoService.class);
+		diretorio = Mockito.mock(DiretorioFragmentos.class);
+		gravacao = new GravacaoAgrupadaServiceImpl(service, Optional.of(diretorio), 100, 10, 200, 5000);
+		gravacao.iniciar();
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		gravacao.parar();
+	}
+
+	private Lancamento criarLancamento(String descricao) {
+		return criarLancamento(descricao, 1L);
+	}
+
+	private Lancamento criarLancamento(String descricao, Long idUsuario) {
+		return Lancamento.builder().ano(2020).mes(1).descricao(descricao).valor(BigDecimal.TEN)
+				.tipo(TipoLancamento.DESPESA).usuario(Usuario.builder().id(idUsuario).build()).build();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void gravarEmLote() throws Exception {
+		// Pedidos que chegam dentro da janela devem ser gravados numa só transação
+
+		// Cenário
+		Mockito.when(diretorio.localizar(Mockito.anyLong())).thenReturn("a");
+		Mockito.when(service.salvarTodos(Mockito.anyList())).thenAnswer(invocation -> {
+			List<Lancamento> lancamentos = invocation.getArgument(0);
+			long id = 1;
+			for(Lancamento lancamento : lancamentos) {
+				lancamento.setId(id++);
+			}
+			return lancamentos;
+		});
+
+		// Execução
+		List<CompletableFuture<Lancamento>> resultados = new ArrayList<>();
+		for(int i = 0; i < 3; i++) {
+			resultados.add(gravacao.enfileirar(criarLancamento("Lançamento " + i)));
+		}
+
+		// Verificação
+		for(CompletableFuture<Lancamento> resultado : resultados) {
+			Assertions.assertThat(resultado.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+		}
+		Mockito.verify(service, Mockito.times(1)).salvarTodos(Mockito.argThat(lista -> lista.size() == 3));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void isolarFalhaNoLote() throws Exception {
+		// Uma falha no lote não deve impedir a gravação dos demais pedidos
+
+		// Cenário
+		Lancamento invalido = criarLancamento("Inválido");
+		Mockito.when(service.salvarTodos(Mockito.anyList())).thenAnswer(invocation -> {
+			List<Lancamento> lancamentos = invocation.getArgument(0);
+			if(lancamentos.contains(invalido)) {
+				throw new IllegalStateException("falha");
+			}
+			return lancamentos;
+		});
+
+		// Execução
+		CompletableFuture<Lancamento> valido = gravacao.enfileirar(criarLancamento("Válido"));
+		CompletableFuture<Lancamento> comErro = gravacao.enfileirar(invalido);
+
+		// Verificação
+		Assertions.assertThat(valido.get(5, TimeUnit.SECONDS).getDescricao()).isEqualTo("Válido");
+		Throwable erro = Assertions.catchThrowable(() -> comErro.get(5, TimeUnit.SECONDS));
+		Assertions.assertThat(erro).hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void encerrarPedidosESeguirAposError() throws Exception {
+		// Um Error na gravação encerra os pedidos do lote e o gravador continua atendendo a fila
+
+		// Cenário
+		Mockito.when(service.salvarTodos(Mockito.anyList()))
+				.thenThrow(new StackOverflowError())
+				.thenAnswer(invocation -> invocation.getArgument(0));
+
+		// Execução
+		CompletableFuture<Lancamento> comErro = gravacao.enfileirar(criarLancamento("Primeiro"));
+		Throwable erro = Assertions.catchThrowable(() -> comErro.get(5, TimeUnit.SECONDS));
+		CompletableFuture<Lancamento> seguinte = gravacao.enfileirar(criarLancamento("Seguinte"));
+
+		// Verificação
+		Assertions.assertThat(erro).hasCauseInstanceOf(StackOverflowError.class);
+		Assertions.assertThat(seguinte.get(5, TimeUnit.SECONDS).getDescricao()).isEqualTo("Seguinte");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void limitarEsperaDoSalvar() throws Exception {
+		// Sem resposta do gravador, salvar desiste depois do tempo máximo
+
+		// Cenário
+		CountDownLatch liberar = new CountDownLatch(1);
+		Mockito.when(service.salvarTodos(Mockito.anyList())).thenAnswer(invocation -> {
+			liberar.await(5, TimeUnit.SECONDS);
+			return invocation.getArgument(0);
+		});
+		GravacaoAgrupadaServiceImpl lenta = new GravacaoAgrupadaServiceImpl(service, Optional.of(diretorio), 100, 10, 0, 100);
+		lenta.iniciar();
+
+		// Execução
+		Throwable erro = Assertions.catchThrowable(() -> lenta.salvar(criarLancamento("Lento")));
+		liberar.countDown();
+		lenta.parar();
+
+		// Verificação
+		Assertions.assertThat(erro).isInstanceOf(IllegalStateException.class)
+				.hasMessage("Tempo esgotado aguardando a gravação agrupada");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void separarLotePorFragmento() throws Exception {
+		// Usuários em fragmentos diferentes não podem dividir a mesma transação
+
+		// Cenário
+		Mockito.when(diretorio.localizar(1L)).thenReturn("a");
+		Mockito.when(diretorio.localizar(2L)).thenReturn("b");
+		Mockito.when(service.salvarTodos(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		// Execução
+		List<CompletableFuture<Lancamento>> resultados = new ArrayList<>();
+		resultados.add(gravacao.enfileirar(criarLancamento("A1", 1L)));
+		resultados.add(gravacao.enfileirar(criarLancamento("B1", 2L)));
+		resultados.add(gravacao.enfileirar(criarLancamento("A2", 1L)));
+
+		// Verificação
+		for(CompletableFuture<Lancamento> resultado : resultados) {
+			resultado.get(5, TimeUnit.SECONDS);
+		}
+		Mockito.verify(service).salvarTodos(Mockito.argThat(lista -> lista.size() == 2
+				&& lista.stream().allMatch(lancamento -> ((Lancamento) lancamento).getUsuario().getId() == 1L)));
+		Mockito.verify(service).salvarTodos(Mockito.argThat(lista -> lista.size() == 1
+				&& ((Lancamento) lista.get(0)).getUsuario().getId() == 2L));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void gravarDiretamenteDepoisDeParar() throws Exception {
+		// Depois de parar não há quem atenda a fila: o pedido deve ser gravado na hora
+
+		// Cenário
+		Mockito.when(service.salvarTodos(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		gravacao.parar();
+
+		// Execução
+		CompletableFuture<Lancamento> resultado = CompletableFuture.supplyAsync(() -> gravacao.salvar(criarLancamento("Tardio")));
+
+		// Verificação
+		Assertions.assertThat(resultado.get(5, TimeUnit.SECONDS).getDescricao()).isEqualTo("Tardio");
+	}
+
+}
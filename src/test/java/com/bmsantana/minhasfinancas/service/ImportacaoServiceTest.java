@@ -0,0 +1,197 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.bmsantana.minhasfinancas.api.dto.ImportacaoDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.model.repository.LancamentoRepository;
+import com.bmsantana.minhasfinancas.service.importacao.FormatoExtrato;
+import com.bmsantana.minhasfinancas.service.impl.CategorizacaoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.ImportacaoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.SincronizacaoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "minhasfinancas.importacao.tamanho-bloco=2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ ImportacaoServiceImpl.class, LancamentoServiceImpl.class, CategorizacaoServiceImpl.class,
+		SincronizacaoServiceImpl.class })
+public class ImportacaoServiceTest {
+
+	private static final String CSV = "Data;Descrição;Valor;Categoria\r\n"
+			+ "05/01/2020;Salário;5.000,00;Renda\r\n"
+			+ "10/01/2020;Mercado;-350,25;Alimentação\r\n"
+			+ "10/01/2020;Mercado;-350,25;Alimentação\r\n"
+			+ "03/02/2020;\"Aluguel; apto\";-1.200,00;Moradia\r\n";
+
+	@Autowired
+	ImportacaoService service;
+
+	@Autowired
+	LancamentoRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@MockBean
+	UsuarioService usuarioService;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+		Mockito.when(usuarioService.obterPorId(usuario.getId())).thenReturn(Optional.of(usuario));
+	}
+
+	private ImportacaoDTO importar(FormatoExtrato formato, String conteudo) {
+		InputStream entrada = new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+		return service.importar(usuario.getId(), formato, entrada, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void importarCsv() {
+		// Deve converter as linhas em lançamentos, com o tipo pelo sinal e mês/ano pela data
+
+		// Execução
+		ImportacaoDTO resultado = importar(FormatoExtrato.CSV, CSV);
+
+		// Verificação
+		Assertions.assertThat(resultado.getSituacao()).isEqualTo("CONCLUIDA");
+		Assertions.assertThat(resultado.getLinhasLidas()).isEqualTo(4);
+		Assertions.assertThat(resultado.getImportadas()).isEqualTo(4);
+
+		List<Lancamento> lancamentos = repository.findAll();
+		Assertions.assertThat(lancamentos).extracting(Lancamento::getDescricao)
+				.containsExactlyInAnyOrder("Salário", "Mercado", "Mercado", "Aluguel; apto");
+		Lancamento aluguel = lancamentos.stream().filter(l -> l.getDescricao().startsWith("Aluguel")).findFirst().get();
+		Assertions.assertThat(aluguel.getTipo()).isEqualTo(TipoLancamento.DESPESA);
+		Assertions.assertThat(aluguel.getValor()).isEqualByComparingTo(new BigDecimal("1200.00"));
+		Assertions.assertThat(aluguel.getMes()).isEqualTo(2);
+		Assertions.assertThat(aluguel.getAno()).isEqualTo(2020);
+		Assertions.assertThat(aluguel.getCategoria()).isEqualTo("Moradia");
+	}
+
+	@Test
+	public void pularLinhasJaImportadas() {
+		// Reenviar o extrato, com uma linha nova, deve incluir só a nova
+
+		// Cenário
+		importar(FormatoExtrato.CSV, CSV);
+
+		// Execução
+		ImportacaoDTO resultado = importar(FormatoExtrato.CSV, CSV + "04/02/2020;Farmácia;-45,90;Saúde\r\n");
+
+		// Verificação
+		Assertions.assertThat(resultado.getImportadas()).isEqualTo(1);
+		Assertions.assertThat(resultado.getDuplicadas()).isEqualTo(4);
+		Assertions.assertThat(repository.count()).isEqualTo(5);
+	}
+
+	@Test
+	public void rejeitarLinhasInvalidasEContinuar() {
+		// Linhas inválidas são contadas e descritas, sem impedir a importação das demais
+
+		// Cenário
+		String csv = "data,descricao,valor\n"
+				+ "2020-01-05,Salário,5000.00\n"
+				+ "31/02/2020,Data errada,10.00\n"
+				+ "2020-01-06,Sem valor,abc\n"
+				+ "2020-01-07,Zerado,0\n"
+				+ "2020-01-08,Padaria,-12.50\n";
+
+		// Execução
+		ImportacaoDTO resultado = importar(FormatoExtrato.CSV, csv);
+
+		// Verificação
+		Assertions.assertThat(resultado.getImportadas()).isEqualTo(2);
+		Assertions.assertThat(resultado.getRejeitadas()).isEqualTo(3);
+		Assertions.assertThat(resultado.getRejeicoes()).containsExactly(
+				"3: Data inválida: 31/02/2020", "4: Valor inválido: abc", "5: Informe um Valor válido!");
+	}
+
+	@Test
+	public void numerarRepeticoesPorDia() {
+		// Repetições são numeradas dentro do dia; uma linha de um dia já encerrado é rejeitada
+
+		// Cenário
+		String csv = CSV + "03/02/2020;\"Aluguel; apto\";-1.200,00;Moradia\r\n"
+				+ "04/02/2020;Farmácia;-45,90;Saúde\r\n"
+				+ "10/01/2020;Mercado;-350,25;Alimentação\r\n";
+
+		// Execução
+		ImportacaoDTO resultado = importar(FormatoExtrato.CSV, csv);
+
+		// Verificação
+		Assertions.assertThat(resultado.getSituacao()).isEqualTo("CONCLUIDA");
+		Assertions.assertThat(resultado.getImportadas()).isEqualTo(6);
+		Assertions.assertThat(resultado.getDuplicadas()).isZero();
+		Assertions.assertThat(resultado.getRejeicoes())
+				.containsExactly("8: Linha fora da ordem de data: 10/01/2020. Envie o extrato ordenado por data!");
+		Assertions.assertThat(repository.findAll()).extracting(Lancamento::getDescricao)
+				.containsExactlyInAnyOrder("Salário", "Mercado", "Mercado", "Aluguel; apto", "Aluguel; apto", "Farmácia");
+	}
+
+	@Test
+	public void importarOfx() {
+		// Deve ler as transações do OFX 1.x e usar o FITID para reconhecer repetições
+
+		// Cenário
+		String ofx = "OFXHEADER:100\nDATA:OFXSGML\n\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n"
+				+ "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20200115120000[-3:BRT]\n<TRNAMT>-89.90\n<FITID>A1\n<NAME>Loja\n<MEMO>Compra &amp; cia\n</STMTTRN>\n"
+				+ "<STMTTRN>\n<TRNTYPE>CREDIT\n<DTPOSTED>20200120\n<TRNAMT>1500,00\n<FITID>A2\n<NAME>Transferência\n</STMTTRN>\n"
+				+ "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20200115\n<TRNAMT>-89.90\n<FITID>A1\n<MEMO>Compra &amp; cia\n</STMTTRN>\n"
+				+ "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+
+		// Execução
+		ImportacaoDTO resultado = importar(FormatoExtrato.OFX, ofx);
+
+		// Verificação
+		Assertions.assertThat(resultado.getLinhasLidas()).isEqualTo(3);
+		Assertions.assertThat(resultado.getImportadas()).isEqualTo(2);
+		Assertions.assertThat(resultado.getDuplicadas()).isEqualTo(1);
+		Assertions.assertThat(repository.findAll())
+				.extracting(Lancamento::getDescricao, Lancamento::getTipo)
+				.containsExactlyInAnyOrder(
+						Assertions.tuple("Compra & cia", TipoLancamento.DESPESA),
+						Assertions.tuple("Transferência", TipoLancamento.RECEITA));
+	}
+
+	@Test
+	public void recusarCsvSemColunasObrigatorias() {
+		// Um cabeçalho sem as colunas obrigatórias deve recusar o arquivo inteiro
+
+		// Execução
+		Throwable erro = Assertions.catchThrowable(() -> importar(FormatoExtrato.CSV, "data;valor\n05/01/2020;10,00\n"));
+
+		// Verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("O cabeçalho do CSV deve ter as colunas data, descricao e valor!");
+		Assertions.assertThat(service.obterSituacao(usuario.getId()).get().getSituacao()).isEqualTo("FALHOU");
+	}
+
+}
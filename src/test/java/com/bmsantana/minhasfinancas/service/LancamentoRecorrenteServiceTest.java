@@ -0,0 +1,215 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.LancamentoRecorrente;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.impl.CategorizacaoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.LancamentoRecorrenteServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.SincronizacaoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ LancamentoRecorrenteServiceImpl.class, LancamentoServiceImpl.class, CategorizacaoServiceImpl.class,
+		SincronizacaoServiceImpl.class })
+public class LancamentoRecorrenteServiceTest {
+
+	@Autowired
+	LancamentoRecorrenteService service;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+	}
+
+	private LancamentoRecorrente recorrente(YearMonth inicio) {
+		return LancamentoRecorrente.builder().descricao("Aluguel").valor(new BigDecimal("1000.00"))
+				.tipo(TipoLancamento.DESPESA).usuario(usuario)
+				.proximoMes(inicio.getMonthValue()).proximoAno(inicio.getYear()).build();
+	}
+
+	private List<Lancamento> lancamentos() {
+		return entityManager.getEntityManager()
+				.createQuery("select l from Lancamento l where l.usuario.id = :id order by l.ano, l.mes", Lancamento.class)
+				.setParameter("id", usuario.getId())
+				.getResultList();
+	}
+
+	@Test
+	public void gerarLancamentosAteOHorizonte() {
+		// Sem mês final, os lançamentos vão do próximo mês até 3 meses à frente
+
+		// Cenário
+		YearMonth atual = YearMonth.now();
+
+		// Execução
+		LancamentoRecorrente salvo = service.salvar(recorrente(atual));
+
+		// Verificação
+		List<Lancamento> lancamentos = lancamentos();
+		Assertions.assertThat(lancamentos).extracting(l -> YearMonth.of(l.getAno(), l.getMes()))
+				.containsExactly(atual, atual.plusMonths(1), atual.plusMonths(2), atual.plusMonths(3));
+		Assertions.assertThat(lancamentos).allSatisfy(l -> {
+			Assertions.assertThat(l.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+			Assertions.assertThat(l.getDescricao()).isEqualTo("Aluguel");
+		});
+		Assertions.assertThat(YearMonth.of(salvo.getProximoAno(), salvo.getProximoMes())).isEqualTo(atual.plusMonths(4));
+		Assertions.assertThat(salvo.isAtivo()).isTrue();
+		Assertions.assertThat(salvo.getDataCadastro()).isEqualTo(LocalDate.now());
+	}
+
+	@Test
+	public void pararNoMesFinal() {
+		// Com mês final antes do horizonte, gera até ele e encerra a recorrência
+
+		// Cenário
+		YearMonth atual = YearMonth.now();
+		YearMonth fim = atual.plusMonths(1);
+		LancamentoRecorrente recorrente = recorrente(atual);
+		recorrente.setMesFim(fim.getMonthValue());
+		recorrente.setAnoFim(fim.getYear());
+
+		// Execução
+		LancamentoRecorrente salvo = service.salvar(recorrente);
+
+		// Verificação
+		Assertions.assertThat(lancamentos()).extracting(l -> YearMonth.of(l.getAno(), l.getMes())).containsExactly(atual, fim);
+		Assertions.assertThat(salvo.isAtivo()).isFalse();
+		Assertions.assertThat(service.gerarLancamentosPendentes()).isZero();
+		Assertions.assertThat(lancamentos()).hasSize(2);
+	}
+
+	@Test
+	public void gerarPendentesUmaVezSo() {
+		// Recorrências atrasadas são completadas até o horizonte; rodar de novo não duplica
+
+		// Cenário
+		YearMonth inicio = YearMonth.now().minusMonths(2);
+		LancamentoRecorrente recorrente = recorrente(inicio);
+		recorrente.setAtivo(true);
+		entityManager.persist(recorrente);
+
+		// Execução
+		int primeira = service.gerarLancamentosPendentes();
+		int segunda = service.gerarLancamentosPendentes();
+
+		// Verificação
+		Assertions.assertThat(primeira).isEqualTo(6);
+		Assertions.assertThat(segunda).isZero();
+		Assertions.assertThat(lancamentos()).extracting(l -> YearMonth.of(l.getAno(), l.getMes()))
+				.doesNotHaveDuplicates().hasSize(6).startsWith(inicio).endsWith(YearMonth.now().plusMonths(3));
+	}
+
+	@Test
+	public void limitarMesesPorExecucao() {
+		// Um modelo muito atrasado gera no máximo 24 meses por execução e termina nas seguintes
+
+		// Cenário
+		YearMonth inicio = YearMonth.now().minusMonths(30);
+		LancamentoRecorrente recorrente = recorrente(inicio);
+		recorrente.setAtivo(true);
+		entityManager.persist(recorrente);
+
+		// Execução
+		int primeira = service.gerarLancamentosPendentes();
+		int segunda = service.gerarLancamentosPendentes();
+
+		// Verificação
+		Assertions.assertThat(primeira).isEqualTo(24);
+		Assertions.assertThat(segunda).isEqualTo(10);
+		Assertions.assertThat(lancamentos()).extracting(l -> YearMonth.of(l.getAno(), l.getMes()))
+				.doesNotHaveDuplicates().hasSize(34).startsWith(inicio).endsWith(YearMonth.now().plusMonths(3));
+	}
+
+	@Test
+	public void continuarAposFalhaDeUmModelo() {
+		// A falha de um modelo não impede os demais, e ele continua pendente
+
+		// Cenário
+		YearMonth atual = YearMonth.now();
+		LancamentoRecorrente invalido = recorrente(atual);
+		invalido.setValor(BigDecimal.ZERO);
+		invalido.setAtivo(true);
+		entityManager.persist(invalido);
+		LancamentoRecorrente valido = recorrente(atual);
+		valido.setAtivo(true);
+		entityManager.persist(valido);
+
+		// Execução
+		int gerados = service.gerarLancamentosPendentes();
+
+		// Verificação
+		Assertions.assertThat(gerados).isEqualTo(4);
+		Assertions.assertThat(YearMonth.of(invalido.getProximoAno(), invalido.getProximoMes())).isEqualTo(atual);
+		Assertions.assertThat(YearMonth.of(valido.getProximoAno(), valido.getProximoMes())).isEqualTo(atual.plusMonths(4));
+	}
+
+	@Test
+	public void erroModeloInvalido() {
+		// O modelo passa pelas mesmas validações de um lançamento e nada é gravado
+
+		// Cenário
+		LancamentoRecorrente recorrente = recorrente(YearMonth.now());
+		recorrente.setValor(BigDecimal.ZERO);
+
+		// Execução
+		Throwable erro = Assertions.catchThrowable(() -> service.salvar(recorrente));
+
+		// Verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um Valor válido!");
+		Assertions.assertThat(recorrente.getId()).isNull();
+		Assertions.assertThat(lancamentos()).isEmpty();
+	}
+
+	@Test
+	public void erroMesFinalInvalido() {
+		// Mês final incompleto, fora da faixa ou anterior ao início não é aceito
+
+		// Cenário
+		YearMonth atual = YearMonth.now();
+		LancamentoRecorrente semAno = recorrente(atual);
+		semAno.setMesFim(5);
+		LancamentoRecorrente foraDaFaixa = recorrente(atual);
+		foraDaFaixa.setMesFim(13);
+		foraDaFaixa.setAnoFim(atual.getYear());
+		LancamentoRecorrente anterior = recorrente(atual);
+		anterior.setMesFim(atual.minusMonths(1).getMonthValue());
+		anterior.setAnoFim(atual.minusMonths(1).getYear());
+
+		// Execução e Verificação
+		for(LancamentoRecorrente recorrente : new LancamentoRecorrente[] { semAno, foraDaFaixa, anterior }) {
+			Throwable erro = Assertions.catchThrowable(() -> service.salvar(recorrente));
+			Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um Mês/Ano final válido!");
+		}
+		Assertions.assertThat(lancamentos()).isEmpty();
+	}
+
+}
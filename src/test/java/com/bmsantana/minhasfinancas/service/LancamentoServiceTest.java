@@ -12,7 +12,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.data.domain.Example;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -34,6 +33,12 @@ public class LancamentoServiceTest {
 	@MockBean
 	LancamentoRepository repository;
 
+	@MockBean
+	SincronizacaoService sincronizacao;
+
+	@MockBean
+	CategorizacaoService categorizacao;
+
 	private Lancamento criarLancamento() {
 		return Lancamento.builder().ano(2020).mes(01).descricao("Lançamento Teste").valor(BigDecimal.valueOf(10))
 				.tipo(TipoLancamento.RECEITA).status(StatusLancamento.PENDENTE).dataCadastro(LocalDate.now()).build();
@@ -74,6 +79,44 @@ public class LancamentoServiceTest {
 		Mockito.verify(repository, Mockito.never()).save(lancamentoAsalvar);
 	}
 
+	@Test
+	public void salvarParcelado() {
+		// Deve gerar as parcelas mensais, virando o ano e mantendo o valor total
+
+		// Cenário
+		Lancamento lancamento = criarLancamento();
+		lancamento.setMes(11);
+		lancamento.setValor(BigDecimal.valueOf(100));
+		Mockito.doNothing().when(service).validar(lancamento);
+		Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		// Execução
+		List<Lancamento> parcelas = service.salvarParcelado(lancamento, 3);
+
+		// Verificação
+		Assertions.assertThat(parcelas).hasSize(3);
+		Assertions.assertThat(parcelas.get(0).getValor()).isEqualByComparingTo("33.34");
+		Assertions.assertThat(parcelas.get(1).getValor()).isEqualByComparingTo("33.33");
+		Assertions.assertThat(parcelas.get(2).getMes()).isEqualTo(1);
+		Assertions.assertThat(parcelas.get(2).getAno()).isEqualTo(2021);
+		Assertions.assertThat(parcelas.get(2).getDescricao()).isEqualTo("Lançamento Teste (3/3)");
+		Mockito.verify(repository, Mockito.times(1)).saveAll(Mockito.anyList());
+	}
+
+	@Test
+	public void erroQuantidadeParcelas() {
+		// Não deve salvar parcelamento com quantidade de parcelas inválida
+
+		// Cenário
+		Lancamento lancamento = criarLancamento();
+
+		// Execução e Verificação
+		Throwable erro = Assertions.catchThrowable(() -> service.salvarParcelado(lancamento, 1));
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Informe uma quantidade de parcelas válida!");
+		Mockito.verify(repository, Mockito.never()).saveAll(Mockito.anyList());
+	}
+
 	@Test
 	public void atualizar() {
 		// Deve atualizar um lançamento
@@ -133,23 +176,6 @@ public class LancamentoServiceTest {
 		Mockito.verify(repository, Mockito.never()).delete(lancamento);
 	}
 
-	@Test
-	public void buscar() {
-		// Deve filtrar um lançamento
-		// Cenário
-		Lancamento lancamento = criarLancamento();
-		lancamento.setId(1l);
-
-		List<Lancamento> lista = Arrays.asList(lancamento);
-		Mockito.when(repository.findAll(Mockito.any(Example.class))).thenReturn(lista);
-
-		// Execução
-		List<Lancamento> resultado = service.buscar(lancamento);
-
-		// Verificação
-		Assertions.assertThat(resultado).isNotEmpty().hasSize(1).contains(lancamento);
-	}
-
 	@Test
 	public void atualizarStatus() {
 		// Deve atualizar o Status de um lançamento
@@ -205,6 +231,20 @@ public class LancamentoServiceTest {
 		Assertions.assertThat(resultado.isPresent()).isFalse();
 	}
 
+	@Test
+	public void obterSaldoPorUsuario() {
+		// Deve retornar o total de receitas menos o total de despesas
+		// Cenário
+		Long id = 1l;
+		Mockito.when(repository.obterSaldoPorUsuario(id, TipoLancamento.RECEITA, TipoLancamento.DESPESA)).thenReturn(BigDecimal.valueOf(70));
+
+		// Execução
+		BigDecimal saldo = service.obterSaldoPorUsuario(id);
+
+		// Verificação
+		Assertions.assertThat(saldo).isEqualByComparingTo("70");
+	}
+
 	@Test
 	public void validarLancamento() {
 		/*Deve verificar os erros de validação. Alterando os parametros para fazer
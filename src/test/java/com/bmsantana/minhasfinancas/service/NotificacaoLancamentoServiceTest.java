@@ -0,0 +1,148 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.bmsantana.minhasfinancas.api.resource.LancamentoEventoResource;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.service.impl.NotificacaoLancamentoService;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = LancamentoEventoResource.class)
+@Import(NotificacaoLancamentoService.class)
+public class NotificacaoLancamentoServiceTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	NotificacaoLancamentoService service;
+
+	@MockBean
+	UsuarioService usuarioService;
+
+	@MockBean
+	LancamentoService lancamentoService;
+
+	@BeforeEach
+	public void setUp() {
+		Mockito.when(usuarioService.obterPorId(Mockito.anyLong()))
+				.thenAnswer(invocation -> Optional.of(Usuario.builder().id(invocation.getArgument(0)).build()));
+		Mockito.when(lancamentoService.obterSaldoPorUsuario(Mockito.anyLong())).thenReturn(BigDecimal.TEN);
+	}
+
+	private MvcResult assinar(Long idUsuario) throws Exception {
+		return mvc.perform(MockMvcRequestBuilders.get("/api/usuarios/" + idUsuario + "/eventos"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+	}
+
+	private static Lancamento lancamento(Long idUsuario) {
+		return Lancamento.builder().id(10L).descricao("Mercado").ano(2020).mes(1).valor(BigDecimal.ONE)
+				.tipo(TipoLancamento.DESPESA).usuario(Usuario.builder().id(idUsuario).build()).build();
+	}
+
+	private static void aguardar(MvcResult assinatura, Predicate<String> condicao) throws Exception {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(!condicao.test(assinatura.getResponse().getContentAsString()) && System.nanoTime() < limite) {
+			Thread.sleep(10);
+		}
+		Assertions.assertThat(assinatura.getResponse().getContentAsString()).matches(condicao);
+	}
+
+	@Test
+	public void notificarAssinantesDoUsuario() throws Exception {
+		// Depois da alteração o assinante recebe o lançamento e o saldo; outros usuários não recebem nada
+
+		// Cenário
+		MvcResult doUsuario = assinar(101L);
+		MvcResult deOutro = assinar(102L);
+
+		// Execução
+		service.aoAlterarLancamento(new LancamentoAlteradoEvento(TipoAlteracaoLancamento.CRIADO, lancamento(101L), null));
+
+		// Verificação
+		aguardar(doUsuario, conteudo -> conteudo.contains("event:saldo"));
+		Assertions.assertThat(doUsuario.getResponse().getContentAsString())
+				.contains("event:lancamento").contains("\"tipo\":\"CRIADO\"").contains("Mercado");
+		Assertions.assertThat(deOutro.getResponse().getContentAsString()).doesNotContain("event:lancamento");
+	}
+
+	@Test
+	public void avisarUsuarioAnteriorNaTrocaDeUsuario() throws Exception {
+		// O lançamento que troca de usuário chega ao novo dono e sai da lista do anterior
+
+		// Cenário
+		MvcResult anterior = assinar(201L);
+		MvcResult novo = assinar(202L);
+
+		// Execução
+		service.aoAlterarLancamento(new LancamentoAlteradoEvento(TipoAlteracaoLancamento.ATUALIZADO, lancamento(202L), lancamento(201L)));
+
+		// Verificação
+		aguardar(novo, conteudo -> conteudo.contains("\"tipo\":\"ATUALIZADO\""));
+		aguardar(anterior, conteudo -> conteudo.contains("\"tipo\":\"REMOVIDO\""));
+	}
+
+	@Test
+	public void enviarHeartbeatForaDoAgendador() throws Exception {
+		// O heartbeat é enviado pelas threads de envio
+
+		// Cenário
+		MvcResult assinatura = assinar(301L);
+
+		// Execução
+		service.manterConexoes();
+
+		// Verificação
+		aguardar(assinatura, conteudo -> conteudo.contains(":ping"));
+	}
+
+	@Test
+	public void removerAssinaturaExpirada() throws Exception {
+		// Uma conexão que expira deixa de ser assinante
+
+		// Cenário
+		MvcResult assinatura = assinar(401L);
+		Assertions.assertThat(service.contarAssinaturas(401L)).isEqualTo(1);
+
+		// Execução
+		MockAsyncContext contexto = (MockAsyncContext) assinatura.getRequest().getAsyncContext();
+		for(AsyncListener ouvinte : contexto.getListeners()) {
+			ouvinte.onTimeout(new AsyncEvent(contexto));
+		}
+
+		// Verificação
+		Assertions.assertThat(service.contarAssinaturas(401L)).isZero();
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.bmsantana.minhasfinancas.api.dto.OrcamentoDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.evento.OrcamentoUltrapassadoEvento;
+import com.bmsantana.minhasfinancas.service.impl.CategorizacaoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.OrcamentoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.SincronizacaoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ OrcamentoServiceImpl.class, LancamentoServiceImpl.class, CategorizacaoServiceImpl.class, SincronizacaoServiceImpl.class,
+		OrcamentoServiceTest.Configuracao.class })
+public class OrcamentoServiceTest {
+
+	@TestConfiguration
+	static class Configuracao {
+
+		@Bean
+		ColetorEventos coletorEventos() {
+			return new ColetorEventos();
+		}
+	}
+
+	static class ColetorEventos {
+
+		final List<OrcamentoUltrapassadoEvento> eventos = new ArrayList<>();
+
+		@EventListener
+		public void aoUltrapassar(OrcamentoUltrapassadoEvento evento) {
+			eventos.add(evento);
+		}
+	}
+
+	@Autowired
+	OrcamentoService service;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	ColetorEventos coletor;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		coletor.eventos.clear();
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+	}
+
+	private Lancamento salvar(String valor, TipoLancamento tipo) {
+		return lancamentoService.salvar(Lancamento.builder().descricao("Lançamento").ano(2020).mes(1)
+				.valor(new BigDecimal(valor)).tipo(tipo).usuario(usuario).build());
+	}
+
+	@Test
+	public void acompanharDespesasDoMes() {
+		// O total deve partir das despesas já lançadas e acompanhar as alterações seguintes
+
+		// Cenário
+		Lancamento existente = salvar("30.00", TipoLancamento.DESPESA);
+		service.definirLimite(usuario.getId(), 2020, 1, new BigDecimal("100.00"));
+
+		// Execução
+		Lancamento grande = salvar("80.00", TipoLancamento.DESPESA);
+		salvar("500.00", TipoLancamento.RECEITA);
+		entityManager.flush();
+		entityManager.clear();
+		OrcamentoDTO ultrapassado = service.obterSituacao(usuario.getId(), 2020, 1).get();
+		lancamentoService.atualizarStatus(lancamentoService.obterPorId(grande.getId()).get(), StatusLancamento.CANCELADO);
+		lancamentoService.deletar(existente);
+		entityManager.clear();
+		OrcamentoDTO normalizado = service.obterSituacao(usuario.getId(), 2020, 1).get();
+
+		// Verificação
+		Assertions.assertThat(ultrapassado.getGasto()).isEqualByComparingTo("110");
+		Assertions.assertThat(ultrapassado.isUltrapassado()).isTrue();
+		Assertions.assertThat(normalizado.getGasto()).isEqualByComparingTo("0");
+		Assertions.assertThat(normalizado.getDisponivel()).isEqualByComparingTo("100");
+		Assertions.assertThat(coletor.eventos).extracting(OrcamentoUltrapassadoEvento::isUltrapassado).containsExactly(true, false);
+	}
+
+	@Test
+	public void ignorarMesesSemOrcamento() {
+		// Despesas de meses sem orçamento não devem gerar situação nem eventos
+
+		// Execução
+		salvar("80.00", TipoLancamento.DESPESA);
+
+		// Verificação
+		Assertions.assertThat(service.obterSituacao(usuario.getId(), 2020, 1)).isEmpty();
+		Assertions.assertThat(coletor.eventos).isEmpty();
+	}
+
+	@Test
+	public void erroLimiteInvalido() {
+		// Não deve aceitar limite zerado
+
+		// Execução e Verificação
+		Throwable erro = Assertions.catchThrowable(() -> service.definirLimite(usuario.getId(), 2020, 1, BigDecimal.ZERO));
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um limite maior que zero!");
+	}
+
+	@Test
+	public void erroUsuarioInexistente() {
+		// O orçamento só é criado para um usuário cadastrado
+
+		// Execução e Verificação
+		Throwable erro = Assertions.catchThrowable(() -> service.definirLimite(usuario.getId() + 1000, 2020, 1, BigDecimal.TEN));
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um Usuário válido!");
+	}
+
+}
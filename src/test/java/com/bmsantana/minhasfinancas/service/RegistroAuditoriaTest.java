@@ -0,0 +1,89 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoAlteracaoLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.evento.AutenticacaoEvento;
+import com.bmsantana.minhasfinancas.service.evento.LancamentoAlteradoEvento;
+import com.bmsantana.minhasfinancas.service.impl.RegistroAuditoria;
+
+public class RegistroAuditoriaTest {
+
+	@TempDir
+	Path diretorio;
+
+	private LancamentoAlteradoEvento criarEvento(long id) {
+		Lancamento lancamento = Lancamento.builder().id(id).ano(2020).mes(1).valor(BigDecimal.TEN)
+				.tipo(TipoLancamento.DESPESA).status(StatusLancamento.PENDENTE)
+				.usuario(Usuario.builder().id(7L).build()).build();
+		return new LancamentoAlteradoEvento(TipoAlteracaoLancamento.CRIADO, lancamento, null);
+	}
+
+	private List<String> lerLinhas() throws Exception {
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			return arquivos.sorted().flatMap(arquivo -> {
+				try {
+					return Files.readAllLines(arquivo).stream();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}).collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void gravarAlteracoesEAutenticacoes() throws Exception {
+		// Os registros devem ser gravados pela thread de auditoria, um por linha
+
+		// Cenário
+		RegistroAuditoria auditoria = new RegistroAuditoria(diretorio.toString(), 1024, 1024 * 1024, 1);
+		auditoria.iniciar();
+
+		// Execução
+		auditoria.aoAlterarLancamento(criarEvento(1L));
+		auditoria.aoAutenticar(new AutenticacaoEvento("email@email.com", 7L, true));
+		auditoria.parar();
+
+		// Verificação
+		List<String> linhas = lerLinhas();
+		Assertions.assertThat(linhas).hasSize(2);
+		Assertions.assertThat(linhas.get(0)).contains("\"acao\":\"LANCAMENTO_CRIADO\"", "\"usuario\":7", "\"lancamento\":1");
+		Assertions.assertThat(linhas.get(1)).contains("\"acao\":\"LOGIN\"", "\"email\":\"email@email.com\"");
+	}
+
+	@Test
+	public void abrirNovoSegmentoAoAtingirTamanho() throws Exception {
+		// Ao passar do tamanho configurado a gravação deve seguir em outro arquivo
+
+		// Cenário
+		RegistroAuditoria auditoria = new RegistroAuditoria(diretorio.toString(), 1024, 100, 1);
+		auditoria.iniciar();
+
+		// Execução
+		for(long id = 1; id <= 5; id++) {
+			auditoria.aoAlterarLancamento(criarEvento(id));
+			Thread.sleep(20);
+		}
+		auditoria.parar();
+
+		// Verificação
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			Assertions.assertThat(arquivos.count()).isGreaterThan(1);
+		}
+		Assertions.assertThat(lerLinhas()).hasSize(5);
+	}
+
+}
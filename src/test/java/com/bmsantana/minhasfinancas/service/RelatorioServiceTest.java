@@ -0,0 +1,134 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.bmsantana.minhasfinancas.api.dto.RelatorioDTO;
+import com.bmsantana.minhasfinancas.api.dto.TotalCompetenciaDTO;
+import com.bmsantana.minhasfinancas.service.impl.RelatorioServiceImpl;
+
+public class RelatorioServiceTest {
+
+	@TempDir
+	Path diretorio;
+
+	AnaliseService analiseService = Mockito.mock(AnaliseService.class);
+
+	RelatorioServiceImpl service;
+
+	@AfterEach
+	public void tearDown() {
+		if(service != null) {
+			service.encerrar();
+		}
+	}
+
+	private RelatorioServiceImpl criar(int maximoPorUsuario, long validadeMinutos) {
+		service = new RelatorioServiceImpl(analiseService, diretorio.toString(), 1, 10, maximoPorUsuario, validadeMinutos);
+		return service;
+	}
+
+	private RelatorioDTO aguardar(Long idUsuario, String idRelatorio) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		RelatorioDTO situacao = service.obterSituacao(idUsuario, idRelatorio).get();
+		while(situacao.getFim() == null && System.nanoTime() < limite) {
+			Thread.sleep(10);
+			situacao = service.obterSituacao(idUsuario, idRelatorio).get();
+		}
+		return situacao;
+	}
+
+	@Test
+	public void gerarRelatorioEmSegundoPlano() throws Exception {
+		// Deve devolver o id na hora e gravar o CSV dos anos pedidos em segundo plano
+
+		// Cenário
+		criar(2, 60);
+		Mockito.when(analiseService.obterAnosComLancamentos(1L)).thenReturn(Arrays.asList(2018, 2019, 2020));
+		Mockito.when(analiseService.obterTotaisDoAno(1L, 2019)).thenReturn(Arrays.asList(
+				new TotalCompetenciaDTO(2019, 1, "RECEITA", "EFETIVADO", 1, new BigDecimal("5000.00")),
+				new TotalCompetenciaDTO(2019, 1, "DESPESA", "PENDENTE", 3, new BigDecimal("350.25"))));
+		Mockito.when(analiseService.obterTotaisDoAno(1L, 2020)).thenReturn(Collections.singletonList(
+				new TotalCompetenciaDTO(2020, 2, "DESPESA", "CANCELADO", 1, new BigDecimal("10.00"))));
+
+		// Execução
+		RelatorioDTO solicitado = service.solicitar(1L, 2019, null);
+		RelatorioDTO concluido = aguardar(1L, solicitado.getId());
+
+		// Verificação
+		Assertions.assertThat(solicitado.getId()).isNotNull();
+		Assertions.assertThat(concluido.getSituacao()).isEqualTo("CONCLUIDO");
+		Assertions.assertThat(concluido.getProgresso()).isEqualTo(100);
+		Mockito.verify(analiseService, Mockito.never()).obterTotaisDoAno(1L, 2018);
+
+		Path arquivo = service.obterArquivo(1L, solicitado.getId()).get();
+		List<String> linhas = Files.readAllLines(arquivo);
+		Assertions.assertThat(linhas).containsExactly(
+				"ano;mes;tipo;status;quantidade;total",
+				"2019;1;RECEITA;EFETIVADO;1;5000.00",
+				"2019;1;DESPESA;PENDENTE;3;350.25",
+				"2020;2;DESPESA;CANCELADO;1;10.00");
+		Assertions.assertThat(concluido.getBytes()).isEqualTo(Files.size(arquivo));
+		Assertions.assertThat(service.obterSituacao(2L, solicitado.getId())).isEmpty();
+	}
+
+	@Test
+	public void recusarAcimaDoLimitePorUsuario() throws Exception {
+		// Com o limite do usuário em uso, novas solicitações dele são recusadas; as dos demais não
+
+		// Cenário
+		criar(1, 60);
+		CountDownLatch liberar = new CountDownLatch(1);
+		Mockito.when(analiseService.obterAnosComLancamentos(1L)).thenAnswer(invocacao -> {
+			liberar.await(10, TimeUnit.SECONDS);
+			return Collections.emptyList();
+		});
+		RelatorioDTO primeiro = service.solicitar(1L, null, null);
+
+		// Execução e Verificação
+		Assertions.assertThatThrownBy(() -> service.solicitar(1L, null, null))
+				.isInstanceOf(RejectedExecutionException.class);
+		RelatorioDTO outroUsuario = service.solicitar(2L, null, null);
+		liberar.countDown();
+
+		Assertions.assertThat(aguardar(1L, primeiro.getId()).getSituacao()).isEqualTo("CONCLUIDO");
+		Assertions.assertThat(aguardar(2L, outroUsuario.getId()).getSituacao()).isEqualTo("CONCLUIDO");
+		Assertions.assertThat(service.solicitar(1L, null, null)).isNotNull();
+	}
+
+	@Test
+	public void removerRelatoriosExpirados() throws Exception {
+		// Depois da validade o relatório e o arquivo devem ser apagados, assim como arquivos órfãos
+
+		// Cenário
+		criar(2, 0);
+		Mockito.when(analiseService.obterAnosComLancamentos(1L)).thenReturn(Collections.emptyList());
+		RelatorioDTO solicitado = service.solicitar(1L, null, null);
+		aguardar(1L, solicitado.getId());
+		Path arquivo = service.obterArquivo(1L, solicitado.getId()).get();
+		Path orfao = Files.write(diretorio.resolve("orfao.csv"), new byte[] { 1 });
+		Thread.sleep(20);
+
+		// Execução
+		service.removerExpirados();
+
+		// Verificação
+		Assertions.assertThat(service.obterSituacao(1L, solicitado.getId())).isEmpty();
+		Assertions.assertThat(arquivo).doesNotExist();
+		Assertions.assertThat(orfao).doesNotExist();
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.bmsantana.minhasfinancas.api.dto.SaldoMensalDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.FechamentoMensal;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.impl.CategorizacaoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.SaldoMensalServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.SincronizacaoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ SaldoMensalServiceImpl.class, LancamentoServiceImpl.class, CategorizacaoServiceImpl.class, SincronizacaoServiceImpl.class })
+public class SaldoMensalServiceTest {
+
+	private static final YearMonth DE = YearMonth.of(2019, 12);
+	private static final YearMonth ATE = YearMonth.of(2020, 4);
+
+	@Autowired
+	SaldoMensalService service;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+	}
+
+	private Lancamento lancar(int mes, String valor, TipoLancamento tipo) {
+		return lancar(usuario, mes, valor, tipo);
+	}
+
+	private Lancamento lancar(Usuario usuario, int mes, String valor, TipoLancamento tipo) {
+		return lancamentoService.salvar(Lancamento.builder().descricao("Lançamento").ano(2020).mes(mes)
+				.valor(new BigDecimal(valor)).tipo(tipo).usuario(usuario).build());
+	}
+
+	private List<SaldoMensalDTO> serie() {
+		entityManager.flush();
+		entityManager.clear();
+		return service.obterSerie(usuario.getId(), DE, ATE);
+	}
+
+	@Test
+	public void gerarSerieAPartirDosLancamentos() {
+		// Meses sem lançamentos devem repetir o saldo do mês anterior
+
+		// Cenário
+		lancar(1, "100.00", TipoLancamento.RECEITA);
+		lancar(3, "30.00", TipoLancamento.DESPESA);
+
+		// Execução
+		List<SaldoMensalDTO> serie = serie();
+
+		// Verificação
+		Assertions.assertThat(serie).extracting(SaldoMensalDTO::getMes).containsExactly(12, 1, 2, 3, 4);
+		Assertions.assertThat(serie).extracting(SaldoMensalDTO::getSaldo)
+				.usingElementComparator(BigDecimal::compareTo)
+				.containsExactly(new BigDecimal("0"), new BigDecimal("100"), new BigDecimal("100"), new BigDecimal("70"), new BigDecimal("70"));
+	}
+
+	@Test
+	public void acompanharAlteracoesEmMesesAntigos() {
+		// Alterar um mês antigo deve refletir nele e nos fechamentos seguintes, sem gerar tudo de novo
+
+		// Cenário
+		Lancamento receita = lancar(1, "100.00", TipoLancamento.RECEITA);
+		Lancamento despesa = lancar(3, "30.00", TipoLancamento.DESPESA);
+		serie();
+
+		// Execução
+		lancar(2, "50.00", TipoLancamento.RECEITA);
+		entityManager.flush();
+		entityManager.clear();
+		lancamentoService.atualizar(receita.toBuilder().valor(new BigDecimal("200.00")).build());
+		lancamentoService.deletar(despesa);
+		lancar(4, "10.00", TipoLancamento.DESPESA);
+		List<SaldoMensalDTO> serie = serie();
+
+		// Verificação
+		Assertions.assertThat(serie).extracting(SaldoMensalDTO::getSaldo)
+				.usingElementComparator(BigDecimal::compareTo)
+				.containsExactly(new BigDecimal("0"), new BigDecimal("200"), new BigDecimal("250"), new BigDecimal("250"), new BigDecimal("240"));
+		Assertions.assertThat(serie.get(3).getMovimento()).isEqualByComparingTo("0");
+		Assertions.assertThat(serie.get(4).getSaldo()).isEqualByComparingTo(lancamentoService.obterSaldoPorUsuario(usuario.getId()));
+		Assertions.assertThat(entityManager.getEntityManager()
+				.createQuery("select count(f) from FechamentoMensal f", Long.class).getSingleResult()).isEqualTo(4L);
+	}
+
+	@Test
+	public void acompanharTrocaDeUsuario() {
+		// Um lançamento que troca de usuário sai da série do anterior e entra na do novo; quem não tem fechamentos continua sem
+
+		// Cenário
+		Usuario outro = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		Usuario semFechamentos = entityManager.persist(Usuario.builder().nome("terceiro").email("terceiro@email.com").senha("senha").build());
+		lancar(1, "100.00", TipoLancamento.RECEITA);
+		lancar(outro, 1, "10.00", TipoLancamento.RECEITA);
+		Lancamento movido = lancar(semFechamentos, 2, "40.00", TipoLancamento.DESPESA);
+		serie();
+		service.obterSerie(outro.getId(), DE, ATE);
+
+		// Execução
+		Lancamento comUsuario = lancamentoService.atualizar(movido.toBuilder().usuario(usuario).build());
+		entityManager.flush();
+		entityManager.clear();
+		Long fechamentosDoTerceiro = entityManager.getEntityManager()
+				.createQuery("select count(f) from FechamentoMensal f where f.usuario.id = :id", Long.class)
+				.setParameter("id", semFechamentos.getId()).getSingleResult();
+		List<SaldoMensalDTO> doUsuarioComMovido = serie();
+		lancamentoService.atualizar(comUsuario.toBuilder().usuario(outro).build());
+		List<SaldoMensalDTO> doUsuario = serie();
+		List<SaldoMensalDTO> doOutro = service.obterSerie(outro.getId(), DE, ATE);
+		List<SaldoMensalDTO> doTerceiro = service.obterSerie(semFechamentos.getId(), DE, ATE);
+
+		// Verificação
+		Assertions.assertThat(fechamentosDoTerceiro).isZero();
+		Assertions.assertThat(doUsuarioComMovido.get(4).getSaldo()).isEqualByComparingTo("60");
+		Assertions.assertThat(doUsuario.get(4).getSaldo()).isEqualByComparingTo("100");
+		Assertions.assertThat(doOutro.get(2).getMovimento()).isEqualByComparingTo("-40");
+		Assertions.assertThat(doOutro.get(4).getSaldo()).isEqualByComparingTo("-30");
+		Assertions.assertThat(doTerceiro).extracting(SaldoMensalDTO::getSaldo).allMatch(saldo -> saldo.signum() == 0);
+	}
+
+	@Test
+	public void ignorarAlteracoesAntesDaPrimeiraConsulta() {
+		// Sem fechamentos gerados, as alterações não gravam nada; a primeira consulta gera a partir dos lançamentos
+
+		// Execução
+		lancar(1, "100.00", TipoLancamento.RECEITA);
+
+		// Verificação
+		Assertions.assertThat(entityManager.getEntityManager()
+				.createQuery("select f from FechamentoMensal f", FechamentoMensal.class).getResultList()).isEmpty();
+		Assertions.assertThat(serie().get(1).getSaldo()).isEqualByComparingTo("100");
+	}
+
+	@Test
+	public void erroPeriodoInvalido() {
+		// Não deve aceitar início depois do fim
+
+		// Execução e Verificação
+		Throwable erro = Assertions.catchThrowable(() -> service.obterSerie(usuario.getId(), ATE, DE));
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um período válido!");
+	}
+
+}
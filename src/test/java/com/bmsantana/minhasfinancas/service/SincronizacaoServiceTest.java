@@ -0,0 +1,164 @@
+package com.bmsantana.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.bmsantana.minhasfinancas.api.dto.AlteracoesDTO;
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+import com.bmsantana.minhasfinancas.model.entity.Lancamento;
+import com.bmsantana.minhasfinancas.model.entity.Usuario;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+import com.bmsantana.minhasfinancas.service.impl.CategorizacaoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.bmsantana.minhasfinancas.service.impl.SincronizacaoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "minhasfinancas.sincronizacao.retencao-dias=0")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ SincronizacaoServiceImpl.class, LancamentoServiceImpl.class, CategorizacaoServiceImpl.class })
+public class SincronizacaoServiceTest {
+
+	@Autowired
+	SincronizacaoServiceImpl service;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+	}
+
+	private Lancamento criarLancamento(String descricao) {
+		return Lancamento.builder().usuario(usuario).descricao(descricao).ano(2020).mes(1)
+				.valor(BigDecimal.TEN).tipo(TipoLancamento.DESPESA).dataCadastro(LocalDate.now()).build();
+	}
+
+	private AlteracoesDTO sincronizar(String token, Integer limite) {
+		entityManager.flush();
+		entityManager.clear();
+		return service.obterAlteracoes(usuario.getId(), token, limite);
+	}
+
+	@Test
+	public void devolverCopiaCompletaSemToken() {
+		// Sem token devem vir todos os lançamentos, inclusive os gravados antes da numeração
+
+		// Cenário
+		Lancamento antigo = entityManager.persist(criarLancamento("Antigo"));
+		Lancamento novo = lancamentoService.salvar(criarLancamento("Novo"));
+
+		// Execução
+		AlteracoesDTO alteracoes = sincronizar(null, null);
+
+		// Verificação
+		Assertions.assertThat(alteracoes.isCompleto()).isTrue();
+		Assertions.assertThat(alteracoes.getToken()).isEqualTo("1");
+		Assertions.assertThat(alteracoes.getLancamentos()).extracting(Lancamento::getId)
+				.containsExactlyInAnyOrder(antigo.getId(), novo.getId());
+	}
+
+	@Test
+	public void devolverSoAlteracoesDesdeToken() {
+		// Devem vir os incluídos, alterados e removidos depois do token, em ordem de alteração
+
+		// Cenário
+		Lancamento alterado = lancamentoService.salvar(criarLancamento("Alterado"));
+		Lancamento removido = lancamentoService.salvar(criarLancamento("Removido"));
+		lancamentoService.salvar(criarLancamento("Sem alteração"));
+		String token = sincronizar(null, null).getToken();
+
+		Lancamento incluido = lancamentoService.salvar(criarLancamento("Incluído"));
+		alterado = lancamentoService.obterPorId(alterado.getId()).get();
+		alterado.setValor(BigDecimal.ONE);
+		lancamentoService.atualizar(alterado);
+		lancamentoService.deletar(lancamentoService.obterPorId(removido.getId()).get());
+
+		// Execução
+		AlteracoesDTO alteracoes = sincronizar(token, null);
+
+		// Verificação
+		Assertions.assertThat(token).isEqualTo("3");
+		Assertions.assertThat(alteracoes.isCompleto()).isFalse();
+		Assertions.assertThat(alteracoes.isMaisAlteracoes()).isFalse();
+		Assertions.assertThat(alteracoes.getToken()).isEqualTo("6");
+		Assertions.assertThat(alteracoes.getLancamentos()).extracting(Lancamento::getId)
+				.containsExactly(incluido.getId(), alterado.getId());
+		Assertions.assertThat(alteracoes.getRemovidos()).containsExactly(removido.getId());
+		Assertions.assertThat(sincronizar(alteracoes.getToken(), null).getLancamentos()).isEmpty();
+	}
+
+	@Test
+	public void paginarAlteracoes() {
+		// Acima do limite a resposta deve parar na última versão entregue e indicar que há mais
+
+		// Cenário
+		String token = sincronizar(null, null).getToken();
+		lancamentoService.salvar(criarLancamento("Primeiro"));
+		Lancamento removido = lancamentoService.salvar(criarLancamento("Segundo"));
+		lancamentoService.salvar(criarLancamento("Terceiro"));
+		lancamentoService.deletar(removido);
+
+		// Execução
+		AlteracoesDTO primeira = sincronizar(token, 2);
+		AlteracoesDTO segunda = sincronizar(primeira.getToken(), 2);
+
+		// Verificação
+		Assertions.assertThat(primeira.isMaisAlteracoes()).isTrue();
+		Assertions.assertThat(primeira.getToken()).isEqualTo("3");
+		Assertions.assertThat(primeira.getLancamentos()).extracting(Lancamento::getDescricao).containsExactly("Primeiro", "Terceiro");
+		Assertions.assertThat(primeira.getRemovidos()).isEmpty();
+		Assertions.assertThat(segunda.isMaisAlteracoes()).isFalse();
+		Assertions.assertThat(segunda.getToken()).isEqualTo("4");
+		Assertions.assertThat(segunda.getLancamentos()).isEmpty();
+		Assertions.assertThat(segunda.getRemovidos()).containsExactly(removido.getId());
+	}
+
+	@Test
+	public void devolverCopiaCompletaAposDescartarRemocoes() {
+		// Um token anterior a remoções já descartadas não pode receber só as alterações
+
+		// Cenário
+		Lancamento mantido = lancamentoService.salvar(criarLancamento("Mantido"));
+		Lancamento removido = lancamentoService.salvar(criarLancamento("Removido"));
+		String token = sincronizar(null, null).getToken();
+		lancamentoService.deletar(lancamentoService.obterPorId(removido.getId()).get());
+		entityManager.flush();
+
+		// Execução
+		int descartadas = service.removerMarcasAntigas();
+		AlteracoesDTO alteracoes = sincronizar(token, null);
+
+		// Verificação
+		Assertions.assertThat(descartadas).isEqualTo(1);
+		Assertions.assertThat(alteracoes.isCompleto()).isTrue();
+		Assertions.assertThat(alteracoes.getLancamentos()).extracting(Lancamento::getId).containsExactly(mantido.getId());
+		Assertions.assertThat(sincronizar(alteracoes.getToken(), null).isCompleto()).isFalse();
+	}
+
+	@Test
+	public void recusarTokenInvalido() {
+		Assertions.assertThatThrownBy(() -> service.obterAlteracoes(usuario.getId(), "abc", null))
+				.isInstanceOf(RegraNegocioException.class);
+	}
+
+}
@@ -1,14 +1,20 @@
 package com.bmsantana.minhasfinancas.service;
 
 
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -143,5 +149,154 @@ public class UsuarioServiceTest {
 		Assertions.assertThat(exception).isInstanceOf(RegraNegocioException.class).hasMessage("Já existe um usuário cadastrado com este email!");
 	}
 	
+	@Test
+	@DirtiesContext
+	public void salvarUsuarioSemConsultarEmailNovo() {
+		//Com o filtro carregado, um email que com certeza é novo não deve ser consultado
+		
+		//cenario
+		Mockito.when(repository.count()).thenReturn(1L);
+		Mockito.when(repository.obterEmails()).thenReturn(Stream.of("Existente@email.com"));
+		service.carregarEmails();
+		Usuario usuario = Usuario.builder().email("novo@email.com").build();
+		Mockito.when(repository.save(usuario)).thenReturn(usuario);
+		
+		//ação
+		service.salvarUsuario(usuario);
+		
+		//verificacao
+		Mockito.verify(repository, Mockito.never()).existsByEmail(Mockito.anyString());
+		Mockito.verify(repository).save(usuario);
+	}
+	
+	@Test
+	@DirtiesContext
+	public void consultarEmailPossivelmenteCadastrado() {
+		//Um email que o filtro pode conter deve ser validado no banco
+		
+		//cenario
+		Mockito.when(repository.count()).thenReturn(1L);
+		Mockito.when(repository.obterEmails()).thenReturn(Stream.of("Existente@email.com"));
+		Mockito.when(repository.existsByEmail("existente@email.com")).thenReturn(true);
+		service.carregarEmails();
+		Usuario usuario = Usuario.builder().email("existente@email.com ").build();
+		
+		//ação
+		Throwable exception = Assertions.catchThrowable(() -> service.salvarUsuario(usuario));
+		
+		//verificacao
+		Assertions.assertThat(exception).isInstanceOf(RegraNegocioException.class).hasMessage("Já existe um usuário cadastrado com este email!");
+		Mockito.verify(repository, Mockito.never()).save(usuario);
+	}
+	
+	@Test
+	public void erroRestricaoEmailSalvarUsuario() {
+		//Deve traduzir a violação da restrição de email único em erro de negócio
+		
+		//cenario
+		Usuario usuario = Usuario.builder().email("email@email.com").build();
+		Mockito.when(repository.existsByEmail(Mockito.anyString())).thenReturn(false);
+		Mockito.when(repository.save(usuario)).thenThrow(violacao("UK_USUARIO_EMAIL_INDEX_8"));
+		
+		//ação
+		Throwable exception = Assertions.catchThrowable(() -> service.salvarUsuario(usuario));
+		
+		//verificacao
+		Assertions.assertThat(exception).isInstanceOf(RegraNegocioException.class).hasMessage("Já existe um usuário cadastrado com este email!");
+	}
+	
+	@Test
+	public void manterOutrasViolacoesAoSalvarUsuario() {
+		//Violações de outras restrições não são email repetido
+		
+		//cenario
+		Usuario usuario = Usuario.builder().email("email@email.com").build();
+		Mockito.when(repository.existsByEmail(Mockito.anyString())).thenReturn(false);
+		DataIntegrityViolationException violacao = violacao("ck_usuario_nome");
+		Mockito.when(repository.save(usuario)).thenThrow(violacao);
+		
+		//ação
+		Throwable exception = Assertions.catchThrowable(() -> service.salvarUsuario(usuario));
+		
+		//verificacao
+		Assertions.assertThat(exception).isSameAs(violacao);
+	}
+	
+	@Test
+	public void salvarUsuarioComEmailNormalizado() {
+		//O email é gravado e validado sem espaços e em minúsculas
+		
+		//cenario
+		Usuario usuario = Usuario.builder().email(" Novo@Email.com ").build();
+		Mockito.when(repository.save(usuario)).thenReturn(usuario);
+		
+		//ação
+		service.salvarUsuario(usuario);
+		
+		//verificacao
+		Assertions.assertThat(usuario.getEmail()).isEqualTo("novo@email.com");
+		Mockito.verify(repository).existsByEmail("novo@email.com");
+	}
+	
+	@Test
+	@DirtiesContext
+	public void naoIncluirNoFiltroEmailQueNaoFoiSalvo() {
+		//Um cadastro que falhou não deve deixar o email no filtro
+		
+		//cenario
+		Mockito.when(repository.count()).thenReturn(1L);
+		Mockito.when(repository.obterEmails()).thenReturn(Stream.of("existente@email.com"));
+		service.carregarEmails();
+		Usuario falhou = Usuario.builder().email("novo@email.com").build();
+		Mockito.when(repository.save(falhou)).thenThrow(violacao("ck_usuario_nome"));
+		Assertions.catchThrowable(() -> service.salvarUsuario(falhou));
+		Usuario usuario = Usuario.builder().email("novo@email.com").nome("usuario").build();
+		Mockito.when(repository.save(usuario)).thenReturn(usuario);
+		
+		//ação
+		service.salvarUsuario(usuario);
+		
+		//verificacao
+		Mockito.verify(repository, Mockito.never()).existsByEmail(Mockito.anyString());
+	}
+	
+	@Test
+	public void autenticarComEmailNormalizado() {
+		//O email digitado no login é normalizado como no cadastro
+		
+		//cenario
+		Usuario usuario = Usuario.builder().email("usuario@email.com").senha("senha").id(1l).build();
+		Mockito.when(repository.findByEmail("usuario@email.com")).thenReturn(Optional.of(usuario));
+		
+		//ação
+		Usuario autenticado = service.autenticar(" Usuario@Email.com", "senha");
+		
+		//verificacao
+		Assertions.assertThat(autenticado).isSameAs(usuario);
+	}
+	
+	@Test
+	public void normalizarEmailsAnteriores() {
+		//Emails gravados antes da normalização são normalizados, exceto quando coincidem com outro cadastro
+		
+		//cenario
+		Usuario antigo = Usuario.builder().email("Antigo@Email.com").id(1l).build();
+		Usuario duplicado = Usuario.builder().email("Duplicado@Email.com").id(2l).build();
+		Mockito.when(repository.obterComEmailNaoNormalizado()).thenReturn(Arrays.asList(antigo, duplicado));
+		Mockito.when(repository.existsByEmail("duplicado@email.com")).thenReturn(true);
+		
+		//ação
+		service.normalizarEmailsAnteriores();
+		
+		//verificacao
+		Mockito.verify(repository).saveAndFlush(Mockito.argThat(usuario -> usuario.getId() == 1l && usuario.getEmail().equals("antigo@email.com")));
+		Mockito.verify(repository, Mockito.times(1)).saveAndFlush(Mockito.any());
+		Assertions.assertThat(duplicado.getEmail()).isEqualTo("Duplicado@Email.com");
+	}
+	
+	private static DataIntegrityViolationException violacao(String restricao) {
+		return new DataIntegrityViolationException("could not execute statement",
+				new ConstraintViolationException("violação de restrição", new SQLException(), restricao));
+	}
 	
 }
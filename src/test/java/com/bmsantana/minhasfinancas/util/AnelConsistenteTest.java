@@ -0,0 +1,65 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AnelConsistenteTest {
+
+	@Test
+	public void distribuirChavesEntreOsMembros() {
+		// Cada membro deve ficar com uma parte parecida das chaves
+
+		// Cenário
+		AnelConsistente anel = new AnelConsistente(Arrays.asList("a", "b", "c"), 128);
+
+		// Execução
+		Map<String, Integer> porMembro = new HashMap<>();
+		for(long chave = 1; chave <= 30000; chave++) {
+			porMembro.merge(anel.localizar(chave), 1, Integer::sum);
+		}
+
+		// Verificação
+		Assertions.assertThat(porMembro).containsOnlyKeys("a", "b", "c");
+		Assertions.assertThat(porMembro.values()).allSatisfy(quantidade -> Assertions.assertThat(quantidade).isBetween(7500, 12500));
+	}
+
+	@Test
+	public void moverSomenteParaONovoMembro() {
+		// Ao incluir um membro, só as chaves que passam a ser dele mudam de lugar
+
+		// Cenário
+		AnelConsistente atual = new AnelConsistente(Arrays.asList("a", "b", "c"), 128);
+		AnelConsistente novo = new AnelConsistente(Arrays.asList("a", "b", "c", "d"), 128);
+
+		// Execução
+		int movidas = 0;
+		for(long chave = 1; chave <= 30000; chave++) {
+			if(!atual.localizar(chave).equals(novo.localizar(chave))) {
+				Assertions.assertThat(novo.localizar(chave)).isEqualTo("d");
+				movidas++;
+			}
+		}
+
+		// Verificação
+		Assertions.assertThat(movidas).isBetween(4500, 10500);
+	}
+
+	@Test
+	public void ignorarOrdemDosMembros() {
+		// A mesma lista de membros em outra ordem deve gerar o mesmo anel
+
+		// Cenário
+		AnelConsistente anel = new AnelConsistente(Arrays.asList("a", "b", "c"), 16);
+		AnelConsistente invertido = new AnelConsistente(Arrays.asList("c", "b", "a"), 16);
+
+		// Execução e Verificação
+		for(long chave = 1; chave <= 1000; chave++) {
+			Assertions.assertThat(invertido.localizar(chave)).isEqualTo(anel.localizar(chave));
+		}
+	}
+
+}
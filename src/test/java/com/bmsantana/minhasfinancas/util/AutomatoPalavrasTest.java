@@ -0,0 +1,89 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AutomatoPalavrasTest {
+
+	private AutomatoPalavras<String> criar(String... termosECategorias) {
+		List<String> termos = new ArrayList<>();
+		List<String> categorias = new ArrayList<>();
+		for(int i = 0; i < termosECategorias.length; i += 2) {
+			termos.add(termosECategorias[i]);
+			categorias.add(termosECategorias[i + 1]);
+		}
+		return new AutomatoPalavras<>(termos, categorias);
+	}
+
+	@Test
+	public void encontrarTermosIgnorandoCaixaAcentosEPontuacao() {
+		// A descrição e os termos devem ser comparados sem acentos, maiúsculas ou pontuação
+
+		// Cenário
+		AutomatoPalavras<String> automato = criar("padaria", "Alimentação", "posto shell", "Transporte", "farmácia", "Saúde");
+
+		// Execução e Verificação
+		Assertions.assertThat(automato.procurar("PAG*Padaria Pão Quente")).isEqualTo("Alimentação");
+		Assertions.assertThat(automato.procurar("COMPRA  POSTO-SHELL 123")).isEqualTo("Transporte");
+		Assertions.assertThat(automato.procurar("Farmacia São João")).isEqualTo("Saúde");
+		Assertions.assertThat(automato.procurar("Posto Ipiranga")).isNull();
+		Assertions.assertThat(automato.procurar("")).isNull();
+	}
+
+	@Test
+	public void casarSomentePalavrasInteiras() {
+		// Um termo não pode casar com parte de outra palavra
+
+		// Cenário
+		AutomatoPalavras<String> automato = criar("bar", "Lazer", "uber", "Transporte");
+
+		// Execução e Verificação
+		Assertions.assertThat(automato.procurar("Barbearia do Zé")).isNull();
+		Assertions.assertThat(automato.procurar("Bar do Zé")).isEqualTo("Lazer");
+		Assertions.assertThat(automato.procurar("UBER *TRIP")).isEqualTo("Transporte");
+		Assertions.assertThat(automato.procurar("Ubereats")).isNull();
+	}
+
+	@Test
+	public void preferirTermoMaisLongoEDepoisOPrimeiro() {
+		// Com vários termos presentes vence o mais longo; no empate, o primeiro da lista
+
+		// Cenário
+		AutomatoPalavras<String> automato = criar("uber", "Transporte", "uber eats", "Alimentação",
+				"mercado", "Mercado", "taxi", "Táxi");
+
+		// Execução e Verificação
+		Assertions.assertThat(automato.procurar("Pedido Uber Eats")).isEqualTo("Alimentação");
+		Assertions.assertThat(automato.procurar("Uber para o mercado")).isEqualTo("Mercado");
+		Assertions.assertThat(automato.procurar("Taxi Uber")).isEqualTo("Transporte");
+		Assertions.assertThat(automato.procurar("Táxi")).isEqualTo("Táxi");
+	}
+
+	@Test
+	public void encontrarEntreMilharesDeTermos() {
+		// O resultado deve ser o mesmo de comparar termo a termo, com muitos termos sobrepostos
+
+		// Cenário
+		List<String> termos = new ArrayList<>();
+		List<String> categorias = new ArrayList<>();
+		for(int i = 0; i < 10000; i++) {
+			termos.add("loja " + Integer.toString(i, 36));
+			categorias.add("categoria " + i);
+		}
+		AutomatoPalavras<String> automato = new AutomatoPalavras<>(termos, categorias);
+
+		// Execução e Verificação
+		for(int i = 0; i < 10000; i += 97) {
+			Assertions.assertThat(automato.procurar("Compra na LOJA " + Integer.toString(i, 36) + " centro"))
+					.isEqualTo("categoria " + i);
+		}
+		Assertions.assertThat(automato.procurar("loja")).isNull();
+		Assertions.assertThat(automato.tamanho()).isEqualTo(10000);
+		Assertions.assertThat(AutomatoPalavras.normalizar("  Café, Pão & Cia ")).isEqualTo(" cafe pao cia ");
+		Assertions.assertThat(automato.procurar(null)).isNull();
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.bmsantana.minhasfinancas.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CachePorUsuarioTest {
+
+	@Test
+	public void descartarMenosUsadoAoPassarDoLimite() {
+		// Acima do limite de bytes deve sair a entrada usada há mais tempo
+
+		// Cenário
+		CachePorUsuario<String, String> cache = new CachePorUsuario<>("teste", 100);
+		cache.guardar(1L, "a", "A", 40, cache.geracao(1L));
+		cache.guardar(1L, "b", "B", 40, cache.geracao(1L));
+		cache.obter(1L, "a");
+
+		// Execução
+		cache.guardar(2L, "c", "C", 40, cache.geracao(2L));
+
+		// Verificação
+		Assertions.assertThat(cache.obter(1L, "a")).isEqualTo("A");
+		Assertions.assertThat(cache.obter(1L, "b")).isNull();
+		Assertions.assertThat(cache.obter(2L, "c")).isEqualTo("C");
+		Assertions.assertThat(cache.bytes()).isEqualTo(80);
+	}
+
+	@Test
+	public void invalidarSomenteEntradasAfetadasDoUsuario() {
+		// A invalidação deve atingir só as chaves do usuário que atendem ao predicado
+
+		// Cenário
+		CachePorUsuario<String, String> cache = new CachePorUsuario<>("teste", 1000);
+		cache.guardar(1L, "2020", "A", 10, cache.geracao(1L));
+		cache.guardar(1L, "2021", "B", 10, cache.geracao(1L));
+		cache.guardar(2L, "2020", "C", 10, cache.geracao(2L));
+
+		// Execução
+		cache.invalidar(1L, chave -> chave.equals("2020"));
+
+		// Verificação
+		Assertions.assertThat(cache.obter(1L, "2020")).isNull();
+		Assertions.assertThat(cache.obter(1L, "2021")).isEqualTo("B");
+		Assertions.assertThat(cache.obter(2L, "2020")).isEqualTo("C");
+		Assertions.assertThat(cache.bytes()).isEqualTo(20);
+	}
+
+	@Test
+	public void naoGuardarValorLidoAntesDeInvalidacao() {
+		// Um valor lido antes de uma invalidação do usuário não deve ser guardado
+
+		// Cenário
+		CachePorUsuario<String, String> cache = new CachePorUsuario<>("teste", 1000);
+		long geracao = cache.geracao(1L);
+		cache.invalidar(1L, chave -> true);
+
+		// Execução
+		cache.guardar(1L, "2020", "velho", 10, geracao);
+
+		// Verificação
+		Assertions.assertThat(cache.obter(1L, "2020")).isNull();
+	}
+
+}
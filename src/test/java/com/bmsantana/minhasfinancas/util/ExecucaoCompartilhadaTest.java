@@ -0,0 +1,112 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.bmsantana.minhasfinancas.exception.RegraNegocioException;
+
+public class ExecucaoCompartilhadaTest {
+
+	@Test
+	public void compartilharExecucaoConcorrente() throws Exception {
+		// Chamadas concorrentes com a mesma chave devem executar a computação uma única vez
+
+		// Cenário
+		ExecucaoCompartilhada<Long, Integer> execucao = new ExecucaoCompartilhada<>("teste");
+		AtomicInteger chamadas = new AtomicInteger();
+		CountDownLatch iniciou = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		// Execução
+		Future<Integer> primeira = executor.submit(() -> execucao.executar(1L, () -> {
+			chamadas.incrementAndGet();
+			iniciou.countDown();
+			aguardar(liberar);
+			return 10;
+		}));
+		iniciou.await(5, TimeUnit.SECONDS);
+		Future<Integer> segunda = executor.submit(() -> execucao.executar(1L, () -> chamadas.incrementAndGet()));
+		Thread.sleep(100);
+		liberar.countDown();
+
+		// Verificação
+		Assertions.assertThat(primeira.get(5, TimeUnit.SECONDS)).isEqualTo(10);
+		Assertions.assertThat(segunda.get(5, TimeUnit.SECONDS)).isEqualTo(10);
+		Assertions.assertThat(chamadas.get()).isEqualTo(1);
+		executor.shutdown();
+	}
+
+	@Test
+	public void naoAguardarExecucaoInvalidada() throws Exception {
+		// Depois de invalidar, uma nova chamada executa de novo em vez de aguardar a que já estava em andamento
+
+		// Cenário
+		ExecucaoCompartilhada<Long, Integer> execucao = new ExecucaoCompartilhada<>("teste");
+		CountDownLatch iniciou = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<Integer> antiga = executor.submit(() -> execucao.executar(1L, () -> {
+			iniciou.countDown();
+			aguardar(liberar);
+			return 10;
+		}));
+		iniciou.await(5, TimeUnit.SECONDS);
+
+		// Execução
+		execucao.invalidar(1L);
+		Integer nova = execucao.executar(1L, () -> 20);
+		liberar.countDown();
+
+		// Verificação
+		Assertions.assertThat(nova).isEqualTo(20);
+		Assertions.assertThat(antiga.get(5, TimeUnit.SECONDS)).isEqualTo(10);
+		executor.shutdown();
+	}
+
+	@Test
+	public void executarNovamenteAposTermino() {
+		// Uma chamada posterior ao término não deve reaproveitar o resultado anterior
+
+		// Cenário
+		ExecucaoCompartilhada<Long, Integer> execucao = new ExecucaoCompartilhada<>("teste");
+		AtomicInteger chamadas = new AtomicInteger();
+
+		// Execução
+		execucao.executar(1L, chamadas::incrementAndGet);
+		Integer resultado = execucao.executar(1L, chamadas::incrementAndGet);
+
+		// Verificação
+		Assertions.assertThat(resultado).isEqualTo(2);
+	}
+
+	@Test
+	public void propagarErro() {
+		// O erro da computação deve ser repassado a quem chamou
+
+		// Cenário
+		ExecucaoCompartilhada<Long, Integer> execucao = new ExecucaoCompartilhada<>("teste");
+
+		// Execução e Verificação
+		Throwable erro = Assertions.catchThrowable(() -> execucao.executar(1L, () -> {
+			throw new RegraNegocioException("falha");
+		}));
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("falha");
+	}
+
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
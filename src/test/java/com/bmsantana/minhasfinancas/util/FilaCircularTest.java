@@ -0,0 +1,76 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FilaCircularTest {
+
+	@Test
+	public void recusarQuandoCheia() {
+		// Com a fila cheia o produtor deve ser recusado sem bloquear
+
+		// Cenário
+		FilaCircular<Integer> fila = new FilaCircular<>(3);
+
+		// Execução
+		for(int i = 0; i < 4; i++) {
+			Assertions.assertThat(fila.oferecer(i)).isTrue();
+		}
+		boolean aceitou = fila.oferecer(4);
+
+		// Verificação
+		Assertions.assertThat(fila.capacidade()).isEqualTo(4);
+		Assertions.assertThat(aceitou).isFalse();
+		List<Integer> itens = new ArrayList<>();
+		fila.drenar(itens, 10);
+		Assertions.assertThat(itens).containsExactly(0, 1, 2, 3);
+		Assertions.assertThat(fila.oferecer(5)).isTrue();
+	}
+
+	@Test
+	public void entregarItensDeVariosProdutoresSemPerdaNemRepeticao() throws Exception {
+		// Itens de produtores concorrentes devem chegar todos, uma única vez
+
+		// Cenário
+		FilaCircular<Integer> fila = new FilaCircular<>(64);
+		int produtores = 4;
+		int porProdutor = 20000;
+		ExecutorService executor = Executors.newFixedThreadPool(produtores);
+
+		// Execução
+		for(int p = 0; p < produtores; p++) {
+			int base = p * porProdutor;
+			executor.submit(() -> {
+				for(int i = 0; i < porProdutor; i++) {
+					while(!fila.oferecer(base + i)) {
+						Thread.yield();
+					}
+				}
+			});
+		}
+		Set<Integer> recebidos = new HashSet<>();
+		List<Integer> lote = new ArrayList<>();
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while(recebidos.size() < produtores * porProdutor && System.nanoTime() < limite) {
+			fila.drenar(lote, 128);
+			for(Integer item : lote) {
+				Assertions.assertThat(recebidos.add(item)).isTrue();
+			}
+			lote.clear();
+		}
+		executor.shutdown();
+
+		// Verificação
+		Assertions.assertThat(recebidos).hasSize(produtores * porProdutor);
+		Assertions.assertThat(fila.tamanho()).isZero();
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.bmsantana.minhasfinancas.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FiltroBloomTest {
+
+	@Test
+	public void encontrarTodosOsIncluidos() {
+		// Um valor incluído nunca pode ser dado como ausente
+
+		// Cenário
+		FiltroBloom filtro = new FiltroBloom(10000, 0.01);
+
+		// Execução
+		for(int i = 0; i < 10000; i++) {
+			filtro.incluir("usuario" + i + "@email.com");
+		}
+
+		// Verificação
+		for(int i = 0; i < 10000; i++) {
+			Assertions.assertThat(filtro.talvezContenha("usuario" + i + "@email.com")).isTrue();
+		}
+	}
+
+	@Test
+	public void manterTaxaDeFalsoPositivoProximaDaConfigurada() {
+		// Com a quantidade esperada de elementos, poucos ausentes devem ser dados como presentes
+
+		// Cenário
+		FiltroBloom filtro = new FiltroBloom(10000, 0.01);
+		for(int i = 0; i < 10000; i++) {
+			filtro.incluir("usuario" + i + "@email.com");
+		}
+
+		// Execução
+		int falsosPositivos = 0;
+		for(int i = 0; i < 10000; i++) {
+			if(filtro.talvezContenha("outro" + i + "@email.com")) {
+				falsosPositivos++;
+			}
+		}
+
+		// Verificação
+		Assertions.assertThat(falsosPositivos).isLessThan(200);
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FragmentosJsonTest {
+
+	private static byte[] json(String texto) {
+		return texto.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void devolverSomenteParaAMesmaAssinatura() {
+		// Um fragmento guardado para outro estado da entidade não deve ser devolvido
+
+		// Cenário
+		FragmentosJson fragmentos = new FragmentosJson("teste", 1024);
+		fragmentos.guardar(1L, 10L, json("{\"id\":1}"));
+
+		// Execução e Verificação
+		Assertions.assertThat(fragmentos.obter(1L, 10L)).isEqualTo(json("{\"id\":1}"));
+		Assertions.assertThat(fragmentos.obter(1L, 11L)).isNull();
+		Assertions.assertThat(fragmentos.obter(2L, 10L)).isNull();
+	}
+
+	@Test
+	public void descartarMaisAntigosAcimaDoLimite() {
+		// Passando do limite de bytes, os fragmentos mais antigos devem sair
+
+		// Cenário
+		FragmentosJson fragmentos = new FragmentosJson("teste", 400);
+
+		// Execução
+		for(long id = 1; id <= 4; id++) {
+			fragmentos.guardar(id, id, new byte[50]);
+		}
+
+		// Verificação
+		Assertions.assertThat(fragmentos.obter(1L, 1L)).isNull();
+		Assertions.assertThat(fragmentos.obter(2L, 2L)).isNull();
+		Assertions.assertThat(fragmentos.obter(3L, 3L)).isNotNull();
+		Assertions.assertThat(fragmentos.obter(4L, 4L)).isNotNull();
+		Assertions.assertThat(fragmentos.bytes()).isLessThanOrEqualTo(400);
+	}
+
+	@Test
+	public void liberarAoRemover() {
+		// Remover deve devolver os bytes do fragmento
+
+		// Cenário
+		FragmentosJson fragmentos = new FragmentosJson("teste", 1024);
+		fragmentos.guardar(1L, 1L, new byte[100]);
+
+		// Execução
+		fragmentos.remover(1L);
+
+		// Verificação
+		Assertions.assertThat(fragmentos.obter(1L, 1L)).isNull();
+		Assertions.assertThat(fragmentos.bytes()).isZero();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class GeradorIdsTest {
+
+	private static final long INSTANTE = 1600000000000L;
+
+	@Test
+	public void gerarIdsCrescentesComNoEInstante() {
+		// Os ids de um nó crescem, levam o nó e o instante e cabem num número do JavaScript
+
+		// Cenário
+		GeradorIds gerador = new GeradorIds(5, () -> INSTANTE);
+
+		// Execução
+		long primeiro = gerador.gerar();
+		long segundo = gerador.gerar();
+
+		// Verificação
+		Assertions.assertThat(segundo).isGreaterThan(primeiro);
+		Assertions.assertThat(GeradorIds.no(primeiro)).isEqualTo(5);
+		Assertions.assertThat(GeradorIds.instante(primeiro)).isEqualTo(INSTANTE);
+		Assertions.assertThat(primeiro).isLessThan(1L << 53);
+	}
+
+	@Test
+	public void seguirNoProximoMilissegundoQuandoOContadorEstoura() {
+		// Com o relógio parado ou voltando, o gerador adianta o instante em vez de repetir ids
+
+		// Cenário
+		AtomicLong relogio = new AtomicLong(INSTANTE);
+		GeradorIds gerador = new GeradorIds(1, relogio::get);
+		List<Long> ids = new ArrayList<>();
+
+		// Execução
+		for(int i = 0; i < 200; i++) {
+			ids.add(gerador.gerar());
+		}
+		relogio.set(INSTANTE - 10);
+		ids.add(gerador.gerar());
+
+		// Verificação
+		Assertions.assertThat(ids).isSorted().doesNotHaveDuplicates();
+		Assertions.assertThat(GeradorIds.instante(ids.get(199))).isEqualTo(INSTANTE + 3);
+		Assertions.assertThat(GeradorIds.instante(ids.get(200))).isEqualTo(INSTANTE + 3);
+	}
+
+	@Test
+	public void naoRepetirIdsEntreThreadsENos() throws Exception {
+		// Várias threads em dois nós não podem gerar o mesmo id
+
+		// Cenário
+		GeradorIds noA = new GeradorIds(0);
+		GeradorIds noB = new GeradorIds(1);
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		List<Future<List<Long>>> resultados = new ArrayList<>();
+
+		// Execução
+		for(int t = 0; t < 4; t++) {
+			GeradorIds gerador = t % 2 == 0 ? noA : noB;
+			resultados.add(threads.submit(() -> {
+				List<Long> ids = new ArrayList<>();
+				for(int i = 0; i < 20000; i++) {
+					ids.add(gerador.gerar());
+				}
+				return ids;
+			}));
+		}
+		Set<Long> todos = new HashSet<>();
+		for(Future<List<Long>> resultado : resultados) {
+			List<Long> ids = resultado.get();
+			Assertions.assertThat(ids).isSorted();
+			todos.addAll(ids);
+		}
+		threads.shutdown();
+
+		// Verificação
+		Assertions.assertThat(todos).hasSize(80000);
+	}
+
+	@Test
+	public void recusarNoForaDaFaixa() {
+		Assertions.assertThatThrownBy(() -> new GeradorIds(64)).isInstanceOf(IllegalArgumentException.class);
+		Assertions.assertThatThrownBy(() -> new GeradorIds(-1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
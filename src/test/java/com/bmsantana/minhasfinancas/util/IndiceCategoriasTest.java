@@ -0,0 +1,52 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IndiceCategoriasTest {
+
+	private IndiceCategorias criarIndice() {
+		IndiceCategorias indice = new IndiceCategorias(0);
+		indice.gravar(1, "Alimentação");
+		indice.gravar(2, "Transporte");
+		indice.gravar(3, "Transporte");
+		indice.gravar(4, null);
+		indice.gravar(5, "alimentacao");
+		return indice;
+	}
+
+	@Test
+	public void atualizarERemover() {
+		// Deve refletir alterações de categoria e exclusões
+		// Cenário
+		IndiceCategorias indice = criarIndice();
+
+		// Execução
+		indice.gravar(2, "Lazer");
+		indice.gravar(4, "lazer");
+		indice.remover(3);
+
+		// Verificação
+		Assertions.assertThat(indice.tamanho()).isEqualTo(4);
+		Assertions.assertThat(indice.grafias(Collections.singleton("transporte"))).isEmpty();
+		Assertions.assertThat(indice.grafias(Collections.singleton("LAZER"))).containsExactlyInAnyOrder("Lazer", "lazer");
+	}
+
+	@Test
+	public void obterGrafiasGravadasDaCategoria() {
+		// Deve devolver as grafias gravadas que equivalem à categoria, enquanto houver lançamento com cada uma
+		// Cenário
+		IndiceCategorias indice = criarIndice();
+
+		// Execução
+		indice.remover(1);
+
+		// Verificação
+		Assertions.assertThat(indice.grafias(Arrays.asList("ALIMENTAÇÃO", "transporte"))).containsExactlyInAnyOrder("alimentacao", "Transporte");
+		Assertions.assertThat(indice.grafias(Collections.singleton("lazer"))).isEmpty();
+	}
+
+}
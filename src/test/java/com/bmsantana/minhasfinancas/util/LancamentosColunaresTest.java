@@ -0,0 +1,73 @@
+package com.bmsantana.minhasfinancas.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.bmsantana.minhasfinancas.model.enums.StatusLancamento;
+import com.bmsantana.minhasfinancas.model.enums.TipoLancamento;
+
+public class LancamentosColunaresTest {
+
+	static final int RECEITA = TipoLancamento.RECEITA.ordinal();
+	static final int DESPESA = TipoLancamento.DESPESA.ordinal();
+	static final int PENDENTE = StatusLancamento.PENDENTE.ordinal();
+	static final int EFETIVADO = StatusLancamento.EFETIVADO.ordinal();
+
+	private LancamentosColunares criarDados() {
+		LancamentosColunares dados = new LancamentosColunares();
+		dados.gravar(1, LancamentosColunares.competencia(2019, 12), 10000, RECEITA, EFETIVADO);
+		dados.gravar(2, LancamentosColunares.competencia(2020, 1), 2550, DESPESA, PENDENTE);
+		dados.gravar(3, LancamentosColunares.competencia(2020, 1), 1000, DESPESA, EFETIVADO);
+		return dados;
+	}
+
+	@Test
+	public void totalizar() {
+		// Deve somar os valores por tipo, status e intervalo de competências
+		// Cenário
+		LancamentosColunares dados = criarDados();
+		int inicio = LancamentosColunares.competencia(2019, 1);
+		int fim = LancamentosColunares.competencia(2020, 12);
+
+		// Execução e Verificação
+		Assertions.assertThat(dados.total(DESPESA, LancamentosColunares.QUALQUER, inicio, fim)).isEqualTo(3550);
+		Assertions.assertThat(dados.total(DESPESA, PENDENTE, inicio, fim)).isEqualTo(2550);
+		Assertions.assertThat(dados.total(RECEITA, LancamentosColunares.QUALQUER, fim, fim)).isZero();
+	}
+
+	@Test
+	public void somarPorMes() {
+		// Deve acumular os valores de cada mês do intervalo
+		// Cenário
+		LancamentosColunares dados = criarDados();
+		int inicio = LancamentosColunares.competencia(2020, 1);
+		long[][] porMes = new long[2][12];
+
+		// Execução
+		dados.somarPorMes(inicio, inicio + 11, porMes);
+
+		// Verificação
+		Assertions.assertThat(porMes[DESPESA][0]).isEqualTo(3550);
+		Assertions.assertThat(porMes[RECEITA][0]).isZero();
+	}
+
+	@Test
+	public void atualizarERemover() {
+		// Deve substituir os valores de um id existente e remover mantendo os demais
+		// Cenário
+		LancamentosColunares dados = criarDados();
+		int inicio = LancamentosColunares.competencia(2019, 1);
+		int fim = LancamentosColunares.competencia(2020, 12);
+
+		// Execução
+		dados.gravar(2, LancamentosColunares.competencia(2020, 1), 2550, DESPESA, EFETIVADO);
+		dados.remover(1);
+		dados.remover(99);
+
+		// Verificação
+		Assertions.assertThat(dados.tamanho()).isEqualTo(2);
+		Assertions.assertThat(dados.total(DESPESA, EFETIVADO, inicio, fim)).isEqualTo(3550);
+		Assertions.assertThat(dados.total(RECEITA, LancamentosColunares.QUALQUER, inicio, fim)).isZero();
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.bmsantana.minhasfinancas.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LimiteAdaptativoTest {
+
+	private static final long MILISSEGUNDO = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/** Ocupa todas as vagas e devolve cada uma com a latência informada. */
+	private static void rodada(LimiteAdaptativo limite, long latencia) {
+		int ocupadas = 0;
+		while(limite.adquirir()) {
+			ocupadas++;
+		}
+		for(int i = 0; i < ocupadas; i++) {
+			limite.liberar(latencia);
+		}
+	}
+
+	@Test
+	public void recusarAcimaDoLimite() {
+		// Acima do limite a vaga deve ser recusada na hora, e liberada ao devolver
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 10, 2.0);
+
+		// Execução
+		boolean primeira = limite.adquirir();
+		boolean segunda = limite.adquirir();
+		boolean terceira = limite.adquirir();
+		limite.liberar(0);
+
+		// Verificação
+		Assertions.assertThat(primeira).isTrue();
+		Assertions.assertThat(segunda).isTrue();
+		Assertions.assertThat(terceira).isFalse();
+		Assertions.assertThat(limite.adquirir()).isTrue();
+	}
+
+	@Test
+	public void crescerComLatenciaEstavel() {
+		// Com todas as vagas em uso e latência estável o limite deve subir até o máximo
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(4, 1, 20, 2.0);
+
+		// Execução
+		for(int i = 0; i < 50; i++) {
+			rodada(limite, MILISSEGUNDO);
+		}
+
+		// Verificação
+		Assertions.assertThat(limite.limite()).isEqualTo(20);
+		Assertions.assertThat(limite.emExecucao()).isZero();
+	}
+
+	@Test
+	public void reduzirQuandoLatenciaSobe() {
+		// Latência bem acima da mínima indica fila e deve derrubar o limite
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 2, 20, 2.0);
+		rodada(limite, MILISSEGUNDO);
+
+		// Execução
+		for(int i = 0; i < 30; i++) {
+			rodada(limite, 20 * MILISSEGUNDO);
+		}
+
+		// Verificação
+		Assertions.assertThat(limite.limite()).isLessThan(8);
+	}
+
+	@Test
+	public void naoCrescerSemDemanda() {
+		// Com poucas vagas em uso o limite não deve crescer
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(10, 1, 40, 2.0);
+
+		// Execução
+		for(int i = 0; i < 100; i++) {
+			limite.adquirir();
+			limite.liberar(MILISSEGUNDO);
+		}
+
+		// Verificação
+		Assertions.assertThat(limite.limite()).isEqualTo(10);
+	}
+
+	@Test
+	public void reduzirAFalhas() {
+		// Execuções que falham derrubam o limite, mesmo sem latência medida
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 2, 20, 2.0);
+
+		// Execução
+		for(int i = 0; i < 10; i++) {
+			limite.adquirir();
+			limite.liberarComFalha();
+		}
+
+		// Verificação
+		Assertions.assertThat(limite.limite()).isLessThan(8);
+		Assertions.assertThat(limite.emExecucao()).isZero();
+	}
+
+	@Test
+	public void manterReferenciaSobSobrecargaContinua() {
+		// Ao fim da janela a referência vem das respostas mais rápidas dela, não da média já inflada pela fila
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 40, 2.0);
+		for(int i = 0; i < 500; i++) {
+			limite.adquirir();
+			limite.liberar(i < 60 ? 2 * MILISSEGUNDO : 20 * MILISSEGUNDO);
+		}
+
+		// Execução
+		for(int i = 0; i < 50; i++) {
+			rodada(limite, 20 * MILISSEGUNDO);
+		}
+
+		// Verificação
+		Assertions.assertThat(limite.limite()).isLessThan(8);
+	}
+
+	@Test
+	public void aguardarVagaDevolvida() throws Exception {
+		// Com espera, a vaga devolvida dentro do prazo é usada; sem devolução, desiste no prazo
+
+		// Cenário
+		LimiteAdaptativo limite = new LimiteAdaptativo(1, 1, 1, 2.0);
+		limite.adquirir();
+		CompletableFuture<Boolean> aguardando = CompletableFuture.supplyAsync(() -> {
+			try {
+				return limite.adquirir(TimeUnit.SECONDS.toNanos(5));
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(100);
+
+		// Execução
+		limite.liberar(0);
+
+		// Verificação
+		Assertions.assertThat(aguardando.get(5, TimeUnit.SECONDS)).isTrue();
+		long inicio = System.nanoTime();
+		Assertions.assertThat(limite.adquirir(TimeUnit.MILLISECONDS.toNanos(50))).isFalse();
+		Assertions.assertThat(System.nanoTime() - inicio).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+}
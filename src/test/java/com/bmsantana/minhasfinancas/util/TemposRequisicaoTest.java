@@ -0,0 +1,66 @@
+package com.bmsantana.minhasfinancas.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.bmsantana.minhasfinancas.util.TemposRequisicao.Fase;
+
+public class TemposRequisicaoTest {
+
+	@AfterEach
+	public void encerrar() {
+		TemposRequisicao.encerrar();
+	}
+
+	@Test
+	public void somarOcorrenciasDaFase() {
+		// As ocorrências da mesma fase devem ser somadas e só as fases ocorridas entram no cabeçalho
+
+		// Cenário
+		TemposRequisicao tempos = TemposRequisicao.iniciar();
+
+		// Execução
+		TemposRequisicao.registrar(Fase.SQL, TemposRequisicao.marcar());
+		TemposRequisicao.registrar(Fase.SQL, TemposRequisicao.marcar());
+		TemposRequisicao.registrar(Fase.USUARIO, TemposRequisicao.marcar());
+
+		// Verificação
+		Assertions.assertThat(tempos.ocorrencias(Fase.SQL)).isEqualTo(2);
+		Assertions.assertThat(tempos.ocorrencias(Fase.USUARIO)).isEqualTo(1);
+		Assertions.assertThat(tempos.cabecalho()).matches("usuario;dur=\\d+\\.\\d{2}, sql;dur=\\d+\\.\\d{2}, total;dur=\\d+\\.\\d{2}");
+		Assertions.assertThat(tempos.detalhamento()).contains("sql=").contains("ms x2");
+	}
+
+	@Test
+	public void ignorarForaDeRequisicao() {
+		// Sem requisição medida, marcar devolve 0 e nada é registrado
+
+		// Execução
+		long inicio = TemposRequisicao.marcar();
+		TemposRequisicao.registrar(Fase.JSON, inicio);
+
+		// Verificação
+		Assertions.assertThat(inicio).isZero();
+		Assertions.assertThat(TemposRequisicao.iniciar().ocorrencias(Fase.JSON)).isZero();
+	}
+
+	@Test
+	public void zerarAoIniciarNovaRequisicao() {
+		// A instância da thread é reaproveitada sem levar os tempos da requisição anterior
+
+		// Cenário
+		TemposRequisicao.iniciar();
+		TemposRequisicao.registrar(Fase.FLUSH, TemposRequisicao.marcar());
+		TemposRequisicao.encerrar();
+
+		// Execução
+		TemposRequisicao tempos = TemposRequisicao.iniciar();
+
+		// Verificação
+		Assertions.assertThat(tempos.ocorrencias(Fase.FLUSH)).isZero();
+		Assertions.assertThat(tempos.nanos(Fase.FLUSH)).isZero();
+		Assertions.assertThat(tempos.cabecalho()).startsWith("total;dur=");
+	}
+
+}
@@ -0,0 +1,89 @@
+create schema if not exists financas;
+
+create table if not exists financas.usuario (
+	id bigint primary key,
+	nome varchar(255),
+	email varchar(255),
+	senha varchar(255),
+	constraint uk_usuario_email unique (email)
+);
+
+create table if not exists financas.lancamento (
+	id bigint primary key,
+	descricao varchar(255),
+	categoria varchar(255),
+	mes integer,
+	ano integer,
+	id_usuario bigint references financas.usuario (id),
+	valor decimal(19, 2),
+	data_cadastro timestamp,
+	tipo varchar(255),
+	status varchar(255),
+	impressao bigint,
+	versao bigint
+);
+
+create table if not exists financas.lancamento_recorrente (
+	id bigint auto_increment primary key,
+	descricao varchar(255),
+	categoria varchar(255),
+	id_usuario bigint references financas.usuario (id),
+	valor decimal(19, 2),
+	tipo varchar(255),
+	proximo_mes integer,
+	proximo_ano integer,
+	mes_fim integer,
+	ano_fim integer,
+	ativo boolean not null,
+	data_cadastro timestamp
+);
+
+create table if not exists financas.orcamento_mensal (
+	id bigint auto_increment primary key,
+	id_usuario bigint references financas.usuario (id),
+	ano integer,
+	mes integer,
+	limite decimal(19, 2),
+	total_despesas decimal(19, 2),
+	constraint uk_orcamento_usuario_ano_mes unique (id_usuario, ano, mes)
+);
+
+create table if not exists financas.estatistica_mensal (
+	id bigint auto_increment primary key,
+	ano integer,
+	mes integer,
+	receitas decimal(19, 2),
+	despesas decimal(19, 2),
+	usuarios_ativos bigint,
+	data_processamento timestamp
+);
+
+create table if not exists financas.fechamento_mensal (
+	id bigint auto_increment primary key,
+	id_usuario bigint references financas.usuario (id),
+	ano integer,
+	mes integer,
+	movimento decimal(19, 2),
+	saldo decimal(19, 2),
+	constraint uk_fechamento_usuario_ano_mes unique (id_usuario, ano, mes)
+);
+
+create table if not exists financas.sequencia_alteracao (
+	id_usuario bigint primary key,
+	versao bigint,
+	versao_minima bigint
+);
+
+create table if not exists financas.lancamento_removido (
+	id bigint primary key,
+	id_usuario bigint,
+	versao bigint,
+	data_remocao timestamp
+);
+
+create table if not exists financas.regra_categoria (
+	id bigint auto_increment primary key,
+	id_usuario bigint references financas.usuario (id),
+	termo varchar(255),
+	categoria varchar(255)
+);